@@ -32,11 +32,17 @@
  */
 package org.smallmind.claxon.emitter.prometheus;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.smallmind.claxon.registry.PullEmitter;
 import org.smallmind.claxon.registry.Quantity;
+import org.smallmind.claxon.registry.StreamingPullEmitter;
 import org.smallmind.claxon.registry.Tag;
 import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
 
@@ -56,8 +62,28 @@ import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
  * unsupported characters with underscores. Double values are formatted as Prometheus literals
  * ({@code +Inf}, {@code -Inf}, {@code NaN}, {@code 0}, or the standard decimal
  * representation).
+ *
+ * <p>The rendered identifier of each series (mangled name, quantity and label set) is computed
+ * once and cached as UTF-8 bytes, so a scrape only formats values. Through the
+ * {@link StreamingPullEmitter} contract the exposition is written straight into the response
+ * stream, in either the classic Prometheus text format or the OpenMetrics text format, without
+ * building an intermediate {@link String}.
  */
-public class PrometheusEmitter extends PullEmitter<String> {
+public class PrometheusEmitter extends PullEmitter<String> implements StreamingPullEmitter {
+
+  /**
+   * Content type of the classic Prometheus text exposition format.
+   */
+  public static final String PROMETHEUS_TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  /**
+   * Content type of the OpenMetrics text exposition format.
+   */
+  public static final String OPEN_METRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+  private static final byte[] EOF_BYTES = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] ZERO_BYTES = "0".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] POSITIVE_INFINITY_BYTES = "+Inf".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NEGATIVE_INFINITY_BYTES = "-Inf".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NAN_BYTES = "NaN".getBytes(StandardCharsets.UTF_8);
 
   /**
    * Character category used to track transitions between letter types during name mangling.
@@ -98,6 +124,12 @@ public class PrometheusEmitter extends PullEmitter<String> {
    */
   private volatile ConcurrentHashMap<PrometheusKey, Double> writeMap = new ConcurrentHashMap<>();
 
+  /**
+   * Pre-rendered UTF-8 identifiers ({@code name:quantity{labels}} followed by a space), keyed
+   * by series. Entries for series that stop reporting are pruned during emission.
+   */
+  private final ConcurrentHashMap<PrometheusKey, byte[]> identifierMap = new ConcurrentHashMap<>();
+
   /*
   # HELP metric_name Description of the metric
   # TYPE metric_name type
@@ -137,46 +169,111 @@ public class PrometheusEmitter extends PullEmitter<String> {
   @Override
   public synchronized String emit () {
 
-    StringBuilder outputBuilder = new StringBuilder();
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+
+    try {
+      emit(byteStream, PROMETHEUS_TEXT_CONTENT_TYPE);
+    } catch (IOException ioException) {
+      // a ByteArrayOutputStream never throws
+      throw new IllegalStateException(ioException);
+    }
+
+    return byteStream.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Selects {@link #OPEN_METRICS_CONTENT_TYPE} when the scraper advertises
+   * {@code application/openmetrics-text}, and {@link #PROMETHEUS_TEXT_CONTENT_TYPE} otherwise.
+   *
+   * @param accept the raw value of the request's {@code Accept} header; may be {@code null}
+   * @return the negotiated content type
+   */
+  @Override
+  public String negotiateContentType (String accept) {
+
+    return ((accept != null) && accept.contains("application/openmetrics-text")) ? OPEN_METRICS_CONTENT_TYPE : PROMETHEUS_TEXT_CONTENT_TYPE;
+  }
+
+  /**
+   * Swaps the read and write buffers and streams all buffered metrics into {@code outputStream}.
+   * Both supported content types share the same sample syntax and the terminating
+   * {@code # EOF} line (a plain comment to the classic text parser), so the content type only
+   * affects what the caller advertises.
+   *
+   * @param outputStream the stream into which the exposition is written; flushed, not closed
+   * @param contentType  one of {@link #PROMETHEUS_TEXT_CONTENT_TYPE} or {@link #OPEN_METRICS_CONTENT_TYPE}
+   * @throws IOException if the stream cannot be written
+   */
+  @Override
+  public synchronized void emit (OutputStream outputStream, String contentType)
+    throws IOException {
+
+    BufferedOutputStream bufferedStream = new BufferedOutputStream(outputStream, 8192);
     ConcurrentHashMap<PrometheusKey, Double> tempMap;
 
     tempMap = readMap;
     readMap = writeMap;
     writeMap = tempMap;
 
-    for (Map.Entry<PrometheusKey, Double> traceEntry : readMap.entrySet()) {
-      format(outputBuilder, traceEntry.getKey()).append(' ').append(fromDouble(traceEntry.getValue())).append('\n');
+    try {
+      for (Map.Entry<PrometheusKey, Double> traceEntry : readMap.entrySet()) {
+        bufferedStream.write(identifierMap.computeIfAbsent(traceEntry.getKey(), this::render));
+        writeDouble(bufferedStream, traceEntry.getValue());
+        bufferedStream.write('\n');
+      }
+
+      bufferedStream.write(EOF_BYTES);
+      bufferedStream.flush();
+    } finally {
+      if (identifierMap.size() > readMap.size() * 2) {
+        identifierMap.keySet().retainAll(readMap.keySet());
+      }
+
+      readMap.clear();
     }
+  }
 
-    outputBuilder.append("# EOF\n");
-    readMap.clear();
+  /**
+   * Renders the identifier of a series, followed by the separating space, as UTF-8 bytes.
+   *
+   * @param prometheusKey the key holding meter name, quantity name, and tags
+   * @return the encoded identifier
+   */
+  private byte[] render (PrometheusKey prometheusKey) {
 
-    return outputBuilder.toString();
+    return format(new StringBuilder(), prometheusKey).append(' ').toString().getBytes(StandardCharsets.UTF_8);
   }
 
   /**
-   * Converts a {@code double} value to its Prometheus text representation.
+   * Writes a {@code double} value in its Prometheus text representation.
    *
    * <p>Special cases: {@link Double#POSITIVE_INFINITY} maps to {@code +Inf},
    * {@link Double#NEGATIVE_INFINITY} maps to {@code -Inf}, {@link Double#NaN} maps to
    * {@code NaN}, and {@code 0.0} maps to {@code "0"}. All other values use
-   * {@link Double#toString(double)}.
+   * {@link Double#toString(double)}, whose output is always ASCII.
    *
-   * @param value the value to format
-   * @return the Prometheus-compatible string representation of the value
+   * @param outputStream the stream to write to
+   * @param value        the value to format
+   * @throws IOException if the stream cannot be written
    */
-  private String fromDouble (double value) {
+  private void writeDouble (OutputStream outputStream, double value)
+    throws IOException {
 
     if (value == Double.POSITIVE_INFINITY) {
-      return "+Inf";
+      outputStream.write(POSITIVE_INFINITY_BYTES);
     } else if (value == Double.NEGATIVE_INFINITY) {
-      return "-Inf";
+      outputStream.write(NEGATIVE_INFINITY_BYTES);
     } else if (Double.isNaN(value)) {
-      return "NaN";
+      outputStream.write(NAN_BYTES);
     } else if (value == 0.0D) {
-      return "0";
+      outputStream.write(ZERO_BYTES);
     } else {
-      return Double.toString(value);
+
+      String formatted = Double.toString(value);
+
+      for (int index = 0; index < formatted.length(); index++) {
+        outputStream.write(formatted.charAt(index));
+      }
     }
   }
 
@@ -185,7 +282,8 @@ public class PrometheusEmitter extends PullEmitter<String> {
    *
    * <p>The identifier is composed of the mangled meter name, a colon separator, the mangled
    * quantity name, and an optional label set enclosed in braces. Labels are formatted as
-   * {@code key="value"} pairs separated by commas, with keys mangled to Prometheus format.
+   * {@code key="value"} pairs separated by commas, with keys mangled to Prometheus format and
+   * values escaped as the exposition formats require.
    *
    * @param outputBuilder the {@link StringBuilder} to append to
    * @param prometheusKey the key holding meter name, quantity name, and tags
@@ -206,7 +304,7 @@ public class PrometheusEmitter extends PullEmitter<String> {
           outputBuilder.append(',');
         }
 
-        mangle(outputBuilder, tag.getKey()).append("=\"").append(tag.getValue()).append('"');
+        escape(mangle(outputBuilder, tag.getKey()).append("=\""), tag.getValue()).append('"');
         first = false;
       }
       outputBuilder.append("}");
@@ -215,6 +313,38 @@ public class PrometheusEmitter extends PullEmitter<String> {
     return outputBuilder;
   }
 
+  /**
+   * Appends a label value, escaping backslash, double-quote and line feed characters as
+   * required by both the Prometheus text and OpenMetrics formats.
+   *
+   * @param outputBuilder the {@link StringBuilder} to append to
+   * @param value         the raw label value
+   * @return the same {@code outputBuilder} to allow call chaining
+   */
+  private StringBuilder escape (StringBuilder outputBuilder, String value) {
+
+    for (int index = 0; index < value.length(); index++) {
+
+      char singleChar = value.charAt(index);
+
+      switch (singleChar) {
+        case '\\':
+          outputBuilder.append("\\\\");
+          break;
+        case '"':
+          outputBuilder.append("\\\"");
+          break;
+        case '\n':
+          outputBuilder.append("\\n");
+          break;
+        default:
+          outputBuilder.append(singleChar);
+      }
+    }
+
+    return outputBuilder;
+  }
+
   /**
    * Normalises an arbitrary Java identifier or metric name to a Prometheus-compatible label or
    * metric name by converting camelCase boundaries to underscores and replacing any character
@@ -32,6 +32,9 @@
  */
 package org.smallmind.claxon.emitter.prometheus;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import org.smallmind.claxon.registry.Quantity;
 import org.smallmind.claxon.registry.Tag;
 import org.testng.Assert;
@@ -150,4 +153,46 @@ public class PrometheusEmitterTest {
 
     Assert.assertEquals(emitter.emit(), "m:c{us_east_1=\"value-with-dashes\"} 1.0\n# EOF\n");
   }
+
+  public void testTagValueIsEscaped () {
+
+    PrometheusEmitter emitter = new PrometheusEmitter();
+
+    emitter.record("m", new Tag[] {new Tag("path", "a\"b\\c\nd")}, new Quantity[] {new Quantity("c", 1.0)});
+
+    Assert.assertEquals(emitter.emit(), "m:c{path=\"a\\\"b\\\\c\\nd\"} 1.0\n# EOF\n");
+  }
+
+  public void testStreamingEmitMatchesStringEmit ()
+    throws IOException {
+
+    PrometheusEmitter emitter = new PrometheusEmitter();
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+
+    emitter.record("httpRequests", new Tag[] {new Tag("env", "prod")}, new Quantity[] {new Quantity("count", 5.0)});
+    emitter.emit(byteStream, PrometheusEmitter.OPEN_METRICS_CONTENT_TYPE);
+
+    Assert.assertEquals(byteStream.toString(StandardCharsets.UTF_8), "http_requests:count{env=\"prod\"} 5.0\n# EOF\n");
+    Assert.assertEquals(emitter.emit(), "# EOF\n");
+  }
+
+  public void testCachedIdentifierIsReusedAcrossEmissions () {
+
+    PrometheusEmitter emitter = new PrometheusEmitter();
+
+    emitter.record("requests", null, new Quantity[] {new Quantity("count", 1.0)});
+    Assert.assertEquals(emitter.emit(), "requests:count 1.0\n# EOF\n");
+
+    emitter.record("requests", null, new Quantity[] {new Quantity("count", 2.0)});
+    Assert.assertEquals(emitter.emit(), "requests:count 2.0\n# EOF\n");
+  }
+
+  public void testNegotiateContentType () {
+
+    PrometheusEmitter emitter = new PrometheusEmitter();
+
+    Assert.assertEquals(emitter.negotiateContentType(null), PrometheusEmitter.PROMETHEUS_TEXT_CONTENT_TYPE);
+    Assert.assertEquals(emitter.negotiateContentType("text/plain;version=0.0.4;q=0.3,*/*;q=0.1"), PrometheusEmitter.PROMETHEUS_TEXT_CONTENT_TYPE);
+    Assert.assertEquals(emitter.negotiateContentType("application/openmetrics-text;version=1.0.0,text/plain;q=0.5"), PrometheusEmitter.OPEN_METRICS_CONTENT_TYPE);
+  }
 }
@@ -32,15 +32,22 @@
  */
 package org.smallmind.claxon.http;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.smallmind.claxon.registry.ClaxonRegistry;
 import org.smallmind.claxon.registry.Emitter;
 import org.smallmind.claxon.registry.EmitterMethod;
 import org.smallmind.claxon.registry.InvalidEmitterException;
 import org.smallmind.claxon.registry.PullEmitter;
+import org.smallmind.claxon.registry.StreamingPullEmitter;
 import org.smallmind.claxon.registry.UnknownEmitterException;
 
 /**
@@ -50,6 +57,12 @@ import org.smallmind.claxon.registry.UnknownEmitterException;
  * retrieved by issuing an HTTP GET to {@code /org/smallmind/claxon/emitter/{name}}. Only
  * emitters whose collection method is {@link EmitterMethod#PULL} are eligible; attempts to
  * access push emitters via this endpoint result in an {@link InvalidEmitterException}.
+ *
+ * <p>Emitters that also implement {@link StreamingPullEmitter} are streamed directly into the
+ * response body in the content type they negotiate from the request's {@code Accept} header,
+ * gzip-compressed when the request's {@code Accept-Encoding} allows it. If the JAX-RS runtime
+ * already applies its own gzip encoding filter, disable compression here with
+ * {@link #setCompress(boolean)} to avoid encoding the body twice.
  */
 @Path("/org/smallmind/claxon/emitter")
 public class EmitterResource {
@@ -59,6 +72,18 @@ public class EmitterResource {
    */
   private ClaxonRegistry registry;
 
+  /**
+   * Request headers injected by the JAX-RS runtime; {@code null} when the resource is invoked
+   * directly, in which case streaming emitters are served through {@link PullEmitter#emit()}.
+   */
+  @Context
+  private HttpHeaders httpHeaders;
+
+  /**
+   * Whether streamed responses may be gzip-compressed when the client accepts it.
+   */
+  private boolean compress = true;
+
   /**
    * No-argument constructor for use by dependency-injection frameworks and JAX-RS runtimes
    * that require a public no-arg constructor.
@@ -87,12 +112,25 @@ public class EmitterResource {
     this.registry = registry;
   }
 
+  /**
+   * Sets whether streamed responses may be gzip-compressed when the client accepts it.
+   * Defaults to {@code true}.
+   *
+   * @param compress {@code true} to honor {@code Accept-Encoding: gzip}
+   */
+  public void setCompress (boolean compress) {
+
+    this.compress = compress;
+  }
+
   /**
    * Fetches the current output of a named pull emitter.
    *
    * <p>The emitter identified by {@code name} is looked up in the configured registry. If
    * found and of type {@link EmitterMethod#PULL}, its {@link PullEmitter#emit()} method is
-   * invoked and the result is returned as an HTTP 200 response body.
+   * invoked and the result is returned as an HTTP 200 response body. When the emitter is a
+   * {@link StreamingPullEmitter} and request headers are available, the payload is instead
+   * written straight into the response stream in the negotiated content type.
    *
    * @param name the name of the registered emitter to invoke
    * @return an HTTP {@link Response} whose entity is the value produced by the emitter
@@ -111,9 +149,99 @@ public class EmitterResource {
       throw new UnknownEmitterException(name);
     } else if (!EmitterMethod.PULL.equals(emitter.getEmitterMethod())) {
       throw new InvalidEmitterException("Invalid collection method(%s) for emitter(%s)", emitter.getEmitterMethod(), name);
+    } else if ((httpHeaders != null) && (emitter instanceof StreamingPullEmitter)) {
+
+      StreamingPullEmitter streamingEmitter = (StreamingPullEmitter)emitter;
+      String contentType = streamingEmitter.negotiateContentType(httpHeaders.getHeaderString(HttpHeaders.ACCEPT));
+
+      if (compress && acceptsGzip(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+
+        return Response.ok((StreamingOutput)outputStream -> {
+          try (GZIPOutputStream gzipStream = new ResponseGzipStream(outputStream)) {
+            streamingEmitter.emit(gzipStream, contentType);
+          }
+        }, contentType).header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+      } else {
+
+        return Response.ok((StreamingOutput)outputStream -> streamingEmitter.emit(outputStream, contentType), contentType).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+      }
     } else {
 
       return Response.ok(((PullEmitter<?>)emitter).emit()).build();
     }
   }
+
+  /**
+   * Determines whether an {@code Accept-Encoding} header admits gzip, ignoring any coding
+   * explicitly refused with {@code q=0}.
+   *
+   * @param acceptEncoding the raw header value; may be {@code null}
+   * @return {@code true} if a gzip-encoded response is acceptable
+   */
+  private boolean acceptsGzip (String acceptEncoding) {
+
+    if (acceptEncoding != null) {
+      for (String coding : acceptEncoding.split(",")) {
+
+        String[] parts = coding.trim().split(";");
+        String name = parts[0].trim();
+
+        if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+
+          boolean refused = false;
+
+          for (int index = 1; index < parts.length; index++) {
+
+            String parameter = parts[index].trim().replace(" ", "");
+
+            if (parameter.matches("[qQ]=0(\\.0{0,3})?")) {
+              refused = true;
+            }
+          }
+
+          if (!refused) {
+
+            return true;
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * A gzip stream over the container's response stream which, when closed, writes the gzip trailer and
+   * frees its {@link java.util.zip.Deflater}, but leaves the response stream itself open for the container.
+   */
+  private static class ResponseGzipStream extends GZIPOutputStream {
+
+    /**
+     * Wraps the response stream.
+     *
+     * @param outputStream the container's response stream
+     * @throws IOException if the gzip header cannot be written
+     */
+    private ResponseGzipStream (OutputStream outputStream)
+      throws IOException {
+
+      super(outputStream, 8192);
+    }
+
+    /**
+     * Finishes the compressed data and releases the deflater's native memory, even if finishing fails.
+     *
+     * @throws IOException if the remaining compressed data cannot be written
+     */
+    @Override
+    public void close ()
+      throws IOException {
+
+      try {
+        finish();
+      } finally {
+        def.end();
+      }
+    }
+  }
 }
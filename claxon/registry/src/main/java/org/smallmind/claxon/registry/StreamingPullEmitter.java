@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.claxon.registry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Optional capability of a {@link PullEmitter} that can render its payload directly into an
+ * {@link OutputStream} rather than materializing it as a single object.
+ *
+ * <p>HTTP front ends (such as the {@code claxon-http} {@code EmitterResource}) check for this
+ * interface and, when present, negotiate a content type from the request's {@code Accept}
+ * header and stream the payload into the response body. Emitters that do not implement it
+ * continue to be served through {@link PullEmitter#emit()}.
+ */
+public interface StreamingPullEmitter {
+
+  /**
+   * Chooses the content type this emitter will produce for a request carrying the given
+   * {@code Accept} header.
+   *
+   * @param accept the raw value of the request's {@code Accept} header; may be {@code null}
+   * @return the full content type (including any version and charset parameters) that
+   * {@link #emit(OutputStream, String)} will produce
+   */
+  String negotiateContentType (String accept);
+
+  /**
+   * Renders the current payload into the supplied stream in the given content type. As with
+   * {@link PullEmitter#emit()}, this consumes the buffered readings. The stream is flushed but
+   * not closed; the caller owns its lifecycle.
+   *
+   * @param outputStream the stream into which the payload is written
+   * @param contentType  a content type previously returned by {@link #negotiateContentType(String)}
+   * @throws IOException if the stream cannot be written
+   */
+  void emit (OutputStream outputStream, String contentType)
+    throws IOException;
+}
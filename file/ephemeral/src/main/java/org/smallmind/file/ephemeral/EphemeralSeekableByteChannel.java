@@ -112,12 +112,9 @@ public class EphemeralSeekableByteChannel implements SeekableByteChannel {
       throw new ClosedChannelException();
     } else {
 
-      byte[] buffer = new byte[dst.remaining()];
-      int bytesRead = stream.asInputStream().read(buffer);
+      int bytesRead = stream.asInputStream().read(dst);
 
       if (bytesRead > 0) {
-        dst.put(buffer, 0, bytesRead);
-
         fileNode.getAttributes().setLastAccessTime(FileTime.fromMillis(System.currentTimeMillis()));
       }
 
@@ -145,14 +142,10 @@ public class EphemeralSeekableByteChannel implements SeekableByteChannel {
       throw new ClosedChannelException();
     } else {
 
-      byte[] buffer;
       int bytesWritten = src.remaining();
 
       if (bytesWritten > 0) {
-
-        buffer = new byte[bytesWritten];
-        src.get(buffer);
-        stream.asOutputStream().write(buffer);
+        stream.asOutputStream().write(src);
 
         fileNode.getAttributes().setLastAccessTime(FileTime.fromMillis(System.currentTimeMillis()));
         fileNode.getAttributes().setLastModifiedTime(FileTime.fromMillis(System.currentTimeMillis()));
@@ -175,6 +175,19 @@ public class KafkaConnector {
    */
   public Producer<Long, byte[]> createProducer (String clientId) {
 
+    return createProducer(clientId, 1000);
+  }
+
+  /**
+   * Creates a {@link Producer} as {@link #createProducer(String)} does, but bounding how long a send may block
+   * waiting for topic metadata or buffer space before it fails.
+   *
+   * @param clientId             client identifier reported to the broker for monitoring and tracing
+   * @param maxBlockMilliseconds the longest a send may block ({@code max.block.ms})
+   * @return a ready-to-use {@link Producer}; the caller is responsible for closing it
+   */
+  public Producer<Long, byte[]> createProducer (String clientId, long maxBlockMilliseconds) {
+
     Properties props = new Properties();
 
     props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, boostrapServers);
@@ -194,7 +207,7 @@ public class KafkaConnector {
     props.put(ProducerConfig.LINGER_MS_CONFIG, 0); // maybe 20ms or so, up to 500ms at the outside
     props.put(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, 1024 * 1024); // bytes, default is 1mb = 1024 * 1024
     props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384); // bytes, default is 16kb = 16384
-    props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000); // how long to block when the send buffer is full (and acks > 0?)
+    props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMilliseconds); // how long to block when the send buffer is full (and acks > 0?)
     // props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 60000); // how long to block when the send buffer is full (and acks > 0?)
     props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
     // props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
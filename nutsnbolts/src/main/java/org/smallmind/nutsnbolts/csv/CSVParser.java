@@ -36,9 +36,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.file.Path;
 
 /**
  * Configurable, event-driven CSV parser that reads a stream line-by-line and delegates each parsed record to a {@link CSVLineHandler}.
+ * Files may instead be parsed in bulk through {@link #parse(Path)}, which delegates to a {@link MappedCSVParser}.
  */
 public class CSVParser {
 
@@ -143,4 +145,28 @@ public class CSVParser {
 
     lineHandler.endDocument();
   }
+
+  /**
+   * Parses a CSV file in parallel memory-mapped chunks, delegating each record, in file order, to the registered
+   * {@link CSVLineHandler}. Line breaks within quoted fields are kept as written, rather than normalized as by
+   * {@link #parse(Reader)}.
+   *
+   * @param path the CSV file
+   * @throws IOException       if the file can not be read
+   * @throws CSVParseException if the CSV structure is invalid or the handler rejects a record
+   */
+  public synchronized void parse (Path path)
+    throws IOException, CSVParseException {
+
+    MappedCSVParser mappedParser = new MappedCSVParser();
+
+    mappedParser.setSkipHeader(skipHeader);
+    mappedParser.setTrimFields(trimFields);
+
+    lineHandler.startDocument();
+
+    mappedParser.parse(path, record -> lineHandler.handleFields(record.toArray()));
+
+    lineHandler.endDocument();
+  }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.csv;
+
+import java.nio.CharBuffer;
+
+/**
+ * A reusable view of one record parsed by {@link MappedCSVParser}, whose fields are ranges of the parser's
+ * decoded character buffer rather than separately allocated strings. Quotes are removed, and escaped quotes
+ * collapsed, in place, so reading a field copies nothing until a {@link String} is asked for.
+ */
+public class CSVRecord {
+
+  private char[] chars;
+  private int[] fields;
+  private int firstField;
+  private int fieldCount;
+
+  /**
+   * Points this view at a record.
+   *
+   * @param chars      the decoded characters
+   * @param fields     pairs of start offset and length, two entries per field
+   * @param firstField the index of the record's first field pair
+   * @param fieldCount the number of fields in the record
+   */
+  void reset (char[] chars, int[] fields, int firstField, int fieldCount) {
+
+    this.chars = chars;
+    this.fields = fields;
+    this.firstField = firstField;
+    this.fieldCount = fieldCount;
+  }
+
+  /**
+   * Returns the number of fields in this record.
+   *
+   * @return the field count
+   */
+  public int size () {
+
+    return fieldCount;
+  }
+
+  /**
+   * Returns a view of the field at the given index, valid only while this record is.
+   *
+   * @param index the field index
+   * @return the field's characters
+   * @throws IndexOutOfBoundsException if the index is not that of a field
+   */
+  public CharSequence getField (int index) {
+
+    int offset = offset(index);
+
+    return CharBuffer.wrap(chars, fields[offset], fields[offset + 1]);
+  }
+
+  /**
+   * Returns the field at the given index as a string.
+   *
+   * @param index the field index
+   * @return the field's value
+   * @throws IndexOutOfBoundsException if the index is not that of a field
+   */
+  public String getString (int index) {
+
+    int offset = offset(index);
+
+    return new String(chars, fields[offset], fields[offset + 1]);
+  }
+
+  /**
+   * Copies every field of this record into a new array.
+   *
+   * @return the field values, in order
+   */
+  public String[] toArray () {
+
+    String[] values = new String[fieldCount];
+
+    for (int index = 0; index < fieldCount; index++) {
+      values[index] = getString(index);
+    }
+
+    return values;
+  }
+
+  private int offset (int index) {
+
+    if ((index < 0) || (index >= fieldCount)) {
+      throw new IndexOutOfBoundsException("Field index(" + index + ") is out of range for a record of " + fieldCount + " fields");
+    }
+
+    return (firstField + index) * 2;
+  }
+}
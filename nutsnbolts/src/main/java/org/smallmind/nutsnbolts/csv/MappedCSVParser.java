@@ -0,0 +1,624 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulk CSV parser for large files, which memory-maps the file and parses it in chunks on an {@link Executor}.
+ *
+ * <p>The file is cut into chunks of about {@code chunkSize} bytes at record boundaries. A first, parallel pass
+ * counts the quote bytes in each nominal chunk, and the running parity of those counts tells whether each
+ * nominal boundary falls inside a quoted field, so each chunk can begin at the first line break that is not
+ * quoted, and line breaks within quoted fields never split a record. Chunks are then decoded and parsed in
+ * parallel, with at most {@code concurrencyLimit} in flight, each record being delivered as a reusable
+ * {@link CSVRecord} view over the decoded chunk. When {@code ordered}, the default, records are delivered on
+ * the calling thread in file order; otherwise each chunk's records are delivered, still in order within the
+ * chunk, by the thread which parsed it, and chunks interleave, so the handler must be thread safe.</p>
+ *
+ * <p>The quoting rules are those of {@link CSVReader}. Records end at {@code \n} or {@code \r\n}, and line breaks
+ * within quoted fields are kept as written. The charset must encode the quote, comma and line feed as the same
+ * single bytes as ASCII does, as UTF-8 and the ISO-8859 family do. A single record may not exceed 2GB.
+ * Defaults are 8MB chunks, UTF-8, the common fork-join pool, and one chunk in flight per processor.</p>
+ */
+public class MappedCSVParser {
+
+  private static final long QUOTE_BYTES = 0x2222222222222222L;
+  private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  private Executor executor = ForkJoinPool.commonPool();
+  private Charset charset = StandardCharsets.UTF_8;
+  private int chunkSize = 8 * 1024 * 1024;
+  private int concurrencyLimit = Runtime.getRuntime().availableProcessors();
+  private boolean skipHeader = false;
+  private boolean trimFields = false;
+  private boolean ordered = true;
+
+  /**
+   * Returns the executor on which chunks are parsed.
+   *
+   * @return the executor
+   */
+  public Executor getExecutor () {
+
+    return executor;
+  }
+
+  /**
+   * Sets the executor on which chunks are parsed.
+   *
+   * @param executor the executor
+   */
+  public void setExecutor (Executor executor) {
+
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the charset in which the file is decoded.
+   *
+   * @return the charset
+   */
+  public Charset getCharset () {
+
+    return charset;
+  }
+
+  /**
+   * Sets the charset in which the file is decoded.
+   *
+   * @param charset the charset, which must encode quote, comma and line feed as their single ASCII bytes
+   */
+  public void setCharset (Charset charset) {
+
+    this.charset = charset;
+  }
+
+  /**
+   * Returns the nominal size in bytes of each chunk.
+   *
+   * @return the chunk size
+   */
+  public int getChunkSize () {
+
+    return chunkSize;
+  }
+
+  /**
+   * Sets the nominal size in bytes of each chunk.
+   *
+   * @param chunkSize the chunk size; must be positive
+   */
+  public void setChunkSize (int chunkSize) {
+
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Returns the maximum number of chunks parsed, or held awaiting delivery, at once.
+   *
+   * @return the concurrency limit
+   */
+  public int getConcurrencyLimit () {
+
+    return concurrencyLimit;
+  }
+
+  /**
+   * Sets the maximum number of chunks parsed, or held awaiting delivery, at once.
+   *
+   * @param concurrencyLimit the concurrency limit; must be positive
+   */
+  public void setConcurrencyLimit (int concurrencyLimit) {
+
+    this.concurrencyLimit = concurrencyLimit;
+  }
+
+  /**
+   * Returns whether the first record of the file is a header row which is skipped.
+   *
+   * @return {@code true} if the header row is skipped
+   */
+  public boolean isSkipHeader () {
+
+    return skipHeader;
+  }
+
+  /**
+   * Configures whether the first record of the file is a header row which is skipped.
+   *
+   * @param skipHeader {@code true} to skip the header row
+   */
+  public void setSkipHeader (boolean skipHeader) {
+
+    this.skipHeader = skipHeader;
+  }
+
+  /**
+   * Returns whether leading and trailing whitespace is stripped from each field.
+   *
+   * @return {@code true} if field trimming is enabled
+   */
+  public boolean isTrimFields () {
+
+    return trimFields;
+  }
+
+  /**
+   * Configures whether leading and trailing whitespace is stripped from each field.
+   *
+   * @param trimFields {@code true} to trim fields
+   */
+  public void setTrimFields (boolean trimFields) {
+
+    this.trimFields = trimFields;
+  }
+
+  /**
+   * Returns whether records are delivered in file order on the calling thread.
+   *
+   * @return {@code true} if delivery is ordered
+   */
+  public boolean isOrdered () {
+
+    return ordered;
+  }
+
+  /**
+   * Configures whether records are delivered in file order on the calling thread, or as parsed on the
+   * parsing threads.
+   *
+   * @param ordered {@code true} for ordered delivery
+   */
+  public void setOrdered (boolean ordered) {
+
+    this.ordered = ordered;
+  }
+
+  /**
+   * Parses the file, delivering each record to the handler. If parsing or the handler fails, chunks still in
+   * flight are allowed to finish, delivering no further records, before the failure is thrown.
+   *
+   * @param path          the CSV file
+   * @param recordHandler the handler to which records are delivered
+   * @throws IOException       if the file can not be read
+   * @throws CSVParseException if the CSV structure is invalid or the handler rejects a record
+   */
+  public void parse (Path path, CSVRecordHandler recordHandler)
+    throws IOException, CSVParseException {
+
+    checkCharset();
+
+    try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+      ArrayDeque<CompletableFuture<ParsedChunk>> inFlightQueue = new ArrayDeque<>();
+      AtomicBoolean aborted = new AtomicBoolean();
+      long[] chunkStarts = locateChunks(fileChannel);
+      long fileSize = fileChannel.size();
+      int nextChunk = 0;
+
+      try {
+        while (nextChunk < chunkStarts.length) {
+          while ((nextChunk < chunkStarts.length) && (inFlightQueue.size() < Math.max(1, concurrencyLimit))) {
+
+            int chunkIndex = nextChunk++;
+
+            inFlightQueue.add(CompletableFuture.supplyAsync(() -> {
+              try {
+
+                return parseChunk(fileChannel, chunkStarts[chunkIndex], (chunkIndex + 1 < chunkStarts.length) ? chunkStarts[chunkIndex + 1] : fileSize, skipHeader && (chunkIndex == 0), ordered ? null : recordHandler, aborted);
+              } catch (IOException | CSVParseException exception) {
+                throw new CompletionException(exception);
+              }
+            }, executor));
+          }
+
+          deliver(await(inFlightQueue.poll()), recordHandler);
+        }
+
+        while (!inFlightQueue.isEmpty()) {
+          deliver(await(inFlightQueue.poll()), recordHandler);
+        }
+      } catch (IOException | CSVParseException | RuntimeException | Error throwable) {
+        aborted.set(true);
+        for (CompletableFuture<ParsedChunk> future : inFlightQueue) {
+          try {
+            future.join();
+          } catch (CompletionException | CancellationException exception) {
+            // the first failure is the one reported
+          }
+        }
+
+        throw throwable;
+      }
+    }
+  }
+
+  private void deliver (ParsedChunk parsedChunk, CSVRecordHandler recordHandler)
+    throws CSVParseException {
+
+    if (ordered && (parsedChunk != null)) {
+      parsedChunk.deliver(recordHandler);
+    }
+  }
+
+  /**
+   * Verifies the configured charset encodes the structural characters as single ASCII bytes, which the
+   * byte-level boundary search relies on.
+   */
+  private void checkCharset () {
+
+    try {
+      if (!Arrays.equals(charset.newEncoder().encode(CharBuffer.wrap("\",\n")).array(), 0, 3, new byte[] {'"', ',', '\n'}, 0, 3)) {
+        throw new IllegalArgumentException("The charset(" + charset.name() + ") does not encode quote, comma and line feed as single ASCII bytes");
+      }
+    } catch (CharacterCodingException characterCodingException) {
+      throw new IllegalArgumentException("The charset(" + charset.name() + ") can not encode quote, comma and line feed", characterCodingException);
+    }
+  }
+
+  /**
+   * Finds the byte offset at which each chunk starts, every one the start of a record.
+   *
+   * @param fileChannel the open file
+   * @return the ascending chunk start offsets, the first being 0, or an empty array for an empty file
+   * @throws IOException if the file can not be read
+   */
+  private long[] locateChunks (FileChannel fileChannel)
+    throws IOException, CSVParseException {
+
+    List<CompletableFuture<Long>> quoteCountList = new ArrayList<>();
+    long fileSize = fileChannel.size();
+    long[] chunkStarts;
+    long quotes = 0;
+    int nominalCount;
+    int chunkCount = 1;
+
+    if (fileSize == 0) {
+
+      return new long[0];
+    }
+
+    nominalCount = (int)((fileSize + chunkSize - 1) / chunkSize);
+    // the last nominal chunk's quotes bear on no later boundary
+    for (int index = 0; index < nominalCount - 1; index++) {
+
+      long nominalStart = (long)index * chunkSize;
+
+      quoteCountList.add(CompletableFuture.supplyAsync(() -> {
+        try {
+
+          return countQuotes(fileChannel.map(FileChannel.MapMode.READ_ONLY, nominalStart, chunkSize));
+        } catch (IOException ioException) {
+          throw new CompletionException(ioException);
+        }
+      }, executor));
+    }
+
+    chunkStarts = new long[nominalCount];
+    for (int index = 1; index < nominalCount; index++) {
+
+      long nominalStart = (long)index * chunkSize;
+      long boundary;
+
+      quotes += await(quoteCountList.get(index - 1));
+      if ((boundary = findBoundary(fileChannel.map(FileChannel.MapMode.READ_ONLY, nominalStart, Math.min(chunkSize, fileSize - nominalStart)), (quotes & 1) == 1)) >= 0) {
+        if ((boundary += nominalStart) < fileSize) {
+          chunkStarts[chunkCount++] = boundary;
+        }
+      }
+    }
+
+    return Arrays.copyOf(chunkStarts, chunkCount);
+  }
+
+  /**
+   * Counts the quote bytes in a buffer, a word at a time.
+   *
+   * @param buffer the bytes to examine
+   * @return the number of quote bytes
+   */
+  static long countQuotes (ByteBuffer buffer) {
+
+    long count = 0;
+    int limit = buffer.limit();
+    int index = 0;
+
+    for (; index + Long.BYTES <= limit; index += Long.BYTES) {
+
+      // zero the bytes which are quotes, then flag, exactly, each zero byte in its high bit
+      long word = buffer.getLong(index) ^ QUOTE_BYTES;
+
+      count += Long.bitCount(~(((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word | LOW_SEVEN_BITS));
+    }
+    for (; index < limit; index++) {
+      if (buffer.get(index) == '"') {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Finds the first record start in a buffer, which is just past the first line feed that is not quoted.
+   *
+   * @param buffer the bytes to examine
+   * @param quoted whether the buffer begins within a quoted field
+   * @return the offset within the buffer of the record start, or -1 if there is none
+   */
+  static int findBoundary (ByteBuffer buffer, boolean quoted) {
+
+    int limit = buffer.limit();
+
+    for (int index = 0; index < limit; index++) {
+      switch (buffer.get(index)) {
+        case '"':
+          quoted = !quoted;
+          break;
+        case '\n':
+          if (!quoted) {
+
+            return index + 1;
+          }
+          break;
+        default:
+      }
+    }
+
+    return -1;
+  }
+
+  private ParsedChunk parseChunk (FileChannel fileChannel, long start, long end, boolean skipFirst, CSVRecordHandler recordHandler, AtomicBoolean aborted)
+    throws IOException, CSVParseException {
+
+    CharBuffer charBuffer;
+    ParsedChunk parsedChunk;
+
+    if (aborted.get()) {
+
+      return null;
+    }
+
+    charBuffer = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE).decode(fileChannel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+    parsedChunk = new ParsedChunk(charBuffer.array(), charBuffer.limit(), trimFields);
+    parsedChunk.parse(skipFirst, recordHandler, aborted);
+
+    return parsedChunk;
+  }
+
+  private static <T> T await (CompletableFuture<T> future)
+    throws IOException, CSVParseException {
+
+    try {
+
+      return future.join();
+    } catch (CompletionException completionException) {
+
+      Throwable cause = completionException.getCause();
+
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else if (cause instanceof CSVParseException) {
+        throw (CSVParseException)cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+
+      throw completionException;
+    }
+  }
+
+  /**
+   * The records of one decoded chunk, held as start and length pairs over its characters, which quoted
+   * fields are unescaped over in place.
+   */
+  private static class ParsedChunk {
+
+    private final CSVRecord record = new CSVRecord();
+    private final char[] chars;
+    private final int length;
+    private final boolean trimFields;
+    private int[] fields = new int[64];
+    private int[] records = new int[16];
+    private int fieldCount;
+    private int recordCount;
+
+    private ParsedChunk (char[] chars, int length, boolean trimFields) {
+
+      this.chars = chars;
+      this.length = length;
+      this.trimFields = trimFields;
+    }
+
+    /**
+     * Parses every record of the chunk, delivering each to the handler as it is completed if one is given,
+     * and otherwise retaining them all for {@link #deliver(CSVRecordHandler)}.
+     *
+     * @param skipFirst     whether the first record is a header to be parsed but dropped
+     * @param recordHandler the handler for immediate delivery, or {@code null} to retain the records
+     * @param aborted       set when the parse as a whole has failed and delivery should stop
+     * @throws CSVParseException if the CSV structure is invalid or the handler rejects a record
+     */
+    private void parse (boolean skipFirst, CSVRecordHandler recordHandler, AtomicBoolean aborted)
+      throws CSVParseException {
+
+      int position = 0;
+
+      while (position < length) {
+
+        int recordStart = fieldCount;
+        boolean endOfRecord = false;
+
+        while (!endOfRecord) {
+          if ((position < length) && (chars[position] == '"')) {
+
+            int start = ++position;
+            int write = start;
+
+            while (true) {
+              if (position == length) {
+                throw new CSVParseException("Reached the end of the stream with an open quoted field");
+              } else if (chars[position] != '"') {
+                chars[write++] = chars[position++];
+              } else if ((position + 1 < length) && (chars[position + 1] == '"')) {
+                chars[write++] = '"';
+                position += 2;
+              } else {
+                position++;
+                break;
+              }
+            }
+
+            addField(start, write - start);
+
+            if (position == length) {
+              endOfRecord = true;
+            } else if (chars[position] == ',') {
+              position++;
+            } else if (chars[position] == '\n') {
+              position++;
+              endOfRecord = true;
+            } else if ((chars[position] == '\r') && ((position + 1 == length) || (chars[position + 1] == '\n'))) {
+              position = Math.min(length, position + 2);
+              endOfRecord = true;
+            } else {
+              throw new CSVParseException("The last character in a quoted field must be '\"'");
+            }
+          } else {
+
+            int start = position;
+            int end;
+
+            while ((position < length) && (chars[position] != ',') && (chars[position] != '\n')) {
+              if (chars[position++] == '"') {
+                throw new CSVParseException("The first character in a quoted field must be '\"'");
+              }
+            }
+
+            if ((position < length) && (chars[position] == ',')) {
+              end = position++;
+            } else {
+              end = position;
+              if ((end > start) && (chars[end - 1] == '\r')) {
+                end--;
+              }
+              position = Math.min(length, position + 1);
+              endOfRecord = true;
+            }
+
+            addField(start, end - start);
+          }
+        }
+
+        if (skipFirst) {
+          skipFirst = false;
+          fieldCount = recordStart;
+        } else if (recordHandler != null) {
+          if (aborted.get()) {
+
+            return;
+          }
+
+          record.reset(chars, fields, recordStart, fieldCount - recordStart);
+          recordHandler.handleRecord(record);
+          fieldCount = recordStart;
+        } else {
+          if (recordCount == records.length) {
+            records = Arrays.copyOf(records, recordCount * 2);
+          }
+          records[recordCount++] = fieldCount;
+        }
+      }
+    }
+
+    /**
+     * Delivers the retained records in order.
+     *
+     * @param recordHandler the handler to which records are delivered
+     * @throws CSVParseException if the handler rejects a record
+     */
+    private void deliver (CSVRecordHandler recordHandler)
+      throws CSVParseException {
+
+      int recordStart = 0;
+
+      for (int index = 0; index < recordCount; index++) {
+        record.reset(chars, fields, recordStart, records[index] - recordStart);
+        recordHandler.handleRecord(record);
+        recordStart = records[index];
+      }
+    }
+
+    private void addField (int start, int fieldLength) {
+
+      if (trimFields) {
+        while ((fieldLength > 0) && Character.isWhitespace(chars[start])) {
+          start++;
+          fieldLength--;
+        }
+        while ((fieldLength > 0) && Character.isWhitespace(chars[start + fieldLength - 1])) {
+          fieldLength--;
+        }
+      }
+
+      if ((fieldCount + 1) * 2 > fields.length) {
+        fields = Arrays.copyOf(fields, fields.length * 2);
+      }
+
+      fields[fieldCount * 2] = start;
+      fields[(fieldCount++ * 2) + 1] = fieldLength;
+    }
+  }
+}
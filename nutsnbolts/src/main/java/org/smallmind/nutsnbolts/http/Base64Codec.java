@@ -32,22 +32,40 @@
  */
 package org.smallmind.nutsnbolts.http;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import org.smallmind.nutsnbolts.io.ByteBufferInputStream;
+import java.util.Arrays;
+import java.util.Base64;
 
 /**
  * Provides Base64 encoding and decoding for strings, byte arrays, {@link ByteBuffer}s, and streams,
  * supporting standard, URL-safe, and custom alphabets with optional padding.
+ * <p>
+ * All paths work from bytes to bytes, building no intermediate strings. The standard and URL-safe
+ * alphabets are handed to {@link java.util.Base64}, whose block loops the JIT replaces with vectorized
+ * intrinsics on common platforms, while custom alphabets are table driven. Decoding keeps this codec's
+ * own, more lenient, rules for padding: input {@link java.util.Base64} rejects is decoded by those rules
+ * before it is refused. The characters at positions 62 and 63 must be ISO-8859-1 characters.
  */
 public final class Base64Codec {
 
   private static final String BASE64_BIBLE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+  private static final Base64.Encoder STANDARD_ENCODER = Base64.getEncoder();
+  private static final Base64.Encoder UNPADDED_STANDARD_ENCODER = Base64.getEncoder().withoutPadding();
+  private static final Base64.Encoder URL_SAFE_ENCODER = Base64.getUrlEncoder();
+  private static final Base64.Encoder UNPADDED_URL_SAFE_ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder STANDARD_DECODER = Base64.getDecoder();
+  private static final Base64.Decoder URL_SAFE_DECODER = Base64.getUrlDecoder();
+  private static final byte[] STANDARD_ALPHABET = createAlphabet('+', '/');
+  private static final byte[] URL_SAFE_ALPHABET = createAlphabet('-', '_');
+  private static final int[] STANDARD_INDEX = createIndex('+', '/');
+  private static final int[] URL_SAFE_INDEX = createIndex('-', '_');
+  private static final int STREAM_BLOCK_SIZE = 3 * 4096;
 
   /**
    * Encodes the UTF-8 bytes of a string to URL-safe Base64 ({@code -} and {@code _}) without padding.
@@ -169,7 +187,7 @@ public final class Base64Codec {
   public static String encode (byte[] bytes)
     throws IOException {
 
-    return encode(new ByteArrayInputStream(bytes), true, '+', '/');
+    return encodeAsString(bytes, 0, bytes.length, true, '+', '/');
   }
 
   /**
@@ -183,7 +201,7 @@ public final class Base64Codec {
   public static String encode (byte[] bytes, boolean includePadding)
     throws IOException {
 
-    return encode(new ByteArrayInputStream(bytes), includePadding, '+', '/');
+    return encodeAsString(bytes, 0, bytes.length, includePadding, '+', '/');
   }
 
   /**
@@ -198,7 +216,7 @@ public final class Base64Codec {
   public static String encode (byte[] bytes, char char62, char char63)
     throws IOException {
 
-    return encode(new ByteArrayInputStream(bytes), true, char62, char63);
+    return encodeAsString(bytes, 0, bytes.length, true, char62, char63);
   }
 
   /**
@@ -214,7 +232,7 @@ public final class Base64Codec {
   public static String encode (byte[] bytes, boolean includePadding, char char62, char char63)
     throws IOException {
 
-    return encode(new ByteArrayInputStream(bytes), includePadding, char62, char63);
+    return encodeAsString(bytes, 0, bytes.length, includePadding, char62, char63);
   }
 
   /**
@@ -227,7 +245,7 @@ public final class Base64Codec {
   public static String encode (ByteBuffer buffer)
     throws IOException {
 
-    return encode(new ByteBufferInputStream(buffer), true, '+', '/');
+    return encodeAsString(buffer, true, '+', '/');
   }
 
   /**
@@ -241,7 +259,7 @@ public final class Base64Codec {
   public static String encode (ByteBuffer buffer, boolean includePadding)
     throws IOException {
 
-    return encode(new ByteBufferInputStream(buffer), includePadding, '+', '/');
+    return encodeAsString(buffer, includePadding, '+', '/');
   }
 
   /**
@@ -256,7 +274,7 @@ public final class Base64Codec {
   public static String encode (ByteBuffer buffer, char char62, char char63)
     throws IOException {
 
-    return encode(new ByteBufferInputStream(buffer), true, char62, char63);
+    return encodeAsString(buffer, true, char62, char63);
   }
 
   /**
@@ -272,7 +290,7 @@ public final class Base64Codec {
   public static String encode (ByteBuffer buffer, boolean includePadding, char char62, char char63)
     throws IOException {
 
-    return encode(new ByteBufferInputStream(buffer), includePadding, char62, char63);
+    return encodeAsString(buffer, includePadding, char62, char63);
   }
 
   /**
@@ -330,40 +348,129 @@ public final class Base64Codec {
   public static String encode (InputStream inputStream, boolean includePadding, char char62, char char63)
     throws IOException {
 
-    StringBuilder encodeBuilder = new StringBuilder();
-    byte[] triplet = new byte[3];
+    ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+
+    encode(inputStream, byteOutputStream, includePadding, char62, char63);
+
+    return byteOutputStream.toString(StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Encodes a stream to a stream in blocks, so that payloads of any size are encoded in bounded memory.
+   *
+   * @param inputStream    the stream to fully consume and encode
+   * @param outputStream   the stream to which the encoded bytes are written; it is not closed
+   * @param includePadding {@code true} to append {@code =} padding characters
+   * @param char62         character to use for index 62
+   * @param char63         character to use for index 63
+   * @throws IOException if reading or writing fails
+   */
+  public static void encode (InputStream inputStream, OutputStream outputStream, boolean includePadding, char char62, char char63)
+    throws IOException {
+
+    byte[] block = new byte[STREAM_BLOCK_SIZE];
+    int filled = 0;
     int bytesRead;
 
-    while ((bytesRead = inputStream.read(triplet)) >= 0) {
-      for (int index = 0; index < bytesRead; index++) {
-        switch (index) {
-          case 0:
-            encodeBuilder.append(charAtBase64Bible((triplet[0] & 0xFF) >>> 2, char62, char63));
-            break;
-          case 1:
-            encodeBuilder.append(charAtBase64Bible(((triplet[0] & 3) << 4) | ((triplet[1] & 0xFF) >>> 4), char62, char63));
-            break;
-          case 2:
-            encodeBuilder.append(charAtBase64Bible(((triplet[1] & 15) << 2) | ((triplet[2] & 0xFF) >>> 6), char62, char63));
-            encodeBuilder.append(charAtBase64Bible(triplet[2] & 63, char62, char63));
-            break;
-        }
+    // whole blocks are a multiple of 3 bytes long, so only the final one can need padding
+    while ((bytesRead = inputStream.read(block, filled, block.length - filled)) >= 0) {
+      if ((filled += bytesRead) == block.length) {
+        outputStream.write(encodeToBytes(block, 0, filled, includePadding, char62, char63));
+        filled = 0;
       }
+    }
 
-      if (bytesRead == 1) {
-        encodeBuilder.append(charAtBase64Bible((triplet[0] & 3) << 4, char62, char63));
-        if (includePadding) {
-          encodeBuilder.append('=').append('=');
-        }
-      } else if (bytesRead == 2) {
-        encodeBuilder.append(charAtBase64Bible((triplet[1] & 15) << 2, char62, char63));
-        if (includePadding) {
-          encodeBuilder.append('=');
-        }
-      }
+    if (filled > 0) {
+      outputStream.write(encodeToBytes(block, 0, filled, includePadding, char62, char63));
+    }
+  }
+
+  /**
+   * Encodes a byte array to standard Base64 bytes with {@code =} padding.
+   *
+   * @param bytes the data to encode
+   * @return the encoded ASCII bytes
+   */
+  public static byte[] encodeToBytes (byte[] bytes) {
+
+    return encodeToBytes(bytes, 0, bytes.length, true, '+', '/');
+  }
+
+  /**
+   * Encodes a byte array to URL-safe Base64 bytes ({@code -} and {@code _}) without padding.
+   *
+   * @param bytes the data to encode
+   * @return the encoded ASCII bytes
+   */
+  public static byte[] urlSafeEncodeToBytes (byte[] bytes) {
+
+    return encodeToBytes(bytes, 0, bytes.length, false, '-', '_');
+  }
+
+  /**
+   * Encodes a slice of a byte array to Base64 bytes using a custom alphabet and optional padding.
+   *
+   * @param bytes          the array holding the data to encode
+   * @param offset         the index of the first byte to encode
+   * @param length         the number of bytes to encode
+   * @param includePadding {@code true} to append {@code =} padding characters
+   * @param char62         character to use for index 62
+   * @param char63         character to use for index 63
+   * @return the encoded bytes
+   */
+  public static byte[] encodeToBytes (byte[] bytes, int offset, int length, boolean includePadding, char char62, char char63) {
+
+    Base64.Encoder encoder;
+
+    if ((encoder = jdkEncoder(includePadding, char62, char63)) != null) {
+
+      return encoder.encode(ByteBuffer.wrap(bytes, offset, length)).array();
     }
 
-    return encodeBuilder.toString();
+    return encodeWithAlphabet(bytes, offset, length, includePadding, alphabet(char62, char63));
+  }
+
+  /**
+   * Encodes the remaining bytes of a {@link ByteBuffer} to Base64 bytes using a custom alphabet and optional padding.
+   *
+   * @param buffer         the buffer to encode; consumed from its current position to its limit
+   * @param includePadding {@code true} to append {@code =} padding characters
+   * @param char62         character to use for index 62
+   * @param char63         character to use for index 63
+   * @return the encoded bytes
+   */
+  public static byte[] encodeToBytes (ByteBuffer buffer, boolean includePadding, char char62, char char63) {
+
+    Base64.Encoder encoder;
+
+    if ((encoder = jdkEncoder(includePadding, char62, char63)) != null) {
+
+      return encoder.encode(buffer).array();
+    } else if (buffer.hasArray()) {
+
+      byte[] encoded = encodeWithAlphabet(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), includePadding, alphabet(char62, char63));
+
+      buffer.position(buffer.limit());
+
+      return encoded;
+    } else {
+
+      byte[] bytes = new byte[buffer.remaining()];
+
+      buffer.get(bytes);
+
+      return encodeWithAlphabet(bytes, 0, bytes.length, includePadding, alphabet(char62, char63));
+    }
+  }
+
+  private static String encodeAsString (byte[] bytes, int offset, int length, boolean includePadding, char char62, char char63) {
+
+    return new String(encodeToBytes(bytes, offset, length, includePadding, char62, char63), StandardCharsets.ISO_8859_1);
+  }
+
+  private static String encodeAsString (ByteBuffer buffer, boolean includePadding, char char62, char char63) {
+
+    return new String(encodeToBytes(buffer, includePadding, char62, char63), StandardCharsets.ISO_8859_1);
   }
 
   /**
@@ -473,7 +580,7 @@ public final class Base64Codec {
   public static byte[] decode (byte[] bytes)
     throws IOException {
 
-    return decode(new ByteArrayInputStream(bytes), true, '+', '/');
+    return decode(bytes, 0, bytes.length, true, '+', '/');
   }
 
   /**
@@ -487,7 +594,7 @@ public final class Base64Codec {
   public static byte[] decode (byte[] bytes, boolean strict)
     throws IOException {
 
-    return decode(new ByteArrayInputStream(bytes), strict, '+', '/');
+    return decode(bytes, 0, bytes.length, strict, '+', '/');
   }
 
   /**
@@ -502,7 +609,7 @@ public final class Base64Codec {
   public static byte[] decode (byte[] bytes, char char62, char char63)
     throws IOException {
 
-    return decode(new ByteArrayInputStream(bytes), true, char62, char63);
+    return decode(bytes, 0, bytes.length, true, char62, char63);
   }
 
   /**
@@ -518,7 +625,7 @@ public final class Base64Codec {
   public static byte[] decode (byte[] bytes, boolean strict, char char62, char char63)
     throws IOException {
 
-    return decode(new ByteArrayInputStream(bytes), strict, char62, char63);
+    return decode(bytes, 0, bytes.length, strict, char62, char63);
   }
 
   /**
@@ -531,7 +638,7 @@ public final class Base64Codec {
   public static byte[] decode (ByteBuffer buffer)
     throws IOException {
 
-    return decode(new ByteBufferInputStream(buffer), true, '+', '/');
+    return decodeBuffer(buffer, true, '+', '/');
   }
 
   /**
@@ -545,7 +652,7 @@ public final class Base64Codec {
   public static byte[] decode (ByteBuffer buffer, boolean strict)
     throws IOException {
 
-    return decode(new ByteBufferInputStream(buffer), strict, '+', '/');
+    return decodeBuffer(buffer, strict, '+', '/');
   }
 
   /**
@@ -560,7 +667,7 @@ public final class Base64Codec {
   public static byte[] decode (ByteBuffer buffer, char char62, char char63)
     throws IOException {
 
-    return decode(new ByteBufferInputStream(buffer), true, char62, char63);
+    return decodeBuffer(buffer, true, char62, char63);
   }
 
   /**
@@ -576,7 +683,7 @@ public final class Base64Codec {
   public static byte[] decode (ByteBuffer buffer, boolean strict, char char62, char char63)
     throws IOException {
 
-    return decode(new ByteBufferInputStream(buffer), strict, char62, char63);
+    return decodeBuffer(buffer, strict, char62, char63);
   }
 
   /**
@@ -634,119 +741,276 @@ public final class Base64Codec {
   public static byte[] decode (InputStream inputStream, boolean strict, char char62, char char63)
     throws IOException {
 
-    ByteArrayOutputStream byteOutputStream;
-    boolean endOfStream;
-    byte[] buffer = new byte[4];
-    byte[] quartet = new byte[4];
+    byte[] bytes = inputStream.readAllBytes();
 
-    byteOutputStream = new ByteArrayOutputStream();
+    return decode(bytes, 0, bytes.length, strict, char62, char63);
+  }
 
-    do {
-      endOfStream = fillBuffer(inputStream, buffer, strict);
-      if ((!endOfStream) || (buffer[0] != '=') || (buffer[1] != '=') || (buffer[2] != '=') || (buffer[3] != '=')) {
-        if ((buffer[0] == '=') || (buffer[1] == '=') || ((buffer[2] == '=') && (buffer[3] != '='))) {
-          throw new UnsupportedEncodingException("Not a base64 encoded stream");
-        }
+  /**
+   * Decodes a slice of a Base64-encoded byte array using a custom alphabet, with configurable strictness.
+   *
+   * @param bytes  the array holding the Base64-encoded data
+   * @param offset the index of the first byte to decode
+   * @param length the number of bytes to decode
+   * @param strict {@code true} to throw when the input length is not a multiple of 4
+   * @param char62 character used for index 62 during encoding
+   * @param char63 character used for index 63 during encoding
+   * @return decoded byte array
+   * @throws IOException if the data is not valid Base64
+   */
+  public static byte[] decode (byte[] bytes, int offset, int length, boolean strict, char char62, char char63)
+    throws IOException {
 
-        for (int index = 0; index < buffer.length; index++) {
-          if ((quartet[index] = (byte)indexOfBase64Bible(buffer[index], char62, char63)) < 0) {
-            throw new UnsupportedEncodingException("Not a base64 encoded stream");
-          }
-        }
+    Base64.Decoder decoder;
 
-        byteOutputStream.write(((quartet[0] & 63) << 2) | ((quartet[1] & 48) >>> 4));
-        if (buffer[2] != '=') {
-          byteOutputStream.write(((quartet[1] & 15) << 4) | ((quartet[2] & 60) >>> 2));
-        }
-        if (buffer[3] != '=') {
-          byteOutputStream.write(((quartet[2] & 3) << 6) | (quartet[3] & 63));
-        }
+    if (strict && ((length % 4) != 0)) {
+      throw new UnsupportedEncodingException("Not a base64 encoded stream");
+    }
+
+    if ((decoder = jdkDecoder(char62, char63)) != null) {
+      try {
+
+        ByteBuffer decodedBuffer = decoder.decode(ByteBuffer.wrap(bytes, offset, length));
+
+        return (decodedBuffer.limit() == decodedBuffer.array().length) ? decodedBuffer.array() : Arrays.copyOf(decodedBuffer.array(), decodedBuffer.limit());
+      } catch (IllegalArgumentException illegalArgumentException) {
+        // padding which is not canonical, but which this codec tolerates, so decode by this codec's rules
       }
-    } while (!endOfStream);
+    }
 
-    return byteOutputStream.toByteArray();
+    return decodeWithIndex(bytes, offset, length, index(char62, char63));
+  }
+
+  private static byte[] decodeBuffer (ByteBuffer buffer, boolean strict, char char62, char char63)
+    throws IOException {
+
+    if (buffer.hasArray()) {
+
+      byte[] decoded = decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), strict, char62, char63);
+
+      buffer.position(buffer.limit());
+
+      return decoded;
+    } else {
+
+      byte[] bytes = new byte[buffer.remaining()];
+
+      buffer.get(bytes);
+
+      return decode(bytes, 0, bytes.length, strict, char62, char63);
+    }
+  }
+
+  private static Base64.Encoder jdkEncoder (boolean includePadding, char char62, char char63) {
+
+    if ((char62 == '+') && (char63 == '/')) {
+
+      return includePadding ? STANDARD_ENCODER : UNPADDED_STANDARD_ENCODER;
+    } else if ((char62 == '-') && (char63 == '_')) {
+
+      return includePadding ? URL_SAFE_ENCODER : UNPADDED_URL_SAFE_ENCODER;
+    }
+
+    return null;
+  }
+
+  private static Base64.Decoder jdkDecoder (char char62, char char63) {
+
+    if ((char62 == '+') && (char63 == '/')) {
+
+      return STANDARD_DECODER;
+    } else if ((char62 == '-') && (char63 == '_')) {
+
+      return URL_SAFE_DECODER;
+    }
+
+    return null;
+  }
+
+  private static byte[] alphabet (char char62, char char63) {
+
+    if ((char62 == '+') && (char63 == '/')) {
+
+      return STANDARD_ALPHABET;
+    } else if ((char62 == '-') && (char63 == '_')) {
+
+      return URL_SAFE_ALPHABET;
+    }
+
+    return createAlphabet(char62, char63);
+  }
+
+  private static int[] index (char char62, char char63) {
+
+    if ((char62 == '+') && (char63 == '/')) {
+
+      return STANDARD_INDEX;
+    } else if ((char62 == '-') && (char63 == '_')) {
+
+      return URL_SAFE_INDEX;
+    }
+
+    return createIndex(char62, char63);
   }
 
   /**
-   * Reads exactly four bytes into {@code buffer} from the stream, padding with {@code =} on EOF
-   * and optionally rejecting partial blocks.
+   * Creates the table mapping each six-bit value to its encoded byte.
    *
-   * @param inputStream source stream to read from
-   * @param buffer      four-byte destination buffer
-   * @param strict      {@code true} to throw if a partial block (1–3 bytes) is found at end of input
-   * @return {@code true} if end-of-stream was reached during or before this read
-   * @throws IOException if reading fails or a partial block is detected in strict mode
+   * @param char62 character representing index 62
+   * @param char63 character representing index 63
+   * @return the 64 entry alphabet
    */
-  private static boolean fillBuffer (InputStream inputStream, byte[] buffer, boolean strict)
-    throws IOException {
-
-    int bytesRead;
-    int offset = 0;
+  private static byte[] createAlphabet (char char62, char char63) {
 
-    do {
-      bytesRead = inputStream.read(buffer, offset, buffer.length - offset);
-    } while ((bytesRead >= 0) && ((offset += bytesRead) < buffer.length));
+    byte[] alphabet = new byte[64];
 
-    if (strict && (offset > 0) && (offset < buffer.length)) {
-      throw new UnsupportedEncodingException("Not a base64 encoded stream");
+    if ((char62 > 0xFF) || (char63 > 0xFF)) {
+      throw new IllegalArgumentException("The characters at positions 62 and 63 must be ISO-8859-1 characters");
     }
 
-    for (int index = offset; index < buffer.length; index++) {
-      buffer[index] = '=';
+    for (int index = 0; index < BASE64_BIBLE.length(); index++) {
+      alphabet[index] = (byte)BASE64_BIBLE.charAt(index);
     }
+    alphabet[62] = (byte)char62;
+    alphabet[63] = (byte)char63;
 
-    return bytesRead < 0;
+    return alphabet;
   }
 
   /**
-   * Maps a six-bit Base64 index to its corresponding character in the configured alphabet.
+   * Creates the table mapping each encoded byte to its six-bit value, 64 for padding, or -1 if it is not
+   * part of the alphabet. Padding takes precedence over the character at 63, which takes precedence over
+   * that at 62, which takes precedence over the rest of the alphabet.
    *
-   * @param index  value 0–63 or 64 to emit the padding character {@code =}
    * @param char62 character representing index 62
    * @param char63 character representing index 63
-   * @return the encoded Base64 character
+   * @return the 256 entry index
    */
-  private static char charAtBase64Bible (int index, char char62, char char63) {
+  private static int[] createIndex (char char62, char char63) {
 
-    if (index == 64) {
+    int[] index = new int[256];
 
-      return '=';
+    Arrays.fill(index, -1);
+    for (int position = 0; position < BASE64_BIBLE.length(); position++) {
+      index[BASE64_BIBLE.charAt(position)] = position;
+    }
+    // an encoded byte is compared as a signed value, so only ASCII characters can ever match
+    if (char62 < 0x80) {
+      index[char62] = 62;
+    }
+    if (char63 < 0x80) {
+      index[char63] = 63;
     }
-    if (index == 63) {
+    index['='] = 64;
+
+    return index;
+  }
+
+  /**
+   * Encodes through a table, three bytes to four at a time.
+   *
+   * @param bytes          the array holding the data to encode
+   * @param offset         the index of the first byte to encode
+   * @param length         the number of bytes to encode
+   * @param includePadding {@code true} to append {@code =} padding characters
+   * @param alphabet       the 64 entry alphabet
+   * @return the encoded bytes
+   */
+  private static byte[] encodeWithAlphabet (byte[] bytes, int offset, int length, boolean includePadding, byte[] alphabet) {
 
-      return char63;
+    int remainder = length % 3;
+    int end = offset + length - remainder;
+    int out = 0;
+    byte[] encoded = new byte[((length / 3) * 4) + ((remainder == 0) ? 0 : includePadding ? 4 : remainder + 1)];
+
+    for (int in = offset; in < end; in += 3) {
+
+      int bits = ((bytes[in] & 0xFF) << 16) | ((bytes[in + 1] & 0xFF) << 8) | (bytes[in + 2] & 0xFF);
+
+      encoded[out++] = alphabet[bits >>> 18];
+      encoded[out++] = alphabet[(bits >>> 12) & 63];
+      encoded[out++] = alphabet[(bits >>> 6) & 63];
+      encoded[out++] = alphabet[bits & 63];
     }
-    if (index == 62) {
 
-      return char62;
+    if (remainder > 0) {
+
+      int bits = ((bytes[end] & 0xFF) << 16) | ((remainder == 2) ? (bytes[end + 1] & 0xFF) << 8 : 0);
+
+      encoded[out++] = alphabet[bits >>> 18];
+      encoded[out++] = alphabet[(bits >>> 12) & 63];
+      if (remainder == 2) {
+        encoded[out++] = alphabet[(bits >>> 6) & 63];
+      }
+      if (includePadding) {
+        while (out < encoded.length) {
+          encoded[out++] = '=';
+        }
+      }
     }
 
-    return BASE64_BIBLE.charAt(index);
+    return encoded;
   }
 
   /**
-   * Finds the six-bit index for an encoded Base64 character in the configured alphabet.
+   * Decodes through a table by this codec's rules, four bytes at a time. Every whole block must begin with
+   * two characters of the alphabet and may end in padding, even mid-stream, and a final partial block is
+   * padded out, being ignored if it holds only padding.
    *
-   * @param singleChar the encoded byte to look up
-   * @param char62     character representing index 62 in this alphabet
-   * @param char63     character representing index 63 in this alphabet
-   * @return the decoded index (0–64 where 64 represents padding), or {@code -1} if not in the alphabet
+   * @param bytes  the array holding the Base64-encoded data
+   * @param offset the index of the first byte to decode
+   * @param length the number of bytes to decode
+   * @param index  the 256 entry index of the alphabet
+   * @return decoded byte array
+   * @throws UnsupportedEncodingException if the data is not valid Base64
    */
-  private static int indexOfBase64Bible (byte singleChar, char char62, char char63) {
+  private static byte[] decodeWithIndex (byte[] bytes, int offset, int length, int[] index)
+    throws UnsupportedEncodingException {
+
+    byte[] decoded = new byte[((length + 3) / 4) * 3];
+    byte[] block = new byte[4];
+    int remainder = length % 4;
+    int end = offset + length - remainder;
+    int out = 0;
 
-    if (singleChar == '=') {
+    for (int in = offset; in < end; in += 4) {
+      out = decodeBlock(bytes[in], bytes[in + 1], bytes[in + 2], bytes[in + 3], index, decoded, out);
+    }
 
-      return 64;
+    if (remainder > 0) {
+      Arrays.fill(block, (byte)'=');
+      System.arraycopy(bytes, end, block, 0, remainder);
+      if ((block[0] != '=') || (block[1] != '=') || (block[2] != '=')) {
+        out = decodeBlock(block[0], block[1], block[2], block[3], index, decoded, out);
+      }
     }
-    if (singleChar == char63) {
 
-      return 63;
+    return (out == decoded.length) ? decoded : Arrays.copyOf(decoded, out);
+  }
+
+  private static int decodeBlock (byte byte0, byte byte1, byte byte2, byte byte3, int[] index, byte[] decoded, int out)
+    throws UnsupportedEncodingException {
+
+    int quartet0;
+    int quartet1;
+    int quartet2;
+    int quartet3;
+
+    if ((byte0 == '=') || (byte1 == '=') || ((byte2 == '=') && (byte3 != '='))) {
+      throw new UnsupportedEncodingException("Not a base64 encoded stream");
+    }
+    if (((quartet0 = index[byte0 & 0xFF]) | (quartet1 = index[byte1 & 0xFF]) | (quartet2 = index[byte2 & 0xFF]) | (quartet3 = index[byte3 & 0xFF])) < 0) {
+      throw new UnsupportedEncodingException("Not a base64 encoded stream");
     }
-    if (singleChar == char62) {
 
-      return 62;
+    decoded[out++] = (byte)(((quartet0 & 63) << 2) | ((quartet1 & 48) >>> 4));
+    if (byte2 != '=') {
+      decoded[out++] = (byte)(((quartet1 & 15) << 4) | ((quartet2 & 60) >>> 2));
+    }
+    if (byte3 != '=') {
+      decoded[out++] = (byte)(((quartet2 & 3) << 6) | (quartet3 & 63));
     }
 
-    return BASE64_BIBLE.indexOf(singleChar);
+    return out;
   }
 }
@@ -39,7 +39,8 @@ import java.lang.annotation.Target;
 
 /**
  * Marks a method so that {@link LazyFieldAspect} caches its return value into the named field on the first call,
- * returning the cached value on all subsequent calls.
+ * returning the cached value on all subsequent calls. A method returning {@code null} is called again until it
+ * produces a value. The field may be declared on the class or any superclass, but may not be static or primitive.
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -49,4 +50,9 @@ public @interface LazyField {
    * @return name of the instance field on the declaring class that receives the computed value
    */
   String value ();
+
+  /**
+   * @return whether concurrent first calls may each run the method, or exactly one of them does
+   */
+  LazyInitialization initialization () default LazyInitialization.RACY;
 }
@@ -32,19 +32,41 @@
  */
 package org.smallmind.nutsnbolts.inject;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.smallmind.nutsnbolts.reflection.FieldAccessor;
-import org.smallmind.nutsnbolts.reflection.FieldUtility;
 
 /**
  * AspectJ aspect that intercepts calls to {@link LazyField}-annotated methods, computing the value once
- * and caching it in the designated field for all future calls.
+ * and caching it in the designated field for all future calls. The field is resolved into a
+ * {@link VarHandle} the first time a class is seen, after which each call is a single acquiring read;
+ * values are stored with release semantics, so they are safely published under either
+ * {@link LazyInitialization} mode. Under {@link LazyInitialization#EXACTLY_ONCE} the first caller to find the
+ * field empty registers an initialization for that instance alone, and its rivals wait on it before reading
+ * the field again. Exclusion is per instance, so initializing one instance never waits on another, and never
+ * uses the annotated instance's monitor, so the aspect can not contend or deadlock with code synchronizing on
+ * that instance.
  */
 @Aspect
 public class LazyFieldAspect {
 
+  private static final ClassValue<ConcurrentHashMap<String, LazySlot>> SLOT_VALUE = new ClassValue<>() {
+
+    @Override
+    protected ConcurrentHashMap<String, LazySlot> computeValue (Class<?> type) {
+
+      return new ConcurrentHashMap<>();
+    }
+  };
+
   /**
    * Intercepts any {@link LazyField}-annotated method invocation, returning the cached field value if already set
    * or delegating to the method and storing the result.
@@ -59,19 +81,233 @@ public class LazyFieldAspect {
   public Object aroundLazyMethod (ProceedingJoinPoint thisJoinPoint, LazyField lazyField, Object called)
     throws Throwable {
 
-    FieldAccessor fieldAccessor;
+    ConcurrentHashMap<String, LazySlot> slotMap;
+    LazySlot lazySlot;
+    Object fieldValue;
+
+    if ((lazySlot = (slotMap = SLOT_VALUE.get(called.getClass())).get(lazyField.value())) == null) {
+
+      LazySlot previousSlot;
+
+      // Racing callers must share the winning slot, as its registry of initializations is what makes them exactly once
+      if ((previousSlot = slotMap.putIfAbsent(lazyField.value(), lazySlot = new LazySlot(called.getClass(), lazyField.value(), thisJoinPoint.getSignature().getName()))) != null) {
+        lazySlot = previousSlot;
+      }
+    }
+
+    if ((fieldValue = lazySlot.get(called)) == null) {
+      if (LazyInitialization.EXACTLY_ONCE.equals(lazyField.initialization())) {
+        fieldValue = lazySlot.initialize(called, thisJoinPoint);
+      } else {
+        lazySlot.set(called, fieldValue = thisJoinPoint.proceed());
+      }
+    }
+
+    return fieldValue;
+  }
+
+  /**
+   * The resolved handles for reading and writing one lazily populated field of one class, and the
+   * initializations of that field currently running under {@link LazyInitialization#EXACTLY_ONCE}.
+   */
+  private static class LazySlot {
+
+    private final ConcurrentHashMap<InstanceKey, Initialization> initializationMap = new ConcurrentHashMap<>();
+    private final MethodHandle getAcquireHandle;
+    private final MethodHandle setReleaseHandle;
+    private final String fieldName;
 
-    if ((fieldAccessor = FieldUtility.getFieldAccessor(called.getClass(), lazyField.value())) == null) {
-      throw new LazyError("Missing field(%s) in type(%s) with @%s annotated method(%s)", lazyField.value(), called.getClass().getName(), LazyField.class.getSimpleName(), thisJoinPoint.getSignature().getName());
-    } else {
+    /**
+     * Locates the named instance field on the class or its superclasses and resolves its handles.
+     *
+     * @param type       the class of the annotated instance
+     * @param fieldName  the field named by the annotation
+     * @param methodName the annotated method, for error messages
+     * @throws LazyError if no suitable field exists or it can not be accessed
+     */
+    private LazySlot (Class<?> type, String fieldName, String methodName) {
 
+      Field field = locateField(type, fieldName, methodName);
+
+      this.fieldName = fieldName;
+
+      try {
+
+        VarHandle varHandle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectVarHandle(field);
+
+        getAcquireHandle = varHandle.toMethodHandle(VarHandle.AccessMode.GET_ACQUIRE).asType(MethodType.methodType(Object.class, Object.class));
+        setReleaseHandle = varHandle.toMethodHandle(VarHandle.AccessMode.SET_RELEASE).asType(MethodType.methodType(void.class, Object.class, Object.class));
+      } catch (IllegalAccessException illegalAccessException) {
+        throw new LazyError("Unable to access field(%s) in type(%s) with @%s annotated method(%s): %s", fieldName, type.getName(), LazyField.class.getSimpleName(), methodName, illegalAccessException.getMessage());
+      }
+    }
+
+    /**
+     * Finds the named, non-static, non-final and non-primitive field on the class or its superclasses.
+     *
+     * @param type       the class of the annotated instance
+     * @param fieldName  the field named by the annotation
+     * @param methodName the annotated method, for error messages
+     * @return the field
+     * @throws LazyError if no suitable field exists
+     */
+    private static Field locateField (Class<?> type, String fieldName, String methodName) {
+
+      Class<?> currentClass = type;
+
+      do {
+        for (Field field : currentClass.getDeclaredFields()) {
+          if (field.getName().equals(fieldName) && (!Modifier.isStatic(field.getModifiers()))) {
+            if (field.getType().isPrimitive()) {
+              throw new LazyError("The field(%s) in type(%s) with @%s annotated method(%s) can not be a primitive", fieldName, type.getName(), LazyField.class.getSimpleName(), methodName);
+            }
+            if (Modifier.isFinal(field.getModifiers())) {
+              throw new LazyError("The field(%s) in type(%s) with @%s annotated method(%s) can not be final", fieldName, type.getName(), LazyField.class.getSimpleName(), methodName);
+            }
+
+            return field;
+          }
+        }
+      } while ((currentClass = currentClass.getSuperclass()) != null);
+
+      throw new LazyError("Missing field(%s) in type(%s) with @%s annotated method(%s)", fieldName, type.getName(), LazyField.class.getSimpleName(), methodName);
+    }
+
+    /**
+     * Populates the field of the target exactly once. The caller whose initialization is registered first for the
+     * target runs the annotated method, while its rivals wait for it and then read the field again, retrying only
+     * if the method failed or returned {@code null}.
+     *
+     * @param target        the annotated instance
+     * @param thisJoinPoint the join point proceeding to the annotated method
+     * @return the field's value
+     * @throws Throwable if the annotated method throws, or the method reenters its own initialization
+     */
+    private Object initialize (Object target, ProceedingJoinPoint thisJoinPoint)
+      throws Throwable {
+
+      InstanceKey instanceKey = new InstanceKey(target);
+      Initialization initialization = new Initialization();
+      Initialization rivalInitialization;
       Object fieldValue;
 
-      if ((fieldValue = fieldAccessor.get(called)) == null) {
-        fieldAccessor.set(called, fieldValue = thisJoinPoint.proceed());
+      while ((rivalInitialization = initializationMap.putIfAbsent(instanceKey, initialization)) != null) {
+        if (rivalInitialization.getOwner() == Thread.currentThread()) {
+          throw new LazyError("The @%s annotated method(%s) recursively requires its own field(%s) in type(%s)", LazyField.class.getSimpleName(), thisJoinPoint.getSignature().getName(), fieldName, target.getClass().getName());
+        }
+
+        rivalInitialization.await();
+        if ((fieldValue = get(target)) != null) {
+
+          return fieldValue;
+        }
+      }
+
+      try {
+        // a rival may have populated the field and finished between our first read and our registration
+        if ((fieldValue = get(target)) == null) {
+          set(target, fieldValue = thisJoinPoint.proceed());
+        }
+
+        return fieldValue;
+      } finally {
+        initializationMap.remove(instanceKey);
+        initialization.complete();
       }
+    }
+
+    /**
+     * Reads the field with acquire semantics.
+     *
+     * @param target the annotated instance
+     * @return the field's current value
+     * @throws Throwable if the value can not be read
+     */
+    private Object get (Object target)
+      throws Throwable {
+
+      return (Object)getAcquireHandle.invokeExact(target);
+    }
+
+    /**
+     * Writes the field with release semantics.
+     *
+     * @param target the annotated instance
+     * @param value  the value to store
+     * @throws Throwable if the value can not be stored, e.g. it is not of the field's type
+     */
+    private void set (Object target, Object value)
+      throws Throwable {
+
+      setReleaseHandle.invokeExact(target, value);
+    }
+  }
+
+  /**
+   * Identifies an annotated instance by reference, whatever its own {@code equals()} and {@code hashCode()}.
+   */
+  private static class InstanceKey {
+
+    private final Object instance;
+
+    /**
+     * Constructs a key for the instance.
+     *
+     * @param instance the annotated instance
+     */
+    private InstanceKey (Object instance) {
+
+      this.instance = instance;
+    }
+
+    @Override
+    public int hashCode () {
+
+      return System.identityHashCode(instance);
+    }
+
+    @Override
+    public boolean equals (Object obj) {
+
+      return (obj instanceof InstanceKey) && (((InstanceKey)obj).instance == instance);
+    }
+  }
+
+  /**
+   * One running initialization of a field, which rival callers for the same instance wait on.
+   */
+  private static class Initialization {
+
+    private final CountDownLatch completionLatch = new CountDownLatch(1);
+    private final Thread owner = Thread.currentThread();
+
+    /**
+     * Returns the thread running the initialization.
+     *
+     * @return the owning thread
+     */
+    private Thread getOwner () {
+
+      return owner;
+    }
+
+    /**
+     * Waits until the initialization has finished, whether or not it succeeded.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void await ()
+      throws InterruptedException {
+
+      completionLatch.await();
+    }
+
+    /**
+     * Releases every caller waiting on the initialization.
+     */
+    private void complete () {
 
-      return fieldValue;
+      completionLatch.countDown();
     }
   }
 }
@@ -32,10 +32,11 @@
  */
 package org.smallmind.nutsnbolts.io;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
- * Mutable cursor into a segmented byte-array buffer, tracking a segment index and byte offset
+ * Mutable cursor into a segmented buffer, tracking a segment index and byte offset
  * and supporting positional arithmetic used by {@link ByteArrayIOStream}.
  */
 public class ByteArrayIOBookmark {
@@ -165,7 +166,7 @@ public class ByteArrayIOBookmark {
    * @return this bookmark for method chaining
    * @throws IllegalStateException if advancing would move beyond the limit
    */
-  public ByteArrayIOBookmark inc (ByteArrayIOBookmark limitBookmark, ArrayList<byte[]> segmentList) {
+  public ByteArrayIOBookmark inc (ByteArrayIOBookmark limitBookmark, List<ByteBuffer> segmentList) {
 
     if (segmentIndex < segmentList.size()) {
       if (++byteIndex == allocation) {
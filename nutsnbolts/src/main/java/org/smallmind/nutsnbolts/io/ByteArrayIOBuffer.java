@@ -33,46 +33,65 @@
 package org.smallmind.nutsnbolts.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Grows-on-demand byte storage composed of fixed-size segments, tracking a limit bookmark
  * that marks the logical end of data written by {@link ByteArrayIOStream}.
+ * <p>
+ * Segments come from a {@link SegmentProvider}, on the heap by default or off-heap from a
+ * {@link PooledDirectSegmentProvider}, and go back to it when the buffer is cleared or truncated, or when
+ * its last reference is released. A buffer starts with a single reference held by its creator, each
+ * {@link ByteArrayIOStream} opened over it holds another until closed, and the segments are returned
+ * once every holder has called {@link #release()}.
  */
 public class ByteArrayIOBuffer {
 
-  private final ArrayList<byte[]> segmentList = new ArrayList<>();
+  private final ArrayList<ByteBuffer> segmentList = new ArrayList<>();
+  private final AtomicInteger referenceCount = new AtomicInteger(1);
+  private final SegmentProvider segmentProvider;
   private final ByteArrayIOBookmark limitBookmark;
   private final int allocation;
 
   /**
-   * Creates an empty buffer whose segments each hold the specified number of bytes.
+   * Creates an empty buffer whose segments each hold the specified number of bytes on the heap.
    *
    * @param allocation number of bytes per segment
    */
   public ByteArrayIOBuffer (int allocation) {
 
-    this.allocation = allocation;
+    this(new HeapSegmentProvider(allocation));
+  }
+
+  /**
+   * Creates an empty buffer whose segments are drawn from the given provider.
+   *
+   * @param segmentProvider the source of this buffer's segments
+   */
+  public ByteArrayIOBuffer (SegmentProvider segmentProvider) {
+
+    this.segmentProvider = segmentProvider;
 
+    allocation = segmentProvider.getAllocation();
     limitBookmark = new ByteArrayIOBookmark(allocation);
   }
 
   /**
-   * Creates an independent deep copy of an existing buffer, duplicating all segment data and the limit bookmark.
+   * Creates an independent deep copy of an existing buffer, duplicating all segment data and the limit bookmark
+   * into segments drawn from the same provider.
    *
    * @param segmentBuffer the buffer to clone
    */
   public ByteArrayIOBuffer (ByteArrayIOBuffer segmentBuffer) {
 
+    segmentProvider = segmentBuffer.getSegmentProvider();
     allocation = segmentBuffer.getAllocation();
     limitBookmark = new ByteArrayIOBookmark(segmentBuffer.getLimitBookmark());
 
-    for (byte[] segment : segmentBuffer.getSegmentList()) {
-
-      byte[] copyOfSegment = new byte[segment.length];
-
-      System.arraycopy(segment, 0, copyOfSegment, 0, segment.length);
-      segmentList.add(copyOfSegment);
+    for (ByteBuffer segment : segmentBuffer.getSegmentList()) {
+      addSegment().put(0, segment, 0, allocation);
     }
   }
 
@@ -87,11 +106,23 @@ public class ByteArrayIOBuffer {
   }
 
   /**
-   * Returns the mutable list of fixed-size byte-array segments that back this buffer.
+   * Returns the provider from which this buffer draws its segments.
+   *
+   * @return the segment provider
+   */
+  public SegmentProvider getSegmentProvider () {
+
+    return segmentProvider;
+  }
+
+  /**
+   * Returns the mutable list of fixed-size segments that back this buffer. Segments are addressed absolutely,
+   * and should be added and removed through {@link #addSegment()} and {@link #removeLastSegment()} so that
+   * they are drawn from, and returned to, the provider.
    *
    * @return ordered list of segments
    */
-  public ArrayList<byte[]> getSegmentList () {
+  public ArrayList<ByteBuffer> getSegmentList () {
 
     return segmentList;
   }
@@ -107,14 +138,115 @@ public class ByteArrayIOBuffer {
   }
 
   /**
-   * Discards all segments and resets the limit bookmark to position zero.
+   * Appends a segment drawn from the provider.
+   *
+   * @return the appended segment
+   */
+  public ByteBuffer addSegment () {
+
+    ByteBuffer segment = segmentProvider.acquire();
+
+    segmentList.add(segment);
+
+    return segment;
+  }
+
+  /**
+   * Removes the last segment and returns it to the provider.
+   */
+  public void removeLastSegment () {
+
+    segmentProvider.release(segmentList.remove(segmentList.size() - 1));
+  }
+
+  /**
+   * Returns read-only views over the bytes between two absolute positions, one view per segment spanned,
+   * suitable for a gathering write to a {@link java.nio.channels.GatheringByteChannel}. The views share
+   * content with this buffer and are valid only until it is next modified.
+   *
+   * @param position the absolute position of the first byte to expose
+   * @param limit    the absolute position one past the last byte to expose
+   * @return the views, in order
+   * @throws IllegalArgumentException if the range is not within the written data
+   */
+  public ByteBuffer[] asByteBuffers (long position, long limit) {
+
+    if ((position < 0) || (position > limit) || (limit > limitBookmark.position())) {
+      throw new IllegalArgumentException("Range not within bounds");
+    } else if (position == limit) {
+
+      return new ByteBuffer[0];
+    } else {
+
+      int firstSegmentIndex = (int)(position / allocation);
+      int lastSegmentIndex = (int)((limit - 1) / allocation);
+      ByteBuffer[] views = new ByteBuffer[lastSegmentIndex - firstSegmentIndex + 1];
+
+      for (int segmentIndex = firstSegmentIndex; segmentIndex <= lastSegmentIndex; segmentIndex++) {
+
+        int start = (segmentIndex == firstSegmentIndex) ? (int)(position % allocation) : 0;
+        int end = (segmentIndex == lastSegmentIndex) ? (int)(((limit - 1) % allocation) + 1) : allocation;
+
+        views[segmentIndex - firstSegmentIndex] = segmentList.get(segmentIndex).slice(start, end - start).asReadOnlyBuffer();
+      }
+
+      return views;
+    }
+  }
+
+  /**
+   * Adds a reference to this buffer, which must be balanced by a later call to {@link #release()}.
+   *
+   * @return this buffer
+   * @throws IllegalStateException if every reference has already been released
+   */
+  public ByteArrayIOBuffer retain () {
+
+    int count;
+
+    do {
+      if ((count = referenceCount.get()) <= 0) {
+        throw new IllegalStateException("This buffer has already been released");
+      }
+    } while (!referenceCount.compareAndSet(count, count + 1));
+
+    return this;
+  }
+
+  /**
+   * Drops a reference to this buffer, returning its segments to the provider when the last is dropped.
+   *
+   * @throws IllegalStateException if every reference has already been released
+   */
+  public void release () {
+
+    int count;
+
+    if ((count = referenceCount.decrementAndGet()) == 0) {
+      releaseSegments();
+      limitBookmark.rewind();
+    } else if (count < 0) {
+      referenceCount.incrementAndGet();
+      throw new IllegalStateException("This buffer has already been released");
+    }
+  }
+
+  /**
+   * Discards all segments, returning them to the provider, and resets the limit bookmark to position zero.
    *
    * @throws IOException not currently thrown; declared for interface symmetry
    */
   public void clear ()
     throws IOException {
 
-    segmentList.clear();
+    releaseSegments();
     limitBookmark.rewind();
   }
+
+  private void releaseSegments () {
+
+    while (!segmentList.isEmpty()) {
+      removeLastSegment();
+    }
+  }
 }
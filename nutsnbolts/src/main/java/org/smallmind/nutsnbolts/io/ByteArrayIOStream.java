@@ -36,11 +36,18 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.charset.StandardCharsets;
 
 /**
  * In-memory stream backed by a segmented {@link ByteArrayIOBuffer} that exposes independent
  * input and output views, supports random positioning, truncation, and mark/reset semantics.
+ * <p>
+ * Bulk reads and writes copy a segment at a time, the {@link ByteBuffer} overloads move data without
+ * intermediate arrays, and the input view can hand its unread bytes to a
+ * {@link GatheringByteChannel} as per-segment views. Closing the stream releases its reference to the
+ * underlying {@link ByteArrayIOBuffer}.
  */
 public class ByteArrayIOStream implements Closeable {
 
@@ -66,19 +73,31 @@ public class ByteArrayIOStream implements Closeable {
    */
   public ByteArrayIOStream (int allocation) {
 
-    segmentBuffer = new ByteArrayIOBuffer(allocation);
-    readBookmark = new ByteArrayIOBookmark(allocation);
-    writeBookmark = new ByteArrayIOBookmark(allocation);
+    this(new HeapSegmentProvider(allocation));
   }
 
   /**
-   * Constructs a stream that operates over an already-populated {@link ByteArrayIOBuffer}.
+   * Constructs an empty stream whose segments are drawn from the given provider, and are returned to it
+   * when the stream is closed.
+   *
+   * @param segmentProvider the source of the stream's segments, such as a shared {@link PooledDirectSegmentProvider}
+   */
+  public ByteArrayIOStream (SegmentProvider segmentProvider) {
+
+    segmentBuffer = new ByteArrayIOBuffer(segmentProvider);
+    readBookmark = new ByteArrayIOBookmark(segmentProvider.getAllocation());
+    writeBookmark = new ByteArrayIOBookmark(segmentProvider.getAllocation());
+  }
+
+  /**
+   * Constructs a stream that operates over an already-populated {@link ByteArrayIOBuffer}, holding a
+   * reference to the buffer until the stream is closed. The caller's own reference is unaffected.
    *
    * @param segmentBuffer existing buffer to use as the backing store
    */
   public ByteArrayIOStream (ByteArrayIOBuffer segmentBuffer) {
 
-    this.segmentBuffer = segmentBuffer;
+    this.segmentBuffer = segmentBuffer.retain();
 
     readBookmark = new ByteArrayIOBookmark(segmentBuffer.getAllocation());
     writeBookmark = new ByteArrayIOBookmark(segmentBuffer.getAllocation());
@@ -95,12 +114,16 @@ public class ByteArrayIOStream implements Closeable {
   }
 
   /**
-   * Marks this stream as closed; subsequent operations on either the input or output view will throw.
+   * Marks this stream as closed and releases its reference to the underlying buffer; subsequent operations
+   * on either the input or output view will throw.
    */
   @Override
   public synchronized void close () {
 
-    closed = true;
+    if (!closed) {
+      closed = true;
+      segmentBuffer.release();
+    }
   }
 
   /**
@@ -157,15 +180,15 @@ public class ByteArrayIOStream implements Closeable {
       int truncatedSegmentCount = truncatedSegmentIndex + ((truncatedByteIndex) == 0 ? 0 : 1);
 
       while (segmentBuffer.getSegmentList().size() > truncatedSegmentCount) {
-        segmentBuffer.getSegmentList().remove(segmentBuffer.getSegmentList().size() - 1);
+        segmentBuffer.removeLastSegment();
       }
 
       if (truncatedByteIndex > 0) {
 
-        byte[] segment = segmentBuffer.getSegmentList().get(truncatedSegmentIndex);
+        ByteBuffer segment = segmentBuffer.getSegmentList().get(truncatedSegmentIndex);
 
         for (int index = truncatedByteIndex; index < segmentBuffer.getAllocation(); index++) {
-          segment[index] = 0;
+          segment.put(index, (byte)0);
         }
       }
 
@@ -206,17 +229,18 @@ public class ByteArrayIOStream implements Closeable {
    */
   public synchronized String toString () {
 
-    StringBuilder builder = new StringBuilder();
+    byte[] bytes = new byte[(int)segmentBuffer.getLimitBookmark().position()];
+    int offset = 0;
 
-    for (int index = 0; index < segmentBuffer.getSegmentList().size(); index++) {
-      if (index == segmentBuffer.getLimitBookmark().segmentIndex()) {
-        builder.append(new String(segmentBuffer.getSegmentList().get(index), 0, segmentBuffer.getLimitBookmark().byteIndex(), StandardCharsets.UTF_8));
-      } else {
-        builder.append(new String(segmentBuffer.getSegmentList().get(index), StandardCharsets.UTF_8));
-      }
+    for (ByteBuffer view : segmentBuffer.asByteBuffers(0, bytes.length)) {
+
+      int length = view.remaining();
+
+      view.get(bytes, offset, length);
+      offset += length;
     }
 
-    return builder.toString();
+    return new String(bytes, StandardCharsets.UTF_8);
   }
 
   /**
@@ -288,7 +312,7 @@ public class ByteArrayIOStream implements Closeable {
 
           ByteArrayIOBookmark peekBookmark = readBookmark.offset(segmentBuffer.getLimitBookmark(), index);
 
-          return segmentBuffer.getSegmentList().get(peekBookmark.segmentIndex())[peekBookmark.byteIndex()];
+          return segmentBuffer.getSegmentList().get(peekBookmark.segmentIndex()).get(peekBookmark.byteIndex());
         }
       }
     }
@@ -336,7 +360,7 @@ public class ByteArrayIOStream implements Closeable {
 
           byte singleByte;
 
-          singleByte = segmentBuffer.getSegmentList().get(readBookmark.segmentIndex())[readBookmark.byteIndex()];
+          singleByte = segmentBuffer.getSegmentList().get(readBookmark.segmentIndex()).get(readBookmark.byteIndex());
           readBookmark.inc(segmentBuffer.getLimitBookmark(), segmentBuffer.getSegmentList());
 
           return singleByte;
@@ -377,10 +401,15 @@ public class ByteArrayIOStream implements Closeable {
           } else {
 
             int bytesToRead = Math.min(bytesAvailable, len);
+            int bytesRead = 0;
+
+            while (bytesRead < bytesToRead) {
 
-            for (int index = 0; index < bytesToRead; index++) {
-              bytes[off + index] = segmentBuffer.getSegmentList().get(readBookmark.segmentIndex())[readBookmark.byteIndex()];
-              readBookmark.inc(segmentBuffer.getLimitBookmark(), segmentBuffer.getSegmentList());
+              int count = Math.min(bytesToRead - bytesRead, segmentBuffer.getAllocation() - readBookmark.byteIndex());
+
+              segmentBuffer.getSegmentList().get(readBookmark.segmentIndex()).get(readBookmark.byteIndex(), bytes, off + bytesRead, count);
+              readBookmark.position(readBookmark.position() + count);
+              bytesRead += count;
             }
 
             return bytesToRead;
@@ -389,6 +418,99 @@ public class ByteArrayIOStream implements Closeable {
       }
     }
 
+    /**
+     * Reads as many bytes as are available, up to the remaining space in {@code destination}, advancing
+     * the position of both.
+     *
+     * @param destination the buffer into which bytes are transferred
+     * @return number of bytes actually read, or {@code -1} on end of stream
+     * @throws IOException if the stream has been closed
+     */
+    public int read (ByteBuffer destination)
+      throws IOException {
+
+      synchronized (ByteArrayIOStream.this) {
+        if (closed) {
+          throw new IOException("This stream has already been closed");
+        } else if (!destination.hasRemaining()) {
+
+          return 0;
+        } else {
+
+          int bytesAvailable;
+
+          if ((bytesAvailable = available()) == 0) {
+
+            return -1;
+          } else {
+
+            int bytesToRead = Math.min(bytesAvailable, destination.remaining());
+            int bytesRead = 0;
+
+            while (bytesRead < bytesToRead) {
+
+              int count = Math.min(bytesToRead - bytesRead, segmentBuffer.getAllocation() - readBookmark.byteIndex());
+
+              destination.put(destination.position(), segmentBuffer.getSegmentList().get(readBookmark.segmentIndex()), readBookmark.byteIndex(), count);
+              destination.position(destination.position() + count);
+              readBookmark.position(readBookmark.position() + count);
+              bytesRead += count;
+            }
+
+            return bytesToRead;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns read-only views over the unread bytes, one per segment spanned, without consuming them. The
+     * views share content with the stream and are valid only until it is next written, truncated, or cleared.
+     *
+     * @return the views, in order
+     * @throws IOException if the stream has been closed
+     */
+    public ByteBuffer[] readableBuffers ()
+      throws IOException {
+
+      synchronized (ByteArrayIOStream.this) {
+        if (closed) {
+          throw new IOException("This stream has already been closed");
+        }
+
+        return segmentBuffer.asByteBuffers(readBookmark.position(), segmentBuffer.getLimitBookmark().position());
+      }
+    }
+
+    /**
+     * Writes the unread bytes to the channel in gathering writes straight from the segments, advancing the
+     * read position by the number of bytes the channel accepts.
+     *
+     * @param channel the channel to write to
+     * @return the number of bytes written, which may be fewer than were available if the channel is non-blocking
+     * @throws IOException if the stream has been closed or the channel fails
+     */
+    public long writeTo (GatheringByteChannel channel)
+      throws IOException {
+
+      synchronized (ByteArrayIOStream.this) {
+
+        ByteBuffer[] views = readableBuffers();
+        long bytesWritten = 0;
+        long bytesRemaining = available();
+        long count;
+
+        while ((bytesRemaining > 0) && ((count = channel.write(views)) > 0)) {
+          bytesWritten += count;
+          bytesRemaining -= count;
+        }
+
+        readBookmark.position(readBookmark.position() + bytesWritten);
+
+        return bytesWritten;
+      }
+    }
+
     /**
      * Advances the read position by up to {@code n} bytes and returns the count actually skipped.
      *
@@ -576,10 +698,10 @@ public class ByteArrayIOStream implements Closeable {
         }
 
         if (writeBookmark.segmentIndex() == segmentBuffer.getSegmentList().size()) {
-          segmentBuffer.getSegmentList().add(new byte[segmentBuffer.getAllocation()]);
+          segmentBuffer.addSegment();
         }
 
-        segmentBuffer.getSegmentList().get(writeBookmark.segmentIndex())[writeBookmark.byteIndex()] = (byte)b;
+        segmentBuffer.getSegmentList().get(writeBookmark.segmentIndex()).put(writeBookmark.byteIndex(), (byte)b);
 
         if (segmentBuffer.getLimitBookmark().equals(writeBookmark)) {
           segmentBuffer.getLimitBookmark().inc(segmentBuffer.getLimitBookmark(), segmentBuffer.getSegmentList());
@@ -607,15 +729,84 @@ public class ByteArrayIOStream implements Closeable {
           throw new NullPointerException();
         } else if (off < 0 || len < 0 || off > bytes.length || len > bytes.length - off) {
           throw new IndexOutOfBoundsException();
-        } else if (len > 0) {
+        } else {
+
+          int bytesWritten = 0;
+
+          while (bytesWritten < len) {
+
+            int count = Math.min(len - bytesWritten, prepareSegment());
+
+            segmentBuffer.getSegmentList().get(writeBookmark.segmentIndex()).put(writeBookmark.byteIndex(), bytes, off + bytesWritten, count);
+            moveWriteBookmark(count);
+            bytesWritten += count;
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes all the remaining bytes of {@code source}, advancing its position to its limit.
+     *
+     * @param source the buffer from which bytes are transferred
+     * @return the number of bytes written
+     * @throws IOException if the stream has been closed
+     */
+    public int write (ByteBuffer source)
+      throws IOException {
+
+      synchronized (ByteArrayIOStream.this) {
+        if (closed) {
+          throw new IOException("This stream has already been closed");
+        } else {
+
+          int bytesToWrite = source.remaining();
+          int bytesWritten = 0;
+
+          while (bytesWritten < bytesToWrite) {
+
+            int count = Math.min(bytesToWrite - bytesWritten, prepareSegment());
 
-          for (int index = off; index < off + len; index++) {
-            write(bytes[index]);
+            segmentBuffer.getSegmentList().get(writeBookmark.segmentIndex()).put(writeBookmark.byteIndex(), source, source.position(), count);
+            source.position(source.position() + count);
+            moveWriteBookmark(count);
+            bytesWritten += count;
           }
+
+          return bytesToWrite;
         }
       }
     }
 
+    /**
+     * Ensures a segment exists at the write position, returning the space left in it.
+     *
+     * @return bytes writable in the current segment
+     */
+    private int prepareSegment () {
+
+      if (writeBookmark.segmentIndex() == segmentBuffer.getSegmentList().size()) {
+        segmentBuffer.addSegment();
+      }
+
+      return segmentBuffer.getAllocation() - writeBookmark.byteIndex();
+    }
+
+    /**
+     * Moves the write position forward by {@code count} bytes, extending the limit if it is passed.
+     *
+     * @param count the number of bytes just written
+     */
+    private void moveWriteBookmark (int count) {
+
+      long position = writeBookmark.position() + count;
+
+      writeBookmark.position(position);
+      if (position > segmentBuffer.getLimitBookmark().position()) {
+        segmentBuffer.getLimitBookmark().position(position);
+      }
+    }
+
     /**
      * Moves the write position back to the very beginning of the stream without discarding existing data.
      *
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides heap segments, each freshly allocated and simply dropped for the garbage collector on
+ * release. This is the provider behind the {@code int} constructors of {@link ByteArrayIOBuffer} and
+ * {@link ByteArrayIOStream}, and suits small or long-lived buffers.
+ */
+public class HeapSegmentProvider implements SegmentProvider {
+
+  private final int allocation;
+
+  /**
+   * Creates a provider of heap segments of the given size.
+   *
+   * @param allocation number of bytes per segment
+   */
+  public HeapSegmentProvider (int allocation) {
+
+    if (allocation <= 0) {
+      throw new IllegalArgumentException("Allocation must be > 0");
+    }
+
+    this.allocation = allocation;
+  }
+
+  /**
+   * Returns the capacity of every segment this provider hands out.
+   *
+   * @return bytes per segment
+   */
+  @Override
+  public int getAllocation () {
+
+    return allocation;
+  }
+
+  /**
+   * Allocates a new zero-filled heap segment.
+   *
+   * @return the new segment
+   */
+  @Override
+  public ByteBuffer acquire () {
+
+    return ByteBuffer.allocate(allocation);
+  }
+
+  /**
+   * Does nothing, leaving the segment to the garbage collector.
+   *
+   * @param segment the segment being returned
+   */
+  @Override
+  public void release (ByteBuffer segment) {
+
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides direct (off-heap) segments from a shared pool, so that large transient buffers neither
+ * occupy the heap nor churn the garbage collector. Released segments are kept for reuse up to a bound,
+ * beyond which they are dropped and their native memory is reclaimed when collected. A single instance
+ * is meant to be shared by every buffer of a given segment size, and is safe for concurrent use.
+ * <p>
+ * Recycled segments are not cleared. A {@link ByteArrayIOBuffer} never exposes bytes beyond its limit,
+ * so stale content is not observable through it, but code holding onto a released segment can see the
+ * data of the segment's next owner.
+ */
+public class PooledDirectSegmentProvider implements SegmentProvider {
+
+  private final ConcurrentLinkedQueue<ByteBuffer> segmentQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooledCount = new AtomicInteger();
+  private final AtomicInteger allocatedCount = new AtomicInteger();
+  private final int allocation;
+  private final int maxPooled;
+
+  /**
+   * Creates a pool of direct segments of the given size, keeping at most {@code maxPooled} idle segments.
+   *
+   * @param allocation number of bytes per segment
+   * @param maxPooled  the maximum number of idle segments retained for reuse
+   */
+  public PooledDirectSegmentProvider (int allocation, int maxPooled) {
+
+    if (allocation <= 0) {
+      throw new IllegalArgumentException("Allocation must be > 0");
+    } else if (maxPooled < 0) {
+      throw new IllegalArgumentException("Max pooled must be >= 0");
+    }
+
+    this.allocation = allocation;
+    this.maxPooled = maxPooled;
+  }
+
+  /**
+   * Returns the capacity of every segment this provider hands out.
+   *
+   * @return bytes per segment
+   */
+  @Override
+  public int getAllocation () {
+
+    return allocation;
+  }
+
+  /**
+   * Returns the maximum number of idle segments retained for reuse.
+   *
+   * @return the pool bound
+   */
+  public int getMaxPooled () {
+
+    return maxPooled;
+  }
+
+  /**
+   * Returns the number of idle segments currently held for reuse.
+   *
+   * @return idle segment count
+   */
+  public int getPooledCount () {
+
+    return pooledCount.get();
+  }
+
+  /**
+   * Returns the number of direct segments this provider has allocated over its lifetime, which, against
+   * the number acquired, measures how well the pool is sized.
+   *
+   * @return total segments allocated
+   */
+  public int getAllocatedCount () {
+
+    return allocatedCount.get();
+  }
+
+  /**
+   * Hands out an idle segment if one is pooled, or allocates a new direct segment otherwise.
+   *
+   * @return a direct segment of {@link #getAllocation()} bytes
+   */
+  @Override
+  public ByteBuffer acquire () {
+
+    ByteBuffer segment;
+
+    if ((segment = segmentQueue.poll()) != null) {
+      pooledCount.decrementAndGet();
+
+      return segment.clear();
+    }
+
+    allocatedCount.incrementAndGet();
+
+    return ByteBuffer.allocateDirect(allocation);
+  }
+
+  /**
+   * Pools the segment for reuse unless the pool is full, in which case it is dropped.
+   *
+   * @param segment the segment being returned
+   * @throws IllegalArgumentException if the segment was not allocated by a provider of this size
+   */
+  @Override
+  public void release (ByteBuffer segment) {
+
+    if ((!segment.isDirect()) || (segment.capacity() != allocation)) {
+      throw new IllegalArgumentException("The segment was not provided by this pool");
+    }
+
+    if (pooledCount.incrementAndGet() <= maxPooled) {
+      segmentQueue.offer(segment);
+    } else {
+      pooledCount.decrementAndGet();
+    }
+  }
+}
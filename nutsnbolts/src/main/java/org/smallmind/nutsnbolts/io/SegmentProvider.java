@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Source of the fixed-size segments from which a {@link ByteArrayIOBuffer} is assembled. Segments are
+ * addressed absolutely, so their positions and limits carry no meaning, and every segment handed out by
+ * {@link #acquire()} is eventually handed back through {@link #release(ByteBuffer)} once the buffer
+ * holding it is cleared, truncated, or no longer referenced.
+ *
+ * @see HeapSegmentProvider
+ * @see PooledDirectSegmentProvider
+ */
+public interface SegmentProvider {
+
+  /**
+   * Returns the capacity of every segment this provider hands out.
+   *
+   * @return bytes per segment
+   */
+  int getAllocation ();
+
+  /**
+   * Hands out a segment whose capacity is exactly {@link #getAllocation()} bytes. The content of a
+   * recycled segment is undefined.
+   *
+   * @return a segment for the exclusive use of the caller until released
+   */
+  ByteBuffer acquire ();
+
+  /**
+   * Takes back a segment previously handed out by {@link #acquire()}, which the caller must no longer touch.
+   *
+   * @param segment the segment being returned
+   */
+  void release (ByteBuffer segment);
+}
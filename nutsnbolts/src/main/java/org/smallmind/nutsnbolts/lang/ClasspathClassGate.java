@@ -32,7 +32,8 @@
  */
 package org.smallmind.nutsnbolts.lang;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -41,20 +42,32 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.CodeSource;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import org.smallmind.nutsnbolts.io.PathUtility;
 
 /**
  * {@link ClassGate} implementation that resolves classes and resources from an ordered list of classpath components, which may be directories or JAR files.
+ * <p>
+ * Each JAR is indexed by entry name the first time it is searched, so that lookups which miss never touch the file again, and the index is rebuilt
+ * if the JAR's modification time or size changes (checked at most once a second). Open JARs are shared by every gate through a bounded,
+ * least-recently-used cache, which closes the JARs it evicts. Entries are therefore read whole before they are handed out, so that no stream
+ * outlives its JAR, and {@link #close()} closes any JARs this gate holds open, which will be reopened if the gate is used again.
  */
-public class ClasspathClassGate implements ClassGate {
+public class ClasspathClassGate implements ClassGate, Closeable {
 
-  private final HashMap<String, Path> filePathMap;
+  private static final OpenJarCache OPEN_JAR_CACHE = new OpenJarCache(64);
+  private static final long REVALIDATION_INTERVAL_MILLIS = 1000;
 
+  private final ConcurrentHashMap<String, Path> filePathMap;
+  private final IndexedJar[] indexedJars;
   private final String[] pathComponents;
 
   /**
@@ -84,7 +97,13 @@ public class ClasspathClassGate implements ClassGate {
 
     this.pathComponents = pathComponents;
 
-    filePathMap = new HashMap<>();
+    filePathMap = new ConcurrentHashMap<>();
+    indexedJars = new IndexedJar[pathComponents.length];
+    for (int index = 0; index < pathComponents.length; index++) {
+      if (pathComponents[index].endsWith(".jar")) {
+        indexedJars[index] = new IndexedJar(Paths.get(pathComponents[index]));
+      }
+    }
   }
 
   /**
@@ -99,11 +118,9 @@ public class ClasspathClassGate implements ClassGate {
 
     Path filePath;
 
-    synchronized (filePathMap) {
-      if ((filePath = filePathMap.get(name)) != null) {
+    if ((filePath = filePathMap.get(name)) != null) {
 
-        return Files.getLastModifiedTime(filePath).toMillis();
-      }
+      return Files.getLastModifiedTime(filePath).toMillis();
     }
 
     return ClassGate.STATIC_CLASS;
@@ -134,25 +151,22 @@ public class ClasspathClassGate implements ClassGate {
 
     classFileName = name.replace('.', '/') + ".class";
 
-    for (String pathComponent : pathComponents) {
+    for (int index = 0; index < pathComponents.length; index++) {
+      if (indexedJars[index] != null) {
 
-      InputStream classStream;
+        byte[] classData;
 
-      if (pathComponent.endsWith(".jar")) {
-        if ((classStream = findJarStream(pathComponent, classFileName)) != null) {
-          return new ClassStreamTicket(classStream, ClassGate.STATIC_CLASS);
+        if ((classData = indexedJars[index].read(classFileName)) != null) {
+          return new ClassStreamTicket(new ByteArrayInputStream(classData), ClassGate.STATIC_CLASS);
         }
       } else {
 
         Path classFile;
-        long timeStamp;
 
-        if ((classFile = findPath(pathComponent, classFileName)) != null) {
-          synchronized (filePathMap) {
-            filePathMap.put(name, classFile.toAbsolutePath().normalize());
-            timeStamp = Files.getLastModifiedTime(classFile).toMillis();
-            return new ClassStreamTicket(Files.newInputStream(classFile), timeStamp);
-          }
+        if ((classFile = findPath(pathComponents[index], classFileName)) != null) {
+          filePathMap.put(name, classFile.toAbsolutePath().normalize());
+
+          return new ClassStreamTicket(Files.newInputStream(classFile), Files.getLastModifiedTime(classFile).toMillis());
         }
       }
     }
@@ -170,20 +184,17 @@ public class ClasspathClassGate implements ClassGate {
   public URL getResource (String path)
     throws IOException {
 
-    for (String pathComponent : pathComponents) {
-
-      JarLocator jarLocator;
-
-      if (pathComponent.endsWith(".jar")) {
-        if ((jarLocator = findJarLocator(pathComponent, path)) != null) {
+    for (int index = 0; index < pathComponents.length; index++) {
+      if (indexedJars[index] != null) {
+        if (indexedJars[index].contains(entryName(path))) {
 
-          return URI.create("jar:file://" + rectifyPath(pathComponent) + "!/" + jarLocator.getJarEntry().getName()).toURL();
+          return URI.create("jar:file://" + rectifyPath(pathComponents[index]) + "!/" + entryName(path)).toURL();
         }
       } else {
 
         Path resourcePath;
 
-        if ((resourcePath = findPath(pathComponent, path)) != null) {
+        if ((resourcePath = findPath(pathComponents[index], path)) != null) {
           return URI.create("file://" + rectifyPath(PathUtility.asNormalizedString(resourcePath))).toURL();
         }
       }
@@ -206,7 +217,8 @@ public class ClasspathClassGate implements ClassGate {
   }
 
   /**
-   * Searches the configured path components for the named resource and returns an open stream to it.
+   * Searches the configured path components for the named resource and returns an open stream to it. Resources found in a JAR are read
+   * into memory first, so the stream does not depend on the JAR remaining open.
    *
    * @param path the resource path to locate
    * @return an open {@link InputStream} for the resource, or {@code null} if not found
@@ -215,19 +227,19 @@ public class ClasspathClassGate implements ClassGate {
   public InputStream getResourceAsStream (String path)
     throws IOException {
 
-    for (String pathComponent : pathComponents) {
+    for (int index = 0; index < pathComponents.length; index++) {
+      if (indexedJars[index] != null) {
 
-      InputStream resourceStream;
+        byte[] resourceData;
 
-      if (pathComponent.endsWith(".jar")) {
-        if ((resourceStream = findJarStream(pathComponent, path)) != null) {
-          return resourceStream;
+        if ((resourceData = indexedJars[index].read(entryName(path))) != null) {
+          return new ByteArrayInputStream(resourceData);
         }
       } else {
 
         Path resourceFile;
 
-        if ((resourceFile = findPath(pathComponent, path)) != null) {
+        if ((resourceFile = findPath(pathComponents[index], path)) != null) {
           return Files.newInputStream(resourceFile, StandardOpenOption.READ);
         }
       }
@@ -237,49 +249,28 @@ public class ClasspathClassGate implements ClassGate {
   }
 
   /**
-   * Searches the specified JAR file for the given entry path and returns a buffered stream to it.
-   *
-   * @param jarComponentPath the file system path of the JAR to search
-   * @param path             the entry name to locate within the JAR
-   * @return a buffered {@link InputStream} to the entry, or {@code null} if not found
-   * @throws IOException if the JAR cannot be read
+   * Closes any JAR files this gate holds open. The gate remains usable, and will reopen JARs as they are needed.
    */
-  private InputStream findJarStream (String jarComponentPath, String path)
-    throws IOException {
-
-    JarLocator jarLocator;
+  @Override
+  public void close () {
 
-    if ((jarLocator = findJarLocator(jarComponentPath, path)) != null) {
-      return new BufferedInputStream(jarLocator.getInputStream());
+    for (IndexedJar indexedJar : indexedJars) {
+      if (indexedJar != null) {
+        OPEN_JAR_CACHE.remove(indexedJar);
+        indexedJar.closeJarFile();
+      }
     }
-
-    return null;
   }
 
   /**
-   * Searches the specified JAR file for an entry matching the given path and returns a locator wrapping both.
+   * Strips any leading slash from a resource path to form the name of a JAR entry.
    *
-   * @param jarComponentPath the file system path of the JAR to search
-   * @param path             the entry name to locate within the JAR
-   * @return a {@code JarLocator} holding the matched JAR and entry, or {@code null} if not found
-   * @throws IOException if the JAR file cannot be opened or read
+   * @param path the resource path
+   * @return the corresponding entry name
    */
-  private JarLocator findJarLocator (String jarComponentPath, String path)
-    throws IOException {
-
-    JarFile jarFile;
-    JarEntry jarEntry;
-    Enumeration<JarEntry> entryEnumeration;
+  private String entryName (String path) {
 
-    jarFile = new JarFile(jarComponentPath);
-    entryEnumeration = jarFile.entries();
-    while (entryEnumeration.hasMoreElements()) {
-      if ((jarEntry = entryEnumeration.nextElement()).getName().equals((path.charAt(0) == '/') ? path.substring(1) : path)) {
-        return new JarLocator(jarFile, jarEntry);
-      }
-    }
-
-    return null;
+    return (path.charAt(0) == '/') ? path.substring(1) : path;
   }
 
   /**
@@ -293,7 +284,7 @@ public class ClasspathClassGate implements ClassGate {
 
     Path completePath;
 
-    completePath = Paths.get(fileComponentPath, (path.charAt(0) == '/') ? path.substring(1) : path);
+    completePath = Paths.get(fileComponentPath, entryName(path));
     if (Files.isRegularFile(completePath)) {
 
       return completePath;
@@ -303,45 +294,222 @@ public class ClasspathClassGate implements ClassGate {
   }
 
   /**
-   * Holds a reference to a {@link JarFile} and a matching {@link JarEntry} found within it, providing stream access to the entry's bytes.
+   * A JAR component of the class path, holding the set of its entry names and, while it is among the most recently used, the open JAR.
    */
-  private static class JarLocator {
+  private static class IndexedJar {
 
-    private final JarFile jarFile;
-    private final JarEntry jarEntry;
+    private final Path jarPath;
+    private HashSet<String> entryNameSet;
+    private JarFile jarFile;
+    private long lastModifiedTime;
+    private long size;
+    private long validatedMillis;
 
     /**
-     * Creates a locator pairing the given JAR file with one of its entries.
+     * Creates an unindexed view of the JAR at the given path.
      *
-     * @param jarFile  the JAR file that contains the entry
-     * @param jarEntry the located entry within the JAR
+     * @param jarPath the path of the JAR
      */
-    private JarLocator (JarFile jarFile, JarEntry jarEntry) {
+    private IndexedJar (Path jarPath) {
 
-      this.jarFile = jarFile;
-      this.jarEntry = jarEntry;
+      this.jarPath = jarPath;
     }
 
     /**
-     * Returns the JAR entry held by this locator.
+     * Answers whether the JAR holds the named entry, indexing the JAR first if need be.
      *
-     * @return the matched {@link JarEntry}
+     * @param name the entry name
+     * @return {@code true} if the entry exists
+     * @throws IOException if the JAR cannot be read
      */
-    private JarEntry getJarEntry () {
+    private boolean contains (String name)
+      throws IOException {
 
-      return jarEntry;
+      boolean opened;
+      boolean contained;
+
+      synchronized (this) {
+        opened = validate();
+        contained = entryNameSet.contains(name);
+      }
+      admit(opened);
+
+      return contained;
     }
 
     /**
-     * Opens and returns an input stream for the held JAR entry.
+     * Reads the named entry whole, indexing and opening the JAR first if need be.
      *
-     * @return an {@link InputStream} to the entry's bytes
-     * @throws IOException if the entry cannot be opened
+     * @param name the entry name
+     * @return the content of the entry, or {@code null} if the JAR has no such entry
+     * @throws IOException if the JAR cannot be read
      */
-    public InputStream getInputStream ()
+    private byte[] read (String name)
       throws IOException {
 
-      return jarFile.getInputStream(jarFile.getEntry(jarEntry.getName()));
+      byte[] data = null;
+      boolean opened;
+
+      synchronized (this) {
+        opened = validate();
+        if (entryNameSet.contains(name)) {
+
+          JarEntry jarEntry;
+
+          if (jarFile == null) {
+            jarFile = new JarFile(jarPath.toFile());
+            opened = true;
+          }
+
+          if ((jarEntry = jarFile.getJarEntry(name)) != null) {
+            try (InputStream entryStream = jarFile.getInputStream(jarEntry)) {
+              data = entryStream.readAllBytes();
+            }
+          }
+        }
+      }
+      admit(opened);
+
+      return data;
+    }
+
+    /**
+     * Records use of this JAR in the shared cache, closing whichever JAR the cache evicts to make room if this one was just opened. This
+     * happens outside the monitor of this JAR, so that no thread ever holds the monitors of two JARs at once.
+     *
+     * @param opened whether the JAR was opened by the caller
+     */
+    private void admit (boolean opened) {
+
+      if (opened) {
+
+        IndexedJar evictedJar;
+
+        if ((evictedJar = OPEN_JAR_CACHE.put(this)) != null) {
+          evictedJar.closeJarFile();
+        }
+      } else {
+        OPEN_JAR_CACHE.touch(this);
+      }
+    }
+
+    /**
+     * Ensures the index reflects the JAR on disk, checking the JAR's attributes at most once per revalidation interval and rebuilding the
+     * index if it is missing or the JAR has changed. Must be called while holding the monitor of this JAR.
+     *
+     * @return {@code true} if the JAR was opened in order to build the index
+     * @throws IOException if the JAR cannot be read
+     */
+    private boolean validate ()
+      throws IOException {
+
+      long now = System.currentTimeMillis();
+
+      if ((entryNameSet == null) || (now - validatedMillis >= REVALIDATION_INTERVAL_MILLIS)) {
+
+        BasicFileAttributes attributes = Files.readAttributes(jarPath, BasicFileAttributes.class);
+
+        validatedMillis = now;
+        if ((entryNameSet == null) || (attributes.lastModifiedTime().toMillis() != lastModifiedTime) || (attributes.size() != size)) {
+
+          HashSet<String> indexSet = new HashSet<>();
+          Enumeration<JarEntry> entryEnumeration;
+
+          if (jarFile != null) {
+            jarFile.close();
+            jarFile = null;
+          }
+
+          lastModifiedTime = attributes.lastModifiedTime().toMillis();
+          size = attributes.size();
+
+          jarFile = new JarFile(jarPath.toFile());
+          entryEnumeration = jarFile.entries();
+          while (entryEnumeration.hasMoreElements()) {
+            indexSet.add(entryEnumeration.nextElement().getName());
+          }
+          entryNameSet = indexSet;
+
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    /**
+     * Closes the JAR if it is open, leaving the index in place.
+     */
+    private synchronized void closeJarFile () {
+
+      if (jarFile != null) {
+        try {
+          jarFile.close();
+        } catch (IOException ioException) {
+          // nothing useful can be done about a failure to close a read-only file
+        }
+        jarFile = null;
+      }
+    }
+  }
+
+  /**
+   * The least-recently-used set of JARs, shared by all gates, whose files are held open.
+   */
+  private static class OpenJarCache {
+
+    private final LinkedHashMap<IndexedJar, Boolean> openJarMap = new LinkedHashMap<>(16, 0.75F, true);
+    private final int capacity;
+
+    /**
+     * Creates a cache that holds at most the given number of JARs open.
+     *
+     * @param capacity the maximum number of open JARs
+     */
+    private OpenJarCache (int capacity) {
+
+      this.capacity = capacity;
+    }
+
+    /**
+     * Adds a newly opened JAR, evicting the least recently used one if the cache is over capacity.
+     *
+     * @param indexedJar the JAR that was opened
+     * @return the evicted JAR, which the caller must close, or {@code null}
+     */
+    private synchronized IndexedJar put (IndexedJar indexedJar) {
+
+      openJarMap.put(indexedJar, Boolean.TRUE);
+      if (openJarMap.size() > capacity) {
+
+        Map.Entry<IndexedJar, Boolean> eldestEntry = openJarMap.entrySet().iterator().next();
+
+        openJarMap.remove(eldestEntry.getKey());
+
+        return eldestEntry.getKey();
+      }
+
+      return null;
+    }
+
+    /**
+     * Marks a JAR as recently used, if it is in the cache.
+     *
+     * @param indexedJar the JAR that was used
+     */
+    private synchronized void touch (IndexedJar indexedJar) {
+
+      openJarMap.get(indexedJar);
+    }
+
+    /**
+     * Removes a JAR from the cache, without closing it.
+     *
+     * @param indexedJar the JAR to remove
+     */
+    private synchronized void remove (IndexedJar indexedJar) {
+
+      openJarMap.remove(indexedJar);
     }
   }
 }
@@ -33,6 +33,7 @@
 package org.smallmind.nutsnbolts.lang;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -40,9 +41,8 @@ import java.security.CodeSource;
 import java.security.PermissionCollection;
 import java.security.SecureClassLoader;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
 import org.smallmind.nutsnbolts.util.IteratorEnumeration;
 
 /*
@@ -67,11 +67,11 @@ import org.smallmind.nutsnbolts.util.IteratorEnumeration;
 
 /**
  * A {@link SecureClassLoader} that loads classes through one or more {@link ClassGate}s and optionally detects stale class definitions by comparing last-modified timestamps against a configurable grace period.
+ * The loader is registered as parallel capable, and locks per class name rather than on itself, so unrelated classes load concurrently.
  */
-public class GatingClassLoader extends SecureClassLoader {
+public class GatingClassLoader extends SecureClassLoader implements Closeable {
 
-  private final HashMap<String, ClassGateTicket> ticketMap;
-  private final HashSet<String> packageSet = new HashSet<>();
+  private final ConcurrentHashMap<String, ClassGateTicket> ticketMap;
   private final ClassGate[] classGates;
   private final int gracePeriodSeconds;
 
@@ -111,7 +111,7 @@ public class GatingClassLoader extends SecureClassLoader {
     this.classGates = classGates;
     this.gracePeriodSeconds = gracePeriodSeconds;
 
-    ticketMap = new HashMap<>();
+    ticketMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -147,56 +147,55 @@ public class GatingClassLoader extends SecureClassLoader {
    * @throws ClassNotFoundException if the class cannot be found by any loader or gate
    */
   @Override
-  public synchronized Class<?> loadClass (String name, boolean resolve)
+  public Class<?> loadClass (String name, boolean resolve)
     throws ClassNotFoundException {
 
-    Class<?> gatedClass;
-    ClassGateTicket classGateTicket;
+    synchronized (getClassLoadingLock(name)) {
 
-    if ((gatedClass = findLoadedClass(name)) != null) {
-      if (gracePeriodSeconds >= 0) {
-        synchronized (ticketMap) {
-          classGateTicket = ticketMap.get(name);
-        }
+      Class<?> gatedClass;
+      ClassGateTicket classGateTicket;
 
-        if (classGateTicket.getTimeStamp() != ClassGate.STATIC_CLASS) {
-          if (System.currentTimeMillis() >= (classGateTicket.getTimeStamp() + (gracePeriodSeconds * 1000L))) {
+      if ((gatedClass = findLoadedClass(name)) != null) {
+        if ((gracePeriodSeconds >= 0) && ((classGateTicket = ticketMap.get(name)) != null)) {
+          if (classGateTicket.getTimeStamp() != ClassGate.STATIC_CLASS) {
+            if (System.currentTimeMillis() >= (classGateTicket.getTimeStamp() + (gracePeriodSeconds * 1000L))) {
 
-            long lastModTime;
+              long lastModTime;
 
-            try {
-              lastModTime = classGateTicket.getClassGate().getLastModDate(name);
-            } catch (Exception exception) {
-              throw new RuntimeException(exception);
-            }
+              try {
+                lastModTime = classGateTicket.getClassGate().getLastModDate(name);
+              } catch (Exception exception) {
+                throw new RuntimeException(exception);
+              }
 
-            if (lastModTime > classGateTicket.getTimeStamp()) {
-              throw new StaleClassLoaderException(name);
+              if (lastModTime > classGateTicket.getTimeStamp()) {
+                throw new StaleClassLoaderException(name);
+              }
             }
           }
         }
-      }
-    } else {
-      if (getParent() != null) {
-        try {
-          gatedClass = getParent().loadClass(name);
-        } catch (ClassNotFoundException c) {
-          gatedClass = findClass(name);
-        }
       } else {
-        try {
-          gatedClass = findSystemClass(name);
-        } catch (ClassNotFoundException c) {
-          gatedClass = findClass(name);
+        if (getParent() != null) {
+          try {
+            gatedClass = getParent().loadClass(name);
+          } catch (ClassNotFoundException c) {
+            gatedClass = findClass(name);
+          }
+        } else {
+          try {
+            gatedClass = findSystemClass(name);
+          } catch (ClassNotFoundException c) {
+            gatedClass = findClass(name);
+          }
         }
       }
-    }
 
-    if (resolve) {
-      resolveClass(gatedClass);
-    }
+      if (resolve) {
+        resolveClass(gatedClass);
+      }
 
-    return gatedClass;
+      return gatedClass;
+    }
   }
 
   /**
@@ -208,41 +207,41 @@ public class GatingClassLoader extends SecureClassLoader {
    * @throws ClassNotFoundException if no gate can supply the class bytes
    */
   @Override
-  public synchronized Class<?> findClass (String name)
+  public Class<?> findClass (String name)
     throws ClassNotFoundException {
 
-    for (ClassGate classGate : classGates) {
-      try {
+    synchronized (getClassLoadingLock(name)) {
+      for (ClassGate classGate : classGates) {
+        try {
 
-        ClassStreamTicket classStreamTicket;
+          ClassStreamTicket classStreamTicket;
 
-        if ((classStreamTicket = classGate.getTicket(name)) != null) {
+          if ((classStreamTicket = classGate.getTicket(name)) != null) {
 
-          CodeSource codeSource;
-          Class<?> definedClass;
-          byte[] classData;
+            CodeSource codeSource;
+            Class<?> definedClass;
+            byte[] classData;
 
-          try (InputStream classInputStream = classStreamTicket.getInputStream()) {
-            classData = getClassData(classInputStream);
-          }
+            try (InputStream classInputStream = classStreamTicket.getInputStream()) {
+              classData = getClassData(classInputStream);
+            }
 
-          definePackage(name);
-          definedClass = ((codeSource = classGate.getCodeSource()) != null) ? defineClass(name, classData, 0, classData.length, codeSource) : defineClass(name, classData, 0, classData.length);
+            definePackage(name);
+            definedClass = ((codeSource = classGate.getCodeSource()) != null) ? defineClass(name, classData, 0, classData.length, codeSource) : defineClass(name, classData, 0, classData.length);
 
-          if (gracePeriodSeconds >= 0) {
-            synchronized (ticketMap) {
+            if (gracePeriodSeconds >= 0) {
               ticketMap.put(name, new ClassGateTicket(classGate, classStreamTicket.getTimeStamp()));
             }
-          }
 
-          return definedClass;
+            return definedClass;
+          }
+        } catch (Exception exception) {
+          throw new ClassNotFoundException("Exception encountered while attempting to define class (" + name + ")", exception);
         }
-      } catch (Exception exception) {
-        throw new ClassNotFoundException("Exception encountered while attempting to define class (" + name + ")", exception);
       }
-    }
 
-    throw new ClassNotFoundException(name);
+      throw new ClassNotFoundException(name);
+    }
   }
 
   /**
@@ -255,9 +254,12 @@ public class GatingClassLoader extends SecureClassLoader {
     String packageName;
     int lastDotPos = name.lastIndexOf('.');
 
-    packageName = name.substring(0, lastDotPos);
-    if (packageSet.add(packageName)) {
-      definePackage(packageName, System.getProperty("java.vm.specification.name"), System.getProperty("java.vm.specification.version"), System.getProperty("java.vm.specification.vendor"), System.getProperty("java.specification.name"), System.getProperty("java.specification.version"), System.getProperty("java.specification.vendor"), null);
+    if ((lastDotPos > 0) && (getDefinedPackage(packageName = name.substring(0, lastDotPos)) == null)) {
+      try {
+        definePackage(packageName, System.getProperty("java.vm.specification.name"), System.getProperty("java.vm.specification.version"), System.getProperty("java.vm.specification.vendor"), System.getProperty("java.specification.name"), System.getProperty("java.specification.version"), System.getProperty("java.specification.vendor"), null);
+      } catch (IllegalArgumentException illegalArgumentException) {
+        // another thread, loading another class of the same package, defined it first
+      }
     }
   }
 
@@ -362,4 +364,21 @@ public class GatingClassLoader extends SecureClassLoader {
 
     return new IteratorEnumeration<>(urlList.iterator());
   }
+
+  /**
+   * Closes every configured gate that holds resources, such as the open JARs of a {@link ClasspathClassGate}. Classes already loaded are
+   * unaffected, and closed gates reopen what they need if the loader is used again.
+   *
+   * @throws IOException if a gate fails to close
+   */
+  @Override
+  public void close ()
+    throws IOException {
+
+    for (ClassGate classGate : classGates) {
+      if (classGate instanceof Closeable) {
+        ((Closeable)classGate).close();
+      }
+    }
+  }
 }
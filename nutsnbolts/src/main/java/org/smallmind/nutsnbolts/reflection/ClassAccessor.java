@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.reflection;
+
+import java.util.HashMap;
+
+/**
+ * The immutable, per-class table of {@link FieldAccessor}s built by {@link FieldUtility}, holding the
+ * accessors in name order alongside an index by field name, so that a field is found in constant time
+ * rather than by a scan of the accessor array.
+ */
+public class ClassAccessor {
+
+  private final Class<?> type;
+  private final FieldAccessor[] fieldAccessors;
+  private final HashMap<String, Integer> indexMap;
+
+  /**
+   * Constructs the table for the given class over its discovered accessors.
+   *
+   * @param type           the class whose fields are described
+   * @param fieldAccessors the accessors for the class, in the order they should be indexed
+   */
+  public ClassAccessor (Class<?> type, FieldAccessor[] fieldAccessors) {
+
+    this.type = type;
+    this.fieldAccessors = fieldAccessors;
+
+    indexMap = new HashMap<>();
+    for (int index = 0; index < fieldAccessors.length; index++) {
+      // a field shadowed in a subclass is found under the first index claimed for its name
+      indexMap.putIfAbsent(fieldAccessors[index].getName(), index);
+    }
+  }
+
+  /**
+   * Returns the class whose fields this table describes.
+   *
+   * @return the described class
+   */
+  public Class<?> getType () {
+
+    return type;
+  }
+
+  /**
+   * Returns the number of accessors in this table.
+   *
+   * @return the accessor count
+   */
+  public int size () {
+
+    return fieldAccessors.length;
+  }
+
+  /**
+   * Returns the accessors in this table, in index order.
+   *
+   * @return the accessor array
+   */
+  public FieldAccessor[] getFieldAccessors () {
+
+    return fieldAccessors;
+  }
+
+  /**
+   * Returns the index of the field with the given name.
+   *
+   * @param name the field name
+   * @return the field's index, or {@code -1} if the class has no such field
+   */
+  public int indexOf (String name) {
+
+    Integer index;
+
+    return ((index = indexMap.get(name)) == null) ? -1 : index;
+  }
+
+  /**
+   * Returns the accessor at the given index.
+   *
+   * @param index the field index
+   * @return the accessor at that index
+   */
+  public FieldAccessor getFieldAccessor (int index) {
+
+    return fieldAccessors[index];
+  }
+
+  /**
+   * Returns the accessor for the field with the given name.
+   *
+   * @param name the field name
+   * @return the matching accessor, or {@code null} if the class has no such field
+   */
+  public FieldAccessor getFieldAccessor (String name) {
+
+    Integer index;
+
+    return ((index = indexMap.get(name)) == null) ? null : fieldAccessors[index];
+  }
+}
@@ -32,20 +32,46 @@
  */
 package org.smallmind.nutsnbolts.reflection;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Map;
 
 /**
  * Bundles a {@link Field} with its optional getter and setter methods so that values can be read and
  * written through bean-style accessors when they exist, falling back to direct field access otherwise.
+ * The chosen read and write paths are compiled into {@link MethodHandle}s once, at construction, so each
+ * access is a direct handle invocation rather than a reflective call; a primitive field or accessor is
+ * also exposed through exactly typed handles, read and written by {@link #getInt(Object)} and its
+ * siblings without boxing. Paths the handles cannot reach fall back to reflection.
  */
 public class FieldAccessor {
 
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final Map<Class<?>, Class<?>[]> WIDENING_MAP = Map.of(
+    short.class, new Class<?>[] {Byte.class, Short.class},
+    char.class, new Class<?>[] {Character.class},
+    int.class, new Class<?>[] {Byte.class, Short.class, Character.class, Integer.class},
+    long.class, new Class<?>[] {Byte.class, Short.class, Character.class, Integer.class, Long.class},
+    float.class, new Class<?>[] {Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class},
+    double.class, new Class<?>[] {Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class, Double.class},
+    byte.class, new Class<?>[] {Byte.class},
+    boolean.class, new Class<?>[] {Boolean.class});
+
   private final Method getterMethod;
   private final Method setterMethod;
   private final Field field;
+  private final MethodHandle getterHandle;
+  private final MethodHandle setterHandle;
+  private final MethodHandle primitiveGetterHandle;
+  private final MethodHandle primitiveSetterHandle;
+  private final Class<?> getterClass;
+  private final Class<?> setterClass;
+  private final Class<?> valueType;
 
   /**
    * Constructs an accessor for the given field with optional companion getter and setter methods.
@@ -56,9 +82,70 @@ public class FieldAccessor {
    */
   public FieldAccessor (Field field, Method getterMethod, Method setterMethod) {
 
+    MethodHandle rawGetterHandle;
+    MethodHandle rawSetterHandle;
+
     this.field = field;
     this.getterMethod = getterMethod;
     this.setterMethod = setterMethod;
+
+    getterClass = (getterMethod != null) ? getterMethod.getDeclaringClass() : field.getDeclaringClass();
+    setterClass = (setterMethod != null) ? setterMethod.getDeclaringClass() : field.getDeclaringClass();
+    valueType = (setterMethod != null) ? setterMethod.getParameterTypes()[0] : field.getType();
+
+    if ((rawGetterHandle = (getterMethod != null) ? unreflect(getterMethod) : unreflectGetter(field)) == null) {
+      getterHandle = null;
+      primitiveGetterHandle = null;
+    } else {
+      getterHandle = rawGetterHandle.asType(MethodType.methodType(Object.class, Object.class));
+      primitiveGetterHandle = rawGetterHandle.type().returnType().isPrimitive() ? rawGetterHandle.asType(MethodType.methodType(rawGetterHandle.type().returnType(), Object.class)) : null;
+    }
+
+    if ((rawSetterHandle = (setterMethod != null) ? unreflect(setterMethod) : unreflectSetter(field)) == null) {
+      setterHandle = null;
+      primitiveSetterHandle = null;
+    } else {
+      setterHandle = rawSetterHandle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+      primitiveSetterHandle = valueType.isPrimitive() ? rawSetterHandle.asType(MethodType.methodType(void.class, Object.class, valueType)) : null;
+    }
+  }
+
+  private static MethodHandle unreflect (Method method) {
+
+    try {
+
+      return LOOKUP.unreflect(method);
+    } catch (IllegalAccessException illegalAccessException) {
+      try {
+
+        return method.trySetAccessible() ? LOOKUP.unreflect(method) : null;
+      } catch (IllegalAccessException | SecurityException exception) {
+
+        return null;
+      }
+    }
+  }
+
+  private static MethodHandle unreflectGetter (Field field) {
+
+    try {
+
+      return LOOKUP.unreflectGetter(field);
+    } catch (IllegalAccessException illegalAccessException) {
+
+      return null;
+    }
+  }
+
+  private static MethodHandle unreflectSetter (Field field) {
+
+    try {
+
+      return LOOKUP.unreflectSetter(field);
+    } catch (IllegalAccessException illegalAccessException) {
+
+      return null;
+    }
   }
 
   /**
@@ -113,7 +200,18 @@ public class FieldAccessor {
   public Object get (Object target)
     throws IllegalAccessException, InvocationTargetException {
 
-    return (getterMethod != null) ? getterMethod.invoke(target) : field.get(target);
+    if (getterHandle == null) {
+
+      return (getterMethod != null) ? getterMethod.invoke(target) : field.get(target);
+    }
+
+    checkTarget(getterClass, target);
+    try {
+
+      return (Object)getterHandle.invokeExact(target);
+    } catch (Throwable throwable) {
+      throw asInvocationFailure(getterMethod, throwable);
+    }
   }
 
   /**
@@ -128,10 +226,296 @@ public class FieldAccessor {
   public void set (Object target, Object value)
     throws IllegalAccessException, InvocationTargetException {
 
-    if (setterMethod != null) {
-      setterMethod.invoke(target, value);
+    if (setterHandle == null) {
+      if (setterMethod != null) {
+        setterMethod.invoke(target, value);
+      } else {
+        field.set(target, value);
+      }
+    } else {
+      checkTarget(setterClass, target);
+      checkValue(value);
+      try {
+        setterHandle.invokeExact(target, value);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(setterMethod, throwable);
+      }
+    }
+  }
+
+  /**
+   * Reads an {@code int} value without boxing when the read path yields an {@code int}, and otherwise
+   * unboxes the result of {@link #get(Object)}.
+   *
+   * @param target the object instance from which the value should be read
+   * @return the current field value
+   * @throws IllegalAccessException    if the getter or field is not accessible
+   * @throws InvocationTargetException if the getter method throws an exception
+   */
+  public int getInt (Object target)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveGetterHandle != null) && (primitiveGetterHandle.type().returnType() == int.class)) {
+      checkTarget(getterClass, target);
+      try {
+
+        return (int)primitiveGetterHandle.invokeExact(target);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(getterMethod, throwable);
+      }
+    }
+
+    return asNumber(get(target)).intValue();
+  }
+
+  /**
+   * Reads a {@code long} value without boxing when the read path yields a {@code long}, and otherwise
+   * unboxes the result of {@link #get(Object)}.
+   *
+   * @param target the object instance from which the value should be read
+   * @return the current field value
+   * @throws IllegalAccessException    if the getter or field is not accessible
+   * @throws InvocationTargetException if the getter method throws an exception
+   */
+  public long getLong (Object target)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveGetterHandle != null) && (primitiveGetterHandle.type().returnType() == long.class)) {
+      checkTarget(getterClass, target);
+      try {
+
+        return (long)primitiveGetterHandle.invokeExact(target);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(getterMethod, throwable);
+      }
+    }
+
+    return asNumber(get(target)).longValue();
+  }
+
+  /**
+   * Reads a {@code double} value without boxing when the read path yields a {@code double}, and otherwise
+   * unboxes the result of {@link #get(Object)}.
+   *
+   * @param target the object instance from which the value should be read
+   * @return the current field value
+   * @throws IllegalAccessException    if the getter or field is not accessible
+   * @throws InvocationTargetException if the getter method throws an exception
+   */
+  public double getDouble (Object target)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveGetterHandle != null) && (primitiveGetterHandle.type().returnType() == double.class)) {
+      checkTarget(getterClass, target);
+      try {
+
+        return (double)primitiveGetterHandle.invokeExact(target);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(getterMethod, throwable);
+      }
+    }
+
+    return asNumber(get(target)).doubleValue();
+  }
+
+  /**
+   * Reads a {@code boolean} value without boxing when the read path yields a {@code boolean}, and otherwise
+   * unboxes the result of {@link #get(Object)}.
+   *
+   * @param target the object instance from which the value should be read
+   * @return the current field value
+   * @throws IllegalAccessException    if the getter or field is not accessible
+   * @throws InvocationTargetException if the getter method throws an exception
+   */
+  public boolean getBoolean (Object target)
+    throws IllegalAccessException, InvocationTargetException {
+
+    Object value;
+
+    if ((primitiveGetterHandle != null) && (primitiveGetterHandle.type().returnType() == boolean.class)) {
+      checkTarget(getterClass, target);
+      try {
+
+        return (boolean)primitiveGetterHandle.invokeExact(target);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(getterMethod, throwable);
+      }
+    }
+
+    if (!((value = get(target)) instanceof Boolean)) {
+      throw new IllegalArgumentException("Field(" + field.getName() + ") does not hold a boolean value");
+    }
+
+    return (Boolean)value;
+  }
+
+  /**
+   * Writes an {@code int} value without boxing when the write path takes an {@code int}, and otherwise
+   * through {@link #set(Object, Object)}.
+   *
+   * @param target the object instance whose field value should be updated
+   * @param value  the new value to assign
+   * @throws IllegalAccessException    if the setter or field is not accessible
+   * @throws InvocationTargetException if the setter method throws an exception
+   */
+  public void setInt (Object target, int value)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveSetterHandle != null) && (valueType == int.class)) {
+      checkTarget(setterClass, target);
+      try {
+        primitiveSetterHandle.invokeExact(target, value);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(setterMethod, throwable);
+      }
+    } else {
+      set(target, value);
+    }
+  }
+
+  /**
+   * Writes a {@code long} value without boxing when the write path takes a {@code long}, and otherwise
+   * through {@link #set(Object, Object)}.
+   *
+   * @param target the object instance whose field value should be updated
+   * @param value  the new value to assign
+   * @throws IllegalAccessException    if the setter or field is not accessible
+   * @throws InvocationTargetException if the setter method throws an exception
+   */
+  public void setLong (Object target, long value)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveSetterHandle != null) && (valueType == long.class)) {
+      checkTarget(setterClass, target);
+      try {
+        primitiveSetterHandle.invokeExact(target, value);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(setterMethod, throwable);
+      }
+    } else {
+      set(target, value);
+    }
+  }
+
+  /**
+   * Writes a {@code double} value without boxing when the write path takes a {@code double}, and otherwise
+   * through {@link #set(Object, Object)}.
+   *
+   * @param target the object instance whose field value should be updated
+   * @param value  the new value to assign
+   * @throws IllegalAccessException    if the setter or field is not accessible
+   * @throws InvocationTargetException if the setter method throws an exception
+   */
+  public void setDouble (Object target, double value)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveSetterHandle != null) && (valueType == double.class)) {
+      checkTarget(setterClass, target);
+      try {
+        primitiveSetterHandle.invokeExact(target, value);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(setterMethod, throwable);
+      }
+    } else {
+      set(target, value);
+    }
+  }
+
+  /**
+   * Writes a {@code boolean} value without boxing when the write path takes a {@code boolean}, and otherwise
+   * through {@link #set(Object, Object)}.
+   *
+   * @param target the object instance whose field value should be updated
+   * @param value  the new value to assign
+   * @throws IllegalAccessException    if the setter or field is not accessible
+   * @throws InvocationTargetException if the setter method throws an exception
+   */
+  public void setBoolean (Object target, boolean value)
+    throws IllegalAccessException, InvocationTargetException {
+
+    if ((primitiveSetterHandle != null) && (valueType == boolean.class)) {
+      checkTarget(setterClass, target);
+      try {
+        primitiveSetterHandle.invokeExact(target, value);
+      } catch (Throwable throwable) {
+        throw asInvocationFailure(setterMethod, throwable);
+      }
     } else {
-      field.set(target, value);
+      set(target, value);
+    }
+  }
+
+  /**
+   * Applies the receiver checks reflection would, so that any failure raised inside a compiled handle
+   * can only have come from the accessor method itself.
+   *
+   * @param receiverClass the class declaring the member to be invoked
+   * @param target        the receiver
+   */
+  private void checkTarget (Class<?> receiverClass, Object target) {
+
+    if (target == null) {
+      throw new NullPointerException("Field(" + field.getName() + ") can not be accessed on a 'null' target");
+    } else if (!receiverClass.isInstance(target)) {
+      throw new IllegalArgumentException("Field(" + field.getName() + ") is not a member of class(" + target.getClass().getName() + ")");
+    }
+  }
+
+  /**
+   * Applies the argument checks reflection would, allowing unboxing followed by primitive widening.
+   *
+   * @param value the value to be written
+   */
+  private void checkValue (Object value) {
+
+    if (valueType.isPrimitive()) {
+      if (value != null) {
+        for (Class<?> wrapperClass : WIDENING_MAP.get(valueType)) {
+          if (wrapperClass == value.getClass()) {
+
+            return;
+          }
+        }
+      }
+    } else if ((value == null) || valueType.isInstance(value)) {
+
+      return;
+    }
+
+    throw new IllegalArgumentException("Field(" + field.getName() + ") of type(" + valueType.getName() + ") can not be set to " + ((value == null) ? "'null'" : "a value of type(" + value.getClass().getName() + ")"));
+  }
+
+  private Number asNumber (Object value) {
+
+    if (value instanceof Number) {
+
+      return (Number)value;
+    } else if (value instanceof Character) {
+
+      return (int)(Character)value;
     }
+
+    throw new IllegalArgumentException("Field(" + field.getName() + ") does not hold a numeric value");
+  }
+
+  /**
+   * Wraps a failure raised through a compiled handle the way reflection would, in an
+   * {@link InvocationTargetException} when an accessor method was invoked, and otherwise as is.
+   *
+   * @param method    the accessor method invoked, or {@code null} for direct field access
+   * @param throwable the failure
+   * @return the exception to throw
+   */
+  private InvocationTargetException asInvocationFailure (Method method, Throwable throwable) {
+
+    if (method == null) {
+      if (throwable instanceof RuntimeException) {
+        throw (RuntimeException)throwable;
+      } else if (throwable instanceof Error) {
+        throw (Error)throwable;
+      }
+    }
+
+    return new InvocationTargetException(throwable);
   }
 }
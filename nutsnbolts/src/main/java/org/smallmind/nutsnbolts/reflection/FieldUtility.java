@@ -36,18 +36,37 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.LinkedList;
-import java.util.concurrent.ConcurrentHashMap;
 import org.smallmind.nutsnbolts.reflection.bean.BeanUtility;
 import org.smallmind.nutsnbolts.util.AlphaNumericComparator;
 
 /**
  * Static helpers that discover and cache {@link FieldAccessor} descriptors for the non-static,
- * non-transient, non-synthetic fields of a class and its superclasses.
+ * non-transient, non-synthetic fields of a class and its superclasses. Each class's accessors are
+ * gathered once into a {@link ClassAccessor}, held in a {@link ClassValue} so that lookups are lock free
+ * and do not keep the class's loader reachable.
  */
 public class FieldUtility {
 
   private static final AlphaNumericComparator<FieldAccessor> ALPHA_NUMERIC_COMPARATOR = new AlphaNumericComparator<>(FieldAccessor::getName);
-  private static final ConcurrentHashMap<Class<?>, FieldAccessor[]> FIELD_ACCESSOR_MAP = new ConcurrentHashMap<>();
+  private static final ClassValue<ClassAccessor> CLASS_ACCESSOR_VALUE = new ClassValue<>() {
+
+    @Override
+    protected ClassAccessor computeValue (Class<?> type) {
+
+      return createClassAccessor(type);
+    }
+  };
+
+  /**
+   * Returns the cached {@link ClassAccessor} describing the fields of the supplied class.
+   *
+   * @param clazz the class to inspect
+   * @return the class's accessor table
+   */
+  public static ClassAccessor getClassAccessor (Class<?> clazz) {
+
+    return CLASS_ACCESSOR_VALUE.get(clazz);
+  }
 
   /**
    * Returns the cached {@link FieldAccessor} for the field with the given name on the supplied class.
@@ -58,14 +77,7 @@ public class FieldUtility {
    */
   public static FieldAccessor getFieldAccessor (Class<?> clazz, String name) {
 
-    for (FieldAccessor fieldAccessor : getFieldAccessors(clazz)) {
-      if (fieldAccessor.getField().getName().equals(name)) {
-
-        return fieldAccessor;
-      }
-    }
-
-    return null;
+    return CLASS_ACCESSOR_VALUE.get(clazz).getFieldAccessor(name);
   }
 
   /**
@@ -78,34 +90,33 @@ public class FieldUtility {
    */
   public static FieldAccessor[] getFieldAccessors (final Class<?> clazz) {
 
-    FieldAccessor[] fieldAccessors;
-
-    if ((fieldAccessors = FIELD_ACCESSOR_MAP.get(clazz)) == null) {
-      synchronized (FIELD_ACCESSOR_MAP) {
-        if ((fieldAccessors = FIELD_ACCESSOR_MAP.get(clazz)) == null) {
-
-          Class<?> currentClass = clazz;
-          LinkedList<FieldAccessor> fieldAccessorList = new LinkedList<>();
+    return CLASS_ACCESSOR_VALUE.get(clazz).getFieldAccessors();
+  }
 
-          do {
-            for (Field field : currentClass.getDeclaredFields()) {
-              if (!(field.isSynthetic() || Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))) {
+  /**
+   * Discovers the fields of the given class and its superclasses and builds their accessor table.
+   *
+   * @param clazz the class whose fields should be discovered
+   * @return the class's accessor table
+   */
+  private static ClassAccessor createClassAccessor (Class<?> clazz) {
 
-                field.setAccessible(true);
-                fieldAccessorList.add(new FieldAccessor(field, locateGetter(clazz, field), locateSetter(clazz, field)));
-              }
-            }
-          } while ((currentClass = currentClass.getSuperclass()) != null);
+    Class<?> currentClass = clazz;
+    LinkedList<FieldAccessor> fieldAccessorList = new LinkedList<>();
 
-          fieldAccessorList.sort(ALPHA_NUMERIC_COMPARATOR);
-          fieldAccessors = fieldAccessorList.toArray(new FieldAccessor[0]);
+    do {
+      for (Field field : currentClass.getDeclaredFields()) {
+        if (!(field.isSynthetic() || Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))) {
 
-          FIELD_ACCESSOR_MAP.put(clazz, fieldAccessors);
+          field.setAccessible(true);
+          fieldAccessorList.add(new FieldAccessor(field, locateGetter(clazz, field), locateSetter(clazz, field)));
         }
       }
-    }
+    } while ((currentClass = currentClass.getSuperclass()) != null);
+
+    fieldAccessorList.sort(ALPHA_NUMERIC_COMPARATOR);
 
-    return fieldAccessors;
+    return new ClassAccessor(clazz, fieldAccessorList.toArray(new FieldAccessor[0]));
   }
 
   /**
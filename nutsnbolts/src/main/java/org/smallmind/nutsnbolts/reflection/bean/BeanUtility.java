@@ -33,21 +33,28 @@
 package org.smallmind.nutsnbolts.reflection.bean;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
-import org.smallmind.nutsnbolts.lang.ClassLoaderAwareCache;
+import java.util.concurrent.ConcurrentHashMap;
 import org.smallmind.nutsnbolts.reflection.type.TypeUtility;
 
 /**
  * Static helpers for reflective JavaBean interaction, providing cached getter, setter, and method
- * lookup as well as dotted-path traversal for nested property access.
+ * lookup as well as dotted-path traversal for nested property access. Resolved methods are cached per
+ * class in {@link ClassValue}s, so lookups are lock free and never pin a class loader, and each is
+ * compiled once into a {@link MethodHandle} through which every later invocation is made.
  */
 public class BeanUtility {
 
-  private static final ClassLoaderAwareCache<MethodKey, Method> GETTER_MAP = new ClassLoaderAwareCache<>(methodKey -> methodKey.getMethodClass().getClassLoader());
-  private static final ClassLoaderAwareCache<MethodKey, Method> SETTER_MAP = new ClassLoaderAwareCache<>(methodKey -> methodKey.getMethodClass().getClassLoader());
-  private static final ClassLoaderAwareCache<MethodKey, Method> METHOD_MAP = new ClassLoaderAwareCache<>(methodKey -> methodKey.getMethodClass().getClassLoader());
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodCache GETTER_CACHE = new MethodCache();
+  private static final MethodCache SETTER_CACHE = new MethodCache();
+  private static final MethodCache METHOD_CACHE = new MethodCache();
 
   /**
    * Returns the parameter type that should be used when invoking the given setter, preferring the
@@ -136,7 +143,7 @@ public class BeanUtility {
   public static Object executeGet (Object target, String fieldPath, boolean nullable)
     throws BeanAccessException, BeanInvocationException {
 
-    Method getterMethod;
+    BeanMethod getterMethod;
     Object currentTarget;
     String[] pathComponents;
 
@@ -243,7 +250,7 @@ public class BeanUtility {
       try {
         for (int count = 0; count < pathComponents.length - 1; count++) {
 
-          Method getterMethod;
+          BeanMethod getterMethod;
 
           if ((getterMethod = acquireGetterMethod(currentTarget, pathComponents[count])) == null) {
             throw new BeanAccessException("Missing 'getter' for method(%s) in chain(%s)", pathComponents[count], methodName);
@@ -267,18 +274,20 @@ public class BeanUtility {
    *
    * @param target the object whose class should be searched for the getter
    * @param name   the property name to look up via {@code getXxx} or {@code isXxx}
-   * @return the resolved getter {@link Method}
+   * @return the resolved getter
    * @throws BeanAccessException if neither a {@code getXxx} nor an {@code isXxx} method can be found
    */
-  private static Method acquireGetterMethod (Object target, String name)
+  private static BeanMethod acquireGetterMethod (Object target, String name)
     throws BeanAccessException {
 
-    Method getterMethod;
-    MethodKey methodKey;
+    ConcurrentHashMap<String, BeanMethod> methodMap;
+    BeanMethod beanMethod;
 
-    methodKey = new MethodKey(target.getClass(), name);
     // Check if we've already got it
-    if ((getterMethod = GETTER_MAP.get(methodKey)) == null) {
+    if ((beanMethod = (methodMap = GETTER_CACHE.get(target.getClass())).get(name)) == null) {
+
+      Method getterMethod;
+
       try {
         // Is there a method with a proper getter name 'getXXX'
         getterMethod = getMethod(target, asGetterName(name));
@@ -294,10 +303,10 @@ public class BeanUtility {
         }
       }
 
-      GETTER_MAP.put(methodKey, getterMethod);
+      methodMap.putIfAbsent(name, beanMethod = new BeanMethod(getterMethod));
     }
 
-    return getterMethod;
+    return beanMethod;
   }
 
   /**
@@ -307,25 +316,27 @@ public class BeanUtility {
    * @param target the object whose class should be searched for the setter
    * @param name   the property name to look up via {@code setXxx}
    * @param value  the value that will be passed to the setter, used for type matching
-   * @return the resolved setter {@link Method}
+   * @return the resolved setter
    * @throws BeanAccessException if a compatible {@code setXxx} method cannot be found
    */
-  private static Method acquireSetterMethod (Object target, String name, Object value)
+  private static BeanMethod acquireSetterMethod (Object target, String name, Object value)
     throws BeanAccessException {
 
-    Method setterMethod;
-    MethodKey methodKey;
+    ConcurrentHashMap<String, BeanMethod> methodMap;
+    BeanMethod beanMethod;
 
-    methodKey = new MethodKey(target.getClass(), name);
     // Check if we've already got it
-    if ((setterMethod = SETTER_MAP.get(methodKey)) == null) {
+    if ((beanMethod = (methodMap = SETTER_CACHE.get(target.getClass())).get(name)) == null) {
+
+      Method setterMethod;
+
       if ((setterMethod = findMethod(target, asSetterName(name), value.getClass())) == null) {
         throw new BeanAccessException("No 'setter' method(%s) found in class(%s)", asSetterName(name), target.getClass().getName());
       }
-      SETTER_MAP.put(methodKey, setterMethod);
+      methodMap.putIfAbsent(name, beanMethod = new BeanMethod(setterMethod));
     }
 
-    return setterMethod;
+    return beanMethod;
   }
 
   /**
@@ -335,19 +346,19 @@ public class BeanUtility {
    * @param target the object whose class should be searched for the method
    * @param name   the method name to look up
    * @param values the argument values to be passed, used for parameter type matching; may be empty
-   * @return the resolved {@link Method}
+   * @return the resolved method
    * @throws BeanAccessException if no method matching the name and argument types can be found
    */
-  private static Method acquireMethod (Object target, String name, Object... values)
+  private static BeanMethod acquireMethod (Object target, String name, Object... values)
     throws BeanAccessException {
 
-    Method method;
-    MethodKey methodKey;
+    ConcurrentHashMap<String, BeanMethod> methodMap;
+    BeanMethod beanMethod;
 
-    methodKey = new MethodKey(target.getClass(), name);
     // Check if we've already got it
-    if ((method = METHOD_MAP.get(methodKey)) == null) {
+    if ((beanMethod = (methodMap = METHOD_CACHE.get(target.getClass())).get(name)) == null) {
 
+      Method method;
       Class[] parameterTypes = new Class[(values == null) ? 0 : values.length];
 
       if ((values != null) && (values.length > 0)) {
@@ -358,10 +369,10 @@ public class BeanUtility {
       if ((method = findMethod(target, name, parameterTypes)) == null) {
         throw new BeanAccessException("No method(%s) for parameter types(%s) found in class(%s)", name, Arrays.toString(parameterTypes), target.getClass().getName());
       }
-      METHOD_MAP.put(methodKey, method);
+      methodMap.putIfAbsent(name, beanMethod = new BeanMethod(method));
     }
 
-    return method;
+    return beanMethod;
   }
 
   /**
@@ -438,61 +449,140 @@ public class BeanUtility {
   }
 
   /**
-   * Composite cache key that pairs a declaring class with a method or property name to avoid
-   * redundant reflective lookups.
+   * Per-class cache of resolved methods keyed by property or method name.
    */
-  private static class MethodKey {
+  private static class MethodCache extends ClassValue<ConcurrentHashMap<String, BeanMethod>> {
 
-    private final Class<?> methodClass;
-    private final String methodName;
+    /**
+     * Creates the empty method map for a class on first use.
+     *
+     * @param type the class whose methods will be cached
+     * @return an empty map
+     */
+    @Override
+    protected ConcurrentHashMap<String, BeanMethod> computeValue (Class<?> type) {
 
-    private MethodKey (Class<?> methodClass, String methodName) {
+      return new ConcurrentHashMap<>();
+    }
+  }
 
-      this.methodClass = methodClass;
-      this.methodName = methodName;
+  /**
+   * A resolved method together with a {@link MethodHandle} compiled from it, adapted to take the target
+   * and a spread argument array, so that invocation avoids the reflective call path. Methods which can't
+   * be compiled, e.g. public methods of an inaccessible class, are invoked reflectively.
+   */
+  private static class BeanMethod {
+
+    private final Method method;
+    private final MethodHandle methodHandle;
+
+    private BeanMethod (Method method) {
+
+      this.method = method;
+
+      methodHandle = compile(method);
     }
 
     /**
-     * Returns the class component of this cache key.
+     * Compiles the method into a handle of type {@code (Object, Object[])Object}.
      *
-     * @return the declaring class associated with this key
+     * @param method the method to compile
+     * @return the compiled handle, or {@code null} if the method is not accessible to a handle
      */
-    private Class<?> getMethodClass () {
+    private static MethodHandle compile (Method method) {
+
+      MethodHandle rawHandle;
+
+      try {
+        rawHandle = LOOKUP.unreflect(method);
+      } catch (IllegalAccessException illegalAccessException) {
+        try {
+          if (!method.trySetAccessible()) {
+
+            return null;
+          }
 
-      return methodClass;
+          rawHandle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException | SecurityException exception) {
+
+          return null;
+        }
+      }
+
+      return rawHandle.asSpreader(Object[].class, method.getParameterCount()).asType(MethodType.methodType(Object.class, Object.class, Object[].class));
     }
 
     /**
-     * Returns the method or property name component of this cache key.
+     * Returns the name of the underlying method.
      *
-     * @return the method or property name associated with this key
+     * @return the method name
      */
-    private String getMethodName () {
+    private String getName () {
 
-      return methodName;
+      return method.getName();
     }
 
     /**
-     * Computes a hash code from the class and method name for use in hash-based maps.
+     * Invokes the method on the target with reflection's semantics. The receiver and arguments are checked
+     * first, as the handle's own adaptation failures could not otherwise be told apart from exceptions thrown
+     * by the method, so only what the method itself throws is wrapped in an {@link InvocationTargetException}.
      *
-     * @return the XOR of the class hash code and the method name hash code
+     * @param target    the receiver
+     * @param arguments the method arguments
+     * @return the method's return value, or {@code null} for a {@code void} method
+     * @throws IllegalAccessException    if the method is reflectively invoked and not accessible
+     * @throws IllegalArgumentException  if the receiver or arguments do not fit the method
+     * @throws NullPointerException      if the receiver of an instance method is {@code null}
+     * @throws InvocationTargetException if the method throws
      */
-    @Override
-    public int hashCode () {
+    private Object invoke (Object target, Object... arguments)
+      throws IllegalAccessException, InvocationTargetException {
+
+      if (methodHandle == null) {
+
+        return method.invoke(target, arguments);
+      }
+
+      checkInvocation(target, arguments);
+
+      try {
 
-      return methodClass.hashCode() ^ methodName.hashCode();
+        return (Object)methodHandle.invokeExact(target, arguments);
+      } catch (Throwable throwable) {
+        throw new InvocationTargetException(throwable);
+      }
     }
 
     /**
-     * Returns {@code true} if {@code obj} is a {@code MethodKey} with the same class and method name.
+     * Applies the checks {@link Method#invoke(Object, Object...)} makes of its receiver and arguments, allowing
+     * the same unboxing and widening primitive conversions the compiled handle performs.
      *
-     * @param obj the object to compare with this key
-     * @return {@code true} if both keys identify the same class and method name
+     * @param target    the receiver
+     * @param arguments the method arguments
+     * @throws IllegalArgumentException if the receiver or arguments do not fit the method
+     * @throws NullPointerException     if the receiver of an instance method is {@code null}
      */
-    @Override
-    public boolean equals (Object obj) {
+    private void checkInvocation (Object target, Object... arguments) {
 
-      return (obj instanceof MethodKey) && methodClass.equals(((MethodKey)obj).getMethodClass()) && methodName.equals(((MethodKey)obj).getMethodName());
+      Class<?>[] parameterTypes = method.getParameterTypes();
+
+      if (!Modifier.isStatic(method.getModifiers())) {
+        if (target == null) {
+          throw new NullPointerException("Cannot invoke " + method + " on a null receiver");
+        } else if (!method.getDeclaringClass().isInstance(target)) {
+          throw new IllegalArgumentException("Object of type " + target.getClass().getName() + " is not an instance of " + method.getDeclaringClass().getName());
+        }
+      }
+
+      if (((arguments == null) ? 0 : arguments.length) != parameterTypes.length) {
+        throw new IllegalArgumentException("Wrong number of arguments for " + method + ", expected " + parameterTypes.length + " but was " + ((arguments == null) ? 0 : arguments.length));
+      }
+
+      for (int index = 0; index < parameterTypes.length; index++) {
+        if (!TypeUtility.isArgumentAssignable(parameterTypes[index], arguments[index])) {
+          throw new IllegalArgumentException("Argument(" + index + ") of " + method + " requires " + parameterTypes[index].getName() + " but was " + ((arguments[index] == null) ? "null" : arguments[index].getClass().getName()));
+        }
+      }
     }
   }
 }
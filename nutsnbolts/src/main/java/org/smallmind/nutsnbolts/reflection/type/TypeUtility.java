@@ -153,6 +153,53 @@ public class TypeUtility {
     return expectedClass.isAssignableFrom(actualClass);
   }
 
+  /**
+   * Returns {@code true} if the value can be passed as an argument of the given parameter type by reflective
+   * invocation, i.e. it is {@code null} or an instance of a reference type, or a non-null wrapper that unboxes
+   * to a primitive type directly or by a widening primitive conversion.
+   *
+   * @param parameterType the declared parameter type
+   * @param argument      the value to be passed, which may be {@code null}
+   * @return {@code true} if {@link java.lang.reflect.Method#invoke(Object, Object...)} would accept the argument
+   */
+  public static boolean isArgumentAssignable (Class<?> parameterType, Object argument) {
+
+    return parameterType.isPrimitive() ? isWideningConvertible(argument, parameterType) : ((argument == null) || parameterType.isInstance(argument));
+  }
+
+  /**
+   * Determines whether a value unboxes to the given primitive type, directly or by a widening primitive conversion.
+   *
+   * @param argument      the value to convert
+   * @param primitiveType the primitive parameter type
+   * @return {@code true} if the value is a non-null wrapper convertible to the primitive type
+   */
+  private static boolean isWideningConvertible (Object argument, Class<?> primitiveType) {
+
+    if (argument == null) {
+
+      return false;
+    } else if (boxedType(primitiveType).isInstance(argument)) {
+
+      return true;
+    } else if ((argument instanceof Byte) && ((primitiveType == short.class) || (primitiveType == int.class) || (primitiveType == long.class) || (primitiveType == float.class) || (primitiveType == double.class))) {
+
+      return true;
+    } else if (((argument instanceof Short) || (argument instanceof Character)) && ((primitiveType == int.class) || (primitiveType == long.class) || (primitiveType == float.class) || (primitiveType == double.class))) {
+
+      return true;
+    } else if ((argument instanceof Integer) && ((primitiveType == long.class) || (primitiveType == float.class) || (primitiveType == double.class))) {
+
+      return true;
+    } else if ((argument instanceof Long) && ((primitiveType == float.class) || (primitiveType == double.class))) {
+
+      return true;
+    } else {
+
+      return (argument instanceof Float) && (primitiveType == double.class);
+    }
+  }
+
   /**
    * Returns the language-defined default value for the given primitive or wrapper type, or {@code null}
    * for all other reference types.
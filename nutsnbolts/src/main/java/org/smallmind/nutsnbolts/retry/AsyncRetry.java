@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.retry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart to {@link Retry}, which returns a {@link CompletableFuture} completed by the first
+ * successful attempt, or exceptionally by the last failure once the {@link RetryPolicy} gives up. Attempts
+ * run on a caller-supplied {@link Executor}, or on a virtual thread each by default, and the wait between
+ * attempts is a task on a single shared scheduler thread rather than a sleeping thread, so any number of
+ * operations may be backing off at once without holding a thread apiece. Cancelling the returned future
+ * abandons any attempts not yet started.
+ */
+public class AsyncRetry {
+
+  private static final ThreadFactory ATTEMPT_THREAD_FACTORY = Thread.ofVirtual().name("Retry Attempt").factory();
+  private static final Executor VIRTUAL_EXECUTOR = runnable -> ATTEMPT_THREAD_FACTORY.newThread(runnable).start();
+  private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+  static {
+
+    SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+
+      Thread thread = new Thread(runnable, "Retry Scheduler");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    SCHEDULER.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Retries the supplied call on virtual threads.
+   *
+   * @param retryCall   the operation to attempt; failure is indicated by throwing any {@link Throwable}
+   * @param retryPolicy the back-off, budget and retry predicate to apply
+   * @return a future completed on success, or exceptionally with the last failure
+   */
+  public static CompletableFuture<Void> execute (RetryCall retryCall, RetryPolicy retryPolicy) {
+
+    return execute(retryCall, retryPolicy, VIRTUAL_EXECUTOR);
+  }
+
+  /**
+   * Retries the supplied call on the given executor.
+   *
+   * @param retryCall   the operation to attempt; failure is indicated by throwing any {@link Throwable}
+   * @param retryPolicy the back-off, budget and retry predicate to apply
+   * @param executor    the executor on which attempts run
+   * @return a future completed on success, or exceptionally with the last failure
+   */
+  public static CompletableFuture<Void> execute (RetryCall retryCall, RetryPolicy retryPolicy, Executor executor) {
+
+    return start(() -> {
+      retryCall.execute();
+
+      return null;
+    }, retryPolicy, executor);
+  }
+
+  /**
+   * Retries the supplied callable on virtual threads.
+   *
+   * @param callable    the operation to attempt
+   * @param retryPolicy the back-off, budget and retry predicate to apply
+   * @param <T>         the result type
+   * @return a future completed with the first successful result, or exceptionally with the last failure
+   */
+  public static <T> CompletableFuture<T> supply (Callable<T> callable, RetryPolicy retryPolicy) {
+
+    return supply(callable, retryPolicy, VIRTUAL_EXECUTOR);
+  }
+
+  /**
+   * Retries the supplied callable on the given executor.
+   *
+   * @param callable    the operation to attempt
+   * @param retryPolicy the back-off, budget and retry predicate to apply
+   * @param executor    the executor on which attempts run
+   * @param <T>         the result type
+   * @return a future completed with the first successful result, or exceptionally with the last failure
+   */
+  public static <T> CompletableFuture<T> supply (Callable<T> callable, RetryPolicy retryPolicy, Executor executor) {
+
+    return start(callable::call, retryPolicy, executor);
+  }
+
+  private static <T> CompletableFuture<T> start (Attempt<T> attempt, RetryPolicy retryPolicy, Executor executor) {
+
+    RetryRun<T> retryRun = new RetryRun<>(attempt, retryPolicy, executor);
+
+    retryRun.submit();
+
+    return retryRun.getFuture();
+  }
+
+  /**
+   * Calculates the wait after a failure.
+   *
+   * @param retryPolicy   the policy in force
+   * @param failures      the number of attempts which have failed, counting the latest
+   * @param previousDelay the previous wait, or the initial delay after the first failure
+   * @return the wait in milliseconds
+   */
+  static long calculateDelay (RetryPolicy retryPolicy, int failures, long previousDelay) {
+
+    long exponentialDelay = (long)Math.min(retryPolicy.getMaxDelayMillis(), retryPolicy.getInitialDelayMillis() * Math.pow(retryPolicy.getMultiplier(), failures - 1));
+
+    return switch (retryPolicy.getJitter()) {
+      case NONE -> exponentialDelay;
+      case FULL -> (exponentialDelay <= 0) ? 0 : ThreadLocalRandom.current().nextLong(exponentialDelay + 1);
+      case DECORRELATED -> {
+
+        long ceiling = Math.max(retryPolicy.getInitialDelayMillis(), Math.min(retryPolicy.getMaxDelayMillis(), previousDelay * 3));
+
+        yield (ceiling <= retryPolicy.getInitialDelayMillis()) ? ceiling : ThreadLocalRandom.current().nextLong(retryPolicy.getInitialDelayMillis(), ceiling + 1);
+      }
+    };
+  }
+
+  /**
+   * A single attempt, which may throw anything.
+   *
+   * @param <T> the result type
+   */
+  private interface Attempt<T> {
+
+    T attempt ()
+      throws Throwable;
+  }
+
+  /**
+   * The state of one retried operation, run once per attempt.
+   *
+   * @param <T> the result type
+   */
+  private static class RetryRun<T> implements Runnable {
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final Attempt<T> attempt;
+    private final RetryPolicy retryPolicy;
+    private final Executor executor;
+    private final long startNanos = System.nanoTime();
+    private long previousDelay;
+    private int attempts;
+
+    private RetryRun (Attempt<T> attempt, RetryPolicy retryPolicy, Executor executor) {
+
+      this.attempt = attempt;
+      this.retryPolicy = retryPolicy;
+      this.executor = executor;
+
+      previousDelay = retryPolicy.getInitialDelayMillis();
+    }
+
+    /**
+     * Returns the future completed by this operation.
+     *
+     * @return the result future
+     */
+    private CompletableFuture<T> getFuture () {
+
+      return future;
+    }
+
+    /**
+     * Hands the next attempt to the executor, failing the operation if the executor refuses it.
+     */
+    private void submit () {
+
+      if (!future.isDone()) {
+        try {
+          executor.execute(this);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+          future.completeExceptionally(rejectedExecutionException);
+        }
+      }
+    }
+
+    /**
+     * Makes one attempt, then completes the future or schedules the next attempt. Should the retry listener
+     * or the retry predicate throw, the operation is abandoned with that throwable, rather than leaving the
+     * future forever incomplete.
+     */
+    @Override
+    public void run () {
+
+      if (!future.isDone()) {
+        try {
+          makeAttempt();
+        } catch (Throwable throwable) {
+          future.completeExceptionally(throwable);
+        }
+      }
+    }
+
+    /**
+     * Makes one attempt, then completes the future or schedules the next attempt.
+     *
+     * @throws Throwable if the retry listener or the retry predicate throws
+     */
+    private void makeAttempt ()
+      throws Throwable {
+
+      T result;
+
+      retryPolicy.getRetryListener().onAttempt(++attempts);
+      try {
+        result = attempt.attempt();
+      } catch (Throwable throwable) {
+        try {
+          retryOrFail(throwable);
+        } catch (Throwable callbackThrowable) {
+          if (callbackThrowable != throwable) {
+            callbackThrowable.addSuppressed(throwable);
+          }
+
+          throw callbackThrowable;
+        }
+
+        return;
+      }
+
+      retryPolicy.getRetryListener().onSuccess(attempts, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+      future.complete(result);
+    }
+
+    /**
+     * Schedules the next attempt after a failure, or abandons the operation if the policy forbids another.
+     *
+     * @param throwable the failure of the latest attempt
+     * @throws Throwable if the retry listener or the retry predicate throws
+     */
+    private void retryOrFail (Throwable throwable)
+      throws Throwable {
+
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+      if ((attempts > retryPolicy.getRetries()) || (!retryPolicy.getRetryOn().test(throwable))) {
+        fail(throwable, elapsedMillis);
+      } else {
+
+        long delay = calculateDelay(retryPolicy, attempts, previousDelay);
+
+        if ((retryPolicy.getMaxElapsedMillis() > 0) && (elapsedMillis + delay > retryPolicy.getMaxElapsedMillis())) {
+          fail(throwable, elapsedMillis);
+        } else {
+          previousDelay = delay;
+          retryPolicy.getRetryListener().onRetry(attempts, throwable, delay);
+          try {
+            SCHEDULER.schedule(this::submit, delay, TimeUnit.MILLISECONDS);
+          } catch (RejectedExecutionException rejectedExecutionException) {
+            future.completeExceptionally(rejectedExecutionException);
+          }
+        }
+      }
+    }
+
+    /**
+     * Abandons the operation with its last failure.
+     *
+     * @param throwable     the last failure
+     * @param elapsedMillis the time since the first attempt was submitted
+     */
+    private void fail (Throwable throwable, long elapsedMillis) {
+
+      retryPolicy.getRetryListener().onFailure(attempts, throwable, elapsedMillis);
+      future.completeExceptionally(throwable);
+    }
+  }
+}
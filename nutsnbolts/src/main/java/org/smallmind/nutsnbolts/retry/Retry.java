@@ -35,6 +35,7 @@ package org.smallmind.nutsnbolts.retry;
 /**
  * Utility class that executes a {@link RetryCall} repeatedly until it succeeds or the
  * allowed number of retries is exhausted, with optional exponential back-off between attempts.
+ * The caller blocks throughout; see {@link AsyncRetry} for a non-blocking alternative with jittered back-off.
  */
 public class Retry {
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.retry;
+
+/**
+ * Hooks through which {@link AsyncRetry} reports the progress of a retried operation, e.g. to record metrics.
+ * Every method has an empty default, so implementations override only what they need. Callbacks run on the
+ * thread that made the attempt and should not block.
+ */
+public interface RetryListener {
+
+  /**
+   * Called before each attempt.
+   *
+   * @param attempt the attempt about to be made, counting from 1
+   */
+  default void onAttempt (int attempt) {
+
+  }
+
+  /**
+   * Called when an attempt has failed and another will be made after a delay.
+   *
+   * @param attempt     the attempt which failed, counting from 1
+   * @param throwable   the failure
+   * @param delayMillis the wait in milliseconds before the next attempt
+   */
+  default void onRetry (int attempt, Throwable throwable, long delayMillis) {
+
+  }
+
+  /**
+   * Called when an attempt succeeds.
+   *
+   * @param attempts      the number of attempts made
+   * @param elapsedMillis the time in milliseconds since the first attempt was submitted
+   */
+  default void onSuccess (int attempts, long elapsedMillis) {
+
+  }
+
+  /**
+   * Called when the operation is abandoned, because the retries or time budget are exhausted or the
+   * failure is not one the policy retries.
+   *
+   * @param attempts      the number of attempts made
+   * @param throwable     the final failure
+   * @param elapsedMillis the time in milliseconds since the first attempt was submitted
+   */
+  default void onFailure (int attempts, Throwable throwable, long elapsedMillis) {
+
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.retry;
+
+import java.util.function.Predicate;
+
+/**
+ * Holder for the configuration of an {@link AsyncRetry} operation.
+ *
+ * <p>After the attempt numbered {@code n} fails, the exponential delay is
+ * {@code min(maxDelayMillis, initialDelayMillis * multiplier^(n - 1))}, which the {@link Jitter} then
+ * randomizes. At most {@code retries} attempts follow the first. Only failures accepted by the
+ * {@code retryOn} predicate are retried. When {@code maxElapsedMillis} is positive, no retry is scheduled
+ * whose delay would end beyond that many milliseconds after the first attempt. Defaults are 3 retries, an
+ * initial delay of 100ms doubling up to 30s, full jitter, no time budget, and retrying every failure.</p>
+ */
+public class RetryPolicy {
+
+  private static final RetryListener NO_OP_LISTENER = new RetryListener() {
+
+  };
+
+  private Predicate<Throwable> retryOn = throwable -> true;
+  private RetryListener retryListener = NO_OP_LISTENER;
+  private Jitter jitter = Jitter.FULL;
+  private double multiplier = 2.0D;
+  private long initialDelayMillis = 100;
+  private long maxDelayMillis = 30000;
+  private long maxElapsedMillis = 0;
+  private int retries = 3;
+
+  /**
+   * Returns the maximum number of attempts after the first.
+   *
+   * @return the retry count
+   */
+  public int getRetries () {
+
+    return retries;
+  }
+
+  /**
+   * Sets the maximum number of attempts after the first.
+   *
+   * @param retries the retry count; {@code 0} attempts once only
+   */
+  public void setRetries (int retries) {
+
+    this.retries = retries;
+  }
+
+  /**
+   * Returns the delay in milliseconds after the first failure, before jitter.
+   *
+   * @return the initial delay
+   */
+  public long getInitialDelayMillis () {
+
+    return initialDelayMillis;
+  }
+
+  /**
+   * Sets the delay in milliseconds after the first failure, before jitter.
+   *
+   * @param initialDelayMillis the initial delay; must not be negative
+   */
+  public void setInitialDelayMillis (long initialDelayMillis) {
+
+    this.initialDelayMillis = initialDelayMillis;
+  }
+
+  /**
+   * Returns the cap in milliseconds on any single delay.
+   *
+   * @return the maximum delay
+   */
+  public long getMaxDelayMillis () {
+
+    return maxDelayMillis;
+  }
+
+  /**
+   * Sets the cap in milliseconds on any single delay.
+   *
+   * @param maxDelayMillis the maximum delay; must not be less than the initial delay
+   */
+  public void setMaxDelayMillis (long maxDelayMillis) {
+
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Returns the factor by which the delay grows with each failure.
+   *
+   * @return the multiplier
+   */
+  public double getMultiplier () {
+
+    return multiplier;
+  }
+
+  /**
+   * Sets the factor by which the delay grows with each failure.
+   *
+   * @param multiplier the multiplier; {@code 1} keeps the delay flat
+   */
+  public void setMultiplier (double multiplier) {
+
+    this.multiplier = multiplier;
+  }
+
+  /**
+   * Returns the randomization applied to each delay.
+   *
+   * @return the jitter
+   */
+  public Jitter getJitter () {
+
+    return jitter;
+  }
+
+  /**
+   * Sets the randomization applied to each delay.
+   *
+   * @param jitter the jitter
+   */
+  public void setJitter (Jitter jitter) {
+
+    this.jitter = jitter;
+  }
+
+  /**
+   * Returns the time budget in milliseconds, measured from the first attempt, within which retries may be
+   * scheduled.
+   *
+   * @return the time budget, or {@code 0} if unbounded
+   */
+  public long getMaxElapsedMillis () {
+
+    return maxElapsedMillis;
+  }
+
+  /**
+   * Sets the time budget in milliseconds, measured from the first attempt, within which retries may be
+   * scheduled.
+   *
+   * @param maxElapsedMillis the time budget, or {@code 0} for none
+   */
+  public void setMaxElapsedMillis (long maxElapsedMillis) {
+
+    this.maxElapsedMillis = maxElapsedMillis;
+  }
+
+  /**
+   * Returns the predicate selecting which failures are retried.
+   *
+   * @return the retry predicate
+   */
+  public Predicate<Throwable> getRetryOn () {
+
+    return retryOn;
+  }
+
+  /**
+   * Sets the predicate selecting which failures are retried; any other failure completes the operation
+   * immediately.
+   *
+   * @param retryOn the retry predicate
+   */
+  public void setRetryOn (Predicate<Throwable> retryOn) {
+
+    this.retryOn = retryOn;
+  }
+
+  /**
+   * Returns the listener notified of attempts and their outcomes.
+   *
+   * @return the listener
+   */
+  public RetryListener getRetryListener () {
+
+    return retryListener;
+  }
+
+  /**
+   * Sets the listener notified of attempts and their outcomes.
+   *
+   * @param retryListener the listener
+   */
+  public void setRetryListener (RetryListener retryListener) {
+
+    this.retryListener = retryListener;
+  }
+}
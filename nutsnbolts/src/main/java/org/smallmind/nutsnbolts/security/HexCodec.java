@@ -33,13 +33,35 @@
 package org.smallmind.nutsnbolts.security;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Utility for encoding binary data to lowercase hexadecimal strings and decoding them back.
+ * <p>
+ * Encoding spreads four bytes at a time across the lanes of a {@code long}, converting all eight nibbles
+ * to ASCII digits with a handful of arithmetic operations and no branches, and decoding looks each digit
+ * up in a table. Neither direction builds intermediate strings.
  */
 public class HexCodec {
 
+  private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] NIBBLES = new byte[256];
+
+  static {
+
+    Arrays.fill(NIBBLES, (byte)-1);
+    for (int digit = 0; digit < 16; digit++) {
+      NIBBLES[Character.forDigit(digit, 16)] = (byte)digit;
+      NIBBLES[Character.toUpperCase(Character.forDigit(digit, 16))] = (byte)digit;
+    }
+  }
+
   /**
    * Encodes an entire byte array to a lowercase hexadecimal string.
    *
@@ -61,17 +83,90 @@ public class HexCodec {
    */
   public static String hexEncode (byte[] bytes, int offset, int length) {
 
-    StringBuilder encodingBuilder;
+    return new String(hexEncodeToBytes(bytes, offset, length), StandardCharsets.ISO_8859_1);
+  }
 
-    encodingBuilder = new StringBuilder();
-    for (int index = offset; index < offset + length; index++) {
-      if ((bytes[index] < 0x10) && (bytes[index] >= 0)) {
-        encodingBuilder.append('0');
-      }
-      encodingBuilder.append(Integer.toHexString(bytes[index] & 0xff));
+  /**
+   * Encodes an entire byte array to lowercase hexadecimal ASCII bytes.
+   *
+   * @param bytes the data to encode
+   * @return the hex digits as ASCII bytes, two per input byte
+   */
+  public static byte[] hexEncodeToBytes (byte[] bytes) {
+
+    return hexEncodeToBytes(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Encodes a contiguous slice of a byte array to lowercase hexadecimal ASCII bytes.
+   *
+   * @param bytes  the data array containing the bytes to encode
+   * @param offset the zero-based index of the first byte to encode
+   * @param length the number of bytes to encode
+   * @return the hex digits as ASCII bytes, two per encoded byte
+   */
+  public static byte[] hexEncodeToBytes (byte[] bytes, int offset, int length) {
+
+    byte[] encoded = new byte[length * 2];
+    int end = offset + length;
+    int in = offset;
+    int out = 0;
+
+    for (; in + 4 <= end; in += 4, out += 8) {
+      LONG_VIEW.set(encoded, out, spread(((bytes[in] & 0xFFL) << 24) | ((bytes[in + 1] & 0xFFL) << 16) | ((bytes[in + 2] & 0xFFL) << 8) | (bytes[in + 3] & 0xFFL)));
+    }
+    for (; in < end; in++) {
+      encoded[out++] = DIGITS[(bytes[in] >>> 4) & 0xF];
+      encoded[out++] = DIGITS[bytes[in] & 0xF];
+    }
+
+    return encoded;
+  }
+
+  /**
+   * Encodes the remaining bytes of a {@link ByteBuffer} to lowercase hexadecimal ASCII bytes.
+   *
+   * @param buffer the buffer to encode; consumed from its current position to its limit
+   * @return the hex digits as ASCII bytes, two per encoded byte
+   */
+  public static byte[] hexEncodeToBytes (ByteBuffer buffer) {
+
+    byte[] encoded;
+
+    if (buffer.hasArray()) {
+      encoded = hexEncodeToBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      buffer.position(buffer.limit());
+    } else {
+
+      byte[] bytes = new byte[buffer.remaining()];
+
+      buffer.get(bytes);
+      encoded = hexEncodeToBytes(bytes);
     }
 
-    return encodingBuilder.toString();
+    return encoded;
+  }
+
+  /**
+   * Converts the 4 bytes held in the low half of a {@code long} to 8 hex digits, one per byte lane, with
+   * the first digit in the most significant lane.
+   *
+   * @param bits the 4 bytes to convert
+   * @return the 8 ASCII hex digits
+   */
+  private static long spread (long bits) {
+
+    long nibbles;
+    long letters;
+
+    // spread each byte into a 16 bit lane, and then each nibble into an 8 bit lane, high nibble first
+    bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+    bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+    nibbles = ((bits << 4) & 0x0F000F000F000F00L) | (bits & 0x000F000F000F000FL);
+    // lanes holding 10 or more carry into bit 4 when 6 is added, marking those to be lifted from '0' + n to 'a' + (n - 10)
+    letters = ((nibbles + 0x0606060606060606L) >>> 4) & 0x0101010101010101L;
+
+    return nibbles + 0x3030303030303030L + (letters * ('a' - '0' - 10));
   }
 
   /**
@@ -97,32 +192,57 @@ public class HexCodec {
   public static byte[] hexDecode (byte[] toBeDecoded)
     throws UnsupportedEncodingException {
 
-    if (toBeDecoded.length % 2 != 0) {
+    return hexDecode(toBeDecoded, 0, toBeDecoded.length);
+  }
+
+  /**
+   * Decodes the remaining ASCII hex digit characters of a {@link ByteBuffer} into the original binary data.
+   *
+   * @param buffer the buffer to decode; consumed from its current position to its limit
+   * @return the decoded byte array
+   * @throws UnsupportedEncodingException if the remaining length is odd or contains non-hex characters
+   */
+  public static byte[] hexDecode (ByteBuffer buffer)
+    throws UnsupportedEncodingException {
+
+    byte[] decoded;
+
+    if (buffer.hasArray()) {
+      decoded = hexDecode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      buffer.position(buffer.limit());
+    } else {
+
+      byte[] bytes = new byte[buffer.remaining()];
+
+      buffer.get(bytes);
+      decoded = hexDecode(bytes);
+    }
+
+    return decoded;
+  }
+
+  private static byte[] hexDecode (byte[] toBeDecoded, int offset, int length)
+    throws UnsupportedEncodingException {
+
+    if (length % 2 != 0) {
       throw new UnsupportedEncodingException("Not hex encoded");
     } else {
 
-      byte[] bytes = new byte[toBeDecoded.length / 2];
+      byte[] bytes = new byte[length / 2];
+
+      for (int count = 0; count < bytes.length; count++) {
 
-      for (int count = 0; count < toBeDecoded.length; count += 2) {
-        if (isHexDigit(toBeDecoded[count]) && isHexDigit(toBeDecoded[count + 1])) {
-          bytes[count / 2] = (byte)((Character.digit(toBeDecoded[count], 16) * 16) + Character.digit(toBeDecoded[count + 1], 16));
-        } else {
+        int high = NIBBLES[toBeDecoded[offset + (count * 2)] & 0xFF];
+        int low = NIBBLES[toBeDecoded[offset + (count * 2) + 1] & 0xFF];
+
+        if ((high | low) < 0) {
           throw new UnsupportedEncodingException("Not hex encoded");
         }
+
+        bytes[count] = (byte)((high << 4) | low);
       }
 
       return bytes;
     }
   }
-
-  /**
-   * Returns {@code true} if the supplied byte represents an ASCII hexadecimal digit (0-9, a-f, or A-F).
-   *
-   * @param singleChar the ASCII byte value to test
-   * @return {@code true} if the character is a valid hex digit
-   */
-  private static boolean isHexDigit (byte singleChar) {
-
-    return ((singleChar >= '0') && (singleChar <= '9')) || ((singleChar >= 'A') && (singleChar <= 'F')) || ((singleChar >= 'a') && (singleChar <= 'f'));
-  }
 }
@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A probabilistic membership filter, like {@link BloomFilter}, that may be shared between threads without locking. Element bytes
+ * are hashed once with the 128-bit x64 variant of MurmurHash3, and the bit positions are derived from the two 64-bit halves by
+ * double hashing, so no per-call state or temporary arrays are needed. Bits are held in an {@link AtomicLongArray} and set by
+ * compare-and-set, so concurrent adds never block each other or lookups. Filters of identical geometry may be merged by
+ * {@link #union(ConcurrentBloomFilter) union} or {@link #intersect(ConcurrentBloomFilter) intersection}, and any filter can be
+ * written to, and read back from, a compact byte form.
+ *
+ * @param <E> the element type, which must supply a byte representation for hashing
+ */
+public class ConcurrentBloomFilter<E extends BloomFilterElement> {
+
+  private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final byte SERIAL_VERSION = 1;
+  private static final int SERIAL_HEADER_SIZE = 1 + 8 + 4 + 4 + 4 + 4;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private final AtomicLongArray words;
+  private final LongAdder size = new LongAdder();
+  private final double bitsPerElement;
+  private final int maxElements;
+  private final int hashCount;
+  private final int length;
+
+  /**
+   * Constructs a bloom filter with explicit sizing parameters.
+   *
+   * @param bitsPerElement the target number of bits allocated per expected element
+   * @param maxElements    the maximum number of elements the filter is expected to hold
+   * @param hashCount      the number of bit positions derived for each element
+   */
+  public ConcurrentBloomFilter (double bitsPerElement, int maxElements, int hashCount) {
+
+    this(bitsPerElement, maxElements, hashCount, (int)Math.ceil(bitsPerElement * maxElements));
+  }
+
+  /**
+   * Constructs a bloom filter sized by a total bit length and expected capacity, deriving bits-per-element
+   * and an optimal hash count automatically.
+   *
+   * @param length      the total number of bits in the filter
+   * @param maxElements the maximum number of elements the filter is expected to hold
+   */
+  public ConcurrentBloomFilter (int length, int maxElements) {
+
+    this(length / (double)maxElements, maxElements, (int)Math.round((length / (double)maxElements) * Math.log(2.0)));
+  }
+
+  /**
+   * Constructs a bloom filter sized to achieve the given false-positive probability for the expected capacity,
+   * computing the required bit length and hash count automatically.
+   *
+   * @param falsePositiveProbability the desired probability of a false positive (between 0 and 1)
+   * @param maxElements              the maximum number of elements the filter is expected to hold
+   */
+  public ConcurrentBloomFilter (double falsePositiveProbability, int maxElements) {
+
+    this(optimalLength(falsePositiveProbability, maxElements) / (double)maxElements, maxElements, (int)Math.ceil(-Math.log(falsePositiveProbability) / Math.log(2)), optimalLength(falsePositiveProbability, maxElements));
+  }
+
+  private ConcurrentBloomFilter (double bitsPerElement, int maxElements, int hashCount, int length) {
+
+    if (length <= 0) {
+      throw new IllegalArgumentException("The filter length must be > 0");
+    }
+    if (hashCount <= 0) {
+      throw new IllegalArgumentException("The hash count must be > 0");
+    }
+
+    this.bitsPerElement = bitsPerElement;
+    this.maxElements = maxElements;
+    this.hashCount = hashCount;
+    this.length = length;
+
+    words = new AtomicLongArray((length + 63) >>> 6);
+  }
+
+  /**
+   * Computes the number of bits, {@code -n ln p / (ln 2)^2} rounded up, that holds {@code n} elements at a false-positive
+   * probability of {@code p}.
+   *
+   * @param falsePositiveProbability the desired probability of a false positive (between 0 and 1)
+   * @param maxElements              the maximum number of elements the filter is expected to hold
+   * @return the total number of bits required
+   */
+  private static int optimalLength (double falsePositiveProbability, int maxElements) {
+
+    return (int)Math.ceil(-maxElements * Math.log(falsePositiveProbability) / Math.pow(Math.log(2), 2));
+  }
+
+  /**
+   * Reconstructs a filter from the form produced by {@link #toByteArray()}.
+   *
+   * @param bytes the serialized filter
+   * @param <E>   the element type of the reconstructed filter
+   * @return a filter with the geometry, bits and size of the one serialized
+   * @throws IllegalArgumentException if the bytes are not a serialized filter of a known version
+   */
+  public static <E extends BloomFilterElement> ConcurrentBloomFilter<E> fromByteArray (byte[] bytes) {
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    ConcurrentBloomFilter<E> filter;
+    int wordCount;
+
+    if ((bytes.length < SERIAL_HEADER_SIZE) || (buffer.get() != SERIAL_VERSION)) {
+      throw new IllegalArgumentException("Not a serialized filter of a known version");
+    }
+
+    filter = new ConcurrentBloomFilter<>(buffer.getDouble(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    filter.size.add(buffer.getInt());
+
+    if (((wordCount = buffer.remaining() / 8) > filter.words.length()) || ((buffer.remaining() % 8) != 0)) {
+      throw new IllegalArgumentException("The serialized bits do not match the serialized filter length");
+    }
+    for (int index = 0; index < wordCount; index++) {
+      filter.words.set(index, buffer.getLong());
+    }
+
+    return filter;
+  }
+
+  /**
+   * Returns the configured bits-per-element density used when this filter was constructed.
+   *
+   * @return the bits-per-element value
+   */
+  public double getBitsPerElement () {
+
+    return bitsPerElement;
+  }
+
+  /**
+   * Returns the maximum number of elements this filter is configured to hold.
+   *
+   * @return the maximum element count
+   */
+  public int getMaxElements () {
+
+    return maxElements;
+  }
+
+  /**
+   * Returns the number of bit positions derived for each element.
+   *
+   * @return the hash function count
+   */
+  public int getHashCount () {
+
+    return hashCount;
+  }
+
+  /**
+   * Returns the total number of bits in the filter.
+   *
+   * @return the filter length in bits
+   */
+  public int length () {
+
+    return length;
+  }
+
+  /**
+   * Returns the number of adds made directly to this filter that set at least one new bit. Elements merged in by
+   * {@link #union(ConcurrentBloomFilter)} are not counted, see {@link #estimateElementCount()}.
+   *
+   * @return the current element count
+   */
+  public int size () {
+
+    return size.intValue();
+  }
+
+  /**
+   * Estimates the number of distinct elements represented in the filter from the fraction of bits set, which remains meaningful
+   * after filters have been merged.
+   *
+   * @return the estimated element count
+   */
+  public double estimateElementCount () {
+
+    long setBits = 0;
+
+    for (int index = 0; index < words.length(); index++) {
+      setBits += Long.bitCount(words.get(index));
+    }
+
+    return (setBits == length) ? Double.POSITIVE_INFINITY : -((double)length / hashCount) * Math.log(1 - (setBits / (double)length));
+  }
+
+  /**
+   * Estimates the false-positive probability at full capacity based on the configured hash count, maximum elements, and bit length.
+   *
+   * @return the estimated false-positive probability
+   */
+  public double calculateFalsePositiveProbability () {
+
+    // (1 - e^(-hashCount * maxElements / length)) ^ hashCount
+
+    return Math.pow((1 - Math.exp(-hashCount * (double)maxElements / (double)length)), hashCount);
+  }
+
+  /**
+   * Adds an element to the filter by hashing its byte representation.
+   *
+   * @param element the element to add
+   * @return {@code true} if a bit changed, so that the element was certainly not present before
+   */
+  public boolean add (E element) {
+
+    return add(element.getBytes());
+  }
+
+  /**
+   * Adds an element expressed as a raw byte array to the filter.
+   *
+   * @param bytes the byte representation of the element to add
+   * @return {@code true} if a bit changed, so that the element was certainly not present before
+   */
+  public boolean add (byte[] bytes) {
+
+    if (probe(bytes, true)) {
+      size.increment();
+
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Adds all elements in the given collection to this filter.
+   *
+   * @param c the collection of elements to add
+   */
+  public void addAll (Collection<? extends E> c) {
+
+    for (E element : c) {
+      add(element);
+    }
+  }
+
+  /**
+   * Tests whether the given element is possibly present in the filter.
+   *
+   * @param element the element to test
+   * @return {@code false} if the element is definitely not present; {@code true} if it is probably present
+   */
+  public boolean contains (E element) {
+
+    return contains(element.getBytes());
+  }
+
+  /**
+   * Tests whether an element represented by the given byte array is possibly present in the filter.
+   *
+   * @param bytes the byte representation of the element to test
+   * @return {@code false} if the element is definitely not present; {@code true} if it is probably present
+   */
+  public boolean contains (byte[] bytes) {
+
+    return probe(bytes, false);
+  }
+
+  /**
+   * Tests whether all elements in the given collection are possibly present in the filter.
+   *
+   * @param c the collection of elements to test
+   * @return {@code true} if all elements are probably present; {@code false} if any element is definitely absent
+   */
+  public boolean containsAll (Collection<? extends E> c) {
+
+    for (E element : c) {
+      if (!contains(element)) {
+
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Merges another filter into this one, after which this filter probably contains every element of either.
+   *
+   * @param other a filter of identical length and hash count
+   * @throws IllegalArgumentException if the filters differ in length or hash count
+   */
+  public void union (ConcurrentBloomFilter<E> other) {
+
+    checkCompatibility(other);
+
+    for (int index = 0; index < words.length(); index++) {
+
+      long otherWord = other.words.get(index);
+
+      if (otherWord != 0) {
+        words.getAndAccumulate(index, otherWord, (left, right) -> left | right);
+      }
+    }
+  }
+
+  /**
+   * Intersects this filter with another, after which this filter probably contains only elements of both. The false-positive
+   * rate of an intersection is higher than that of a filter built from the common elements alone.
+   *
+   * @param other a filter of identical length and hash count
+   * @throws IllegalArgumentException if the filters differ in length or hash count
+   */
+  public void intersect (ConcurrentBloomFilter<E> other) {
+
+    checkCompatibility(other);
+
+    for (int index = 0; index < words.length(); index++) {
+
+      long otherWord = other.words.get(index);
+
+      if (otherWord != -1L) {
+        words.getAndAccumulate(index, otherWord, (left, right) -> left & right);
+      }
+    }
+  }
+
+  /**
+   * Resets the filter by clearing all bits and setting the element count to zero. Adds racing the clear may survive it in part.
+   */
+  public void clear () {
+
+    for (int index = 0; index < words.length(); index++) {
+      words.set(index, 0);
+    }
+
+    size.reset();
+  }
+
+  /**
+   * Writes the filter as a version byte, its geometry and size, followed by its bit words, trailing empty words omitted.
+   *
+   * @return the serialized filter, readable by {@link #fromByteArray(byte[])}
+   */
+  public byte[] toByteArray () {
+
+    ByteBuffer buffer;
+    int wordCount = words.length();
+
+    while ((wordCount > 0) && (words.get(wordCount - 1) == 0)) {
+      wordCount--;
+    }
+
+    buffer = ByteBuffer.allocate(SERIAL_HEADER_SIZE + (wordCount * 8));
+    buffer.put(SERIAL_VERSION).putDouble(bitsPerElement).putInt(maxElements).putInt(hashCount).putInt(length).putInt(size());
+    for (int index = 0; index < wordCount; index++) {
+      buffer.putLong(words.get(index));
+    }
+
+    return buffer.array();
+  }
+
+  private void checkCompatibility (ConcurrentBloomFilter<E> other) {
+
+    if ((other.length != length) || (other.hashCount != hashCount)) {
+      throw new IllegalArgumentException("Filters must share both length and hash count");
+    }
+  }
+
+  /**
+   * Hashes the bytes with 128-bit MurmurHash3 and visits the derived bit positions, {@code h1 + i * h2} modulo the length,
+   * either setting them or testing them.
+   *
+   * @param bytes the element bytes
+   * @param set   {@code true} to set the positions, {@code false} to test them
+   * @return when setting, whether any bit changed; when testing, whether every bit was set
+   */
+  private boolean probe (byte[] bytes, boolean set) {
+
+    long h1 = 0;
+    long h2 = 0;
+    long k1 = 0;
+    long k2 = 0;
+    int blockEnd = bytes.length & ~15;
+    int tail = bytes.length & 15;
+    boolean changed = false;
+
+    for (int offset = 0; offset < blockEnd; offset += 16) {
+      k1 = (long)LONG_VIEW.get(bytes, offset);
+      k2 = (long)LONG_VIEW.get(bytes, offset + 8);
+
+      h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+      h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+      h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+      h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+    }
+
+    if (tail > 0) {
+      k1 = 0;
+      k2 = 0;
+      for (int index = tail - 1; index >= 8; index--) {
+        k2 = (k2 << 8) | (bytes[blockEnd + index] & 0xFF);
+      }
+      for (int index = Math.min(tail, 8) - 1; index >= 0; index--) {
+        k1 = (k1 << 8) | (bytes[blockEnd + index] & 0xFF);
+      }
+      if (tail > 8) {
+        h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+      }
+      h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    h1 ^= bytes.length;
+    h2 ^= bytes.length;
+    h1 += h2;
+    h2 += h1;
+    h1 = mix(h1);
+    h2 = mix(h2);
+    h1 += h2;
+    h2 += h1;
+
+    for (int count = 0; count < hashCount; count++) {
+
+      long position = ((h1 + (count * h2)) & Long.MAX_VALUE) % length;
+      long mask = 1L << position;
+      int index = (int)(position >>> 6);
+      long word = words.get(index);
+
+      if (set) {
+        while ((word & mask) == 0) {
+          if (words.compareAndSet(index, word, word | mask)) {
+            changed = true;
+            break;
+          }
+          word = words.get(index);
+        }
+      } else if ((word & mask) == 0) {
+
+        return false;
+      }
+    }
+
+    return (!set) || changed;
+  }
+
+  private static long mix (long hash) {
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+
+    return hash ^ (hash >>> 33);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch estimating how often each key has been seen, used by {@link TinyLfuCache} to decide whether a new entry is more
+ * valuable than the one it would displace. The sketch has four rows of 4-bit counters, sixteen to a {@code long}, and a key's estimate is
+ * the smallest of the four counters it maps to, one per row. Positions are derived from a single mixed hash by double hashing, and
+ * increments are conservative, raising only those of a key's counters that hold its current estimate, which keeps collisions from
+ * inflating other keys' counts. As described for TinyLFU by Einziger, Friedman and Manes, once the number of increments reaches ten times
+ * the row width every counter is halved, so that popularity ages and the sketch tracks a recent window of history rather than all time.
+ * Not thread safe; the cache only touches it under its eviction lock.
+ */
+class FrequencySketch {
+
+  private static final long HALVING_MASK = 0x7777777777777777L;
+  private static final int MAXIMUM_WIDTH = 1 << 24;
+  private static final int DEPTH = 4;
+
+  private final long[] counters;
+  private final int widthMask;
+  private final int rowLength;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Constructs a sketch whose rows hold a counter for each of roughly the given number of distinct keys.
+   *
+   * @param expectedEntries the expected number of entries in the cache, clamped to between 16 and 2^24
+   */
+  FrequencySketch (long expectedEntries) {
+
+    int width = Integer.highestOneBit((int)Math.max(16, Math.min(expectedEntries, MAXIMUM_WIDTH)) * 2 - 1);
+
+    widthMask = width - 1;
+    rowLength = width >>> 4;
+    sampleSize = 10 * width;
+    counters = new long[DEPTH * rowLength];
+  }
+
+  /**
+   * Returns the estimated number of recent occurrences of the key, at most 15.
+   *
+   * @param key the key
+   * @return the estimated frequency
+   */
+  int frequency (Object key) {
+
+    long hash = mix(key.hashCode());
+    int frequency = 15;
+
+    for (int row = 0; row < DEPTH; row++) {
+      frequency = Math.min(frequency, counterAt(row, position(hash, row)));
+    }
+
+    return frequency;
+  }
+
+  /**
+   * Records an occurrence of the key, halving every counter once enough occurrences have been recorded.
+   *
+   * @param key the key
+   */
+  void increment (Object key) {
+
+    long hash = mix(key.hashCode());
+    int frequency = 15;
+
+    for (int row = 0; row < DEPTH; row++) {
+      frequency = Math.min(frequency, counterAt(row, position(hash, row)));
+    }
+
+    if (frequency < 15) {
+      for (int row = 0; row < DEPTH; row++) {
+
+        int position = position(hash, row);
+
+        if (counterAt(row, position) == frequency) {
+          counters[(row * rowLength) + (position >>> 4)] += 1L << ((position & 0xF) << 2);
+        }
+      }
+
+      if (++additions == sampleSize) {
+        halve();
+      }
+    }
+  }
+
+  /**
+   * Forgets all recorded occurrences.
+   */
+  void clear () {
+
+    Arrays.fill(counters, 0L);
+    additions = 0;
+  }
+
+  private int counterAt (int row, int position) {
+
+    return (int)((counters[(row * rowLength) + (position >>> 4)] >>> ((position & 0xF) << 2)) & 0xFL);
+  }
+
+  private int position (long hash, int row) {
+
+    return ((int)hash + (row * ((int)(hash >>> 32) | 1))) & widthMask;
+  }
+
+  private void halve () {
+
+    for (int index = 0; index < counters.length; index++) {
+      counters[index] = (counters[index] >>> 1) & HALVING_MASK;
+    }
+
+    additions >>>= 1;
+  }
+
+  private static long mix (long hash) {
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+
+    return hash ^ (hash >>> 33);
+  }
+}
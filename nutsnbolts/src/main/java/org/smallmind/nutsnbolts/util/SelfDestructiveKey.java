@@ -1,143 +0,0 @@
-/*
- * Copyright (c) 2007 through 2026 David Berkman
- *
- * This file is part of the SmallMind Code Project.
- *
- * The SmallMind Code Project is free software, you can redistribute
- * it and/or modify it under either, at your discretion...
- *
- * 1) The terms of GNU Affero General Public License as published by the
- * Free Software Foundation, either version 3 of the License, or (at
- * your option) any later version.
- *
- * ...or...
- *
- * 2) The terms of the Apache License, Version 2.0.
- *
- * The SmallMind Code Project is distributed in the hope that it will
- * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
- * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
- * General Public License or Apache License for more details.
- *
- * You should have received a copy of the GNU Affero General Public License
- * and the Apache License along with the SmallMind Code Project. If not, see
- * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
- *
- * Additional permission under the GNU Affero GPL version 3 section 7
- * ------------------------------------------------------------------
- * If you modify this Program, or any covered work, by linking or
- * combining it with other code, such other code is not for that reason
- * alone subject to any of the requirements of the GNU Affero GPL
- * version 3.
- */
-package org.smallmind.nutsnbolts.util;
-
-import org.smallmind.nutsnbolts.time.Stint;
-
-/**
- * Wrapper that pairs a map key with a computed expiration timestamp, used by {@link SelfDestructiveMap} to schedule entry removal.
- *
- * @param <K> comparable key type
- */
-public class SelfDestructiveKey<K extends Comparable<K>> implements Comparable<SelfDestructiveKey<K>> {
-
-  private final K mapKey;
-  private final Stint timeoutStint;
-  private final long ignitionTime;
-
-  /**
-   * Constructs a sentinel key with no underlying map key, used for range queries against the expiry set.
-   *
-   * @param timeoutStint duration used to compute the expiration timestamp
-   */
-  public SelfDestructiveKey (Stint timeoutStint) {
-
-    this(null, timeoutStint);
-  }
-
-  /**
-   * Constructs a key that associates a map key with its expiration time derived from the supplied timeout.
-   *
-   * @param mapKey       the underlying map key, or {@code null} for sentinel use
-   * @param timeoutStint duration after which the entry should be destroyed
-   */
-  public SelfDestructiveKey (K mapKey, Stint timeoutStint) {
-
-    this.mapKey = mapKey;
-    this.timeoutStint = timeoutStint;
-
-    ignitionTime = System.currentTimeMillis() + timeoutStint.toMilliseconds();
-  }
-
-  /**
-   * Returns the underlying map key associated with this expiry entry.
-   *
-   * @return the map key, or {@code null} for sentinel instances
-   */
-  public K getMapKey () {
-
-    return mapKey;
-  }
-
-  /**
-   * Returns the timeout duration that was used to compute this key's expiration time.
-   *
-   * @return the timeout stint
-   */
-  public Stint getTimeoutStint () {
-
-    return timeoutStint;
-  }
-
-  /**
-   * Returns the absolute wall-clock time at which this entry expires, in milliseconds since the epoch.
-   *
-   * @return expiration timestamp in milliseconds
-   */
-  public long getIgnitionTime () {
-
-    return ignitionTime;
-  }
-
-  /**
-   * Orders keys first by ignition time and, when equal, by the underlying map key (nulls sort before non-nulls).
-   *
-   * @param key the key to compare against
-   * @return a negative integer, zero, or positive integer per the {@link Comparable} contract
-   */
-  @Override
-  public int compareTo (SelfDestructiveKey<K> key) {
-
-    int comparison;
-
-    if ((comparison = Long.compare(ignitionTime, key.getIgnitionTime())) == 0) {
-
-      return (mapKey == null) ? ((key.getMapKey() == null) ? 0 : -1) : ((key.getMapKey() == null) ? 1 : mapKey.compareTo(key.getMapKey()));
-    }
-
-    return comparison;
-  }
-
-  /**
-   * Returns a hash code derived solely from the underlying map key.
-   *
-   * @return hash code of the map key
-   */
-  @Override
-  public int hashCode () {
-
-    return mapKey.hashCode();
-  }
-
-  /**
-   * Two keys are equal when their underlying map keys are equal, regardless of expiration time.
-   *
-   * @param obj object to compare
-   * @return {@code true} if {@code obj} is a {@link SelfDestructiveKey} whose map key equals this key's map key
-   */
-  @Override
-  public boolean equals (Object obj) {
-
-    return (obj instanceof SelfDestructiveKey) && (mapKey.equals(((SelfDestructiveKey<?>)obj).getMapKey()));
-  }
-}
@@ -32,11 +32,8 @@
  */
 package org.smallmind.nutsnbolts.util;
 
-import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.smallmind.nutsnbolts.lang.FormattedTimeoutException;
@@ -44,16 +41,17 @@ import org.smallmind.nutsnbolts.time.Stint;
 
 /**
  * Thread-safe map whose entries are automatically removed after a configurable timeout, invoking {@link SelfDestructive#destroy(Stint)} on each expired value.
+ * Expirations are tracked in a {@link TimingWheel} whose tick is the pulse time, so that inserting or removing an entry costs
+ * constant time however many entries are held, and each entry is destroyed within one pulse of its timeout.
  *
  * @param <K> key type, must be {@link Comparable}
  * @param <S> value type, must implement {@link SelfDestructive}
  */
 public class SelfDestructiveMap<K extends Comparable<K>, S extends SelfDestructive> {
 
-  private final ConcurrentHashMap<K, S> internalMap = new ConcurrentHashMap<K, S>();
-  private final ConcurrentSkipListSet<SelfDestructiveKey<K>> ignitionKeySet = new ConcurrentSkipListSet<>();
+  private final ConcurrentHashMap<K, Fuse<S>> internalMap = new ConcurrentHashMap<>();
   private final Stint defaultTimeoutStint;
-  private final ScheduledExecutorService ignitionExecutor;
+  private final TimingWheel ignitionWheel;
 
   /**
    * Creates a map using the specified default timeout and a one-second background cleanup pulse.
@@ -67,23 +65,29 @@ public class SelfDestructiveMap<K extends Comparable<K>, S extends SelfDestructi
 
   /**
    * Creates a map with a custom default timeout and background cleanup pulse interval.
+   * Expired values are destroyed on the background thread, one after another.
    *
    * @param defaultTimeoutStint timeout applied to entries that do not specify their own
    * @param pulseTimeStint      how often the background worker checks for expired entries
    */
   public SelfDestructiveMap (Stint defaultTimeoutStint, Stint pulseTimeStint) {
 
-    this.defaultTimeoutStint = defaultTimeoutStint;
-
-    ignitionExecutor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+    this(defaultTimeoutStint, pulseTimeStint, Runnable::run);
+  }
 
-      Thread thread = new Thread(runnable, "nutsnbolts-self-destructive-map");
+  /**
+   * Creates a map with a custom default timeout and background cleanup pulse interval, whose expired values are destroyed on the
+   * given executor, so that a slow {@link SelfDestructive#destroy(Stint)} cannot delay other expirations.
+   *
+   * @param defaultTimeoutStint timeout applied to entries that do not specify their own
+   * @param pulseTimeStint      how often the background worker checks for expired entries
+   * @param destructionExecutor runs the destruction of each expired value
+   */
+  public SelfDestructiveMap (Stint defaultTimeoutStint, Stint pulseTimeStint, Executor destructionExecutor) {
 
-      thread.setDaemon(true);
+    this.defaultTimeoutStint = defaultTimeoutStint;
 
-      return thread;
-    });
-    ignitionExecutor.scheduleWithFixedDelay(this::igniteExpired, pulseTimeStint.getTime(), pulseTimeStint.getTime(), pulseTimeStint.getTimeUnit());
+    ignitionWheel = new TimingWheel("nutsnbolts-self-destructive-map", pulseTimeStint.getTime(), pulseTimeStint.getTimeUnit(), destructionExecutor);
   }
 
   /**
@@ -94,7 +98,9 @@ public class SelfDestructiveMap<K extends Comparable<K>, S extends SelfDestructi
    */
   public S get (K key) {
 
-    return internalMap.get(key);
+    Fuse<S> fuse;
+
+    return ((fuse = internalMap.get(key)) == null) ? null : fuse.getValue();
   }
 
   /**
@@ -119,17 +125,42 @@ public class SelfDestructiveMap<K extends Comparable<K>, S extends SelfDestructi
    */
   public S putIfAbsent (K key, S value, Stint timeoutStint) {
 
-    S previousValue;
+    Fuse<S> fuse = new Fuse<>(value);
+    Fuse<S> previousFuse;
+
+    if ((previousFuse = internalMap.putIfAbsent(key, fuse)) == null) {
+
+      Stint igniteAfterStint = (timeoutStint != null) ? timeoutStint : defaultTimeoutStint;
+
+      fuse.setTimeout(ignitionWheel.schedule(() -> ignite(key, fuse, igniteAfterStint), igniteAfterStint.getTime(), igniteAfterStint.getTimeUnit()));
+
+      return null;
+    }
+
+    return previousFuse.getValue();
+  }
+
+  /**
+   * Removes the entry for the key, cancelling its timeout without destroying the value.
+   *
+   * @param key the key to remove
+   * @return the removed value, or {@code null} if the key was not present
+   */
+  public S remove (K key) {
+
+    Fuse<S> fuse;
 
-    if ((previousValue = internalMap.putIfAbsent(key, value)) == null) {
-      ignitionKeySet.add(new SelfDestructiveKey<>(key, (timeoutStint != null) ? timeoutStint : defaultTimeoutStint));
+    if ((fuse = internalMap.remove(key)) != null) {
+      fuse.cancel();
+
+      return fuse.getValue();
     }
 
-    return previousValue;
+    return null;
   }
 
   /**
-   * Shuts the background cleanup executor down and waits up to three seconds for it to terminate.
+   * Stops the background worker and waits up to three seconds for it to terminate. Entries not yet expired are not destroyed.
    *
    * @throws InterruptedException if the calling thread is interrupted while waiting for the worker to stop
    * @throws TimeoutException     if the background worker does not terminate within three seconds
@@ -137,37 +168,62 @@ public class SelfDestructiveMap<K extends Comparable<K>, S extends SelfDestructi
   public void shutdown ()
     throws InterruptedException, TimeoutException {
 
-    ignitionExecutor.shutdown();
-    if (!ignitionExecutor.awaitTermination(3, TimeUnit.SECONDS)) {
+    if (!ignitionWheel.stop(3, TimeUnit.SECONDS)) {
       throw new FormattedTimeoutException("Unable to terminate the self-destructive map in (%d, %s)", 3, TimeUnit.SECONDS.name());
     }
   }
 
   /**
-   * Polls the expiry set once and invokes {@link SelfDestructive#destroy(Stint)} on any entries whose ignition time has passed.
-   * Invoked on each pulse by the background {@link ScheduledExecutorService}.
+   * Removes an entry whose timeout has elapsed and invokes {@link SelfDestructive#destroy(Stint)} on its value, unless the entry has
+   * since been removed or replaced.
+   *
+   * @param key          the key of the expired entry
+   * @param fuse         the entry as inserted
+   * @param timeoutStint the timeout which elapsed
    */
-  private void igniteExpired () {
+  private void ignite (K key, Fuse<S> fuse, Stint timeoutStint) {
 
-    try {
+    if (internalMap.remove(key, fuse)) {
+      try {
+        fuse.getValue().destroy(timeoutStint);
+      } catch (Exception exception) {
+        // A failed destruction must not disturb other expirations.
+      }
+    }
+  }
 
-      NavigableSet<SelfDestructiveKey<K>> ignitedKeySet;
+  /**
+   * A held value together with the wheel timeout that will destroy it.
+   *
+   * @param <S> value type
+   */
+  private static class Fuse<S> {
+
+    private final S value;
+    private volatile TimingWheel.Timeout timeout;
+
+    private Fuse (S value) {
+
+      this.value = value;
+    }
 
-      if (!(ignitedKeySet = ignitionKeySet.headSet(new SelfDestructiveKey<>(Stint.none()))).isEmpty()) {
+    private S getValue () {
 
-        SelfDestructiveKey<K> ignitedKey;
+      return value;
+    }
+
+    private void setTimeout (TimingWheel.Timeout timeout) {
+
+      this.timeout = timeout;
+    }
 
-        while ((ignitedKey = ignitedKeySet.pollFirst()) != null) {
+    private void cancel () {
 
-          SelfDestructive selfDestructive;
+      TimingWheel.Timeout currentTimeout;
 
-          if ((selfDestructive = internalMap.remove(ignitedKey.getMapKey())) != null) {
-            selfDestructive.destroy(ignitedKey.getTimeoutStint());
-          }
-        }
+      if ((currentTimeout = timeout) != null) {
+        currentTimeout.cancel();
       }
-    } catch (Exception exception) {
-      // A failed destruction must not cancel future sweeps.
     }
   }
 }
@@ -37,16 +37,23 @@ import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.StampedLock;
+import java.util.concurrent.atomic.AtomicLong;
 import org.smallmind.nutsnbolts.security.HexCodec;
 
 /**
  * Produces and encodes 18-byte Snowflake-style identifiers that embed a millisecond timestamp, MAC address (or random fallback), JVM process id, and a per-millisecond counter.
+ * <p>
+ * The timestamp and counter are packed into a single {@code long}, the upper 48 bits holding the time and the lower 16 the counter,
+ * which is advanced by compare-and-set. Platform threads claim the counter in blocks and hand ids out of their block without touching
+ * shared state, so ids remain unique and are ordered within any one thread, but ids from different threads may interleave out of
+ * order. Virtual threads, which are too numerous and short-lived to hold a block each, claim a single value per id. Hot paths that
+ * need only process-wide uniqueness can take the packed value itself from {@link #newLong()}.
  */
 public class SnowflakeId implements Comparable<SnowflakeId> {
 
-  private static final StampedLock LOCK = new StampedLock();
+  private static final int COUNT_BITS = 16;
+  private static final int COUNT_LIMIT = 1 << COUNT_BITS;
+  private static final int BLOCK_SIZE = 64;
 
   private static final int[] DOT_OFFSET_0 = {0, 0, 0};
   private static final int[] DOT_OFFSET_1 = {0, 0, 0};
@@ -65,8 +72,8 @@ public class SnowflakeId implements Comparable<SnowflakeId> {
 
   private static final byte[] MAC_BYTES = createMachineIdentifier();
   private static final byte[] JVM_BYTES = createJVMProcessIdentifier();
-  private static final AtomicInteger COUNT = new AtomicInteger(Short.MIN_VALUE);
-  private static long TIME = System.currentTimeMillis();
+  private static final AtomicLong STATE = new AtomicLong(System.currentTimeMillis() << COUNT_BITS);
+  private static final ThreadLocal<SequenceBlock> SEQUENCE_BLOCK_LOCAL = ThreadLocal.withInitial(SequenceBlock::new);
   private final byte[] uniqueArray;
 
   /**
@@ -107,6 +114,41 @@ public class SnowflakeId implements Comparable<SnowflakeId> {
     return new SnowflakeId();
   }
 
+  /**
+   * Returns the next packed time and counter value, the upper 48 bits holding the timestamp and the lower 16 the counter, without
+   * the MAC and JVM bytes. Values are unique within this process, and drawn from the same sequence as full identifiers, but carry no
+   * host or process component and so are not unique across processes.
+   *
+   * @return a process-unique identifier
+   */
+  public static long newLong () {
+
+    return Thread.currentThread().isVirtual() ? claim(1) : SEQUENCE_BLOCK_LOCAL.get().next();
+  }
+
+  /**
+   * Claims up to {@code size} consecutive packed values with a single successful compare-and-set, moving the time forward to the
+   * later of the next millisecond and the wall clock once the counter for the current time is exhausted. Fewer values are claimed
+   * when fewer remain for the current time.
+   *
+   * @param size the number of values wanted
+   * @return the first claimed value, with the count claimed being {@code min(size, 65536 - counter)}
+   */
+  private static long claim (int size) {
+
+    long state;
+    long nextState;
+
+    do {
+
+      int available = COUNT_LIMIT - (int)((state = STATE.get()) & (COUNT_LIMIT - 1));
+
+      nextState = (size < available) ? state + size : Math.max((state >>> COUNT_BITS) + 1, System.currentTimeMillis()) << COUNT_BITS;
+    } while (!STATE.compareAndSet(state, nextState));
+
+    return state;
+  }
+
   private static byte[] createMachineIdentifier () {
 
     byte[] macBytes = new byte[6];
@@ -151,42 +193,18 @@ public class SnowflakeId implements Comparable<SnowflakeId> {
   private byte[] generateByteArray () {
 
     byte[] bytes = new byte[18];
-    long currentTime = 0;
-    int currentCount;
-    long stamp;
+    long packed = newLong();
+    long currentTime = packed >>> COUNT_BITS;
+    int currentCount = ((int)packed & (COUNT_LIMIT - 1)) + Short.MIN_VALUE;
 
-    do {
-      stamp = LOCK.readLock();
-      try {
-        if ((currentCount = COUNT.incrementAndGet()) < Short.MAX_VALUE) {
-          currentTime = TIME;
-        } else if (currentCount == Short.MAX_VALUE) {
-
-          long upgradedStamp;
-
-          if ((upgradedStamp = LOCK.tryConvertToWriteLock(stamp)) == 0L) {
-            LOCK.unlock(stamp);
-            upgradedStamp = LOCK.writeLock();
-          }
-
-          stamp = upgradedStamp;
-          TIME = currentTime = Math.max(TIME + 1, System.currentTimeMillis());
-          COUNT.set(currentCount = Short.MIN_VALUE);
-        }
-      } finally {
-        LOCK.unlock(stamp);
-      }
-    } while (currentCount > Short.MAX_VALUE);
-
-    if (currentTime == 0) {
-      throw new IllegalStateException("Current time value should never be '0'");
+    for (int index = 1; index < 8; index++) {
+      bytes[index] = (byte)(currentTime >>> ((7 - index) * 8));
     }
-
-    bytes[0] = 0x0;
-    System.arraycopy(Bytes.getBytes(currentTime), 1, bytes, 1, 7);
     System.arraycopy(MAC_BYTES, 0, bytes, 8, 6);
-    System.arraycopy(JVM_BYTES, 0, bytes, 14, 2);
-    System.arraycopy(Bytes.getBytes((short)currentCount), 0, bytes, 16, 2);
+    bytes[14] = JVM_BYTES[0];
+    bytes[15] = JVM_BYTES[1];
+    bytes[16] = (byte)(currentCount >>> 8);
+    bytes[17] = (byte)currentCount;
 
     return bytes;
   }
@@ -373,4 +391,31 @@ public class SnowflakeId implements Comparable<SnowflakeId> {
 
     return Short.compare(Bytes.getShort(Arrays.copyOfRange(this.asByteArray(), 16, 18)), Bytes.getShort(Arrays.copyOfRange(snowflakeId.asByteArray(), 16, 18)));
   }
+
+  /**
+   * A run of packed values claimed from the shared state by one platform thread and handed out without further synchronization.
+   */
+  private static class SequenceBlock {
+
+    private long next;
+    private long limit;
+
+    /**
+     * Returns the next value in this block, first claiming a new block once the current one is spent.
+     *
+     * @return the next packed value
+     */
+    private long next () {
+
+      if (next == limit) {
+
+        long start = claim(BLOCK_SIZE);
+
+        next = start;
+        limit = start + Math.min(BLOCK_SIZE, COUNT_LIMIT - (start & (COUNT_LIMIT - 1)));
+      }
+
+      return next++;
+    }
+  }
 }
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timing wheel which runs tasks once their delay has elapsed, to a resolution of one tick. Each level is a ring of 64
+ * buckets, a bucket of level {@code n} spanning {@code 64^n} ticks, so any delay representable in a {@code long} of ticks fits within
+ * eleven levels. A task is filed in the lowest level whose current rotation contains its deadline, and as time reaches each bucket of
+ * a higher level, the tasks in it are cascaded down, until they reach level 0 and fire on their exact tick.
+ * <p>
+ * Scheduling and cancellation are constant time and lock free: new tasks and cancellations are queued, and a single daemon ticker
+ * thread moves them into, or unlinks them from, the buckets at the start of each tick, so the buckets themselves are never shared.
+ * Due tasks are handed to the configured executor, so that a slow task delays neither the wheel nor other tasks unless the executor
+ * runs it on the calling thread. Should the ticker fall behind, it processes the missed ticks in order without sleeping.
+ */
+public class TimingWheel {
+
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int LEVEL_COUNT = (Long.SIZE + WHEEL_BITS - 1) / WHEEL_BITS;
+
+  private final ConcurrentLinkedQueue<Timeout> pendingQueue = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<Timeout> cancelledQueue = new ConcurrentLinkedQueue<>();
+  private final Bucket[][] levels = new Bucket[LEVEL_COUNT][WHEEL_SIZE];
+  private final Executor executor;
+  private final Thread tickerThread;
+  private final long tickNanos;
+  private final long startNanos;
+  private volatile boolean running = true;
+  private long currentTick;
+
+  /**
+   * Constructs and starts a wheel.
+   *
+   * @param name         the name of the ticker thread
+   * @param tickDuration the resolution of the wheel, which must be at least one millisecond
+   * @param timeUnit     the unit of the tick duration
+   * @param executor     runs each task once it is due
+   */
+  public TimingWheel (String name, long tickDuration, TimeUnit timeUnit, Executor executor) {
+
+    if ((tickNanos = timeUnit.toNanos(tickDuration)) < TimeUnit.MILLISECONDS.toNanos(1)) {
+      throw new IllegalArgumentException("The tick duration must be at least 1 millisecond");
+    }
+
+    this.executor = executor;
+
+    for (Bucket[] buckets : levels) {
+      for (int index = 0; index < buckets.length; index++) {
+        buckets[index] = new Bucket();
+      }
+    }
+
+    startNanos = System.nanoTime();
+    tickerThread = new Thread(this::tick, name);
+    tickerThread.setDaemon(true);
+    tickerThread.start();
+  }
+
+  /**
+   * Schedules a task to run once the delay has elapsed, rounded up to the next tick.
+   *
+   * @param task     the task to run
+   * @param delay    how long to wait before running the task
+   * @param timeUnit the unit of the delay
+   * @return a handle through which the task may be cancelled
+   * @throws IllegalStateException if the wheel has been stopped
+   */
+  public Timeout schedule (Runnable task, long delay, TimeUnit timeUnit) {
+
+    Timeout timeout;
+    long elapsedNanos = System.nanoTime() - startNanos + Math.max(0, timeUnit.toNanos(delay));
+
+    if (!running) {
+      throw new IllegalStateException("The timing wheel has been stopped");
+    }
+
+    pendingQueue.add(timeout = new Timeout(this, task, (elapsedNanos + tickNanos - 1) / tickNanos));
+
+    return timeout;
+  }
+
+  /**
+   * Stops the ticker and waits for it to exit. Tasks not yet due are abandoned without running.
+   *
+   * @param timeout  the longest time to wait
+   * @param timeUnit the unit of the wait
+   * @return {@code true} if the ticker exited within the wait
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean stop (long timeout, TimeUnit timeUnit)
+    throws InterruptedException {
+
+    running = false;
+    LockSupport.unpark(tickerThread);
+    tickerThread.join(Math.max(1, timeUnit.toMillis(timeout)));
+
+    return !tickerThread.isAlive();
+  }
+
+  private void tick () {
+
+    while (running) {
+
+      long sleepNanos;
+
+      while (running && ((sleepNanos = startNanos + ((currentTick + 1) * tickNanos) - System.nanoTime()) > 0)) {
+        LockSupport.parkNanos(this, sleepNanos);
+      }
+
+      if (running) {
+        currentTick++;
+        unlinkCancelled();
+        transferPending();
+        advance();
+      }
+    }
+  }
+
+  private void unlinkCancelled () {
+
+    Timeout timeout;
+
+    while ((timeout = cancelledQueue.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void transferPending () {
+
+    Timeout timeout;
+
+    //  bounded so that a flood of new tasks cannot starve the ticks, the remainder being picked up on the next tick
+    for (int count = 0; (count < 100000) && ((timeout = pendingQueue.poll()) != null); count++) {
+      if (timeout.state == Timeout.PENDING) {
+        file(timeout);
+      }
+    }
+  }
+
+  /**
+   * Cascades every higher level bucket that begins on the current tick down the wheel, then fires the level 0 bucket of this tick.
+   */
+  private void advance () {
+
+    for (int level = LEVEL_COUNT - 1; level > 0; level--) {
+      if ((currentTick & ((1L << (level * WHEEL_BITS)) - 1)) == 0) {
+
+        Bucket bucket = levels[level][(int)((currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK)];
+        Timeout timeout;
+
+        while ((timeout = bucket.poll()) != null) {
+          if (timeout.state == Timeout.PENDING) {
+            file(timeout);
+          }
+        }
+      }
+    }
+
+    fire(levels[0][(int)(currentTick & WHEEL_MASK)]);
+  }
+
+  /**
+   * Files a timeout in the lowest level whose current rotation holds its deadline, which is the level of the highest bit in which
+   * the deadline differs from the current tick, or runs it at once if already due.
+   *
+   * @param timeout the timeout to file
+   */
+  private void file (Timeout timeout) {
+
+    if (timeout.deadlineTick <= currentTick) {
+      run(timeout);
+    } else {
+
+      int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(timeout.deadlineTick ^ currentTick)) / WHEEL_BITS;
+
+      levels[level][(int)((timeout.deadlineTick >>> (level * WHEEL_BITS)) & WHEEL_MASK)].add(timeout);
+    }
+  }
+
+  private void fire (Bucket bucket) {
+
+    Timeout timeout;
+
+    while ((timeout = bucket.poll()) != null) {
+      run(timeout);
+    }
+  }
+
+  private void run (Timeout timeout) {
+
+    if (Timeout.STATE_UPDATER.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+      try {
+        executor.execute(timeout.task);
+      } catch (Exception exception) {
+        //  a task that fails, or is rejected, must not stop the wheel
+      }
+    }
+  }
+
+  /**
+   * The handle of a scheduled task. Links and bucket are touched only by the ticker thread.
+   */
+  public static class Timeout {
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final TimingWheel timingWheel;
+    private final Runnable task;
+    private final long deadlineTick;
+    private volatile int state = PENDING;
+    private Bucket bucket;
+    private Timeout prev;
+    private Timeout next;
+
+    private Timeout (TimingWheel timingWheel, Runnable task, long deadlineTick) {
+
+      this.timingWheel = timingWheel;
+      this.task = task;
+      this.deadlineTick = deadlineTick;
+    }
+
+    /**
+     * Cancels the task, if it has not already been run or cancelled.
+     *
+     * @return {@code true} if this call prevented the task from running
+     */
+    public boolean cancel () {
+
+      if (STATE_UPDATER.compareAndSet(this, PENDING, CANCELLED)) {
+        timingWheel.cancelledQueue.add(this);
+
+        return true;
+      }
+
+      return false;
+    }
+
+    /**
+     * Returns whether the task was cancelled before it could run.
+     *
+     * @return {@code true} if cancelled
+     */
+    public boolean isCancelled () {
+
+      return state == CANCELLED;
+    }
+
+    /**
+     * Returns whether the task has been handed to the executor.
+     *
+     * @return {@code true} if the task has become due and been dispatched
+     */
+    public boolean isExpired () {
+
+      return state == EXPIRED;
+    }
+  }
+
+  /**
+   * An intrusive doubly linked list of the timeouts filed in one slot of one level.
+   */
+  private static class Bucket {
+
+    private Timeout head;
+    private Timeout tail;
+
+    private void add (Timeout timeout) {
+
+      timeout.bucket = this;
+      timeout.prev = tail;
+      timeout.next = null;
+      if (tail == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+      }
+      tail = timeout;
+    }
+
+    private Timeout poll () {
+
+      Timeout first;
+
+      if ((first = head) != null) {
+        remove(first);
+      }
+
+      return first;
+    }
+
+    private void remove (Timeout timeout) {
+
+      if (timeout.prev == null) {
+        head = timeout.next;
+      } else {
+        timeout.prev.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        tail = timeout.prev;
+      } else {
+        timeout.next.prev = timeout.prev;
+      }
+
+      timeout.bucket = null;
+      timeout.prev = null;
+      timeout.next = null;
+    }
+  }
+}
@@ -0,0 +1,837 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
+
+/**
+ * A concurrent, bounded cache using the W-TinyLFU policy, meant as a shared replacement for an externally synchronized
+ * {@link LRUMap}. New entries enter a small LRU window (1% of capacity). Entries leaving the window compete for a place in the main
+ * space against that space's least recently used entry, and the one a {@link FrequencySketch} judges to have been requested more
+ * often recently survives. The main space is a segmented LRU, entries accessed while on probation being promoted to a protected
+ * segment holding 80% of it. One-hit wonders and long scans therefore pass through the window without flushing popular entries, while
+ * the window lets a burst of new, genuinely popular keys establish a frequency.
+ * <p>
+ * Reads never lock. A hit is recorded in a lossy, striped read buffer, and a full stripe schedules the buffered reads to be applied to
+ * the policy on the configured executor; under extreme read rates some reads go unrecorded, which only makes the frequency estimate a
+ * sample. Writes apply their map change and policy update together under a single lock, so concurrent writers are serialized.
+ * Entries may be weighed, bounding the total weight rather than the count, and may expire a fixed time after being written or last
+ * read. Expired entries are invisible to reads immediately and are removed during the next maintenance.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class TinyLfuCache<K, V> {
+
+  private static final long DEFAULT_EXPECTED_ENTRIES = 1 << 16;
+  private static final int READ_BUFFER_SIZE = 32;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int STRIPE_COUNT = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2);
+  private static final int STRIPE_MASK = STRIPE_COUNT - 1;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final ReadBuffer<K, V>[] readBuffers;
+  private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+  private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+  private final AccessOrderDeque<K, V> protectedSegment = new AccessOrderDeque<>();
+  private final LinkedHashSet<Node<K, V>> writeOrder = new LinkedHashSet<>();
+  private final FrequencySketch sketch;
+  private final ToIntBiFunction<? super K, ? super V> weigher;
+  private final Executor executor;
+  private final Runnable drainTask = this::scheduledMaintenance;
+  private final long maximumWeight;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private long windowWeight;
+  private long protectedWeight;
+  private long weightedSize;
+
+  /**
+   * Constructs a cache bounded by entry count, without expiry.
+   *
+   * @param maximumSize the maximum number of entries retained
+   */
+  public TinyLfuCache (long maximumSize) {
+
+    this(maximumSize, (key, value) -> 1, maximumSize, 0, 0, TimeUnit.MILLISECONDS, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a cache bounded by total weight, without expiry.
+   *
+   * @param maximumWeight the maximum total weight of the entries retained
+   * @param weigher       computes the non-negative weight of an entry when it is written
+   */
+  public TinyLfuCache (long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+
+    this(maximumWeight, weigher, 0, 0, TimeUnit.MILLISECONDS, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a cache bounded by total weight, with optional expiry, whose buffered reads are applied on the given executor. As the
+   * number of entries a weight admits is unknown, the frequency sketch is sized for the maximum weight, but for no more than 2^16
+   * entries.
+   *
+   * @param maximumWeight     the maximum total weight of the entries retained
+   * @param weigher           computes the non-negative weight of an entry when it is written
+   * @param expireAfterWrite  how long after being written an entry expires, or 0 for never
+   * @param expireAfterAccess how long after last being read or written an entry expires, or 0 for never
+   * @param timeUnit          the unit of both expiry durations
+   * @param executor          runs the maintenance that applies buffered reads to the policy
+   */
+  public TinyLfuCache (long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, long expireAfterWrite, long expireAfterAccess, TimeUnit timeUnit, Executor executor) {
+
+    this(maximumWeight, weigher, Math.min(maximumWeight, DEFAULT_EXPECTED_ENTRIES), expireAfterWrite, expireAfterAccess, timeUnit, executor);
+  }
+
+  /**
+   * Constructs a cache bounded by total weight, with optional expiry, whose buffered reads are applied on the given executor, and whose
+   * frequency sketch is sized for the given number of entries.
+   *
+   * @param maximumWeight     the maximum total weight of the entries retained
+   * @param weigher           computes the non-negative weight of an entry when it is written
+   * @param expectedEntries   the number of entries the maximum weight is expected to hold
+   * @param expireAfterWrite  how long after being written an entry expires, or 0 for never
+   * @param expireAfterAccess how long after last being read or written an entry expires, or 0 for never
+   * @param timeUnit          the unit of both expiry durations
+   * @param executor          runs the maintenance that applies buffered reads to the policy
+   */
+  public TinyLfuCache (long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, long expectedEntries, long expireAfterWrite, long expireAfterAccess, TimeUnit timeUnit, Executor executor) {
+
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("The maximum weight must be > 0");
+    }
+    if (expectedEntries <= 0) {
+      throw new IllegalArgumentException("The expected entry count must be > 0");
+    }
+    if ((expireAfterWrite < 0) || (expireAfterAccess < 0)) {
+      throw new IllegalArgumentException("Expiry durations must be >= 0");
+    }
+
+    this.maximumWeight = maximumWeight;
+    this.weigher = weigher;
+    this.executor = executor;
+
+    windowMaximum = Math.max(1, maximumWeight / 100);
+    protectedMaximum = (long)((maximumWeight - windowMaximum) * 0.8);
+    expireAfterWriteNanos = timeUnit.toNanos(expireAfterWrite);
+    expireAfterAccessNanos = timeUnit.toNanos(expireAfterAccess);
+    sketch = new FrequencySketch(expectedEntries);
+
+    readBuffers = newReadBuffers();
+  }
+
+  private static <K, V> ReadBuffer<K, V>[] newReadBuffers () {
+
+    ReadBuffer<K, V>[] readBuffers = new ReadBuffer[STRIPE_COUNT];
+
+    for (int index = 0; index < readBuffers.length; index++) {
+      readBuffers[index] = new ReadBuffer<>();
+    }
+
+    return readBuffers;
+  }
+
+  /**
+   * Returns the maximum total weight retained, which is the maximum entry count for an unweighted cache.
+   *
+   * @return the maximum weight
+   */
+  public long getMaximumWeight () {
+
+    return maximumWeight;
+  }
+
+  /**
+   * Returns the number of entries currently held, including any expired but not yet removed.
+   *
+   * @return the entry count
+   */
+  public int size () {
+
+    return data.size();
+  }
+
+  /**
+   * Returns the total weight of the entries currently held.
+   *
+   * @return the weighted size
+   */
+  public long weightedSize () {
+
+    evictionLock.lock();
+    try {
+
+      return weightedSize;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of lookups that found a live entry.
+   *
+   * @return the hit count
+   */
+  public long getHitCount () {
+
+    return hitCount.sum();
+  }
+
+  /**
+   * Returns the number of lookups that found no live entry.
+   *
+   * @return the miss count
+   */
+  public long getMissCount () {
+
+    return missCount.sum();
+  }
+
+  /**
+   * Returns the number of entries removed to keep the cache within its maximum weight.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount () {
+
+    return evictionCount.sum();
+  }
+
+  /**
+   * Returns the fraction of lookups that were hits, or 1 if there have been none.
+   *
+   * @return the hit rate
+   */
+  public double hitRate () {
+
+    long hits = hitCount.sum();
+    long total = hits + missCount.sum();
+
+    return (total == 0) ? 1.0D : hits / (double)total;
+  }
+
+  /**
+   * Returns whether a live entry exists for the key, without counting as a read.
+   *
+   * @param key the key
+   * @return {@code true} if the key maps to an unexpired entry
+   */
+  public boolean containsKey (K key) {
+
+    Node<K, V> node;
+
+    return ((node = data.get(key)) != null) && (!isExpired(node, System.nanoTime()));
+  }
+
+  /**
+   * Returns the value mapped to the key, or {@code null} if there is no live entry.
+   *
+   * @param key the key
+   * @return the cached value, or {@code null}
+   */
+  public V get (K key) {
+
+    Node<K, V> node;
+    long now = System.nanoTime();
+
+    if ((node = data.get(key)) == null) {
+      missCount.increment();
+
+      return null;
+    }
+    if (isExpired(node, now)) {
+      missCount.increment();
+      scheduleDrain();
+
+      return null;
+    }
+
+    if (expireAfterAccessNanos > 0) {
+      node.accessTime = now;
+    }
+    hitCount.increment();
+    if (!readBuffers[MagicHash.rehash(System.identityHashCode(Thread.currentThread())) & STRIPE_MASK].offer(node)) {
+      scheduleDrain();
+    }
+
+    return node.value;
+  }
+
+  /**
+   * Returns the value mapped to the key, computing and caching it on a miss. The loader runs without any lock held, so concurrent
+   * misses on the same key may each invoke it, in which case the first value cached wins and is returned to all of them.
+   *
+   * @param key    the key
+   * @param loader computes the value of a missing key; a {@code null} result is returned but not cached
+   * @return the cached or computed value
+   */
+  public V get (K key, Function<? super K, ? extends V> loader) {
+
+    V value;
+    V priorValue;
+
+    if ((value = get(key)) != null) {
+
+      return value;
+    }
+    if ((value = loader.apply(key)) == null) {
+
+      return null;
+    }
+
+    return ((priorValue = putIfAbsent(key, value)) == null) ? value : priorValue;
+  }
+
+  /**
+   * Maps the key to the value, replacing any existing mapping.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the value previously mapped to the key, or {@code null} if there was no live entry
+   */
+  public V put (K key, V value) {
+
+    return write(key, value, false);
+  }
+
+  /**
+   * Maps the key to the value unless a live entry already exists.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the existing value, or {@code null} if the value was cached
+   */
+  public V putIfAbsent (K key, V value) {
+
+    return write(key, value, true);
+  }
+
+  /**
+   * Removes any mapping for the key.
+   *
+   * @param key the key
+   * @return the value that was mapped to the key, or {@code null} if there was no live entry
+   */
+  public V remove (K key) {
+
+    evictionLock.lock();
+    try {
+
+      Node<K, V> node;
+
+      if ((node = data.get(key)) != null) {
+
+        V value = node.value;
+        boolean expired = isExpired(node, System.nanoTime());
+
+        discard(node);
+
+        return expired ? null : value;
+      }
+
+      return null;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Removes every entry and forgets all recorded frequencies.
+   */
+  public void clear () {
+
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+
+      for (Node<K, V> node : data.values()) {
+        discard(node);
+      }
+
+      sketch.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Applies buffered reads and removes expired entries immediately, rather than waiting for scheduled maintenance.
+   */
+  public void cleanUp () {
+
+    evictionLock.lock();
+    try {
+      maintenance();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private V write (K key, V value, boolean onlyIfAbsent) {
+
+    int weight;
+
+    if ((key == null) || (value == null)) {
+      throw new NullPointerException();
+    }
+    if ((weight = weigher.applyAsInt(key, value)) < 0) {
+      throw new IllegalArgumentException("Weights must be >= 0");
+    }
+
+    evictionLock.lock();
+    try {
+
+      Node<K, V> node;
+      V priorValue = null;
+      long now = System.nanoTime();
+
+      drainReadBuffers();
+
+      if ((node = data.get(key)) != null) {
+        if (!isExpired(node, now)) {
+          if (onlyIfAbsent) {
+            onAccess(node);
+            sketch.increment(key);
+
+            return node.value;
+          }
+
+          priorValue = node.value;
+        }
+
+        node.value = value;
+        node.writeTime = now;
+        node.accessTime = now;
+        weightedSize += weight - node.weight;
+        switch (node.queue) {
+          case WINDOW:
+            windowWeight += weight - node.weight;
+            break;
+          case PROTECTED:
+            protectedWeight += weight - node.weight;
+            break;
+          case PROBATION:
+            break;
+          default:
+            throw new UnknownSwitchCaseException(node.queue.name());
+        }
+        node.weight = weight;
+        onAccess(node);
+        if (expireAfterWriteNanos > 0) {
+          writeOrder.remove(node);
+          writeOrder.add(node);
+        }
+      } else {
+        node = new Node<>(key, value, weight, now);
+        data.put(key, node);
+        node.queue = Queue.WINDOW;
+        window.addLast(node);
+        windowWeight += weight;
+        weightedSize += weight;
+        if (expireAfterWriteNanos > 0) {
+          writeOrder.add(node);
+        }
+      }
+
+      sketch.increment(key);
+      expire(now);
+      evict();
+
+      return priorValue;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private boolean isExpired (Node<K, V> node, long now) {
+
+    return ((expireAfterWriteNanos > 0) && ((now - node.writeTime) >= expireAfterWriteNanos)) || ((expireAfterAccessNanos > 0) && ((now - node.accessTime) >= expireAfterAccessNanos));
+  }
+
+  private void scheduleDrain () {
+
+    if (drainScheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(drainTask);
+      } catch (RejectedExecutionException rejectedExecutionException) {
+        drainScheduled.set(false);
+      }
+    }
+  }
+
+  private void scheduledMaintenance () {
+
+    evictionLock.lock();
+    try {
+      maintenance();
+    } finally {
+      evictionLock.unlock();
+      drainScheduled.set(false);
+    }
+  }
+
+  private void maintenance () {
+
+    drainReadBuffers();
+    expire(System.nanoTime());
+    evict();
+  }
+
+  private void drainReadBuffers () {
+
+    for (ReadBuffer<K, V> readBuffer : readBuffers) {
+      readBuffer.drain(this);
+    }
+  }
+
+  /**
+   * Records a read or overwrite of a live node, promoting it within the segmented LRU.
+   *
+   * @param node the node accessed
+   */
+  private void onAccess (Node<K, V> node) {
+
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToLast(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        node.queue = Queue.PROTECTED;
+        protectedSegment.addLast(node);
+        protectedWeight += node.weight;
+        while ((protectedWeight > protectedMaximum) && (!protectedSegment.isEmpty())) {
+
+          Node<K, V> demoted = protectedSegment.removeFirst();
+
+          protectedWeight -= demoted.weight;
+          demoted.queue = Queue.PROBATION;
+          probation.addLast(demoted);
+        }
+        break;
+      case PROTECTED:
+        protectedSegment.moveToLast(node);
+        break;
+      case DEAD:
+        break;
+      default:
+        throw new UnknownSwitchCaseException(node.queue.name());
+    }
+  }
+
+  /**
+   * Removes expired entries from the heads of the write order and each access order, which hold the oldest writes and reads.
+   *
+   * @param now the current nano time
+   */
+  private void expire (long now) {
+
+    if (expireAfterWriteNanos > 0) {
+
+      Iterator<Node<K, V>> writeIter = writeOrder.iterator();
+      Node<K, V> node;
+
+      while (writeIter.hasNext() && ((now - (node = writeIter.next()).writeTime) >= expireAfterWriteNanos)) {
+        writeIter.remove();
+        discard(node);
+      }
+    }
+
+    if (expireAfterAccessNanos > 0) {
+      expire(window, now);
+      expire(probation, now);
+      expire(protectedSegment, now);
+    }
+  }
+
+  private void expire (AccessOrderDeque<K, V> deque, long now) {
+
+    while ((!deque.isEmpty()) && ((now - deque.peekFirst().accessTime) >= expireAfterAccessNanos)) {
+      discard(deque.peekFirst());
+    }
+  }
+
+  /**
+   * Moves entries overflowing the window into the main space, each admitted only if it is estimated to be more popular than the
+   * victim it would displace, then evicts from the heads of the segments until the total weight is within bounds.
+   */
+  private void evict () {
+
+    while ((windowWeight > windowMaximum) && (!window.isEmpty())) {
+
+      Node<K, V> candidate = window.removeFirst();
+      long mainMaximum = maximumWeight - windowMaximum;
+
+      windowWeight -= candidate.weight;
+      candidate.queue = Queue.PROBATION;
+      probation.addLast(candidate);
+
+      while ((weightedSize - windowWeight) > mainMaximum) {
+
+        Node<K, V> victim = (probation.peekFirst() != candidate) ? probation.peekFirst() : protectedSegment.peekFirst();
+
+        if (victim == null) {
+          break;
+        } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+          evictionCount.increment();
+          discard(victim);
+        } else {
+          evictionCount.increment();
+          discard(candidate);
+          break;
+        }
+      }
+    }
+
+    while (weightedSize > maximumWeight) {
+
+      Node<K, V> victim = (!probation.isEmpty()) ? probation.peekFirst() : (!protectedSegment.isEmpty()) ? protectedSegment.peekFirst() : window.peekFirst();
+
+      if (victim == null) {
+        break;
+      }
+
+      evictionCount.increment();
+      discard(victim);
+    }
+  }
+
+  /**
+   * Unlinks a node from the map and the policy, marking it dead so any buffered reads of it are ignored.
+   *
+   * @param node the node to remove
+   */
+  private void discard (Node<K, V> node) {
+
+    data.remove(node.key, node);
+    switch (node.queue) {
+      case WINDOW:
+        window.remove(node);
+        windowWeight -= node.weight;
+        break;
+      case PROBATION:
+        probation.remove(node);
+        break;
+      case PROTECTED:
+        protectedSegment.remove(node);
+        protectedWeight -= node.weight;
+        break;
+      case DEAD:
+        return;
+      default:
+        throw new UnknownSwitchCaseException(node.queue.name());
+    }
+
+    weightedSize -= node.weight;
+    node.queue = Queue.DEAD;
+    if (expireAfterWriteNanos > 0) {
+      writeOrder.remove(node);
+    }
+  }
+
+  private enum Queue {
+
+    WINDOW, PROBATION, PROTECTED, DEAD
+  }
+
+  /**
+   * A cached entry, linked into exactly one access order while live. Links, weight and queue are guarded by the eviction lock.
+   */
+  private static class Node<K, V> {
+
+    private final K key;
+    private volatile V value;
+    private volatile long writeTime;
+    private volatile long accessTime;
+    private Node<K, V> prev;
+    private Node<K, V> next;
+    private Queue queue;
+    private int weight;
+
+    private Node (K key, V value, int weight, long now) {
+
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+
+      writeTime = now;
+      accessTime = now;
+    }
+  }
+
+  /**
+   * An intrusive doubly linked list of nodes, least recently used first.
+   */
+  private static class AccessOrderDeque<K, V> {
+
+    private Node<K, V> head;
+    private Node<K, V> tail;
+
+    private boolean isEmpty () {
+
+      return head == null;
+    }
+
+    private Node<K, V> peekFirst () {
+
+      return head;
+    }
+
+    private Node<K, V> removeFirst () {
+
+      Node<K, V> first = head;
+
+      remove(first);
+
+      return first;
+    }
+
+    private void addLast (Node<K, V> node) {
+
+      node.prev = tail;
+      node.next = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+    }
+
+    private void moveToLast (Node<K, V> node) {
+
+      if (node != tail) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    private void remove (Node<K, V> node) {
+
+      if (node.prev == null) {
+        head = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        tail = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+
+      node.prev = null;
+      node.next = null;
+    }
+  }
+
+  /**
+   * A bounded, lossy ring of recently read nodes. Readers claim a slot by compare-and-set and give up when the ring is full; the
+   * ring is drained only under the eviction lock.
+   */
+  private static class ReadBuffer<K, V> {
+
+    private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter;
+
+    /**
+     * Records a read, unless the ring is full.
+     *
+     * @param node the node read
+     * @return {@code false} if the ring was full, or has just been filled, and should be drained
+     */
+    private boolean offer (Node<K, V> node) {
+
+      long writeIndex = writeCounter.get();
+
+      if ((writeIndex - readCounter) >= READ_BUFFER_SIZE) {
+
+        return false;
+      }
+      if (writeCounter.compareAndSet(writeIndex, writeIndex + 1)) {
+        slots.lazySet((int)(writeIndex & READ_BUFFER_MASK), node);
+
+        return (writeIndex + 1 - readCounter) < READ_BUFFER_SIZE;
+      }
+
+      return true;
+    }
+
+    private void drain (TinyLfuCache<K, V> cache) {
+
+      long readIndex = readCounter;
+      long writeIndex = writeCounter.get();
+
+      for (; readIndex < writeIndex; readIndex++) {
+
+        int slot = (int)(readIndex & READ_BUFFER_MASK);
+        Node<K, V> node;
+
+        if ((node = slots.get(slot)) == null) {
+          //  a reader has claimed but not yet filled this slot, so resume here on the next drain
+          break;
+        }
+
+        slots.lazySet(slot, null);
+        if (node.queue != Queue.DEAD) {
+          cache.sketch.increment(node.key);
+          cache.onAccess(node);
+        }
+      }
+
+      readCounter = readIndex;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit")
+public class MappedCSVParserTest {
+
+  public void testChunkedParseMatchesTheRecordsWritten ()
+    throws IOException, CSVParseException {
+
+    List<String[]> expected = generateRecords(2000);
+    Path path = write(expected, "\n");
+
+    for (int chunkSize : new int[] {17, 256, 4096, 1 << 20}) {
+
+      MappedCSVParser parser = new MappedCSVParser();
+
+      parser.setChunkSize(chunkSize);
+      parser.setConcurrencyLimit(4);
+
+      assertRecordsEqual(collect(parser, path), expected);
+    }
+  }
+
+  public void testUnorderedParseDeliversEveryRecord ()
+    throws IOException, CSVParseException {
+
+    List<String[]> expected = generateRecords(2000);
+    Path path = write(expected, "\r\n");
+    MappedCSVParser parser = new MappedCSVParser();
+    List<String[]> actual;
+
+    parser.setChunkSize(64);
+    parser.setOrdered(false);
+
+    actual = collect(parser, path);
+    actual.sort(Comparator.comparing(fields -> Integer.parseInt(fields[0])));
+
+    assertRecordsEqual(actual, expected);
+  }
+
+  public void testQuotingEscapesAndLineEndings ()
+    throws IOException, CSVParseException {
+
+    Path path = write("a,\"b,c\",\"say \"\"hi\"\"\"\r\n\"multi\nline\",,\n,\"\"\nlast");
+    List<String[]> actual = collect(new MappedCSVParser(), path);
+
+    Assert.assertEquals(actual.size(), 4);
+    Assert.assertEquals(actual.get(0), new String[] {"a", "b,c", "say \"hi\""});
+    Assert.assertEquals(actual.get(1), new String[] {"multi\nline", "", ""});
+    Assert.assertEquals(actual.get(2), new String[] {"", ""});
+    Assert.assertEquals(actual.get(3), new String[] {"last"});
+  }
+
+  public void testSkipHeaderAndTrimFields ()
+    throws IOException, CSVParseException {
+
+    Path path = write("id , name\n 1 ,  Alice \n2,\" Bob \"\n");
+    MappedCSVParser parser = new MappedCSVParser();
+    List<String[]> actual;
+
+    parser.setSkipHeader(true);
+    parser.setTrimFields(true);
+    actual = collect(parser, path);
+
+    Assert.assertEquals(actual.size(), 2);
+    Assert.assertEquals(actual.get(0), new String[] {"1", "Alice"});
+    Assert.assertEquals(actual.get(1), new String[] {"2", "Bob"});
+  }
+
+  public void testEmptyFileHasNoRecords ()
+    throws IOException, CSVParseException {
+
+    Assert.assertTrue(collect(new MappedCSVParser(), write("")).isEmpty());
+  }
+
+  @Test(expectedExceptions = CSVParseException.class)
+  public void testOpenQuotedFieldIsRejected ()
+    throws IOException, CSVParseException {
+
+    collect(new MappedCSVParser(), write("a,b\n\"open,c\n"));
+  }
+
+  @Test(expectedExceptions = CSVParseException.class)
+  public void testMisplacedQuoteIsRejected ()
+    throws IOException, CSVParseException {
+
+    collect(new MappedCSVParser(), write("a,b\"c\n"));
+  }
+
+  public void testFieldViewsReadTheDecodedBuffer ()
+    throws IOException, CSVParseException {
+
+    List<String> views = new ArrayList<>();
+
+    new MappedCSVParser().parse(write("x,\"y\"\"z\"\n"), record -> {
+      for (int index = 0; index < record.size(); index++) {
+        views.add(record.getField(index).toString());
+      }
+    });
+
+    Assert.assertEquals(views, List.of("x", "y\"z"));
+  }
+
+  public void testQuoteCountingMatchesAByteScan () {
+
+    Random random = new Random(17);
+
+    for (int trial = 0; trial < 100; trial++) {
+
+      byte[] bytes = new byte[random.nextInt(100)];
+      long expected = 0;
+
+      for (int index = 0; index < bytes.length; index++) {
+        bytes[index] = (random.nextInt(4) == 0) ? (byte)'"' : (byte)random.nextInt(256);
+      }
+      for (byte value : bytes) {
+        if (value == '"') {
+          expected++;
+        }
+      }
+
+      Assert.assertEquals(MappedCSVParser.countQuotes(ByteBuffer.wrap(bytes)), expected);
+    }
+  }
+
+  public void testCSVParserDrivesTheLineHandlerFromAFile ()
+    throws IOException, CSVParseException {
+
+    List<String[]> rows = Collections.synchronizedList(new ArrayList<>());
+    CSVParser parser = new CSVParser();
+
+    parser.setSkipHeader(true);
+    parser.setLineHandler(new DefaultCSVLineHandler() {
+
+      @Override
+      public void handleFields (String[] fields) {
+
+        rows.add(fields);
+      }
+    });
+    parser.parse(write("id,name\n1,Alice\n2,Bob\n"));
+
+    Assert.assertEquals(rows.size(), 2);
+    Assert.assertEquals(rows.get(1), new String[] {"2", "Bob"});
+  }
+
+  private List<String[]> collect (MappedCSVParser parser, Path path)
+    throws IOException, CSVParseException {
+
+    List<String[]> records = Collections.synchronizedList(new ArrayList<>());
+
+    parser.parse(path, record -> records.add(record.toArray()));
+
+    return new ArrayList<>(records);
+  }
+
+  private void assertRecordsEqual (List<String[]> actual, List<String[]> expected) {
+
+    Assert.assertEquals(actual.size(), expected.size());
+    for (int index = 0; index < expected.size(); index++) {
+      Assert.assertTrue(Arrays.equals(actual.get(index), expected.get(index)), "Record " + index + " differs: " + Arrays.toString(actual.get(index)) + " != " + Arrays.toString(expected.get(index)));
+    }
+  }
+
+  private List<String[]> generateRecords (int count) {
+
+    Random random = new Random(31);
+    List<String[]> records = new ArrayList<>();
+    String[] fragments = {"plain", "with,comma", "with \"quotes\"", "multi\nline", "", "ünïcödé", "tail\""};
+
+    for (int index = 0; index < count; index++) {
+
+      String[] fields = new String[1 + random.nextInt(5)];
+
+      fields[0] = String.valueOf(index);
+      for (int field = 1; field < fields.length; field++) {
+        fields[field] = fragments[random.nextInt(fragments.length)];
+      }
+      records.add(fields);
+    }
+
+    return records;
+  }
+
+  private Path write (List<String[]> records, String lineEnd)
+    throws IOException {
+
+    StringBuilder csvBuilder = new StringBuilder();
+
+    for (String[] fields : records) {
+      for (int index = 0; index < fields.length; index++) {
+        if (index > 0) {
+          csvBuilder.append(',');
+        }
+        if (fields[index].contains(",") || fields[index].contains("\"") || fields[index].contains("\n")) {
+          csvBuilder.append('"').append(fields[index].replace("\"", "\"\"")).append('"');
+        } else {
+          csvBuilder.append(fields[index]);
+        }
+      }
+      csvBuilder.append(lineEnd);
+    }
+
+    return write(csvBuilder.toString());
+  }
+
+  private Path write (String content)
+    throws IOException {
+
+    Path path = Files.createTempFile("mapped-csv-", ".csv");
+
+    path.toFile().deleteOnExit();
+    Files.writeString(path, content, StandardCharsets.UTF_8);
+
+    return path;
+  }
+}
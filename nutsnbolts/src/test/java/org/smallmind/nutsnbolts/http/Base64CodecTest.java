@@ -33,10 +33,13 @@
 package org.smallmind.nutsnbolts.http;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -258,4 +261,72 @@ public class Base64CodecTest {
 
     Base64Codec.decode("=m9v");
   }
+
+  public void testEncodeMatchesJdkForEveryRemainder ()
+    throws IOException {
+
+    Random random = new Random(48);
+
+    for (int length = 0; length < 200; length++) {
+
+      byte[] bytes = new byte[length];
+
+      random.nextBytes(bytes);
+
+      Assert.assertEquals(Base64Codec.encode(bytes), Base64.getEncoder().encodeToString(bytes));
+      Assert.assertEquals(Base64Codec.urlSafeEncode(bytes), Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+      Assert.assertEquals(Base64Codec.encodeToBytes(bytes), Base64.getEncoder().encode(bytes));
+      Assert.assertEquals(Base64Codec.decode(Base64.getEncoder().encode(bytes)), bytes);
+    }
+  }
+
+  public void testCustomAlphabetMatchesTranslatedJdkOutput ()
+    throws IOException {
+
+    Random random = new Random(62);
+
+    for (int length = 0; length < 200; length++) {
+
+      byte[] bytes = new byte[length];
+
+      random.nextBytes(bytes);
+
+      String custom = Base64Codec.encode(bytes, false, '*', '@');
+
+      Assert.assertEquals(custom, Base64.getEncoder().withoutPadding().encodeToString(bytes).replace('+', '*').replace('/', '@'));
+      Assert.assertEquals(Base64Codec.decode(custom, false, '*', '@'), bytes);
+    }
+  }
+
+  public void testStreamEncodeSpanningBlocksMatchesArrayEncode ()
+    throws IOException {
+
+    byte[] bytes = new byte[100000];
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    new Random(3).nextBytes(bytes);
+    Base64Codec.encode(new ByteArrayInputStream(bytes), outputStream, true, '+', '/');
+
+    Assert.assertEquals(outputStream.toString(StandardCharsets.ISO_8859_1), Base64.getEncoder().encodeToString(bytes));
+    Assert.assertEquals(Base64Codec.encode(new ByteArrayInputStream(bytes), false, '*', '@'), Base64Codec.encode(bytes, false, '*', '@'));
+  }
+
+  public void testLenientDecodeToleratesNonCanonicalPadding ()
+    throws IOException {
+
+    Assert.assertEquals(Base64Codec.decode("QQ=", false), new byte[] {'A'});
+    Assert.assertEquals(Base64Codec.decode("QQ==Zg==", false), new byte[] {'A', 'f'});
+    Assert.assertEquals(Base64Codec.decode("Zm9v=", false), "foo".getBytes(StandardCharsets.UTF_8));
+  }
+
+  public void testSliceAndBufferOverloadsHonorBounds ()
+    throws IOException {
+
+    byte[] encoded = "xxZm9vYg==yy".getBytes(StandardCharsets.ISO_8859_1);
+    ByteBuffer buffer = ByteBuffer.wrap("xxfoobyy".getBytes(StandardCharsets.ISO_8859_1), 2, 4).slice();
+
+    Assert.assertEquals(Base64Codec.decode(encoded, 2, 8, true, '+', '/'), "foob".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(new String(Base64Codec.encodeToBytes(buffer, true, '*', '@'), StandardCharsets.ISO_8859_1), "Zm9vYg==");
+    Assert.assertFalse(buffer.hasRemaining());
+  }
 }
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.inject;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Drives {@link LazyFieldAspect} directly, through a hand-built join point, from many threads at once, so the initialization modes are
+ * verified independently of weaving.
+ */
+@Test(groups = "unit")
+public class LazyFieldAspectTest {
+
+  private static final int THREAD_COUNT = 16;
+
+  private static ProceedingJoinPoint joinPoint (Supplier<Object> supplier) {
+
+    Signature signature = (Signature)Proxy.newProxyInstance(LazyFieldAspectTest.class.getClassLoader(), new Class[] {Signature.class}, (proxy, method, args) -> "getName".equals(method.getName()) ? "compute" : null);
+
+    return (ProceedingJoinPoint)Proxy.newProxyInstance(LazyFieldAspectTest.class.getClassLoader(), new Class[] {ProceedingJoinPoint.class}, (proxy, method, args) -> switch (method.getName()) {
+      case "proceed" -> supplier.get();
+      case "getSignature" -> signature;
+      default -> null;
+    });
+  }
+
+  private static LazyField lazyField (String methodName)
+    throws NoSuchMethodException {
+
+    return Holder.class.getDeclaredMethod(methodName).getAnnotation(LazyField.class);
+  }
+
+  private static Set<Object> race (LazyFieldAspect aspect, ProceedingJoinPoint joinPoint, LazyField lazyField, Holder holder)
+    throws InterruptedException {
+
+    Set<Object> resultSet = ConcurrentHashMap.newKeySet();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    CountDownLatch startLatch = new CountDownLatch(1);
+    Thread[] threads = new Thread[THREAD_COUNT];
+
+    for (int index = 0; index < threads.length; index++) {
+      threads[index] = new Thread(() -> {
+        try {
+          startLatch.await();
+          resultSet.add(aspect.aroundLazyMethod(joinPoint, lazyField, holder));
+        } catch (Throwable throwable) {
+          failure.set(throwable);
+        }
+      });
+      threads[index].start();
+    }
+
+    startLatch.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertNull(failure.get());
+
+    return resultSet;
+  }
+
+  public void testExactlyOnceComputesASingleValue ()
+    throws Exception {
+
+    LazyFieldAspect aspect = new LazyFieldAspect();
+    AtomicInteger computations = new AtomicInteger();
+    Holder holder = new Holder();
+    Set<Object> resultSet = race(aspect, joinPoint(() -> {
+      computations.incrementAndGet();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+      }
+
+      return new Payload(computations.get());
+    }), lazyField("computeOnce"), holder);
+
+    Assert.assertEquals(computations.get(), 1);
+    Assert.assertEquals(resultSet.size(), 1);
+    Assert.assertSame(resultSet.iterator().next(), holder.once);
+  }
+
+  public void testExactlyOnceDoesNotHoldTheInstanceMonitor ()
+    throws Throwable {
+
+    LazyFieldAspect aspect = new LazyFieldAspect();
+    Holder holder = new Holder();
+    AtomicReference<Boolean> monitorFree = new AtomicReference<>();
+
+    aspect.aroundLazyMethod(joinPoint(() -> {
+
+      Thread probe = new Thread(() -> {
+        synchronized (holder) {
+          monitorFree.set(Boolean.TRUE);
+        }
+      });
+
+      probe.start();
+      try {
+        probe.join(5000);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+      }
+
+      return new Payload(1);
+    }), lazyField("computeOnce"), holder);
+
+    Assert.assertEquals(monitorFree.get(), Boolean.TRUE, "The instance monitor was held during initialization");
+  }
+
+  public void testExactlyOnceExcludesOnlyTheSameInstance ()
+    throws Throwable {
+
+    LazyFieldAspect aspect = new LazyFieldAspect();
+    Holder blockedHolder = new Holder();
+    Holder freeHolder = new Holder();
+    CountDownLatch enteredLatch = new CountDownLatch(1);
+    CountDownLatch releaseLatch = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread blockedThread = new Thread(() -> {
+      try {
+        aspect.aroundLazyMethod(joinPoint(() -> {
+          enteredLatch.countDown();
+          try {
+            releaseLatch.await();
+          } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+          }
+
+          return new Payload(1);
+        }), lazyField("computeOnce"), blockedHolder);
+      } catch (Throwable throwable) {
+        failure.set(throwable);
+      }
+    });
+
+    blockedThread.start();
+    try {
+      Assert.assertTrue(enteredLatch.await(5, TimeUnit.SECONDS));
+
+      // Another instance of the same class initializes while the first is still mid-initialization
+      Assert.assertSame(aspect.aroundLazyMethod(joinPoint(() -> new Payload(2)), lazyField("computeOnce"), freeHolder), freeHolder.once);
+      Assert.assertNull(blockedHolder.once);
+    } finally {
+      releaseLatch.countDown();
+      blockedThread.join();
+    }
+
+    Assert.assertNull(failure.get());
+    Assert.assertNotNull(blockedHolder.once);
+  }
+
+  @Test(expectedExceptions = LazyError.class)
+  public void testExactlyOnceRejectsRecursiveInitialization ()
+    throws Throwable {
+
+    LazyFieldAspect aspect = new LazyFieldAspect();
+    Holder holder = new Holder();
+    AtomicReference<ProceedingJoinPoint> joinPointReference = new AtomicReference<>();
+
+    joinPointReference.set(joinPoint(() -> {
+      try {
+        return aspect.aroundLazyMethod(joinPointReference.get(), lazyField("computeOnce"), holder);
+      } catch (LazyError lazyError) {
+        throw lazyError;
+      } catch (Throwable throwable) {
+        throw new RuntimeException(throwable);
+      }
+    }));
+
+    aspect.aroundLazyMethod(joinPointReference.get(), lazyField("computeOnce"), holder);
+  }
+
+  @Test(expectedExceptions = LazyError.class, expectedExceptionsMessageRegExp = ".*can not be final")
+  public void testFinalFieldIsRejected ()
+    throws Throwable {
+
+    new LazyFieldAspect().aroundLazyMethod(joinPoint(() -> new Payload(1)), FinalHolder.class.getDeclaredMethod("computeFixed").getAnnotation(LazyField.class), new FinalHolder());
+  }
+
+  public void testRacyPublishesAConsistentValue ()
+    throws Throwable {
+
+    LazyFieldAspect aspect = new LazyFieldAspect();
+    AtomicInteger computations = new AtomicInteger();
+    Holder holder = new Holder();
+    ProceedingJoinPoint joinPoint = joinPoint(() -> new Payload(computations.incrementAndGet()));
+    Set<Object> resultSet = race(aspect, joinPoint, lazyField("computeRacy"), holder);
+    int computed = computations.get();
+
+    Assert.assertTrue(computed >= 1);
+    Assert.assertTrue(resultSet.contains(holder.racy));
+    for (Object result : resultSet) {
+      Assert.assertTrue(((Payload)result).isIntact());
+    }
+
+    Assert.assertSame(aspect.aroundLazyMethod(joinPoint, lazyField("computeRacy"), holder), holder.racy);
+    Assert.assertEquals(computations.get(), computed, "A populated field should not be recomputed");
+  }
+
+  private static class Payload {
+
+    private final int[] cells = new int[64];
+
+    private Payload (int seed) {
+
+      for (int index = 0; index < cells.length; index++) {
+        cells[index] = seed;
+      }
+    }
+
+    private boolean isIntact () {
+
+      for (int cell : cells) {
+        if (cell != cells[0]) {
+
+          return false;
+        }
+      }
+
+      return cells[0] > 0;
+    }
+  }
+
+  private static class Holder {
+
+    private Payload once;
+    private Payload racy;
+
+    @LazyField(value = "once", initialization = LazyInitialization.EXACTLY_ONCE)
+    public Payload computeOnce () {
+
+      return new Payload(1);
+    }
+
+    @LazyField("racy")
+    public Payload computeRacy () {
+
+      return new Payload(1);
+    }
+  }
+
+  private static class FinalHolder {
+
+    private final Payload fixed = null;
+
+    @LazyField(value = "fixed", initialization = LazyInitialization.EXACTLY_ONCE)
+    public Payload computeFixed () {
+
+      return new Payload(1);
+    }
+  }
+}
@@ -33,6 +33,7 @@
 package org.smallmind.nutsnbolts.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -57,7 +58,7 @@ public class ByteArrayIOBufferTest {
 
     ByteArrayIOBuffer buffer = new ByteArrayIOBuffer(1024);
 
-    buffer.getSegmentList().add(new byte[1024]);
+    buffer.addSegment();
     buffer.getLimitBookmark().position(500L);
     buffer.clear();
 
@@ -68,18 +69,107 @@ public class ByteArrayIOBufferTest {
   public void testCopyConstructorProducesDeepCopy () {
 
     ByteArrayIOBuffer original = new ByteArrayIOBuffer(8);
-    byte[] segment = new byte[8];
+    ByteBuffer segment = original.addSegment();
 
-    segment[0] = 42;
-    original.getSegmentList().add(segment);
+    segment.put(0, (byte)42);
 
     ByteArrayIOBuffer copy = new ByteArrayIOBuffer(original);
 
     Assert.assertEquals(copy.getAllocation(), 8);
     Assert.assertEquals(copy.getSegmentList().size(), 1);
-    Assert.assertEquals(copy.getSegmentList().get(0)[0], (byte)42);
+    Assert.assertEquals(copy.getSegmentList().get(0).get(0), (byte)42);
 
-    copy.getSegmentList().get(0)[0] = 99;
-    Assert.assertEquals(original.getSegmentList().get(0)[0], (byte)42);
+    copy.getSegmentList().get(0).put(0, (byte)99);
+    Assert.assertEquals(original.getSegmentList().get(0).get(0), (byte)42);
+  }
+
+  public void testPooledSegmentsReturnOnClearAndAreReused ()
+    throws IOException {
+
+    PooledDirectSegmentProvider segmentProvider = new PooledDirectSegmentProvider(16, 4);
+    ByteArrayIOBuffer buffer = new ByteArrayIOBuffer(segmentProvider);
+
+    Assert.assertTrue(buffer.addSegment().isDirect());
+    buffer.addSegment();
+    buffer.clear();
+
+    Assert.assertEquals(segmentProvider.getPooledCount(), 2);
+
+    buffer.addSegment();
+    buffer.addSegment();
+    buffer.addSegment();
+
+    Assert.assertEquals(segmentProvider.getPooledCount(), 0);
+    Assert.assertEquals(segmentProvider.getAllocatedCount(), 3);
+  }
+
+  public void testPoolDropsSegmentsBeyondItsBound () {
+
+    PooledDirectSegmentProvider segmentProvider = new PooledDirectSegmentProvider(16, 1);
+    ByteBuffer first = segmentProvider.acquire();
+    ByteBuffer second = segmentProvider.acquire();
+
+    segmentProvider.release(first);
+    segmentProvider.release(second);
+
+    Assert.assertEquals(segmentProvider.getPooledCount(), 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testPoolRejectsForeignSegments () {
+
+    new PooledDirectSegmentProvider(16, 1).release(ByteBuffer.allocate(16));
+  }
+
+  public void testSegmentsReturnWhenLastReferenceIsReleased () {
+
+    PooledDirectSegmentProvider segmentProvider = new PooledDirectSegmentProvider(16, 4);
+    ByteArrayIOBuffer buffer = new ByteArrayIOBuffer(segmentProvider);
+
+    buffer.addSegment();
+    buffer.retain();
+    buffer.release();
+
+    Assert.assertEquals(segmentProvider.getPooledCount(), 0);
+
+    buffer.release();
+
+    Assert.assertEquals(segmentProvider.getPooledCount(), 1);
+    Assert.assertTrue(buffer.getSegmentList().isEmpty());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testRetainAfterFinalReleaseIsRejected () {
+
+    ByteArrayIOBuffer buffer = new ByteArrayIOBuffer(8);
+
+    buffer.release();
+    buffer.retain();
+  }
+
+  public void testByteBufferViewsSpanSegments () {
+
+    ByteArrayIOBuffer buffer = new ByteArrayIOBuffer(4);
+
+    for (int segmentIndex = 0; segmentIndex < 3; segmentIndex++) {
+
+      ByteBuffer segment = buffer.addSegment();
+
+      for (int index = 0; index < 4; index++) {
+        segment.put(index, (byte)((segmentIndex * 4) + index));
+      }
+    }
+    buffer.getLimitBookmark().position(10L);
+
+    ByteBuffer[] views = buffer.asByteBuffers(2, 10);
+
+    Assert.assertEquals(views.length, 3);
+    Assert.assertEquals(views[0].remaining(), 2);
+    Assert.assertEquals(views[0].get(0), (byte)2);
+    Assert.assertEquals(views[1].remaining(), 4);
+    Assert.assertEquals(views[2].remaining(), 2);
+    Assert.assertEquals(views[2].get(1), (byte)9);
+    Assert.assertTrue(views[1].isReadOnly());
+    Assert.assertEquals(buffer.asByteBuffers(4, 4).length, 0);
   }
 }
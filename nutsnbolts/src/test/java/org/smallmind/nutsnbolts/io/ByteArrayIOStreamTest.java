@@ -33,6 +33,13 @@
 package org.smallmind.nutsnbolts.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -254,4 +261,97 @@ public class ByteArrayIOStreamTest {
 
     new ByteArrayIOStream().asOutputStream().write(new byte[] {1, 2, 3}, 1, 5);
   }
+
+  public void testBulkTransfersSpanSegmentBoundaries ()
+    throws IOException {
+
+    ByteArrayIOStream stream = new ByteArrayIOStream(7);
+    byte[] bytes = new byte[100];
+    byte[] read = new byte[100];
+
+    new Random(49).nextBytes(bytes);
+    stream.asOutputStream().write(bytes, 3, 50);
+    stream.asOutputStream().write(bytes, 53, 47);
+
+    Assert.assertEquals(stream.size(), 97L);
+    Assert.assertEquals(stream.asInputStream().read(read, 0, 40), 40);
+    Assert.assertEquals(stream.asInputStream().read(read, 40, 60), 57);
+    for (int index = 0; index < 97; index++) {
+      Assert.assertEquals(read[index], bytes[index + 3]);
+    }
+  }
+
+  public void testOverwriteWithinDataOnlyExtendsLimitWhenPassed ()
+    throws IOException {
+
+    ByteArrayIOStream stream = new ByteArrayIOStream(4);
+
+    stream.asOutputStream().write(new byte[] {1, 2, 3, 4, 5, 6});
+    stream.asOutputStream().position(2);
+    stream.asOutputStream().write(new byte[] {9, 9});
+
+    Assert.assertEquals(stream.size(), 6L);
+
+    stream.asOutputStream().write(new byte[] {7, 7, 7});
+
+    Assert.assertEquals(stream.size(), 7L);
+    Assert.assertEquals(stream.asInputStream().readAvailable(), new byte[] {1, 2, 9, 9, 7, 7, 7});
+  }
+
+  public void testByteBufferTransfersRoundTripThroughDirectSegments ()
+    throws IOException {
+
+    PooledDirectSegmentProvider segmentProvider = new PooledDirectSegmentProvider(8, 16);
+    ByteArrayIOStream stream = new ByteArrayIOStream(segmentProvider);
+    ByteBuffer source = ByteBuffer.wrap("off-heap segments hold this".getBytes());
+    ByteBuffer destination = ByteBuffer.allocate(64);
+
+    Assert.assertEquals(stream.asOutputStream().write(source), 27);
+    Assert.assertFalse(source.hasRemaining());
+    Assert.assertEquals(stream.asInputStream().read(destination), 27);
+    Assert.assertEquals(stream.asInputStream().read(destination), -1);
+    Assert.assertEquals(new String(destination.array(), 0, destination.position()), "off-heap segments hold this");
+    Assert.assertEquals(stream.toString(), "off-heap segments hold this");
+
+    stream.close();
+
+    Assert.assertEquals(segmentProvider.getPooledCount(), 4);
+  }
+
+  public void testCloseOfSharedBufferLeavesItIntact ()
+    throws IOException {
+
+    ByteArrayIOBuffer buffer = new ByteArrayIOBuffer(new PooledDirectSegmentProvider(8, 16));
+    ByteArrayIOStream writer = new ByteArrayIOStream(buffer);
+
+    writer.asOutputStream().write(new byte[] {1, 2, 3});
+    writer.close();
+
+    ByteArrayIOStream reader = new ByteArrayIOStream(buffer);
+
+    Assert.assertEquals(reader.asInputStream().readAvailable(), new byte[] {1, 2, 3});
+    reader.close();
+  }
+
+  public void testWriteToGathersUnreadBytes ()
+    throws IOException {
+
+    ByteArrayIOStream stream = new ByteArrayIOStream(new PooledDirectSegmentProvider(5, 16));
+    Path path = Files.createTempFile("gather", ".bin");
+    byte[] bytes = new byte[23];
+
+    new Random(50).nextBytes(bytes);
+    stream.asOutputStream().write(bytes);
+    stream.asInputStream().skip(3);
+
+    Assert.assertEquals(stream.asInputStream().readableBuffers().length, 5);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      Assert.assertEquals(stream.asInputStream().writeTo(channel), 20L);
+    }
+
+    Assert.assertEquals(stream.asInputStream().available(), 0);
+    Assert.assertEquals(Files.readAllBytes(path), Arrays.copyOfRange(bytes, 3, 23));
+    Files.delete(path);
+  }
 }
@@ -34,7 +34,15 @@ package org.smallmind.nutsnbolts.lang;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -102,4 +110,131 @@ public class GatingClassLoaderTest {
       Assert.assertEquals(bytes[3] & 0xff, 0xBE);
     }
   }
+
+  public void testClasspathClassGateIndexesJarEntries ()
+    throws Exception {
+
+    Path jarPath = writeJar("first");
+
+    try (ClasspathClassGate gate = new ClasspathClassGate(jarPath.toString())) {
+      try (InputStream stream = gate.getResourceAsStream("/payload/content.txt")) {
+        Assert.assertEquals(new String(stream.readAllBytes(), StandardCharsets.UTF_8), "first");
+      }
+
+      URL resourceURL = gate.getResource("payload/content.txt");
+
+      Assert.assertTrue(resourceURL.toString().startsWith("jar:file:"));
+      Assert.assertTrue(resourceURL.toString().endsWith("!/payload/content.txt"));
+      Assert.assertNull(gate.getResource("payload/missing.txt"));
+      Assert.assertNull(gate.getResourceAsStream("payload/missing.txt"));
+      Assert.assertNull(gate.getTicket("payload.Missing"));
+    } finally {
+      Files.delete(jarPath);
+    }
+  }
+
+  public void testClasspathClassGateReindexesModifiedJar ()
+    throws Exception {
+
+    Path jarPath = writeJar("first");
+
+    try (ClasspathClassGate gate = new ClasspathClassGate(jarPath.toString())) {
+      try (InputStream stream = gate.getResourceAsStream("payload/content.txt")) {
+        Assert.assertEquals(new String(stream.readAllBytes(), StandardCharsets.UTF_8), "first");
+      }
+
+      writeJar(jarPath, "second, and longer");
+      Thread.sleep(1100);
+
+      try (InputStream stream = gate.getResourceAsStream("payload/content.txt")) {
+        Assert.assertEquals(new String(stream.readAllBytes(), StandardCharsets.UTF_8), "second, and longer");
+      }
+    } finally {
+      Files.delete(jarPath);
+    }
+  }
+
+  public void testClosedGateReopensItsJars ()
+    throws Exception {
+
+    Path jarPath = writeJar("first");
+
+    try (ClasspathClassGate gate = new ClasspathClassGate(jarPath.toString())) {
+      Assert.assertNotNull(gate.getResource("payload/content.txt"));
+      gate.close();
+
+      try (InputStream stream = gate.getResourceAsStream("payload/content.txt")) {
+        Assert.assertEquals(new String(stream.readAllBytes(), StandardCharsets.UTF_8), "first");
+      }
+    } finally {
+      Files.delete(jarPath);
+    }
+  }
+
+  public void testConcurrentLoadsOfOneClassDefineItOnce ()
+    throws Exception {
+
+    Path jarPath = writeJar("first");
+
+    try (GatingClassLoader loader = new GatingClassLoader(ClassLoader.getPlatformClassLoader(), -1, new ClasspathClassGate(jarPath.toString()))) {
+
+      Set<Class<?>> loadedClassSet = ConcurrentHashMap.newKeySet();
+      Set<Throwable> failureSet = ConcurrentHashMap.newKeySet();
+      CountDownLatch startLatch = new CountDownLatch(1);
+      Thread[] threads = new Thread[8];
+
+      for (int index = 0; index < threads.length; index++) {
+        threads[index] = new Thread(() -> {
+          try {
+            startLatch.await();
+            loadedClassSet.add(loader.loadClass(Marker.class.getName()));
+          } catch (Throwable throwable) {
+            failureSet.add(throwable);
+          }
+        });
+        threads[index].start();
+      }
+      startLatch.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      Assert.assertTrue(failureSet.isEmpty(), failureSet.toString());
+      Assert.assertEquals(loadedClassSet.size(), 1);
+      Assert.assertSame(loadedClassSet.iterator().next().getClassLoader(), loader);
+      Assert.assertNotSame(loadedClassSet.iterator().next(), Marker.class);
+      Assert.assertEquals(loadedClassSet.iterator().next().getPackage().getName(), Marker.class.getPackageName());
+    } finally {
+      Files.delete(jarPath);
+    }
+  }
+
+  private Path writeJar (String content)
+    throws IOException {
+
+    Path jarPath = Files.createTempFile("gate", ".jar");
+
+    writeJar(jarPath, content);
+
+    return jarPath;
+  }
+
+  private void writeJar (Path jarPath, String content)
+    throws IOException {
+
+    String markerName = Marker.class.getName().replace('.', '/') + ".class";
+
+    try (JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(jarPath)); InputStream markerStream = getClass().getClassLoader().getResourceAsStream(markerName)) {
+      jarOutputStream.putNextEntry(new JarEntry("payload/content.txt"));
+      jarOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+      jarOutputStream.closeEntry();
+      jarOutputStream.putNextEntry(new JarEntry(markerName));
+      markerStream.transferTo(jarOutputStream);
+      jarOutputStream.closeEntry();
+    }
+  }
+
+  public static class Marker {
+
+  }
 }
@@ -32,6 +32,7 @@
  */
 package org.smallmind.nutsnbolts.reflection;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -95,6 +96,64 @@ public class FieldUtilityTest {
     Assert.assertEquals(accessor.get(target), "value");
   }
 
+  public void testClassAccessorIndexesFieldsByName () {
+
+    ClassAccessor classAccessor = FieldUtility.getClassAccessor(ChildBean.class);
+    int index = classAccessor.indexOf("childField");
+
+    Assert.assertSame(classAccessor.getFieldAccessors(), FieldUtility.getFieldAccessors(ChildBean.class));
+    Assert.assertTrue(index >= 0);
+    Assert.assertSame(classAccessor.getFieldAccessor(index), classAccessor.getFieldAccessor("childField"));
+    Assert.assertEquals(classAccessor.indexOf("no-such-field"), -1);
+  }
+
+  public void testPrimitiveAccessThroughFieldsAndAccessors ()
+    throws Exception {
+
+    PrimitiveBean target = new PrimitiveBean();
+
+    FieldUtility.getFieldAccessor(PrimitiveBean.class, "count").setInt(target, 7);
+    FieldUtility.getFieldAccessor(PrimitiveBean.class, "total").setLong(target, 1L << 40);
+    FieldUtility.getFieldAccessor(PrimitiveBean.class, "ratio").setDouble(target, 0.25);
+    FieldUtility.getFieldAccessor(PrimitiveBean.class, "active").setBoolean(target, true);
+
+    Assert.assertEquals(FieldUtility.getFieldAccessor(PrimitiveBean.class, "count").getInt(target), 7);
+    Assert.assertEquals(FieldUtility.getFieldAccessor(PrimitiveBean.class, "total").getLong(target), 1L << 40);
+    Assert.assertEquals(FieldUtility.getFieldAccessor(PrimitiveBean.class, "ratio").getDouble(target), 0.25);
+    Assert.assertTrue(FieldUtility.getFieldAccessor(PrimitiveBean.class, "active").getBoolean(target));
+    Assert.assertEquals(target.getRatio(), 0.25);
+
+    // widening from the boxed path, and the boxed view of a primitive field
+    FieldUtility.getFieldAccessor(PrimitiveBean.class, "total").set(target, 5);
+    Assert.assertEquals(FieldUtility.getFieldAccessor(PrimitiveBean.class, "total").get(target), 5L);
+    Assert.assertEquals(FieldUtility.getFieldAccessor(PrimitiveBean.class, "count").getLong(target), 7L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSettingNullIntoAPrimitiveIsRejected ()
+    throws Exception {
+
+    FieldUtility.getFieldAccessor(PrimitiveBean.class, "count").set(new PrimitiveBean(), null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSettingAnIncompatibleValueIsRejected ()
+    throws Exception {
+
+    FieldUtility.getFieldAccessor(ChildBean.class, "childField").set(new ChildBean(), 5);
+  }
+
+  public void testGetterFailureIsWrapped ()
+    throws Exception {
+
+    try {
+      FieldUtility.getFieldAccessor(PrimitiveBean.class, "failing").get(new PrimitiveBean());
+      Assert.fail("Expected an InvocationTargetException");
+    } catch (InvocationTargetException invocationTargetException) {
+      Assert.assertTrue(invocationTargetException.getCause() instanceof IllegalStateException);
+    }
+  }
+
   public static class BaseBean {
 
     private String baseField;
@@ -126,4 +185,28 @@ public class FieldUtilityTest {
       this.childField = childField;
     }
   }
+
+  public static class PrimitiveBean {
+
+    private int count;
+    private long total;
+    private double ratio;
+    private boolean active;
+    private String failing;
+
+    public double getRatio () {
+
+      return ratio;
+    }
+
+    public void setRatio (double ratio) {
+
+      this.ratio = ratio;
+    }
+
+    public String getFailing () {
+
+      throw new IllegalStateException();
+    }
+  }
 }
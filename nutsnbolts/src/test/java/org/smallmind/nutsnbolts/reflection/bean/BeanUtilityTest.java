@@ -32,6 +32,7 @@
  */
 package org.smallmind.nutsnbolts.reflection.bean;
 
+import java.lang.reflect.InvocationTargetException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -130,6 +131,36 @@ public class BeanUtilityTest {
     Assert.assertEquals(BeanUtility.execute(person, "greet", "Hi"), "Hi Carol");
   }
 
+  public void testMismatchedArgumentsAreRejectedAsIllegal ()
+    throws Exception {
+
+    Person person = new Person();
+
+    BeanUtility.executeSet(person, "active", true);
+    Assert.assertTrue(person.isActive());
+
+    for (Object value : new Object[] {"yes", null}) {
+      try {
+        BeanUtility.executeSet(person, "active", value);
+        Assert.fail("A " + value + " value should not be accepted by a boolean setter");
+      } catch (BeanInvocationException beanInvocationException) {
+        Assert.assertTrue(beanInvocationException.getCause() instanceof IllegalArgumentException, "Unexpected cause: " + beanInvocationException.getCause());
+      }
+    }
+  }
+
+  public void testExceptionsThrownByTheMethodAreWrapped ()
+    throws Exception {
+
+    try {
+      BeanUtility.execute(new Person(), "refuse");
+      Assert.fail("The method's exception should have been propagated");
+    } catch (BeanInvocationException beanInvocationException) {
+      Assert.assertTrue(beanInvocationException.getCause() instanceof InvocationTargetException);
+      Assert.assertTrue(beanInvocationException.getCause().getCause() instanceof ClassCastException);
+    }
+  }
+
   @Test(expectedExceptions = BeanAccessException.class)
   public void testMissingGetterThrowsBeanAccessException ()
     throws Exception {
@@ -192,5 +223,10 @@ public class BeanUtilityTest {
 
       return prefix + " " + name;
     }
+
+    public void refuse () {
+
+      throw new ClassCastException("Thrown by the method itself");
+    }
   }
 }
@@ -90,6 +90,21 @@ public class TypeUtilityTest {
     Assert.assertFalse(TypeUtility.isEssentiallyTheSameAs(Number.class, String.class));
   }
 
+  public void testIsArgumentAssignableFollowsReflectiveConversions () {
+
+    Assert.assertTrue(TypeUtility.isArgumentAssignable(int.class, 1));
+    Assert.assertTrue(TypeUtility.isArgumentAssignable(long.class, 1));
+    Assert.assertTrue(TypeUtility.isArgumentAssignable(int.class, 'A'));
+    Assert.assertTrue(TypeUtility.isArgumentAssignable(double.class, 1.0F));
+    Assert.assertTrue(TypeUtility.isArgumentAssignable(CharSequence.class, "text"));
+    Assert.assertTrue(TypeUtility.isArgumentAssignable(String.class, null));
+    Assert.assertFalse(TypeUtility.isArgumentAssignable(int.class, null));
+    Assert.assertFalse(TypeUtility.isArgumentAssignable(int.class, 1L));
+    Assert.assertFalse(TypeUtility.isArgumentAssignable(char.class, (byte)1));
+    Assert.assertFalse(TypeUtility.isArgumentAssignable(boolean.class, 1));
+    Assert.assertFalse(TypeUtility.isArgumentAssignable(String.class, 1));
+  }
+
   public void testGetDefaultValueProducesZeroOrFalseForPrimitivesAndWrappers () {
 
     Assert.assertEquals(TypeUtility.getDefaultValue(long.class), 0L);
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.retry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit")
+public class AsyncRetryTest {
+
+  public void testRetriesUntilSuccess ()
+    throws Exception {
+
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<String> future = AsyncRetry.supply(() -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new IllegalStateException("not yet");
+      }
+
+      return "done";
+    }, policy(3, 1L));
+
+    Assert.assertEquals(future.get(5, TimeUnit.SECONDS), "done");
+    Assert.assertEquals(attempts.get(), 3);
+  }
+
+  public void testExhaustedRetriesFailWithTheLastThrowable ()
+    throws Exception {
+
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<Void> future = AsyncRetry.execute(() -> {
+      throw new IllegalStateException("attempt " + attempts.incrementAndGet());
+    }, policy(2, 1L));
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      Assert.fail("Expected the retries to be exhausted");
+    } catch (ExecutionException executionException) {
+      Assert.assertEquals(executionException.getCause().getMessage(), "attempt 3");
+    }
+    Assert.assertEquals(attempts.get(), 3);
+  }
+
+  public void testFailuresRejectedByThePredicateAreNotRetried ()
+    throws Exception {
+
+    AtomicInteger attempts = new AtomicInteger();
+    RetryPolicy retryPolicy = policy(5, 1L);
+
+    retryPolicy.setRetryOn(throwable -> !(throwable instanceof IllegalArgumentException));
+
+    CompletableFuture<Void> future = AsyncRetry.execute(() -> {
+      attempts.incrementAndGet();
+      throw new IllegalArgumentException("fatal");
+    }, retryPolicy);
+
+    Assert.assertTrue(failed(future));
+    Assert.assertEquals(attempts.get(), 1);
+  }
+
+  public void testThrowingListenerFailsTheOperation ()
+    throws Exception {
+
+    for (String callback : new String[] {"onAttempt", "onRetry", "onSuccess", "onFailure"}) {
+
+      AtomicInteger attempts = new AtomicInteger();
+      RetryPolicy retryPolicy = policy(1, 1L);
+      CompletableFuture<String> future;
+
+      retryPolicy.setRetryListener(new RetryListener() {
+
+        @Override
+        public void onAttempt (int attempt) {
+
+          if ("onAttempt".equals(callback)) {
+            throw new IllegalStateException(callback);
+          }
+        }
+
+        @Override
+        public void onRetry (int attempt, Throwable throwable, long delayMillis) {
+
+          if ("onRetry".equals(callback)) {
+            throw new IllegalStateException(callback);
+          }
+        }
+
+        @Override
+        public void onSuccess (int attempts, long elapsedMillis) {
+
+          if ("onSuccess".equals(callback)) {
+            throw new IllegalStateException(callback);
+          }
+        }
+
+        @Override
+        public void onFailure (int attempts, Throwable throwable, long elapsedMillis) {
+
+          if ("onFailure".equals(callback)) {
+            throw new IllegalStateException(callback);
+          }
+        }
+      });
+
+      // fails once then succeeds, or always fails when the failure callback is under test
+      future = AsyncRetry.supply(() -> {
+        if ((attempts.incrementAndGet() < 2) || "onFailure".equals(callback)) {
+          throw new UnsupportedOperationException("attempt " + attempts.get());
+        }
+
+        return "done";
+      }, retryPolicy);
+
+      try {
+        future.get(5, TimeUnit.SECONDS);
+        Assert.fail("A throwing " + callback + "() should fail the operation");
+      } catch (ExecutionException executionException) {
+        Assert.assertEquals(executionException.getCause().getMessage(), callback);
+      }
+    }
+  }
+
+  public void testThrowingPredicateFailsTheOperation ()
+    throws Exception {
+
+    RetryPolicy retryPolicy = policy(3, 1L);
+    CompletableFuture<Void> future;
+
+    retryPolicy.setRetryOn(throwable -> {
+      throw new IllegalStateException("predicate");
+    });
+
+    future = AsyncRetry.execute(() -> {
+      throw new UnsupportedOperationException("attempt");
+    }, retryPolicy);
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      Assert.fail("A throwing predicate should fail the operation");
+    } catch (ExecutionException executionException) {
+      Assert.assertEquals(executionException.getCause().getMessage(), "predicate");
+      Assert.assertEquals(executionException.getCause().getSuppressed()[0].getMessage(), "attempt");
+    }
+  }
+
+  public void testElapsedBudgetEndsRetriesEarly ()
+    throws Exception {
+
+    AtomicInteger attempts = new AtomicInteger();
+    RetryPolicy retryPolicy = policy(100, 20L);
+
+    retryPolicy.setJitter(Jitter.NONE);
+    retryPolicy.setMultiplier(1.0D);
+    retryPolicy.setMaxElapsedMillis(70L);
+
+    CompletableFuture<Void> future = AsyncRetry.execute(() -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("fail");
+    }, retryPolicy);
+
+    Assert.assertTrue(failed(future));
+    Assert.assertTrue(attempts.get() <= 4, "Expected the budget to stop retries, saw " + attempts.get() + " attempts");
+  }
+
+  public void testListenerObservesEveryAttempt ()
+    throws Exception {
+
+    List<String> events = new ArrayList<>();
+    AtomicInteger attempts = new AtomicInteger();
+    RetryPolicy retryPolicy = policy(3, 1L);
+
+    retryPolicy.setRetryListener(new RetryListener() {
+
+      @Override
+      public synchronized void onAttempt (int attempt) {
+
+        events.add("attempt " + attempt);
+      }
+
+      @Override
+      public synchronized void onRetry (int attempt, Throwable throwable, long delayMillis) {
+
+        events.add("retry " + attempt);
+      }
+
+      @Override
+      public synchronized void onSuccess (int attempts, long elapsedMillis) {
+
+        events.add("success " + attempts);
+      }
+    });
+
+    AsyncRetry.execute(() -> {
+      if (attempts.incrementAndGet() < 2) {
+        throw new IllegalStateException("not yet");
+      }
+    }, retryPolicy).get(5, TimeUnit.SECONDS);
+
+    synchronized (retryPolicy.getRetryListener()) {
+      Assert.assertEquals(events, List.of("attempt 1", "retry 1", "attempt 2", "success 2"));
+    }
+  }
+
+  public void testDelaysGrowExponentiallyWithinTheirJitter () {
+
+    RetryPolicy retryPolicy = policy(10, 100L);
+
+    retryPolicy.setMaxDelayMillis(1000L);
+    retryPolicy.setJitter(Jitter.NONE);
+    Assert.assertEquals(AsyncRetry.calculateDelay(retryPolicy, 1, 100L), 100L);
+    Assert.assertEquals(AsyncRetry.calculateDelay(retryPolicy, 2, 100L), 200L);
+    Assert.assertEquals(AsyncRetry.calculateDelay(retryPolicy, 4, 100L), 800L);
+    Assert.assertEquals(AsyncRetry.calculateDelay(retryPolicy, 5, 100L), 1000L);
+
+    for (int index = 0; index < 1000; index++) {
+
+      long fullDelay;
+      long decorrelatedDelay;
+
+      retryPolicy.setJitter(Jitter.FULL);
+      fullDelay = AsyncRetry.calculateDelay(retryPolicy, 3, 100L);
+      retryPolicy.setJitter(Jitter.DECORRELATED);
+      decorrelatedDelay = AsyncRetry.calculateDelay(retryPolicy, 3, 250L);
+
+      Assert.assertTrue((fullDelay >= 0) && (fullDelay <= 400L), "Full jitter out of range: " + fullDelay);
+      Assert.assertTrue((decorrelatedDelay >= 100L) && (decorrelatedDelay <= 750L), "Decorrelated jitter out of range: " + decorrelatedDelay);
+    }
+  }
+
+  public void testManyOperationsBackOffWithoutHoldingThreads ()
+    throws Exception {
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    try {
+
+      AtomicInteger successes = new AtomicInteger();
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+      for (int index = 0; index < 1000; index++) {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        futures.add(AsyncRetry.execute(() -> {
+          if (attempts.incrementAndGet() < 3) {
+            throw new IllegalStateException("not yet");
+          }
+          successes.incrementAndGet();
+        }, policy(3, 20L), executorService));
+      }
+
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(successes.get(), 1000);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private RetryPolicy policy (int retries, long initialDelayMillis) {
+
+    RetryPolicy retryPolicy = new RetryPolicy();
+
+    retryPolicy.setRetries(retries);
+    retryPolicy.setInitialDelayMillis(initialDelayMillis);
+
+    return retryPolicy;
+  }
+
+  private boolean failed (CompletableFuture<?> future)
+    throws Exception {
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+
+      return false;
+    } catch (ExecutionException executionException) {
+
+      return true;
+    }
+  }
+}
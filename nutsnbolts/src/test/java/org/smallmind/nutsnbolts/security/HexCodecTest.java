@@ -33,6 +33,10 @@
 package org.smallmind.nutsnbolts.security;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -90,4 +94,32 @@ public class HexCodecTest {
 
     HexCodec.hexDecode("ab!d");
   }
+
+  public void testEncodeMatchesReferenceForEveryLength ()
+    throws UnsupportedEncodingException {
+
+    Random random = new Random(16);
+
+    for (int length = 0; length < 64; length++) {
+
+      byte[] bytes = new byte[length];
+
+      random.nextBytes(bytes);
+
+      Assert.assertEquals(HexCodec.hexEncode(bytes), HexFormat.of().formatHex(bytes));
+      Assert.assertEquals(HexCodec.hexDecode(HexCodec.hexEncodeToBytes(bytes)), bytes);
+    }
+  }
+
+  public void testBufferOverloadsConsumeRemainingBytes ()
+    throws UnsupportedEncodingException {
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(4).put(new byte[] {0x0A, 0x0B, 0x0C, 0x0D}).flip();
+    ByteBuffer encoded = ByteBuffer.wrap("--0a0B--".getBytes(StandardCharsets.ISO_8859_1), 2, 4);
+
+    Assert.assertEquals(new String(HexCodec.hexEncodeToBytes(direct), StandardCharsets.ISO_8859_1), "0a0b0c0d");
+    Assert.assertFalse(direct.hasRemaining());
+    Assert.assertEquals(HexCodec.hexDecode(encoded), new byte[] {0x0A, 0x0B});
+    Assert.assertFalse(encoded.hasRemaining());
+  }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit")
+public class ConcurrentBloomFilterTest {
+
+  private static byte[] bytes (String value) {
+
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  public void testAddedElementIsReportedAsPresent () {
+
+    ConcurrentBloomFilter<BloomFilterElement> filter = new ConcurrentBloomFilter<>(0.01d, 1000);
+
+    Assert.assertTrue(filter.add(bytes("hello")));
+    Assert.assertTrue(filter.contains(bytes("hello")));
+    Assert.assertFalse(filter.add(bytes("hello")));
+    Assert.assertEquals(filter.size(), 1);
+  }
+
+  public void testMostNonMembersAreCorrectlyRejected () {
+
+    ConcurrentBloomFilter<BloomFilterElement> filter = new ConcurrentBloomFilter<>(0.001d, 1000);
+    int falsePositives = 0;
+
+    for (int i = 0; i < 1000; i++) {
+      filter.add(bytes("member-" + i));
+    }
+
+    for (int i = 0; i < 10000; i++) {
+      if (filter.contains(bytes("nonmember-" + i))) {
+        falsePositives++;
+      }
+    }
+
+    Assert.assertTrue(falsePositives < 50, "Too many false positives: " + falsePositives);
+  }
+
+  public void testProbabilitySizingMeetsTheRequestedRate () {
+
+    ConcurrentBloomFilter<BloomFilterElement> filter = new ConcurrentBloomFilter<>(0.01d, 10000);
+    int falsePositives = 0;
+
+    Assert.assertEquals(filter.length(), (int)Math.ceil(-10000 * Math.log(0.01d) / Math.pow(Math.log(2), 2)));
+    Assert.assertEquals(filter.getBitsPerElement(), filter.length() / 10000.0d, 0.0001d);
+    Assert.assertEquals(filter.getHashCount(), 7);
+
+    for (int i = 0; i < 10000; i++) {
+      filter.add(bytes("member-" + i));
+    }
+
+    for (int i = 0; i < 100000; i++) {
+      if (filter.contains(bytes("nonmember-" + i))) {
+        falsePositives++;
+      }
+    }
+
+    Assert.assertEquals(falsePositives / 100000.0d, 0.01d, 0.005d, "False positive rate strays from the requested probability");
+  }
+
+  public void testConcurrentAddsAreAllRetained ()
+    throws InterruptedException {
+
+    ConcurrentBloomFilter<BloomFilterElement> filter = new ConcurrentBloomFilter<>(0.01d, 80000);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+
+    for (int index = 0; index < threads.length; index++) {
+
+      int threadIndex = index;
+
+      threads[index] = new Thread(() -> {
+        try {
+          startLatch.await();
+          for (int i = 0; i < 10000; i++) {
+            filter.add(bytes(threadIndex + "-" + i));
+          }
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      threads[index].start();
+    }
+
+    startLatch.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (int index = 0; index < threads.length; index++) {
+      for (int i = 0; i < 10000; i++) {
+        Assert.assertTrue(filter.contains(bytes(index + "-" + i)));
+      }
+    }
+    Assert.assertEquals(filter.estimateElementCount(), 80000, 4000);
+  }
+
+  public void testUnionAndIntersection () {
+
+    ConcurrentBloomFilter<BloomFilterElement> left = new ConcurrentBloomFilter<>(0.001d, 1000);
+    ConcurrentBloomFilter<BloomFilterElement> right = new ConcurrentBloomFilter<>(0.001d, 1000);
+    ConcurrentBloomFilter<BloomFilterElement> union;
+
+    left.add(bytes("shared"));
+    left.add(bytes("left"));
+    right.add(bytes("shared"));
+    right.add(bytes("right"));
+
+    union = ConcurrentBloomFilter.fromByteArray(left.toByteArray());
+    union.union(right);
+    Assert.assertTrue(union.contains(bytes("left")));
+    Assert.assertTrue(union.contains(bytes("right")));
+
+    left.intersect(right);
+    Assert.assertTrue(left.contains(bytes("shared")));
+    Assert.assertFalse(left.contains(bytes("left")));
+    Assert.assertFalse(left.contains(bytes("right")));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnionRejectsMismatchedGeometry () {
+
+    new ConcurrentBloomFilter<>(0.01d, 1000).union(new ConcurrentBloomFilter<>(0.01d, 2000));
+  }
+
+  public void testSerializedFormRoundTrips () {
+
+    ConcurrentBloomFilter<BloomFilterElement> filter = new ConcurrentBloomFilter<>(8.0d, 100, 5);
+    ConcurrentBloomFilter<BloomFilterElement> copy;
+
+    Assert.assertEquals(filter.toByteArray().length, 25, "an empty filter should serialize to its header alone");
+
+    filter.add(bytes("a"));
+    filter.add(bytes("b"));
+    copy = ConcurrentBloomFilter.fromByteArray(filter.toByteArray());
+
+    Assert.assertEquals(copy.getBitsPerElement(), 8.0d);
+    Assert.assertEquals(copy.getMaxElements(), 100);
+    Assert.assertEquals(copy.getHashCount(), 5);
+    Assert.assertEquals(copy.length(), 800);
+    Assert.assertEquals(copy.size(), 2);
+    Assert.assertTrue(copy.contains(bytes("a")));
+    Assert.assertTrue(copy.contains(bytes("b")));
+    Assert.assertEquals(copy.toByteArray(), filter.toByteArray());
+  }
+
+  public void testClearResetsSizeAndMembership () {
+
+    ConcurrentBloomFilter<BloomFilterElement> filter = new ConcurrentBloomFilter<>(0.01d, 1000);
+
+    filter.add(bytes("a"));
+    filter.clear();
+
+    Assert.assertEquals(filter.size(), 0);
+    Assert.assertFalse(filter.contains(bytes("a")));
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit")
+public class FrequencySketchTest {
+
+  public void testEstimatesCountAndSaturate () {
+
+    FrequencySketch sketch = new FrequencySketch(1024);
+
+    Assert.assertEquals(sketch.frequency("absent"), 0);
+
+    for (int count = 1; count <= 20; count++) {
+      sketch.increment("key");
+      Assert.assertEquals(sketch.frequency("key"), Math.min(count, 15));
+    }
+  }
+
+  public void testPopularKeysOutrankRareOnes () {
+
+    FrequencySketch sketch = new FrequencySketch(1024);
+    int overestimated = 0;
+
+    for (int key = 0; key < 1024; key++) {
+      sketch.increment(key);
+    }
+    for (int repeat = 0; repeat < 8; repeat++) {
+      for (int key = 0; key < 64; key++) {
+        sketch.increment(key);
+      }
+    }
+
+    for (int key = 0; key < 64; key++) {
+      Assert.assertTrue(sketch.frequency(key) >= 9);
+    }
+    for (int key = 64; key < 1024; key++) {
+      if (sketch.frequency(key) > 1) {
+        overestimated++;
+      }
+    }
+
+    Assert.assertTrue(overestimated < 48, "Too many rare keys overestimated: " + overestimated);
+  }
+
+  public void testCountsAgeOnceTheSampleFills () {
+
+    FrequencySketch sketch = new FrequencySketch(16);
+
+    for (int count = 0; count < 15; count++) {
+      sketch.increment("hot");
+    }
+
+    // 10 x the 16 counter row width, less the 15 increments already made, fills the sample and halves every counter
+    for (int key = 0; key < 145; key++) {
+      sketch.increment("cold-" + key);
+    }
+
+    Assert.assertTrue(sketch.frequency("hot") <= 8, "Counts were not aged: " + sketch.frequency("hot"));
+  }
+
+  public void testClearForgetsEverything () {
+
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    sketch.increment("key");
+    sketch.clear();
+
+    Assert.assertEquals(sketch.frequency("key"), 0);
+  }
+}
@@ -32,6 +32,9 @@
  */
 package org.smallmind.nutsnbolts.util;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -95,6 +98,58 @@ public class SelfDestructiveMapTest {
     }
   }
 
+  public void testRemoveDefusesTheValue ()
+    throws InterruptedException, TimeoutException {
+
+    SelfDestructiveMap<String, Bomb> map = new SelfDestructiveMap<>(new Stint(50, TimeUnit.MILLISECONDS), new Stint(10, TimeUnit.MILLISECONDS));
+
+    try {
+      Bomb bomb = new Bomb();
+
+      map.putIfAbsent("k", bomb);
+      Assert.assertSame(map.remove("k"), bomb);
+      Assert.assertNull(map.remove("k"));
+
+      Thread.sleep(200);
+
+      Assert.assertFalse(bomb.isDestroyed(), "A removed bomb should not be destroyed");
+    } finally {
+      map.shutdown();
+    }
+  }
+
+  public void testSlowDestructionDoesNotDelayOtherExpirations ()
+    throws InterruptedException, TimeoutException {
+
+    ExecutorService destructionExecutor = Executors.newFixedThreadPool(2);
+    SelfDestructiveMap<String, SelfDestructive> map = new SelfDestructiveMap<>(new Stint(50, TimeUnit.MILLISECONDS), new Stint(10, TimeUnit.MILLISECONDS), destructionExecutor);
+    CountDownLatch releaseLatch = new CountDownLatch(1);
+
+    try {
+      Bomb bomb = new Bomb();
+
+      map.putIfAbsent("slow", (stint) -> {
+        try {
+          releaseLatch.await();
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      map.putIfAbsent("fast", bomb, new Stint(100, TimeUnit.MILLISECONDS));
+
+      long deadline = System.currentTimeMillis() + 2_000;
+      while ((!bomb.isDestroyed()) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(20);
+      }
+
+      Assert.assertTrue(bomb.isDestroyed(), "Bomb should have been destroyed while the slow destruction was still running");
+    } finally {
+      releaseLatch.countDown();
+      map.shutdown();
+      destructionExecutor.shutdown();
+    }
+  }
+
   private static class Bomb implements SelfDestructive {
 
     private final AtomicBoolean destroyed = new AtomicBoolean();
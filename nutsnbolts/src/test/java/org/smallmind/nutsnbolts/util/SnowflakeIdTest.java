@@ -34,6 +34,8 @@ package org.smallmind.nutsnbolts.util;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -79,6 +81,50 @@ public class SnowflakeIdTest {
     }
   }
 
+  public void testConcurrentIdsAreUnique ()
+    throws InterruptedException {
+
+    Set<SnowflakeId> ids = ConcurrentHashMap.newKeySet();
+    CountDownLatch startLatch = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+
+    for (int index = 0; index < threads.length; index++) {
+      threads[index] = new Thread(() -> {
+        try {
+          startLatch.await();
+          for (int count = 0; count < 25000; count++) {
+            ids.add(SnowflakeId.newInstance());
+          }
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      threads[index].start();
+    }
+
+    startLatch.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(ids.size(), 200000);
+  }
+
+  public void testLongsAreUniqueAndIncreasingWithinAThread () {
+
+    Set<Long> longs = new HashSet<>();
+    long previous = SnowflakeId.newLong();
+
+    for (int i = 0; i < 100000; i++) {
+
+      long next = SnowflakeId.newLong();
+
+      Assert.assertTrue(next > previous);
+      Assert.assertTrue(longs.add(next));
+      previous = next;
+    }
+  }
+
   public void testEqualsBasedOnByteContent () {
 
     SnowflakeId original = SnowflakeId.newInstance();
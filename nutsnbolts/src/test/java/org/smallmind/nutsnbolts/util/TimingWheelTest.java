@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit")
+public class TimingWheelTest {
+
+  public void testTasksFireInDeadlineOrderAcrossLevels ()
+    throws InterruptedException {
+
+    TimingWheel timingWheel = new TimingWheel("test-timing-wheel", 1, TimeUnit.MILLISECONDS, Runnable::run);
+    List<Integer> firedList = new CopyOnWriteArrayList<>();
+    CountDownLatch firedLatch = new CountDownLatch(4);
+
+    try {
+      // 5 ticks lands in level 0, 70 and 300 in level 1, and 4100 in level 2
+      for (int delay : new int[] {300, 5, 4100, 70}) {
+        timingWheel.schedule(() -> {
+          firedList.add(delay);
+          firedLatch.countDown();
+        }, delay, TimeUnit.MILLISECONDS);
+      }
+
+      Assert.assertTrue(firedLatch.await(10, TimeUnit.SECONDS), "tasks did not fire in time");
+      Assert.assertEquals(firedList, List.of(5, 70, 300, 4100));
+    } finally {
+      timingWheel.stop(1, TimeUnit.SECONDS);
+    }
+  }
+
+  public void testTasksDoNotFireEarly ()
+    throws InterruptedException {
+
+    TimingWheel timingWheel = new TimingWheel("test-timing-wheel", 5, TimeUnit.MILLISECONDS, Runnable::run);
+    CountDownLatch firedLatch = new CountDownLatch(1);
+    long start = System.nanoTime();
+    long[] elapsed = new long[1];
+
+    try {
+      timingWheel.schedule(() -> {
+        elapsed[0] = System.nanoTime() - start;
+        firedLatch.countDown();
+      }, 200, TimeUnit.MILLISECONDS);
+
+      Assert.assertTrue(firedLatch.await(5, TimeUnit.SECONDS), "task did not fire in time");
+      Assert.assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(200), "fired early after " + elapsed[0] + "ns");
+    } finally {
+      timingWheel.stop(1, TimeUnit.SECONDS);
+    }
+  }
+
+  public void testCancelledTasksNeverFire ()
+    throws InterruptedException {
+
+    TimingWheel timingWheel = new TimingWheel("test-timing-wheel", 1, TimeUnit.MILLISECONDS, Runnable::run);
+    AtomicInteger cancelledFired = new AtomicInteger();
+    CountDownLatch firedLatch = new CountDownLatch(1);
+
+    try {
+
+      TimingWheel.Timeout cancelledTimeout = timingWheel.schedule(cancelledFired::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+
+      Assert.assertTrue(cancelledTimeout.cancel());
+      Assert.assertFalse(cancelledTimeout.cancel());
+      timingWheel.schedule(firedLatch::countDown, 50, TimeUnit.MILLISECONDS);
+
+      Assert.assertTrue(firedLatch.await(5, TimeUnit.SECONDS), "task did not fire in time");
+      Assert.assertTrue(cancelledTimeout.isCancelled());
+      Assert.assertEquals(cancelledFired.get(), 0);
+    } finally {
+      timingWheel.stop(1, TimeUnit.SECONDS);
+    }
+  }
+
+  public void testManyShortLivedTasks ()
+    throws InterruptedException {
+
+    TimingWheel timingWheel = new TimingWheel("test-timing-wheel", 1, TimeUnit.MILLISECONDS, Runnable::run);
+    AtomicInteger firedCount = new AtomicInteger();
+    CountDownLatch firedLatch = new CountDownLatch(500000);
+
+    try {
+      for (int index = 0; index < 1000000; index++) {
+
+        TimingWheel.Timeout timeout = timingWheel.schedule(() -> {
+          firedCount.incrementAndGet();
+          firedLatch.countDown();
+        }, 10 + (index % 200), TimeUnit.MILLISECONDS);
+
+        if ((index % 2) == 1) {
+          timeout.cancel();
+        }
+      }
+
+      Assert.assertTrue(firedLatch.await(20, TimeUnit.SECONDS), "tasks did not fire in time");
+      Thread.sleep(300);
+      Assert.assertEquals(firedCount.get(), 500000);
+    } finally {
+      timingWheel.stop(1, TimeUnit.SECONDS);
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.nutsnbolts.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Covers the {@link TinyLfuCache} contract, and compares its hit rate with an access-ordered {@link LRUMap} of the same capacity on a
+ * Zipfian trace, with and without interleaved one-time scans. Maintenance runs on the calling thread so results are repeatable.
+ */
+@Test(groups = "unit")
+public class TinyLfuCacheTest {
+
+  private static <K, V> TinyLfuCache<K, V> cache (long maximumSize) {
+
+    return new TinyLfuCache<>(maximumSize, (key, value) -> 1, 0, 0, TimeUnit.MILLISECONDS, Runnable::run);
+  }
+
+  private static int[] zipfianTrace (int keyCount, int length, long seed) {
+
+    Random random = new Random(seed);
+    double[] cumulative = new double[keyCount];
+    int[] trace = new int[length];
+    double total = 0;
+
+    for (int rank = 0; rank < keyCount; rank++) {
+      cumulative[rank] = (total += 1.0D / (rank + 1));
+    }
+
+    for (int index = 0; index < length; index++) {
+
+      int position = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+
+      trace[index] = (position >= 0) ? position : -(position + 1);
+    }
+
+    return trace;
+  }
+
+  private static double[] compareHitRates (int[] trace, int scanEvery, int scanLength, int capacity) {
+
+    TinyLfuCache<Integer, Integer> tinyLfuCache = cache(capacity);
+    LRUMap<Integer, Integer> lruMap = new LRUMap<>(true, capacity);
+    int scanKey = Integer.MAX_VALUE;
+    int tinyLfuHits = 0;
+    int lruHits = 0;
+
+    for (int index = 0; index < trace.length; index++) {
+      if ((scanEvery > 0) && ((index % scanEvery) == 0)) {
+        for (int count = 0; count < scanLength; count++, scanKey--) {
+          tinyLfuCache.get(scanKey, key -> key);
+          lruMap.putIfAbsent(scanKey, scanKey);
+        }
+      }
+
+      if (tinyLfuCache.get(trace[index]) != null) {
+        tinyLfuHits++;
+      } else {
+        tinyLfuCache.put(trace[index], trace[index]);
+      }
+      if (lruMap.get(trace[index]) != null) {
+        lruHits++;
+      } else {
+        lruMap.put(trace[index], trace[index]);
+      }
+    }
+
+    return new double[] {tinyLfuHits / (double)trace.length, lruHits / (double)trace.length};
+  }
+
+  public void testPutGetAndRemove () {
+
+    TinyLfuCache<String, String> cache = cache(10);
+
+    Assert.assertNull(cache.put("a", "1"));
+    Assert.assertEquals(cache.put("a", "2"), "1");
+    Assert.assertEquals(cache.putIfAbsent("a", "3"), "2");
+    Assert.assertEquals(cache.get("a"), "2");
+    Assert.assertNull(cache.get("b"));
+    Assert.assertEquals(cache.get("b", key -> "loaded"), "loaded");
+    Assert.assertEquals(cache.remove("a"), "2");
+    Assert.assertFalse(cache.containsKey("a"));
+    Assert.assertEquals(cache.size(), 1);
+    Assert.assertEquals(cache.getHitCount(), 1L);
+    Assert.assertEquals(cache.getMissCount(), 2L);
+  }
+
+  public void testSizeAndWeightAreBounded () {
+
+    TinyLfuCache<Integer, Integer> sizedCache = cache(100);
+    TinyLfuCache<Integer, String> weightedCache = new TinyLfuCache<>(1000, (key, value) -> value.length());
+
+    for (int index = 0; index < 10000; index++) {
+      sizedCache.put(index, index);
+      weightedCache.put(index, "x".repeat(index % 50));
+    }
+    sizedCache.cleanUp();
+    weightedCache.cleanUp();
+
+    Assert.assertEquals(sizedCache.size(), 100);
+    Assert.assertTrue(sizedCache.getEvictionCount() >= 9900);
+    Assert.assertTrue(weightedCache.weightedSize() <= 1000, "weighted size exceeded: " + weightedCache.weightedSize());
+  }
+
+  public void testFrequentEntrySurvivesAScan () {
+
+    TinyLfuCache<String, String> cache = cache(100);
+
+    for (int count = 0; count < 20; count++) {
+      cache.get("hot", key -> "value");
+    }
+    for (int index = 0; index < 10000; index++) {
+      cache.put("scan-" + index, "value");
+      if ((index % 500) == 0) {
+        Assert.assertEquals(cache.get("hot"), "value");
+      }
+    }
+  }
+
+  public void testEntriesExpireAfterWrite ()
+    throws InterruptedException {
+
+    TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, (key, value) -> 1, 50, 0, TimeUnit.MILLISECONDS, Runnable::run);
+
+    cache.put("a", "1");
+    Assert.assertEquals(cache.get("a"), "1");
+
+    Thread.sleep(100);
+
+    Assert.assertNull(cache.get("a"));
+    cache.cleanUp();
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  public void testHitRateBeatsLruOnZipfianTrace () {
+
+    double[] hitRates = compareHitRates(zipfianTrace(10000, 200000, 17), 0, 0, 500);
+
+    Assert.assertTrue(hitRates[0] > hitRates[1], "tiny lfu(" + hitRates[0] + ") <= lru(" + hitRates[1] + ")");
+  }
+
+  public void testHitRateBeatsLruOnScanHeavyTrace () {
+
+    double[] hitRates = compareHitRates(zipfianTrace(10000, 200000, 31), 1000, 1000, 500);
+
+    Assert.assertTrue(hitRates[0] > hitRates[1] * 1.2, "tiny lfu(" + hitRates[0] + ") not well above lru(" + hitRates[1] + ")");
+  }
+
+  public void testConcurrentAccessStaysBounded ()
+    throws InterruptedException {
+
+    TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000);
+    int[] trace = zipfianTrace(20000, 50000, 7);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread[] threads = new Thread[8];
+
+    for (int index = 0; index < threads.length; index++) {
+
+      int offset = index;
+
+      threads[index] = new Thread(() -> {
+        try {
+          startLatch.await();
+          for (int position = 0; position < trace.length; position++) {
+
+            int key = trace[(position + (offset * 997)) % trace.length];
+
+            if (!Integer.valueOf(key).equals(cache.get(key, Integer::valueOf))) {
+              throw new IllegalStateException("Wrong value for key(" + key + ")");
+            }
+          }
+        } catch (Throwable throwable) {
+          failure.compareAndSet(null, throwable);
+        }
+      });
+      threads[index].start();
+    }
+
+    startLatch.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    cache.cleanUp();
+
+    Assert.assertNull(failure.get());
+    Assert.assertTrue(cache.size() <= 1000);
+    Assert.assertEquals(cache.weightedSize(), (long)cache.size());
+  }
+}
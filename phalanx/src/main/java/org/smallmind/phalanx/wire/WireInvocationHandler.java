@@ -36,8 +36,11 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.smallmind.nutsnbolts.context.Context;
 import org.smallmind.nutsnbolts.context.ContextFactory;
+import org.smallmind.phalanx.wire.signal.ArgumentSchema;
 import org.smallmind.phalanx.wire.signal.Function;
 import org.smallmind.phalanx.wire.signal.Route;
 import org.smallmind.phalanx.wire.signal.WireContext;
@@ -55,6 +58,9 @@ import org.smallmind.phalanx.wire.transport.RequestTransport;
  *       based on the method's {@link Shout}, {@link Whisper}, {@link InOnly}, or {@link InOut} annotation.</li>
  *   <li>Delegates to the transport to transmit the request and return the response.</li>
  * </ol>
+ * Methods declared to return {@link CompletableFuture} or {@link CompletionStage} are transmitted through
+ * {@link RequestTransport#transmitAsynchronously(Voice, Route, java.util.Map, WireContext...)}, so the caller
+ * receives the future as soon as the request is sent instead of parking until the response arrives.
  */
 public class WireInvocationHandler implements InvocationHandler {
 
@@ -120,6 +126,7 @@ public class WireInvocationHandler implements InvocationHandler {
       }
 
       methodMap.put(method, argumentNames);
+      ArgumentSchema.register(version, serviceName, method);
     }
 
     try {
@@ -146,7 +153,8 @@ public class WireInvocationHandler implements InvocationHandler {
    * @param proxy  the proxy instance on which the method was invoked
    * @param method the {@link Method} being called
    * @param args   the arguments supplied to the call, or {@code null} if none
-   * @return the value returned by the remote service, or {@code null} for one-way calls
+   * @return the value returned by the remote service, a future of that value for methods returning
+   * {@link CompletableFuture} or {@link CompletionStage}, or {@code null} for one-way calls
    * @throws MissingInvocationException if {@code method} is not part of the service interface
    * @throws ServiceDefinitionException if the method's annotations conflict with its signature
    *                                    (e.g., {@link InOnly} on a non-void method), or a whisper
@@ -224,6 +232,11 @@ public class WireInvocationHandler implements InvocationHandler {
       }
     }
 
+    if (CompletableFuture.class.equals(method.getReturnType()) || CompletionStage.class.equals(method.getReturnType())) {
+
+      return transport.transmitAsynchronously(voice, new Route(version, serviceName, new Function(method)), argumentMap, wireContexts);
+    }
+
     return transport.transmit(voice, new Route(version, serviceName, new Function(method)), argumentMap, wireContexts);
   }
 }
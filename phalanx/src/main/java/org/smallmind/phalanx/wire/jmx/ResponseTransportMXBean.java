@@ -36,7 +36,8 @@ import org.smallmind.phalanx.wire.transport.TransportState;
 
 /**
  * JMX management interface for a {@link org.smallmind.phalanx.wire.transport.ResponseTransport},
- * exposing the minimal set of operations needed to monitor and control message consumption at runtime.
+ * exposing the minimal set of operations needed to monitor and control message consumption at runtime,
+ * along with the counts of invocations shed under load.
  */
 public interface ResponseTransportMXBean {
 
@@ -48,6 +49,27 @@ public interface ResponseTransportMXBean {
    */
   TransportState getState ();
 
+  /**
+   * Returns the number of inbound invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  long getExpiredShedCount ();
+
+  /**
+   * Returns the number of inbound invocations refused because the adaptive concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  long getOverloadShedCount ();
+
+  /**
+   * Returns the current adaptive concurrency limit of the transport.
+   *
+   * @return the number of invocations currently allowed in flight, or {@code 0} if the transport is not adaptively limited
+   */
+  int getConcurrencyLimit ();
+
   /**
    * Resumes request consumption after a pause.
    *
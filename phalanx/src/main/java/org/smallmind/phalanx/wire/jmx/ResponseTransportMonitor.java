@@ -33,13 +33,14 @@
 package org.smallmind.phalanx.wire.jmx;
 
 import javax.management.StandardMBean;
+import org.smallmind.phalanx.wire.transport.AdaptiveConcurrencyLimiter;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
 import org.smallmind.phalanx.wire.transport.TransportState;
 
 /**
  * {@link StandardMBean} adapter that surfaces a {@link ResponseTransport} as a JMX managed bean,
- * allowing operators to inspect transport state and toggle request processing at runtime without
- * redeployment.
+ * allowing operators to inspect transport state and load shedding, and toggle request processing at
+ * runtime without redeployment.
  */
 public class ResponseTransportMonitor extends StandardMBean implements ResponseTransportMXBean {
 
@@ -68,6 +69,41 @@ public class ResponseTransportMonitor extends StandardMBean implements ResponseT
     return responseTransport.getState();
   }
 
+  /**
+   * Returns the number of inbound invocations the underlying transport dropped because their caller deadline had passed.
+   *
+   * @return the count of expired invocations shed
+   */
+  @Override
+  public long getExpiredShedCount () {
+
+    return responseTransport.getExpiredShedCount();
+  }
+
+  /**
+   * Returns the number of inbound invocations the underlying transport refused at its adaptive concurrency limit.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  @Override
+  public long getOverloadShedCount () {
+
+    return responseTransport.getOverloadShedCount();
+  }
+
+  /**
+   * Returns the current adaptive concurrency limit of the underlying transport.
+   *
+   * @return the number of invocations currently allowed in flight, or {@code 0} if the transport is not adaptively limited
+   */
+  @Override
+  public int getConcurrencyLimit () {
+
+    AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    return ((concurrencyLimiter = responseTransport.getConcurrencyLimiter()) == null) ? 0 : concurrencyLimiter.getLimit();
+  }
+
   /**
    * Resumes request processing on the underlying transport.
    *
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.signal;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.smallmind.phalanx.wire.Argument;
+import org.smallmind.phalanx.wire.Wire;
+import org.smallmind.phalanx.wire.WireAdapter;
+
+/**
+ * Ordered description of the arguments accepted by a single remote method, cached per {@link Route}
+ * so that compact codecs can transmit arguments by ordinal position rather than by name. Each schema
+ * records the {@link Argument} names in parameter order, the type into which each value should be
+ * decoded (the adapter value type for {@link Wire} annotated parameters), and a fingerprint that both
+ * ends compare to detect diverging interface definitions. Schemas are registered by the client proxy
+ * and the server circuit as service interfaces are wired, and are shared process wide.
+ */
+public class ArgumentSchema {
+
+  private static final ConcurrentHashMap<SchemaKey, ArgumentSchema> SCHEMA_MAP = new ConcurrentHashMap<>();
+  private final HashMap<String, Integer> ordinalMap = new HashMap<>();
+  private final String[] names;
+  private final Class<?>[] valueTypes;
+  private final int fingerprint;
+
+  /**
+   * Constructs a schema from parallel arrays of argument names and decode types.
+   *
+   * @param names      argument names in parameter order
+   * @param valueTypes types into which each argument value is decoded, in parameter order
+   */
+  public ArgumentSchema (String[] names, Class<?>[] valueTypes) {
+
+    int hash = 1;
+
+    this.names = names;
+    this.valueTypes = valueTypes;
+
+    for (int index = 0; index < names.length; index++) {
+      ordinalMap.put(names[index], index);
+      hash = (31 * hash) + names[index].hashCode();
+      hash = (31 * hash) + valueTypes[index].getName().hashCode();
+    }
+
+    fingerprint = hash;
+  }
+
+  /**
+   * Derives and caches the schema for a service method, keyed by the route that will address it.
+   * Methods whose parameters are not all annotated with {@link Argument} are ignored, which leaves
+   * their invocations to be encoded by name.
+   *
+   * @param version     the service version
+   * @param serviceName the service name
+   * @param method      the service interface method
+   */
+  public static void register (int version, String serviceName, Method method) {
+
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+    String[] names = new String[parameterTypes.length];
+    Class<?>[] valueTypes = new Class<?>[parameterTypes.length];
+
+    for (int index = 0; index < parameterTypes.length; index++) {
+      for (Annotation annotation : parameterAnnotations[index]) {
+        if (annotation.annotationType().equals(Argument.class)) {
+          names[index] = ((Argument)annotation).value();
+          break;
+        }
+      }
+
+      if (names[index] == null) {
+
+        return;
+      }
+
+      valueTypes[index] = valueType(parameterTypes[index]);
+    }
+
+    SCHEMA_MAP.putIfAbsent(new SchemaKey(version, serviceName, new Function(method)), new ArgumentSchema(names, valueTypes));
+  }
+
+  /**
+   * Returns the schema cached for the given route.
+   *
+   * @param route the route addressing a service method
+   * @return the cached schema, or {@code null} if the route's method has not been registered
+   */
+  public static ArgumentSchema lookup (Route route) {
+
+    if ((route == null) || (route.getService() == null) || (route.getFunction() == null) || (route.getFunction().getName() == null)) {
+
+      return null;
+    }
+
+    return SCHEMA_MAP.get(new SchemaKey(route.getVersion(), route.getService(), route.getFunction()));
+  }
+
+  /**
+   * Removes all cached schemas, primarily for test isolation.
+   */
+  public static void clear () {
+
+    SCHEMA_MAP.clear();
+  }
+
+  /**
+   * Determines the type an argument value travels as, which for {@link Wire} annotated classes is the
+   * value type of their adapter, falling back to {@code Object} if the adapter cannot be instantiated.
+   *
+   * @param parameterType the declared parameter type
+   * @return the type to decode argument values into
+   */
+  private static Class<?> valueType (Class<?> parameterType) {
+
+    Wire wire;
+
+    if ((wire = parameterType.getAnnotation(Wire.class)) != null) {
+      try {
+
+        WireAdapter<?, ?> adapter = wire.adapter().getConstructor().newInstance();
+
+        return adapter.getValueType();
+      } catch (Exception exception) {
+
+        return Object.class;
+      }
+    }
+
+    return parameterType;
+  }
+
+  /**
+   * Returns the number of arguments described by this schema.
+   *
+   * @return the argument count
+   */
+  public int size () {
+
+    return names.length;
+  }
+
+  /**
+   * Returns a hash over the ordered argument names and decode types, compared by both ends of the wire.
+   *
+   * @return the schema fingerprint
+   */
+  public int getFingerprint () {
+
+    return fingerprint;
+  }
+
+  /**
+   * Returns the name of the argument at the given position.
+   *
+   * @param ordinal the argument position
+   * @return the argument name
+   */
+  public String getName (int ordinal) {
+
+    return names[ordinal];
+  }
+
+  /**
+   * Returns the type into which the argument at the given position is decoded.
+   *
+   * @param ordinal the argument position
+   * @return the argument decode type
+   */
+  public Class<?> getValueType (int ordinal) {
+
+    return valueTypes[ordinal];
+  }
+
+  /**
+   * Returns the position of the named argument.
+   *
+   * @param name the argument name
+   * @return the argument position, or {@code -1} if the name is not part of this schema
+   */
+  public int getOrdinal (String name) {
+
+    Integer ordinal;
+
+    return ((ordinal = ordinalMap.get(name)) == null) ? -1 : ordinal;
+  }
+
+  /**
+   * Determines whether an argument map can be transmitted positionally, which requires that its keys
+   * be exactly the names known to this schema.
+   *
+   * @param arguments the argument map of an invocation
+   * @return {@code true} if every argument can be sent by ordinal
+   */
+  public boolean covers (Map<String, Object> arguments) {
+
+    if (arguments.size() != names.length) {
+
+      return false;
+    }
+
+    for (String name : arguments.keySet()) {
+      if (!ordinalMap.containsKey(name)) {
+
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a debugging representation of the ordered argument names.
+   *
+   * @return the schema description
+   */
+  @Override
+  public String toString () {
+
+    return ArgumentSchema.class.getSimpleName() + Arrays.toString(names);
+  }
+
+  /**
+   * Cache key made of the service version, service name and complete function descriptor of a route.
+   *
+   * @param version     the service version
+   * @param serviceName the service name
+   * @param function    the function descriptor
+   */
+  private record SchemaKey(int version, String serviceName, Function function) {
+
+  }
+}
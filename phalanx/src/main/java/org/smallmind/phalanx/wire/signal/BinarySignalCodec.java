@@ -0,0 +1,795 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.signal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import jakarta.ws.rs.core.MediaType;
+import org.smallmind.phalanx.wire.SignatureUtility;
+import org.smallmind.web.json.scaffold.fault.Fault;
+import org.smallmind.web.json.scaffold.util.JsonCodec;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Compact binary {@link SignalCodec} using a tagged format in place of JSON documents. Scalars, strings
+ * and byte arrays are written natively with variable length integers, while any other value is carried
+ * as an embedded JSON document. Invocation arguments whose route has a registered {@link ArgumentSchema}
+ * travel as a schema fingerprint followed by the values in parameter order, so no argument names are
+ * sent, and each value is decoded directly into its parameter type on arrival, leaving nothing for
+ * {@link #extractObject(Object, Class)} to convert. Arguments of unregistered routes fall back to a
+ * name keyed encoding. Results are decoded directly into their native type, or into a {@link Fault} on
+ * error. Both ends of the wire must use this codec.
+ */
+public class BinarySignalCodec implements SignalCodec {
+
+  private static final byte FORMAT_VERSION = 2;
+  private static final byte INVOCATION_SIGNAL = 1;
+  private static final byte RESULT_SIGNAL = 2;
+  private static final byte NO_ARGUMENTS = 0;
+  private static final byte ORDINAL_ARGUMENTS = 1;
+  private static final byte NAMED_ARGUMENTS = 2;
+  private static final byte NULL_TAG = 0;
+  private static final byte TRUE_TAG = 1;
+  private static final byte FALSE_TAG = 2;
+  private static final byte BYTE_TAG = 3;
+  private static final byte SHORT_TAG = 4;
+  private static final byte INT_TAG = 5;
+  private static final byte LONG_TAG = 6;
+  private static final byte FLOAT_TAG = 7;
+  private static final byte DOUBLE_TAG = 8;
+  private static final byte CHAR_TAG = 9;
+  private static final byte STRING_TAG = 10;
+  private static final byte BYTES_TAG = 11;
+  private static final byte JSON_TAG = 12;
+  private static final WireContextXmlAdapter CONTEXT_ADAPTER = new WireContextXmlAdapter();
+
+  /**
+   * Returns {@code application/octet-stream} as the content type produced by this codec.
+   *
+   * @return the MIME type string {@code application/octet-stream}
+   */
+  @Override
+  public String getContentType () {
+
+    return MediaType.APPLICATION_OCTET_STREAM;
+  }
+
+  /**
+   * Encodes {@code signal} into the tagged binary format.
+   *
+   * @param signal the signal to encode
+   * @return the encoded bytes
+   * @throws IOException if the signal is of an unknown type
+   */
+  @Override
+  public byte[] encode (Signal signal)
+    throws IOException {
+
+    SignalWriter writer = new SignalWriter();
+
+    writer.writeByte(FORMAT_VERSION);
+
+    if (signal instanceof InvocationSignal invocationSignal) {
+      writer.writeByte(INVOCATION_SIGNAL);
+      writeInvocation(writer, invocationSignal);
+    } else if (signal instanceof ResultSignal resultSignal) {
+      writer.writeByte(RESULT_SIGNAL);
+      writer.writeBoolean(resultSignal.isError());
+      writer.writeString(resultSignal.getNativeType());
+      writeValue(writer, resultSignal.getResult());
+    } else {
+      throw new IOException("Unknown signal type(" + signal.getClass().getName() + ")");
+    }
+
+    return writer.toByteArray();
+  }
+
+  /**
+   * Decodes the specified region of {@code buffer} into a signal of type {@code signalClass}.
+   *
+   * @param buffer      byte array containing the encoded signal
+   * @param offset      starting offset within {@code buffer}
+   * @param len         number of bytes to decode
+   * @param signalClass the target signal type
+   * @param <S>         the signal type parameter
+   * @return the decoded signal
+   * @throws IOException            if the payload is malformed, of an unknown version, or was encoded
+   *                                against an argument schema that differs from the local one
+   * @throws ClassNotFoundException if a result's native type names a class unknown to this process
+   */
+  @Override
+  public <S extends Signal> S decode (byte[] buffer, int offset, int len, Class<S> signalClass)
+    throws IOException, ClassNotFoundException {
+
+    SignalReader reader = new SignalReader(buffer, offset, len);
+    byte version;
+
+    if ((version = reader.readByte()) != FORMAT_VERSION) {
+      throw new IOException("Unknown signal format version(" + version + ")");
+    }
+
+    switch (reader.readByte()) {
+      case INVOCATION_SIGNAL:
+
+        return signalClass.cast(readInvocation(reader));
+      case RESULT_SIGNAL:
+
+        boolean error = reader.readBoolean();
+        String nativeType = reader.readString();
+
+        return signalClass.cast(new ResultSignal(error, nativeType, readValue(reader, error ? Fault.class : (nativeType == null) ? null : SignatureUtility.nativeDecode(nativeType))));
+      default:
+        throw new IOException("Unknown signal type in payload");
+    }
+  }
+
+  /**
+   * Returns values that were already decoded into the requested type as is, and converts anything else
+   * (embedded JSON documents, or scalars of a different width) through {@code JsonCodec}.
+   *
+   * @param value the decoded value
+   * @param clazz the target type
+   * @param <T>   the target type parameter
+   * @return the value as an instance of {@code clazz}
+   */
+  @Override
+  public <T> T extractObject (Object value, Class<T> clazz) {
+
+    if (value == null) {
+
+      return null;
+    } else if ((!(value instanceof JsonNode)) && box(clazz).isInstance(value)) {
+
+      return (T)value;
+    } else {
+
+      return JsonCodec.instance().convert(value, clazz);
+    }
+  }
+
+  /**
+   * Writes the route, arguments and contexts of an invocation.
+   *
+   * @param writer           the output
+   * @param invocationSignal the invocation to write
+   */
+  private void writeInvocation (SignalWriter writer, InvocationSignal invocationSignal) {
+
+    Route route = invocationSignal.getRoute();
+    Map<String, Object> arguments = invocationSignal.getArguments();
+    ArgumentSchema schema;
+
+    writer.writeBoolean(invocationSignal.isInOnly());
+    writer.writeVarLong(invocationSignal.getDeadline());
+    writer.writeVarInt(route.getVersion());
+    writer.writeString(route.getService());
+    writeFunction(writer, route.getFunction());
+
+    if ((arguments == null) || arguments.isEmpty()) {
+      writer.writeByte(NO_ARGUMENTS);
+    } else if (((schema = ArgumentSchema.lookup(route)) != null) && schema.covers(arguments)) {
+      writer.writeByte(ORDINAL_ARGUMENTS);
+      writer.writeInt(schema.getFingerprint());
+      for (int ordinal = 0; ordinal < schema.size(); ordinal++) {
+        writeValue(writer, arguments.get(schema.getName(ordinal)));
+      }
+    } else {
+      writer.writeByte(NAMED_ARGUMENTS);
+      writer.writeVarInt(arguments.size());
+      for (Map.Entry<String, Object> argumentEntry : arguments.entrySet()) {
+        writer.writeString(argumentEntry.getKey());
+        writeValue(writer, argumentEntry.getValue());
+      }
+    }
+
+    if ((invocationSignal.getContexts() == null) || (invocationSignal.getContexts().length == 0)) {
+      writer.writeVarInt(0);
+    } else {
+
+      byte[] contextBytes = JsonCodec.instance().writeAsBytes(CONTEXT_ADAPTER.marshal(invocationSignal.getContexts()));
+
+      writer.writeVarInt(contextBytes.length);
+      writer.writeBytes(contextBytes);
+    }
+  }
+
+  /**
+   * Reads the route, arguments and contexts of an invocation, decoding ordinal arguments into the types
+   * described by the locally registered schema.
+   *
+   * @param reader the input
+   * @return the decoded invocation
+   * @throws IOException if the payload is malformed or its argument schema differs from the local one
+   */
+  private InvocationSignal readInvocation (SignalReader reader)
+    throws IOException {
+
+    InvocationSignal invocationSignal = new InvocationSignal();
+    Route route = new Route();
+    HashMap<String, Object> arguments = null;
+    int contextLength;
+
+    invocationSignal.setInOnly(reader.readBoolean());
+    invocationSignal.setDeadline(reader.readVarLong());
+    route.setVersion(reader.readVarInt());
+    route.setService(reader.readString());
+    route.setFunction(readFunction(reader));
+    invocationSignal.setRoute(route);
+
+    switch (reader.readByte()) {
+      case NO_ARGUMENTS:
+        break;
+      case ORDINAL_ARGUMENTS:
+
+        ArgumentSchema schema;
+        int fingerprint = reader.readInt();
+
+        if ((schema = ArgumentSchema.lookup(route)) == null) {
+          throw new IOException("No argument schema is registered for method(" + route.getFunction().getName() + ") of service(" + route.getService() + ")");
+        } else if (schema.getFingerprint() != fingerprint) {
+          throw new IOException("The argument schema for method(" + route.getFunction().getName() + ") of service(" + route.getService() + ") does not match the caller's definition");
+        }
+
+        arguments = new HashMap<>();
+        for (int ordinal = 0; ordinal < schema.size(); ordinal++) {
+          arguments.put(schema.getName(ordinal), readValue(reader, schema.getValueType(ordinal)));
+        }
+        break;
+      case NAMED_ARGUMENTS:
+
+        int size = reader.readVarInt();
+
+        arguments = new HashMap<>();
+        for (int index = 0; index < size; index++) {
+          arguments.put(reader.readString(), readValue(reader, null));
+        }
+        break;
+      default:
+        throw new IOException("Unknown argument encoding in payload");
+    }
+
+    invocationSignal.setArguments(arguments);
+
+    if ((contextLength = reader.readVarInt()) > 0) {
+      invocationSignal.setContexts(CONTEXT_ADAPTER.unmarshal(JsonCodec.instance().read(reader.getBuffer(), reader.skip(contextLength), contextLength, JsonNode.class)));
+    }
+
+    return invocationSignal;
+  }
+
+  /**
+   * Writes a function descriptor, with a negative signature length marking an absent signature.
+   *
+   * @param writer   the output
+   * @param function the function to write
+   */
+  private void writeFunction (SignalWriter writer, Function function) {
+
+    writer.writeString(function.getName());
+    writer.writeString(function.getResultType());
+    writer.writeString(function.getNativeType());
+
+    if (function.getSignature() == null) {
+      writer.writeVarInt(-1);
+    } else {
+      writer.writeVarInt(function.getSignature().length);
+      for (String parameter : function.getSignature()) {
+        writer.writeString(parameter);
+      }
+    }
+  }
+
+  /**
+   * Reads a function descriptor.
+   *
+   * @param reader the input
+   * @return the decoded function
+   * @throws IOException if the payload is malformed
+   */
+  private Function readFunction (SignalReader reader)
+    throws IOException {
+
+    Function function = new Function(reader.readString());
+    int length;
+
+    function.setResultType(reader.readString());
+    function.setNativeType(reader.readString());
+
+    if ((length = reader.readVarInt()) >= 0) {
+
+      String[] signature = new String[length];
+
+      for (int index = 0; index < length; index++) {
+        signature[index] = reader.readString();
+      }
+
+      function.setSignature(signature);
+    }
+
+    return function;
+  }
+
+  /**
+   * Writes a tagged value.
+   *
+   * @param writer the output
+   * @param value  the value to write
+   */
+  private void writeValue (SignalWriter writer, Object value) {
+
+    if (value == null) {
+      writer.writeByte(NULL_TAG);
+    } else if (value instanceof String string) {
+      writer.writeByte(STRING_TAG);
+      writer.writeString(string);
+    } else if (value instanceof Integer integer) {
+      writer.writeByte(INT_TAG);
+      writer.writeVarInt(integer);
+    } else if (value instanceof Long longValue) {
+      writer.writeByte(LONG_TAG);
+      writer.writeVarLong(longValue);
+    } else if (value instanceof Boolean booleanValue) {
+      writer.writeByte(booleanValue ? TRUE_TAG : FALSE_TAG);
+    } else if (value instanceof Double doubleValue) {
+      writer.writeByte(DOUBLE_TAG);
+      writer.writeLong(Double.doubleToRawLongBits(doubleValue));
+    } else if (value instanceof Float floatValue) {
+      writer.writeByte(FLOAT_TAG);
+      writer.writeInt(Float.floatToRawIntBits(floatValue));
+    } else if (value instanceof Short shortValue) {
+      writer.writeByte(SHORT_TAG);
+      writer.writeVarInt(shortValue);
+    } else if (value instanceof Byte byteValue) {
+      writer.writeByte(BYTE_TAG);
+      writer.writeByte(byteValue);
+    } else if (value instanceof Character character) {
+      writer.writeByte(CHAR_TAG);
+      writer.writeVarInt(character);
+    } else if (value instanceof byte[] bytes) {
+      writer.writeByte(BYTES_TAG);
+      writer.writeVarInt(bytes.length);
+      writer.writeBytes(bytes);
+    } else {
+
+      byte[] jsonBytes = JsonCodec.instance().writeAsBytes(value);
+
+      writer.writeByte(JSON_TAG);
+      writer.writeVarInt(jsonBytes.length);
+      writer.writeBytes(jsonBytes);
+    }
+  }
+
+  /**
+   * Reads a tagged value, decoding embedded JSON documents directly into {@code expectedType} when known.
+   *
+   * @param reader       the input
+   * @param expectedType the type the value should take, or {@code null} if unknown
+   * @return the decoded value
+   * @throws IOException if the payload is malformed
+   */
+  private Object readValue (SignalReader reader, Class<?> expectedType)
+    throws IOException {
+
+    switch (reader.readByte()) {
+      case NULL_TAG:
+
+        return null;
+      case TRUE_TAG:
+
+        return Boolean.TRUE;
+      case FALSE_TAG:
+
+        return Boolean.FALSE;
+      case BYTE_TAG:
+
+        return reader.readByte();
+      case SHORT_TAG:
+
+        return (short)reader.readVarInt();
+      case INT_TAG:
+
+        return reader.readVarInt();
+      case LONG_TAG:
+
+        return reader.readVarLong();
+      case FLOAT_TAG:
+
+        return Float.intBitsToFloat(reader.readInt());
+      case DOUBLE_TAG:
+
+        return Double.longBitsToDouble(reader.readLong());
+      case CHAR_TAG:
+
+        return (char)reader.readVarInt();
+      case STRING_TAG:
+
+        return reader.readString();
+      case BYTES_TAG:
+
+        int byteLength = reader.readVarInt();
+        int byteOffset = reader.skip(byteLength);
+
+        return Arrays.copyOfRange(reader.getBuffer(), byteOffset, byteOffset + byteLength);
+      case JSON_TAG:
+
+        Class<?> decodeType = ((expectedType == null) || Object.class.equals(expectedType) || Void.class.equals(expectedType)) ? JsonNode.class : box(expectedType);
+        int jsonLength = reader.readVarInt();
+        int jsonOffset = reader.skip(jsonLength);
+
+        return JsonCodec.instance().read(reader.getBuffer(), jsonOffset, jsonLength, decodeType);
+      default:
+        throw new IOException("Unknown value tag in payload");
+    }
+  }
+
+  /**
+   * Maps primitive classes onto their wrapper types.
+   *
+   * @param clazz the class to box
+   * @return the wrapper type for primitives, or {@code clazz} itself
+   */
+  private static Class<?> box (Class<?> clazz) {
+
+    if (!clazz.isPrimitive()) {
+
+      return clazz;
+    } else if (int.class.equals(clazz)) {
+
+      return Integer.class;
+    } else if (long.class.equals(clazz)) {
+
+      return Long.class;
+    } else if (boolean.class.equals(clazz)) {
+
+      return Boolean.class;
+    } else if (double.class.equals(clazz)) {
+
+      return Double.class;
+    } else if (float.class.equals(clazz)) {
+
+      return Float.class;
+    } else if (short.class.equals(clazz)) {
+
+      return Short.class;
+    } else if (byte.class.equals(clazz)) {
+
+      return Byte.class;
+    } else if (char.class.equals(clazz)) {
+
+      return Character.class;
+    } else {
+
+      return Void.class;
+    }
+  }
+
+  /**
+   * Growable output buffer with zig-zag variable length integer encoding.
+   */
+  private static class SignalWriter {
+
+    private byte[] buffer = new byte[256];
+    private int position = 0;
+
+    /**
+     * Ensures room for {@code length} more bytes.
+     *
+     * @param length the number of bytes about to be written
+     */
+    private void ensure (int length) {
+
+      if (position + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+      }
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value the byte to write
+     */
+    public void writeByte (byte value) {
+
+      ensure(1);
+      buffer[position++] = value;
+    }
+
+    /**
+     * Writes a boolean as a single byte.
+     *
+     * @param value the boolean to write
+     */
+    public void writeBoolean (boolean value) {
+
+      writeByte(value ? (byte)1 : (byte)0);
+    }
+
+    /**
+     * Writes a big-endian fixed width int.
+     *
+     * @param value the int to write
+     */
+    public void writeInt (int value) {
+
+      ensure(4);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte)(value >>> shift);
+      }
+    }
+
+    /**
+     * Writes a big-endian fixed width long.
+     *
+     * @param value the long to write
+     */
+    public void writeLong (long value) {
+
+      ensure(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte)(value >>> shift);
+      }
+    }
+
+    /**
+     * Writes a zig-zag encoded variable length int, so that small magnitudes of either sign take one byte.
+     *
+     * @param value the int to write
+     */
+    public void writeVarInt (int value) {
+
+      writeVarLong(value);
+    }
+
+    /**
+     * Writes a zig-zag encoded variable length long.
+     *
+     * @param value the long to write
+     */
+    public void writeVarLong (long value) {
+
+      long zigZag = (value << 1) ^ (value >> 63);
+
+      ensure(10);
+      while ((zigZag & ~0x7FL) != 0) {
+        buffer[position++] = (byte)((zigZag & 0x7F) | 0x80);
+        zigZag >>>= 7;
+      }
+      buffer[position++] = (byte)zigZag;
+    }
+
+    /**
+     * Writes raw bytes.
+     *
+     * @param bytes the bytes to write
+     */
+    public void writeBytes (byte[] bytes) {
+
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string, with a negative length marking {@code null}.
+     *
+     * @param value the string to write
+     */
+    public void writeString (String value) {
+
+      if (value == null) {
+        writeVarInt(-1);
+      } else {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+      }
+    }
+
+    /**
+     * Returns a copy of the bytes written so far.
+     *
+     * @return the written bytes
+     */
+    public byte[] toByteArray () {
+
+      return Arrays.copyOf(buffer, position);
+    }
+  }
+
+  /**
+   * Bounds checked reader over a region of a byte array, the counterpart of {@link SignalWriter}.
+   */
+  private static class SignalReader {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * Constructs a reader over the given region.
+     *
+     * @param buffer the byte array
+     * @param offset the start of the region
+     * @param len    the length of the region
+     */
+    public SignalReader (byte[] buffer, int offset, int len) {
+
+      this.buffer = buffer;
+
+      position = offset;
+      limit = offset + len;
+    }
+
+    /**
+     * Returns the underlying byte array.
+     *
+     * @return the buffer being read
+     */
+    public byte[] getBuffer () {
+
+      return buffer;
+    }
+
+    /**
+     * Advances past {@code length} bytes.
+     *
+     * @param length the number of bytes to skip
+     * @return the offset of the first skipped byte
+     * @throws IOException if the region holds fewer than {@code length} remaining bytes
+     */
+    public int skip (int length)
+      throws IOException {
+
+      int start = position;
+
+      if ((length < 0) || (length > limit - position)) {
+        throw new IOException("Truncated signal payload");
+      }
+
+      position += length;
+
+      return start;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte read
+     * @throws IOException if the region is exhausted
+     */
+    public byte readByte ()
+      throws IOException {
+
+      return buffer[skip(1)];
+    }
+
+    /**
+     * Reads a boolean written as a single byte.
+     *
+     * @return the boolean read
+     * @throws IOException if the region is exhausted
+     */
+    public boolean readBoolean ()
+      throws IOException {
+
+      return readByte() != 0;
+    }
+
+    /**
+     * Reads a big-endian fixed width int.
+     *
+     * @return the int read
+     * @throws IOException if the region is exhausted
+     */
+    public int readInt ()
+      throws IOException {
+
+      int start = skip(4);
+
+      return ((buffer[start] & 0xFF) << 24) | ((buffer[start + 1] & 0xFF) << 16) | ((buffer[start + 2] & 0xFF) << 8) | (buffer[start + 3] & 0xFF);
+    }
+
+    /**
+     * Reads a big-endian fixed width long.
+     *
+     * @return the long read
+     * @throws IOException if the region is exhausted
+     */
+    public long readLong ()
+      throws IOException {
+
+      return ((long)readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads a zig-zag encoded variable length int.
+     *
+     * @return the int read
+     * @throws IOException if the region is exhausted
+     */
+    public int readVarInt ()
+      throws IOException {
+
+      return (int)readVarLong();
+    }
+
+    /**
+     * Reads a zig-zag encoded variable length long.
+     *
+     * @return the long read
+     * @throws IOException if the region is exhausted or the encoding is overlong
+     */
+    public long readVarLong ()
+      throws IOException {
+
+      long zigZag = 0;
+
+      for (int shift = 0; shift < 70; shift += 7) {
+
+        byte current = readByte();
+
+        zigZag |= (long)(current & 0x7F) << shift;
+        if ((current & 0x80) == 0) {
+
+          return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+      }
+
+      throw new IOException("Malformed variable length integer in signal payload");
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string.
+     *
+     * @return the string read, or {@code null}
+     * @throws IOException if the region is exhausted
+     */
+    public String readString ()
+      throws IOException {
+
+      int length;
+
+      if ((length = readVarInt()) < 0) {
+
+        return null;
+      }
+
+      return new String(buffer, skip(length), length, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -42,7 +42,8 @@ import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 /**
  * Wire signal that carries a service invocation request, including the target route,
- * named argument map, propagated contexts, and a flag indicating whether a response is expected.
+ * named argument map, propagated contexts, a flag indicating whether a response is expected, and
+ * the caller's deadline, after which the caller no longer waits for a response.
  */
 @XmlRootElement(name = "invocation", namespace = "http://org.smallmind/phalanx/wire")
 @XmlAccessorType(XmlAccessType.PROPERTY)
@@ -51,6 +52,7 @@ public class InvocationSignal implements Signal {
   private Route route;
   private Map<String, Object> arguments;
   private WireContext[] contexts;
+  private long deadline;
   private boolean inOnly;
 
   /**
@@ -70,7 +72,22 @@ public class InvocationSignal implements Signal {
    */
   public InvocationSignal (boolean inOnly, Route route, Map<String, Object> arguments, WireContext... contexts) {
 
+    this(inOnly, 0, route, arguments, contexts);
+  }
+
+  /**
+   * Creates a fully populated invocation signal carrying the caller's deadline.
+   *
+   * @param inOnly    {@code true} if the call is one-way and no response is expected
+   * @param deadline  epoch milliseconds after which the caller no longer waits for a response, or {@code 0} if unbounded
+   * @param route     the target route identifying service, version, and function
+   * @param arguments named arguments to pass to the remote function
+   * @param contexts  zero or more wire contexts to propagate with the invocation
+   */
+  public InvocationSignal (boolean inOnly, long deadline, Route route, Map<String, Object> arguments, WireContext... contexts) {
+
     this.inOnly = inOnly;
+    this.deadline = deadline;
     this.route = route;
     this.arguments = arguments;
     this.contexts = contexts;
@@ -97,6 +114,39 @@ public class InvocationSignal implements Signal {
     this.inOnly = inOnly;
   }
 
+  /**
+   * Returns the epoch milliseconds after which the caller no longer waits for a response. The deadline
+   * is stamped with the caller's clock, so it is only as accurate as the clocks of both hosts agree.
+   *
+   * @return the caller's deadline, or {@code 0} if the invocation is unbounded
+   */
+  @XmlElement(name = "deadline")
+  public long getDeadline () {
+
+    return deadline;
+  }
+
+  /**
+   * Sets the epoch milliseconds after which the caller no longer waits for a response.
+   *
+   * @param deadline the caller's deadline, or {@code 0} if the invocation is unbounded
+   */
+  public void setDeadline (long deadline) {
+
+    this.deadline = deadline;
+  }
+
+  /**
+   * Returns {@code true} when this invocation carries a deadline that has passed at the given time.
+   *
+   * @param now the current time in epoch milliseconds
+   * @return {@code true} if the caller has already stopped waiting for a response
+   */
+  public boolean isExpired (long now) {
+
+    return (deadline > 0) && (now >= deadline);
+  }
+
   /**
    * Returns the routing information for this invocation.
    *
@@ -32,19 +32,26 @@
  */
 package org.smallmind.phalanx.wire.transport;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.smallmind.nutsnbolts.util.TimingWheel;
 import org.smallmind.phalanx.wire.Voice;
 import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.Route;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.web.json.scaffold.fault.Fault;
 
 /**
  * Abstract base implementation of {@link RequestTransport} that manages in-flight callback correlation
  * for both asynchronous and already-completed (synchronous) result signals, applying a configurable
- * default timeout when no per-call timeout is present in the conversation.
+ * default timeout when no per-call timeout is present in the conversation. Calls acquired as futures have
+ * their timeouts enforced by a single {@link TimingWheel} shared by every transport in the process.
  */
 public abstract class AbstractRequestTransport implements RequestTransport {
 
+  private static final TimingWheel TIMEOUT_WHEEL = new TimingWheel("phalanx-timeout-wheel", 100, TimeUnit.MILLISECONDS, Runnable::run);
+
   private final ConcurrentHashMap<String, TransmissionCallback> callbackMap;
   private final long defaultTimeoutSeconds;
 
@@ -87,10 +94,7 @@ public abstract class AbstractRequestTransport implements RequestTransport {
 
       try {
 
-        Object timeoutObject;
-        long timeoutSeconds = (((timeoutObject = voice.getConversation().getTimeout()) == null) || ((Long)timeoutObject <= 0)) ? defaultTimeoutSeconds : (Long)timeoutObject;
-
-        return asynchronousCallback.getResult(signalCodec, timeoutSeconds);
+        return asynchronousCallback.getResult(signalCodec, getTimeoutSeconds(voice));
       } finally {
         callbackMap.remove(messageId);
       }
@@ -99,6 +103,74 @@ public abstract class AbstractRequestTransport implements RequestTransport {
     return null;
   }
 
+  /**
+   * Acquires the result for an outbound request as a future, without blocking the caller. The future is
+   * completed on the thread that delivers the response to {@link #completeCallback(String, ResultSignal)},
+   * or exceptionally with a {@link org.smallmind.phalanx.wire.TransportTimeoutException} from the shared timer
+   * thread if no response arrives in time; dependent stages that do real work should therefore use the
+   * {@code *Async} variants.
+   *
+   * @param signalCodec codec used to decode the result payload
+   * @param route       route identifying the target service and function, used in timeout messages
+   * @param voice       voice that carries the conversation style and optional per-call timeout
+   * @param messageId   correlation id that links this call to its response
+   * @param inOnly      {@code true} if no response is expected; returns an already completed future
+   * @return a future of the decoded return value of the remote invocation, or of {@code null} for in-only calls
+   */
+  public CompletableFuture<Object> acquireFuture (SignalCodec signalCodec, Route route, Voice<?, ?> voice, String messageId, boolean inOnly) {
+
+    if (!inOnly) {
+
+      FutureTransmissionCallback futureCallback = new FutureTransmissionCallback(signalCodec, route.getService(), route.getFunction().getName());
+      TransmissionCallback previousCallback;
+
+      if ((previousCallback = callbackMap.putIfAbsent(messageId, futureCallback)) != null) {
+        callbackMap.remove(messageId);
+        futureCallback.setResultSignal(((SynchronousTransmissionCallback)previousCallback).getResultSignal());
+      } else {
+
+        long timeoutSeconds = getTimeoutSeconds(voice);
+
+        futureCallback.setTimeout(TIMEOUT_WHEEL.schedule(() -> {
+          if (callbackMap.remove(messageId, futureCallback)) {
+            futureCallback.expire(timeoutSeconds);
+          }
+        }, timeoutSeconds, TimeUnit.SECONDS));
+      }
+
+      return futureCallback.getResultFuture();
+    }
+
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Computes the deadline stamped on an outbound invocation, being the moment at which the caller stops
+   * waiting for its response, so that the responding side can skip work nobody is waiting for.
+   *
+   * @param voice  voice that carries the conversation style and optional per-call timeout
+   * @param inOnly {@code true} if no response is expected, in which case the invocation is unbounded
+   * @return the deadline in epoch milliseconds, or {@code 0} for in-only calls
+   */
+  protected long getDeadline (Voice<?, ?> voice, boolean inOnly) {
+
+    return inOnly ? 0 : System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(getTimeoutSeconds(voice));
+  }
+
+  /**
+   * Resolves the timeout for a call from its conversation, falling back to the transport default when the
+   * conversation carries no positive timeout.
+   *
+   * @param voice voice that carries the conversation style and optional per-call timeout
+   * @return the timeout in seconds
+   */
+  private long getTimeoutSeconds (Voice<?, ?> voice) {
+
+    Object timeoutObject;
+
+    return (((timeoutObject = voice.getConversation().getTimeout()) == null) || ((Long)timeoutObject <= 0)) ? defaultTimeoutSeconds : (Long)timeoutObject;
+  }
+
   /**
    * Delivers an inbound result signal to the callback registered for the given correlation id.
    * If the callback has not yet been registered (result arrived before the caller had a chance to
@@ -114,12 +186,44 @@ public abstract class AbstractRequestTransport implements RequestTransport {
 
     if ((previousCallback = callbackMap.get(correlationId)) == null) {
       if ((previousCallback = callbackMap.putIfAbsent(correlationId, new SynchronousTransmissionCallback(resultSignal))) != null) {
-        if (previousCallback instanceof AsynchronousTransmissionCallback) {
-          ((AsynchronousTransmissionCallback)previousCallback).setResultSignal(resultSignal);
-        }
+        deliverResult(correlationId, previousCallback, resultSignal);
       }
-    } else if (previousCallback instanceof AsynchronousTransmissionCallback) {
-      ((AsynchronousTransmissionCallback)previousCallback).setResultSignal(resultSignal);
+    } else {
+      deliverResult(correlationId, previousCallback, resultSignal);
+    }
+  }
+
+  /**
+   * Fails the call waiting under the given correlation id, as though the remote side had thrown the given
+   * exception, for use when the request could not be sent, so that the caller need not wait out its timeout.
+   * Nothing is recorded if no caller is waiting, as an in-only call never registers one.
+   *
+   * @param correlationId correlation id that identifies the original request
+   * @param throwable     the reason the request failed
+   */
+  public void failCallback (String correlationId, Throwable throwable) {
+
+    TransmissionCallback callback;
+
+    if ((callback = callbackMap.get(correlationId)) != null) {
+      deliverResult(correlationId, callback, new ResultSignal(true, null, new Fault(throwable)));
+    }
+  }
+
+  /**
+   * Hands a result signal to a waiting callback. Future callbacks are removed from the correlation map here,
+   * as no caller remains to remove them, and only the delivery that wins the removal completes the future.
+   *
+   * @param correlationId correlation id that identifies the original request
+   * @param callback      the callback registered for the correlation id
+   * @param resultSignal  result signal received from the remote service
+   */
+  private void deliverResult (String correlationId, TransmissionCallback callback, ResultSignal resultSignal) {
+
+    if (callback instanceof AsynchronousTransmissionCallback) {
+      ((AsynchronousTransmissionCallback)callback).setResultSignal(resultSignal);
+    } else if ((callback instanceof FutureTransmissionCallback) && callbackMap.remove(correlationId, callback)) {
+      ((FutureTransmissionCallback)callback).setResultSignal(resultSignal);
     }
   }
 }
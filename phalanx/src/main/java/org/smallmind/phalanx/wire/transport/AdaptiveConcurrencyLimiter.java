@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Additive-increase/multiplicative-decrease concurrency limit driven by observed service latency. The
+ * limiter tracks the lowest latency seen over a rolling window of samples as the unloaded baseline. A
+ * completion slower than the baseline by more than the tolerance is taken as a sign of queueing, and the
+ * limit is cut by the backoff ratio; any other completion while the limit is in use grows it by one over
+ * its current value, roughly one per round trip. Acquisition never blocks, so work beyond the limit can be
+ * refused at once instead of waiting behind work already in flight.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final int WINDOW_SIZE = 500;
+  private final AtomicInteger inFlight = new AtomicInteger(0);
+  private final double backoffRatio;
+  private final double latencyTolerance;
+  private final int minLimit;
+  private final int maxLimit;
+  private volatile int limit;
+  private double exactLimit;
+  private long baselineNanos = Long.MAX_VALUE;
+  private long windowMinNanos = Long.MAX_VALUE;
+  private int windowCount;
+
+  /**
+   * Constructs a limiter with a backoff ratio of 0.9 and a latency tolerance of 2.
+   *
+   * @param initialLimit the starting limit
+   * @param minLimit     the floor below which the limit is never cut
+   * @param maxLimit     the ceiling above which the limit never grows, typically the worker count
+   */
+  public AdaptiveConcurrencyLimiter (int initialLimit, int minLimit, int maxLimit) {
+
+    this(initialLimit, minLimit, maxLimit, 0.9D, 2.0D);
+  }
+
+  /**
+   * Constructs a limiter.
+   *
+   * @param initialLimit     the starting limit
+   * @param minLimit         the floor below which the limit is never cut
+   * @param maxLimit         the ceiling above which the limit never grows, typically the worker count
+   * @param backoffRatio     the factor, between 0 and 1, applied to the limit on a slow completion
+   * @param latencyTolerance the multiple of the baseline latency beyond which a completion counts as slow
+   */
+  public AdaptiveConcurrencyLimiter (int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+
+    if (minLimit < 1) {
+      throw new IllegalArgumentException("The minimum limit must be >= 1");
+    }
+    if (maxLimit < minLimit) {
+      throw new IllegalArgumentException("The maximum limit must be >= the minimum limit");
+    }
+    if ((initialLimit < minLimit) || (initialLimit > maxLimit)) {
+      throw new IllegalArgumentException("The initial limit must lie between the minimum and maximum limits");
+    }
+    if ((backoffRatio <= 0) || (backoffRatio >= 1)) {
+      throw new IllegalArgumentException("The backoff ratio must be > 0 and < 1");
+    }
+    if (latencyTolerance < 1) {
+      throw new IllegalArgumentException("The latency tolerance must be >= 1");
+    }
+
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyTolerance = latencyTolerance;
+
+    limit = initialLimit;
+    exactLimit = initialLimit;
+  }
+
+  /**
+   * Returns the current concurrency limit.
+   *
+   * @return the number of invocations currently allowed in flight
+   */
+  public int getLimit () {
+
+    return limit;
+  }
+
+  /**
+   * Returns the number of invocations currently in flight.
+   *
+   * @return the count of acquisitions not yet released
+   */
+  public int getInFlight () {
+
+    return inFlight.get();
+  }
+
+  /**
+   * Claims a slot if fewer invocations than the current limit are in flight. Every successful call must
+   * be paired with a call to {@link #release(long)}.
+   *
+   * @return {@code true} if a slot was claimed, {@code false} if the limit has been reached
+   */
+  public boolean tryAcquire () {
+
+    int current;
+
+    do {
+      if ((current = inFlight.get()) >= limit) {
+
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+
+    return true;
+  }
+
+  /**
+   * Returns a slot claimed by {@link #tryAcquire()} and adjusts the limit by the latency of the invocation
+   * that held it.
+   *
+   * @param latencyNanos the time the invocation spent in service, in nanoseconds
+   */
+  public void release (long latencyNanos) {
+
+    int released = inFlight.getAndDecrement();
+
+    synchronized (this) {
+      if (latencyNanos < windowMinNanos) {
+        windowMinNanos = latencyNanos;
+      }
+      if (latencyNanos < baselineNanos) {
+        baselineNanos = latencyNanos;
+      }
+      if (++windowCount >= WINDOW_SIZE) {
+        // Let the baseline drift upwards when the service has become slower for reasons other than load.
+        baselineNanos = windowMinNanos;
+        windowMinNanos = Long.MAX_VALUE;
+        windowCount = 0;
+      }
+
+      if (latencyNanos > baselineNanos * latencyTolerance) {
+        exactLimit = Math.max(minLimit, exactLimit * backoffRatio);
+      } else if (released * 2 >= limit) {
+        exactLimit = Math.min(maxLimit, exactLimit + (1.0D / exactLimit));
+      }
+
+      limit = (int)exactLimit;
+    }
+  }
+}
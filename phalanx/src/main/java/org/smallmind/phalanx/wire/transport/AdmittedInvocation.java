@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.smallmind.phalanx.wire.signal.InvocationSignal;
+
+/**
+ * An invocation that {@link WireInvocationCircuit#admit(ResponseTransmitter, String, String, InvocationSignal)}
+ * has let through, being the unit of work a response transport queues for its workers. While a concurrency
+ * limiter is in force the invocation holds one of its permits from admission until it is released, so that
+ * the latency fed back to the limiter covers the time spent waiting in the queue as well as in the service.
+ */
+public class AdmittedInvocation {
+
+  private final AtomicBoolean released = new AtomicBoolean(false);
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final InvocationSignal invocationSignal;
+  private final String callerId;
+  private final String messageId;
+  private final long admittedNanos = System.nanoTime();
+
+  /**
+   * Constructs an admitted invocation.
+   *
+   * @param callerId         transport-level identifier of the originating caller
+   * @param messageId        correlation identifier used to match the response to the original request
+   * @param invocationSignal the decoded invocation
+   * @param limiter          the limiter whose permit this invocation holds, or {@code null} if there is none
+   */
+  AdmittedInvocation (String callerId, String messageId, InvocationSignal invocationSignal, AdaptiveConcurrencyLimiter limiter) {
+
+    this.callerId = callerId;
+    this.messageId = messageId;
+    this.invocationSignal = invocationSignal;
+    this.limiter = limiter;
+  }
+
+  /**
+   * Returns the transport-level identifier of the originating caller.
+   *
+   * @return the caller id
+   */
+  public String getCallerId () {
+
+    return callerId;
+  }
+
+  /**
+   * Returns the correlation identifier used to match the response to the original request.
+   *
+   * @return the message id
+   */
+  public String getMessageId () {
+
+    return messageId;
+  }
+
+  /**
+   * Returns the decoded invocation.
+   *
+   * @return the invocation signal
+   */
+  public InvocationSignal getInvocationSignal () {
+
+    return invocationSignal;
+  }
+
+  /**
+   * Releases the limiter permit held by this invocation, feeding back the time since admission. The circuit
+   * releases the permit once the invocation completes; a transport that admits an invocation but then fails
+   * to queue it must release the permit itself. Only the first call has any effect.
+   */
+  public void release () {
+
+    if ((limiter != null) && released.compareAndSet(false, true)) {
+      limiter.release(System.nanoTime() - admittedNanos);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.smallmind.nutsnbolts.util.TimingWheel;
+import org.smallmind.phalanx.wire.SignatureUtility;
+import org.smallmind.phalanx.wire.TransportTimeoutException;
+import org.smallmind.phalanx.wire.signal.ResultSignal;
+import org.smallmind.phalanx.wire.signal.SignalCodec;
+
+/**
+ * {@link TransmissionCallback} implementation that never parks the caller; the result signal completes a
+ * {@link CompletableFuture} on whichever thread delivers it, and a {@link TimingWheel} task completes the future
+ * exceptionally if no result arrives in time.
+ */
+public class FutureTransmissionCallback extends TransmissionCallback {
+
+  private final CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+  private final SignalCodec signalCodec;
+  private final String serviceName;
+  private final String functionName;
+  private volatile TimingWheel.Timeout timeout;
+
+  /**
+   * Constructs a callback associated with a specific service and function, whose names appear in the timeout
+   * exception message when the wait expires.
+   *
+   * @param signalCodec  codec used to decode the result payload
+   * @param serviceName  name of the remote service being called
+   * @param functionName name of the remote function being called
+   */
+  public FutureTransmissionCallback (SignalCodec signalCodec, String serviceName, String functionName) {
+
+    this.signalCodec = signalCodec;
+    this.serviceName = serviceName;
+    this.functionName = functionName;
+  }
+
+  /**
+   * Returns the future completed by the result signal, an error, or the timeout.
+   *
+   * @return the result future
+   */
+  public CompletableFuture<Object> getResultFuture () {
+
+    return resultFuture;
+  }
+
+  /**
+   * Records the timer task enforcing this call's timeout, so that it can be cancelled once a result arrives.
+   *
+   * @param timeout the scheduled timeout
+   */
+  public void setTimeout (TimingWheel.Timeout timeout) {
+
+    this.timeout = timeout;
+
+    if (resultFuture.isDone()) {
+      timeout.cancel();
+    }
+  }
+
+  /**
+   * Blocks until the future completes or the timeout elapses; provided for parity with the other callbacks.
+   *
+   * @param signalCodec    ignored; the codec supplied at construction is used
+   * @param timeoutSeconds maximum number of seconds to wait for the response
+   * @return the decoded return value of the remote invocation
+   * @throws TransportTimeoutException if {@code timeoutSeconds} elapses before a result arrives
+   * @throws Throwable                 if the result signal carries an error or decoding fails
+   */
+  @Override
+  public Object getResult (SignalCodec signalCodec, long timeoutSeconds)
+    throws Throwable {
+
+    try {
+      return resultFuture.get(timeoutSeconds, TimeUnit.SECONDS);
+    } catch (ExecutionException executionException) {
+      throw executionException.getCause();
+    } catch (TimeoutException timeoutException) {
+      throw new TransportTimeoutException("The timeout(%d) seconds was exceeded while waiting for a response(%s.%s)", timeoutSeconds, serviceName, functionName);
+    }
+  }
+
+  /**
+   * Decodes the result signal and completes the future with the result, or exceptionally with the remote
+   * fault or decoding failure, then cancels the pending timeout.
+   *
+   * @param resultSignal the result signal delivered by the transport
+   */
+  public void setResultSignal (ResultSignal resultSignal) {
+
+    TimingWheel.Timeout currentTimeout;
+
+    if ((currentTimeout = timeout) != null) {
+      currentTimeout.cancel();
+    }
+
+    try {
+      handleError(signalCodec, resultSignal);
+      resultFuture.complete(signalCodec.extractObject(resultSignal.getResult(), SignatureUtility.nativeDecode(resultSignal.getNativeType())));
+    } catch (Throwable throwable) {
+      resultFuture.completeExceptionally(throwable);
+    }
+  }
+
+  /**
+   * Completes the future with a {@link TransportTimeoutException}; called from the timer thread.
+   *
+   * @param timeoutSeconds the timeout that was exceeded, reported in the exception message
+   */
+  public void expire (long timeoutSeconds) {
+
+    resultFuture.completeExceptionally(new TransportTimeoutException("The timeout(%d) seconds was exceeded while waiting for a response(%s.%s)", timeoutSeconds, serviceName, functionName));
+  }
+}
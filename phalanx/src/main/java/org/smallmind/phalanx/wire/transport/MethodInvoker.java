@@ -32,11 +32,16 @@
  */
 package org.smallmind.phalanx.wire.transport;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedList;
 import org.smallmind.nutsnbolts.context.ContextFactory;
+import org.smallmind.nutsnbolts.reflection.type.TypeUtility;
 import org.smallmind.phalanx.wire.Methodology;
 import org.smallmind.phalanx.wire.MissingInvocationException;
 import org.smallmind.phalanx.wire.ServiceDefinitionException;
@@ -46,13 +51,18 @@ import org.smallmind.phalanx.wire.signal.WireContext;
 /**
  * Resolves and invokes service methods on a target implementation object based on inbound
  * {@link Function} descriptors, propagating {@link WireContext} instances onto the
- * {@link ContextFactory} stack for the duration of each call.
+ * {@link ContextFactory} stack for the duration of each call. Each method is compiled into a
+ * {@link MethodHandle} bound to the target object when the invoker is built, so a call spreads its argument
+ * array straight into the handle rather than going through {@link Method#invoke(Object, Object...)}; methods
+ * the public lookup cannot reach fall back to reflection. Partial function descriptors are resolved through
+ * an index keyed by function name.
  */
 public class MethodInvoker {
 
   private static final Class[] EMPTY_SIGNATURE = new Class[0];
   private static final Class[] OBJECT_SIGNATURE = {Object.class};
-  private final HashMap<Function, Methodology> methodMap;
+  private final HashMap<Function, Dispatch> methodMap;
+  private final HashMap<String, LinkedList<Function>> nameMap;
   private final Class<?> serviceInterface;
   private final Object targetObject;
 
@@ -77,8 +87,9 @@ public class MethodInvoker {
     this.serviceInterface = serviceInterface;
 
     methodMap = new HashMap<>();
+    nameMap = new HashMap<>();
     for (Method method : serviceInterface.getMethods()) {
-      methodMap.put(new Function(method), new Methodology(serviceInterface, method));
+      register(new Function(method), new Methodology(serviceInterface, method));
     }
 
     endpointClass = targetObject.getClass();
@@ -87,9 +98,33 @@ public class MethodInvoker {
     hashCodeMethod = endpointClass.getMethod("hashCode", EMPTY_SIGNATURE);
     equalsMethod = endpointClass.getMethod("equals", OBJECT_SIGNATURE);
 
-    methodMap.put(new Function(toStringMethod), new Methodology(serviceInterface, toStringMethod));
-    methodMap.put(new Function(hashCodeMethod), new Methodology(serviceInterface, hashCodeMethod));
-    methodMap.put(new Function(equalsMethod), new Methodology(serviceInterface, equalsMethod, new SyntheticArgument("obj", Object.class)));
+    register(new Function(toStringMethod), new Methodology(serviceInterface, toStringMethod));
+    register(new Function(hashCodeMethod), new Methodology(serviceInterface, hashCodeMethod));
+    register(new Function(equalsMethod), new Methodology(serviceInterface, equalsMethod, new SyntheticArgument("obj", Object.class)));
+  }
+
+  /**
+   * Compiles the method into a handle bound to the target object, and indexes the function by name.
+   *
+   * @param function    descriptor of the method
+   * @param methodology the method and its argument metadata
+   */
+  private void register (Function function, Methodology methodology) {
+
+    MethodHandle methodHandle;
+
+    try {
+
+      Method method = methodology.getMethod();
+
+      methodHandle = MethodHandles.publicLookup().unreflect(method).bindTo(targetObject).asSpreader(Object[].class, method.getParameterCount()).asType(MethodType.methodType(Object.class, Object[].class));
+    } catch (IllegalAccessException illegalAccessException) {
+      methodHandle = null;
+    }
+
+    if (methodMap.put(function, new Dispatch(methodology, methodHandle)) == null) {
+      nameMap.computeIfAbsent(function.getName(), (name) -> new LinkedList<>()).add(function);
+    }
   }
 
   /**
@@ -101,8 +136,10 @@ public class MethodInvoker {
    */
   public Function match (Function partialFunction) {
 
-    for (Function function : methodMap.keySet()) {
-      if (function.getName().equals(partialFunction.getName())) {
+    LinkedList<Function> namedFunctions;
+
+    if ((namedFunctions = nameMap.get(partialFunction.getName())) != null) {
+      for (Function function : namedFunctions) {
         if (((partialFunction.getSignature() == null) || Arrays.equals(partialFunction.getSignature(), function.getSignature())) && ((partialFunction.getResultType() == null) || partialFunction.getResultType().equals(function.getResultType()))) {
 
           return function;
@@ -123,13 +160,13 @@ public class MethodInvoker {
   public Methodology getMethodology (Function function)
     throws MissingInvocationException {
 
-    Methodology methodology;
+    Dispatch dispatch;
 
-    if ((methodology = methodMap.get(function)) == null) {
+    if ((dispatch = methodMap.get(function)) == null) {
       throw new MissingInvocationException("No method(%s) available in service interface(%s)", function.getName(), serviceInterface.getName());
     }
 
-    return methodology;
+    return dispatch.getMethodology();
   }
 
   /**
@@ -146,9 +183,9 @@ public class MethodInvoker {
   public Object remoteInvocation (WireContext[] contexts, Function function, Object... arguments)
     throws Exception {
 
-    Methodology methodology;
+    Dispatch dispatch;
 
-    if ((methodology = methodMap.get(function)) == null) {
+    if ((dispatch = methodMap.get(function)) == null) {
       throw new MissingInvocationException("No method(%s) available in service interface(%s)", function.getName(), serviceInterface.getName());
     }
 
@@ -161,7 +198,7 @@ public class MethodInvoker {
     }
 
     try {
-      return methodology.getMethod().invoke(targetObject, arguments);
+      return dispatch.invoke(targetObject, arguments);
     } catch (InvocationTargetException invocationTargetException) {
       if ((invocationTargetException.getCause() != null) && (invocationTargetException.getCause() instanceof Exception)) {
         throw (Exception)invocationTargetException.getCause();
@@ -178,4 +215,86 @@ public class MethodInvoker {
       }
     }
   }
+
+  /**
+   * A registered method together with its compiled handle.
+   */
+  private static class Dispatch {
+
+    private final Methodology methodology;
+    private final MethodHandle methodHandle;
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * Constructs a dispatch entry.
+     *
+     * @param methodology  the method and its argument metadata
+     * @param methodHandle the bound, spreading handle for the method, or {@code null} to invoke it reflectively
+     */
+    private Dispatch (Methodology methodology, MethodHandle methodHandle) {
+
+      this.methodology = methodology;
+      this.methodHandle = methodHandle;
+
+      parameterTypes = methodology.getMethod().getParameterTypes();
+    }
+
+    /**
+     * Returns the method and its argument metadata.
+     *
+     * @return the methodology
+     */
+    private Methodology getMethodology () {
+
+      return methodology;
+    }
+
+    /**
+     * Invokes the method, reporting anything the method itself throws as an {@link InvocationTargetException},
+     * exactly as reflection would.
+     *
+     * @param targetObject the service implementation, used only by the reflective fallback
+     * @param arguments    argument values aligned with the method signature
+     * @return the method's return value, boxed, or {@code null} for {@code void} methods
+     * @throws InvocationTargetException if the method throws
+     * @throws IllegalAccessException    if the reflective fallback cannot access the method
+     * @throws IllegalArgumentException  if the arguments do not fit the method signature
+     */
+    private Object invoke (Object targetObject, Object[] arguments)
+      throws InvocationTargetException, IllegalAccessException {
+
+      if (methodHandle == null) {
+
+        return methodology.getMethod().invoke(targetObject, arguments);
+      }
+
+      checkArguments(arguments);
+
+      try {
+        return (Object)methodHandle.invokeExact(arguments);
+      } catch (Throwable throwable) {
+        throw new InvocationTargetException(throwable);
+      }
+    }
+
+    /**
+     * Applies the checks {@link Method#invoke(Object, Object...)} makes of its arguments, so that the compiled
+     * handle's own adaptation failures are never mistaken for failures of the method.
+     *
+     * @param arguments argument values aligned with the method signature
+     * @throws IllegalArgumentException if the argument count or an argument type does not fit the method
+     */
+    private void checkArguments (Object[] arguments) {
+
+      if (((arguments == null) ? 0 : arguments.length) != parameterTypes.length) {
+        throw new IllegalArgumentException("Wrong number of arguments for " + methodology.getMethod() + ", expected " + parameterTypes.length + " but was " + ((arguments == null) ? 0 : arguments.length));
+      }
+
+      for (int index = 0; index < parameterTypes.length; index++) {
+        if (!TypeUtility.isArgumentAssignable(parameterTypes[index], arguments[index])) {
+          throw new IllegalArgumentException("Argument(" + index + ") of " + methodology.getMethod() + " requires " + parameterTypes[index].getName() + " but was " + ((arguments[index] == null) ? "null" : arguments[index].getClass().getName()));
+        }
+      }
+    }
+  }
 }
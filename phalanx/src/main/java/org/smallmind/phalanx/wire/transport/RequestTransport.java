@@ -33,6 +33,7 @@
 package org.smallmind.phalanx.wire.transport;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.smallmind.phalanx.wire.Voice;
 import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.Route;
@@ -66,6 +67,31 @@ public interface RequestTransport {
   Object transmit (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
     throws Throwable;
 
+  /**
+   * Submits an invocation as {@link #transmit(Voice, Route, Map, WireContext...)} does, but returns as soon as
+   * the request has been sent, with a future that completes when the response arrives or the call times out.
+   * Failures to send are thrown directly; everything after the send, including remote errors and timeouts,
+   * completes the future exceptionally. The default implementation simply runs the blocking transmission on
+   * the calling thread, reporting any failure through the returned future, for transports that have no
+   * asynchronous path.
+   *
+   * @param voice     voice that encodes the conversation style (in-only vs. request/reply) and routing hints
+   * @param route     route identifying the target service, version, and function
+   * @param arguments named argument map to include in the request payload
+   * @param contexts  wire contexts to propagate to the remote side
+   * @return a future of the decoded return value for request/reply calls, or of {@code null} for in-only calls
+   * @throws Throwable if submission fails
+   */
+  default CompletableFuture<Object> transmitAsynchronously (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Throwable {
+
+    try {
+      return CompletableFuture.completedFuture(transmit(voice, route, arguments, contexts));
+    } catch (Throwable throwable) {
+      return CompletableFuture.failedFuture(throwable);
+    }
+  }
+
   /**
    * Delivers an inbound result signal to the pending callback identified by {@code correlationId}.
    *
@@ -58,6 +58,27 @@ public interface ResponseTransport {
   String register (Class<?> serviceInterface, WiredService targetService)
     throws Exception;
 
+  /**
+   * Returns the limiter guarding invocation on this transport, if any.
+   *
+   * @return the adaptive concurrency limiter, or {@code null} if invocations are not adaptively limited
+   */
+  AdaptiveConcurrencyLimiter getConcurrencyLimiter ();
+
+  /**
+   * Returns the number of inbound invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  long getExpiredShedCount ();
+
+  /**
+   * Returns the number of inbound invocations refused because the adaptive concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  long getOverloadShedCount ();
+
   /**
    * Returns the current lifecycle state of this transport.
    *
@@ -55,6 +55,16 @@ public class SynchronousTransmissionCallback extends TransmissionCallback {
     this.resultSignal = resultSignal;
   }
 
+  /**
+   * Returns the already-completed result signal.
+   *
+   * @return the stored result signal
+   */
+  public ResultSignal getResultSignal () {
+
+    return resultSignal;
+  }
+
   /**
    * Returns the result immediately from the pre-stored signal without waiting.
    *
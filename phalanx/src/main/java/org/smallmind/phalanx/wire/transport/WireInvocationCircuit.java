@@ -33,12 +33,21 @@
 package org.smallmind.phalanx.wire.transport;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import org.smallmind.phalanx.wire.ArgumentRectifier;
 import org.smallmind.phalanx.wire.Methodology;
 import org.smallmind.phalanx.wire.MissingInvocationException;
 import org.smallmind.phalanx.wire.ServiceDefinitionException;
+import org.smallmind.phalanx.wire.ServiceOverloadException;
+import org.smallmind.phalanx.wire.SignatureUtility;
 import org.smallmind.phalanx.wire.TransportException;
+import org.smallmind.phalanx.wire.signal.ArgumentSchema;
 import org.smallmind.phalanx.wire.signal.Function;
 import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
@@ -53,16 +62,72 @@ import org.smallmind.web.json.scaffold.fault.FaultWrappingException;
  * <p>Services are registered by interface and version; each incoming {@link InvocationSignal} is matched
  * against the registry, the target method is invoked reflectively, and the outcome (or a fault on error)
  * is forwarded through the supplied {@link ResponseTransmitter}.  Fire-and-forget (in-only) invocations
- * suppress response transmission and log errors instead.</p>
+ * suppress response transmission and log errors instead.  Methods returning a {@link CompletionStage} do not
+ * hold the dispatching thread; the completed value is transmitted from the thread that completes the stage,
+ * under the native type of the stage's declared type argument, so that callers decode the value rather than
+ * the future.</p>
+ *
+ * <p>Before any of that work is done the circuit sheds load. An invocation whose caller deadline has
+ * already passed is dropped without a response, as nobody is waiting for it. When an
+ * {@link AdaptiveConcurrencyLimiter} has been set, an invocation arriving while the limit is reached is
+ * refused with a {@link ServiceOverloadException} fault, or silently dropped if it is in-only. Both kinds
+ * of shed invocation are counted. Transports that queue invocations for a pool of workers shed them with
+ * {@link #admit(ResponseTransmitter, String, String, InvocationSignal)} before they reach the queue, so that
+ * neither expired work nor work beyond the limit occupies it, and the latency fed back to the limiter runs
+ * from admission to completion, queueing included.</p>
  */
 public class WireInvocationCircuit {
 
   private final ConcurrentHashMap<ServiceKey, MethodInvoker> invokerMap = new ConcurrentHashMap<>();
+  private final LongAdder expiredShedCount = new LongAdder();
+  private final LongAdder overloadShedCount = new LongAdder();
+  private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  /**
+   * Returns the limiter guarding invocation, if any.
+   *
+   * @return the limiter, or {@code null} if invocations are not adaptively limited
+   */
+  public AdaptiveConcurrencyLimiter getConcurrencyLimiter () {
+
+    return concurrencyLimiter;
+  }
+
+  /**
+   * Sets the limiter guarding invocation.
+   *
+   * @param concurrencyLimiter the limiter, or {@code null} to stop adaptively limiting invocations
+   */
+  public void setConcurrencyLimiter (AdaptiveConcurrencyLimiter concurrencyLimiter) {
+
+    this.concurrencyLimiter = concurrencyLimiter;
+  }
+
+  /**
+   * Returns the number of invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  public long getExpiredShedCount () {
+
+    return expiredShedCount.sum();
+  }
+
+  /**
+   * Returns the number of invocations refused because the concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  public long getOverloadShedCount () {
+
+    return overloadShedCount.sum();
+  }
 
   /**
    * Registers a service implementation so that incoming invocation signals targeting its interface can be dispatched.
    *
-   * <p>If a service with the same version and name is already registered the call is a no-op.</p>
+   * <p>If a service with the same version and name is already registered the call is a no-op. The
+   * {@link ArgumentSchema} of each interface method is cached as well, for use by compact codecs.</p>
    *
    * @param serviceInterface the interface whose methods are exposed remotely
    * @param targetService    wrapper that carries the implementing object, service name, and version
@@ -73,6 +138,80 @@ public class WireInvocationCircuit {
     throws NoSuchMethodException, ServiceDefinitionException {
 
     invokerMap.putIfAbsent(new ServiceKey(targetService.getVersion(), targetService.getServiceName()), new MethodInvoker(targetService, serviceInterface));
+
+    for (Method method : serviceInterface.getMethods()) {
+      ArgumentSchema.register(targetService.getVersion(), targetService.getServiceName(), method);
+    }
+  }
+
+  /**
+   * Sheds the invocation if its caller has given up or the concurrency limit has been reached, and
+   * otherwise admits it, taking a limiter permit that is held until the admitted invocation is handled.
+   * A refused invocation is answered with a {@link ServiceOverloadException} fault unless it is in-only.
+   *
+   * @param transmitter      transmitter through which a refusal is sent to the caller
+   * @param callerId         transport-level identifier of the originating caller
+   * @param messageId        correlation identifier used to match this response to the original request
+   * @param invocationSignal the incoming signal describing the service, function, arguments, and contexts
+   * @return the admitted invocation, to be handed to {@link #handle(ResponseTransmitter, SignalCodec, AdmittedInvocation)},
+   * or {@code null} if the invocation was shed
+   */
+  public AdmittedInvocation admit (ResponseTransmitter transmitter, String callerId, String messageId, InvocationSignal invocationSignal) {
+
+    AdaptiveConcurrencyLimiter limiter;
+
+    if (invocationSignal.isExpired(System.currentTimeMillis())) {
+      expiredShedCount.increment();
+
+      return null;
+    } else if (((limiter = concurrencyLimiter) != null) && (!limiter.tryAcquire())) {
+      overloadShedCount.increment();
+
+      if (!invocationSignal.isInOnly()) {
+        try {
+          transmitter.transmit(callerId, messageId, true, null, new Fault(new FaultElement(invocationSignal.getRoute().getService(), invocationSignal.getRoute().getFunction().getName()), new ServiceOverloadException("Service(%s) is at its concurrency limit(%d)", invocationSignal.getRoute().getService(), limiter.getLimit())));
+        } catch (Throwable throwable) {
+          LoggerManager.getLogger(WireInvocationCircuit.class).error(throwable);
+        }
+      }
+
+      return null;
+    }
+
+    return new AdmittedInvocation(callerId, messageId, invocationSignal, limiter);
+  }
+
+  /**
+   * Dispatches an admitted invocation as {@link #invoke(ResponseTransmitter, SignalCodec, String, String, InvocationSignal, Runnable)}
+   * does, releasing its limiter permit once the response, up to the completion of any returned stage, has
+   * been transmitted.
+   *
+   * @param transmitter        transmitter through which the response or fault is sent to the caller
+   * @param signalCodec        codec used to deserialise invocation arguments from the signal payload
+   * @param admittedInvocation the invocation, as admitted by {@link #admit(ResponseTransmitter, String, String, InvocationSignal)}
+   */
+  public void handle (ResponseTransmitter transmitter, SignalCodec signalCodec, AdmittedInvocation admittedInvocation) {
+
+    invoke(transmitter, signalCodec, admittedInvocation.getCallerId(), admittedInvocation.getMessageId(), admittedInvocation.getInvocationSignal(), admittedInvocation::release);
+  }
+
+  /**
+   * Admits and, unless it is shed, at once dispatches the invocation, for transports that dispatch on the
+   * thread that receives the invocation.
+   *
+   * @param transmitter      transmitter through which the response or fault is sent to the caller
+   * @param signalCodec      codec used to deserialise invocation arguments from the signal payload
+   * @param callerId         transport-level identifier of the originating caller
+   * @param messageId        correlation identifier used to match this response to the original request
+   * @param invocationSignal the incoming signal describing the service, function, arguments, and contexts
+   */
+  public void handle (ResponseTransmitter transmitter, SignalCodec signalCodec, String callerId, String messageId, InvocationSignal invocationSignal) {
+
+    AdmittedInvocation admittedInvocation;
+
+    if ((admittedInvocation = admit(transmitter, callerId, messageId, invocationSignal)) != null) {
+      handle(transmitter, signalCodec, admittedInvocation);
+    }
   }
 
   /**
@@ -80,69 +219,144 @@ public class WireInvocationCircuit {
    *
    * <p>Partial function descriptors are resolved to their complete form before invocation.  On success
    * the return value is sent via {@code transmitter}; on failure a {@link Fault} is sent instead.
-   * For in-only invocations errors are only logged and no response is transmitted.  Any throwable
-   * escaping the transmission step is caught and logged to prevent thread termination.</p>
+   * For in-only invocations errors are only logged and no response is transmitted.  A method returning a
+   * {@link CompletionStage} does not hold the calling thread while the stage is pending; its outcome is
+   * transmitted from whichever thread completes the stage.  Any throwable escaping the transmission step is
+   * caught and logged to prevent thread termination.</p>
    *
    * @param transmitter      transmitter through which the response or fault is sent to the caller
    * @param signalCodec      codec used to deserialise invocation arguments from the signal payload
    * @param callerId         transport-level identifier of the originating caller
    * @param messageId        correlation identifier used to match this response to the original request
    * @param invocationSignal the incoming signal describing the service, function, arguments, and contexts
+   * @param completion       run exactly once, after the response has been transmitted or the failure logged
    */
-  public void handle (ResponseTransmitter transmitter, SignalCodec signalCodec, String callerId, String messageId, InvocationSignal invocationSignal) {
-
-    MethodInvoker methodInvoker;
-    Object result = null;
-    String nativeType = null;
-    boolean error = false;
+  private void invoke (ResponseTransmitter transmitter, SignalCodec signalCodec, String callerId, String messageId, InvocationSignal invocationSignal, Runnable completion) {
 
     try {
-      try {
 
-        Function invocationFunction;
-        Methodology methodology;
-        Object[] arguments;
+      MethodInvoker methodInvoker;
+      Function invocationFunction;
+      Methodology methodology;
+      Object[] arguments;
+      Object result;
+
+      if ((methodInvoker = invokerMap.get(new ServiceKey(invocationSignal.getRoute().getVersion(), invocationSignal.getRoute().getService()))) == null) {
+        throw new ServiceDefinitionException("Unregistered service(version = %d, name = %s)", invocationSignal.getRoute().getVersion(), invocationSignal.getRoute().getService());
+      }
+      if ((invocationFunction = invocationSignal.getRoute().getFunction()).isPartial()) {
 
-        if ((methodInvoker = invokerMap.get(new ServiceKey(invocationSignal.getRoute().getVersion(), invocationSignal.getRoute().getService()))) == null) {
-          throw new ServiceDefinitionException("Unregistered service(version = %d, name = %s)", invocationSignal.getRoute().getVersion(), invocationSignal.getRoute().getService());
+        Function completeFunction;
+
+        if ((completeFunction = methodInvoker.match(invocationFunction)) == null) {
+          throw new MissingInvocationException("Unable to locate the proper method for the partial function(%s) of service(%s)", invocationFunction.getName(), invocationSignal.getRoute().getService());
         }
-        if ((invocationFunction = invocationSignal.getRoute().getFunction()).isPartial()) {
 
-          Function completeFunction;
+        invocationFunction = completeFunction;
+      }
 
-          if ((completeFunction = methodInvoker.match(invocationFunction)) == null) {
-            throw new MissingInvocationException("Unable to locate the proper method for the partial function(%s) of service(%s)", invocationFunction.getName(), invocationSignal.getRoute().getService());
-          }
+      methodology = methodInvoker.getMethodology(invocationFunction);
+      arguments = ArgumentRectifier.constructArray(signalCodec, invocationSignal, invocationFunction, methodology);
+      result = methodInvoker.remoteInvocation(invocationSignal.getContexts(), invocationFunction, arguments);
 
-          invocationFunction = completeFunction;
-        }
+      if (result instanceof CompletionStage) {
 
-        methodology = methodInvoker.getMethodology(invocationFunction);
-        arguments = ArgumentRectifier.constructArray(signalCodec, invocationSignal, invocationFunction, methodology);
-        nativeType = invocationFunction.getNativeType();
+        String completionType = SignatureUtility.nativeEncode(getCompletionType(methodology.getMethod()));
 
-        result = methodInvoker.remoteInvocation(invocationSignal.getContexts(), invocationFunction, arguments);
+        ((CompletionStage<?>)result).whenComplete((value, throwable) -> {
+          try {
+            if (throwable == null) {
+              respond(transmitter, callerId, messageId, invocationSignal, completionType, value);
+            } else {
+              fail(transmitter, callerId, messageId, invocationSignal, ((throwable instanceof CompletionException) && (throwable.getCause() != null)) ? throwable.getCause() : throwable);
+            }
+          } finally {
+            completion.run();
+          }
+        });
 
-        if ((result != null) && (!(result instanceof Serializable))) {
-          throw new TransportException("The result(%s) of this call is not Serializable", result.getClass().getName());
-        }
-      } catch (Exception exception) {
-        if (invocationSignal.isInOnly()) {
-          LoggerManager.getLogger(WireInvocationCircuit.class).error(exception);
-        } else {
-          error = true;
-          result = (exception instanceof FaultWrappingException) ? ((FaultWrappingException)exception).getFault() : new Fault(new FaultElement(invocationSignal.getRoute().getService(), invocationSignal.getRoute().getFunction().getName()), exception);
-        }
+        return;
       }
 
-      if (!invocationSignal.isInOnly()) {
-        transmitter.transmit(callerId, messageId, error, nativeType, result);
-      }
+      respond(transmitter, callerId, messageId, invocationSignal, invocationFunction.getNativeType(), result);
     } catch (Throwable throwable) {
+      fail(transmitter, callerId, messageId, invocationSignal, throwable);
+    }
+
+    completion.run();
+  }
+
+  /**
+   * Transmits the value of a successful invocation, or a fault if the value cannot be serialized.
+   *
+   * @param transmitter      transmitter through which the response is sent to the caller
+   * @param callerId         transport-level identifier of the originating caller
+   * @param messageId        correlation identifier used to match this response to the original request
+   * @param invocationSignal the signal being answered
+   * @param nativeType       the native encoding of the value's declared type
+   * @param result           the value returned by the service
+   */
+  private void respond (ResponseTransmitter transmitter, String callerId, String messageId, InvocationSignal invocationSignal, String nativeType, Object result) {
+
+    if ((result != null) && (!(result instanceof Serializable))) {
+      fail(transmitter, callerId, messageId, invocationSignal, new TransportException("The result(%s) of this call is not Serializable", result.getClass().getName()));
+    } else if (!invocationSignal.isInOnly()) {
+      try {
+        transmitter.transmit(callerId, messageId, false, nativeType, result);
+      } catch (Throwable throwable) {
+        LoggerManager.getLogger(WireInvocationCircuit.class).error(throwable);
+      }
+    }
+  }
+
+  /**
+   * Transmits the failure of an invocation as a fault, or only logs it if the invocation is in-only.
+   *
+   * @param transmitter      transmitter through which the fault is sent to the caller
+   * @param callerId         transport-level identifier of the originating caller
+   * @param messageId        correlation identifier used to match this response to the original request
+   * @param invocationSignal the signal being answered
+   * @param throwable        the failure
+   */
+  private void fail (ResponseTransmitter transmitter, String callerId, String messageId, InvocationSignal invocationSignal, Throwable throwable) {
+
+    if (invocationSignal.isInOnly()) {
       LoggerManager.getLogger(WireInvocationCircuit.class).error(throwable);
+    } else {
+      try {
+        transmitter.transmit(callerId, messageId, true, null, (throwable instanceof FaultWrappingException) ? ((FaultWrappingException)throwable).getFault() : new Fault(new FaultElement(invocationSignal.getRoute().getService(), invocationSignal.getRoute().getFunction().getName()), throwable));
+      } catch (Throwable transmitThrowable) {
+        LoggerManager.getLogger(WireInvocationCircuit.class).error(transmitThrowable);
+      }
     }
   }
 
+  /**
+   * Resolves the declared value type of a method returning a completion stage.
+   *
+   * @param method the service method
+   * @return the raw class of the stage's type argument, or {@link Object} if it is not a concrete type
+   */
+  private Class<?> getCompletionType (Method method) {
+
+    Type returnType;
+
+    if ((returnType = method.getGenericReturnType()) instanceof ParameterizedType) {
+
+      Type valueType = ((ParameterizedType)returnType).getActualTypeArguments()[0];
+
+      if (valueType instanceof Class) {
+
+        return (Class<?>)valueType;
+      } else if ((valueType instanceof ParameterizedType) && (((ParameterizedType)valueType).getRawType() instanceof Class)) {
+
+        return (Class<?>)((ParameterizedType)valueType).getRawType();
+      }
+    }
+
+    return Object.class;
+  }
+
   /**
    * Composite map key that identifies a registered service by its numeric version and logical name.
    *
@@ -0,0 +1,628 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport.amqp.rabbitmq;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import org.smallmind.scribe.pen.LoggerManager;
+
+/**
+ * Publishes messages round-robin over a pool of channels in publisher confirm mode, tracking each
+ * message's confirm by its delivery tag.  The broker may acknowledge a whole range of tags at once
+ * ({@code multiple = true}), which settles every outstanding message up to and including the tag in a
+ * single pass.  Each channel bounds the messages awaiting their confirm by a window; publishes arriving
+ * while the window is full are parked in a bounded backlog and sent as the window frees, so callers are
+ * only held up once the backlog is full as well.  Confirms arrive on the connection's own threads, which
+ * must not publish or open channels, so the backlog freed by a confirm is sent from this publisher's
+ * drain thread instead.
+ *
+ * <p>Every publish returns a future completed by the message's confirm, or completed exceptionally by
+ * its nack, by the loss of its channel, or by the closing of this publisher.  A lost channel is replaced
+ * on the next send.</p>
+ */
+public class ConfirmingPublisher {
+
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final AtomicInteger roundRobin = new AtomicInteger(0);
+  private final RabbitMQConnector connector;
+  private final PublisherConfirmationHandler publisherConfirmationHandler;
+  private final ConfirmChannel[] confirmChannels;
+  private final ExecutorService drainExecutor;
+  private Connection connection;
+
+  /**
+   * Creates the publisher; channels are opened on first use.
+   *
+   * @param connector                    connector for opening the connection shared by the channels.
+   * @param publishPolicy                channel count, confirm window and backlog configuration.
+   * @param publisherConfirmationHandler optional handler whose listener is also attached to every channel; may be {@code null}.
+   */
+  public ConfirmingPublisher (RabbitMQConnector connector, RabbitMQPublishPolicy publishPolicy, PublisherConfirmationHandler publisherConfirmationHandler) {
+
+    if (publishPolicy.getChannelCount() <= 0) {
+      throw new IllegalArgumentException("The channel count must be > 0");
+    }
+    if (publishPolicy.getConfirmWindow() <= 0) {
+      throw new IllegalArgumentException("The confirm window must be > 0");
+    }
+    if (publishPolicy.getBacklogCapacity() <= 0) {
+      throw new IllegalArgumentException("The backlog capacity must be > 0");
+    }
+
+    this.connector = connector;
+    this.publisherConfirmationHandler = publisherConfirmationHandler;
+
+    confirmChannels = new ConfirmChannel[publishPolicy.getChannelCount()];
+    for (int index = 0; index < confirmChannels.length; index++) {
+      confirmChannels[index] = new ConfirmChannel(publishPolicy.getConfirmWindow(), publishPolicy.getBacklogCapacity());
+    }
+
+    drainExecutor = Executors.newSingleThreadExecutor((runnable) -> {
+
+      Thread drainThread = new Thread(runnable, "phalanx-confirm-drain");
+
+      drainThread.setDaemon(true);
+
+      return drainThread;
+    });
+  }
+
+  /**
+   * Returns the number of messages sent but not yet confirmed, across all channels.
+   *
+   * @return the outstanding confirm count.
+   */
+  public int getOutstandingCount () {
+
+    int outstandingCount = 0;
+
+    for (ConfirmChannel confirmChannel : confirmChannels) {
+      outstandingCount += confirmChannel.getOutstandingCount();
+    }
+
+    return outstandingCount;
+  }
+
+  /**
+   * Returns the number of publishes parked behind full confirm windows, across all channels.
+   *
+   * @return the backlog count.
+   */
+  public int getBacklogCount () {
+
+    int backlogCount = 0;
+
+    for (ConfirmChannel confirmChannel : confirmChannels) {
+      backlogCount += confirmChannel.getBacklogCount();
+    }
+
+    return backlogCount;
+  }
+
+  /**
+   * Publishes a message on the next channel in turn.  Returns at once unless that channel's backlog is
+   * full, in which case the caller waits for room.
+   *
+   * @param exchangeName exchange to publish to.
+   * @param routingKey   binding key for the target queue.
+   * @param properties   message properties.
+   * @param body         message payload.
+   * @return a future completed once the broker confirms the message.
+   * @throws InterruptedException if interrupted while waiting for room in the backlog.
+   */
+  public CompletableFuture<Void> publish (String exchangeName, String routingKey, AMQP.BasicProperties properties, byte[] body)
+    throws InterruptedException {
+
+    PendingPublish pendingPublish = new PendingPublish(exchangeName, routingKey, properties, body);
+
+    if (closed.get()) {
+      pendingPublish.fail(new IOException("The publisher has been closed"));
+    } else {
+      confirmChannels[Math.floorMod(roundRobin.getAndIncrement(), confirmChannels.length)].publish(pendingPublish);
+    }
+
+    return pendingPublish.getFuture();
+  }
+
+  /**
+   * Opens a channel in confirm mode on the shared connection, replacing the connection if it has been lost.
+   *
+   * @return the new channel.
+   * @throws IOException      if the connection or channel cannot be opened.
+   * @throws TimeoutException if opening the connection times out.
+   */
+  private synchronized Channel openChannel ()
+    throws IOException, TimeoutException {
+
+    Channel channel;
+
+    if (closed.get()) {
+      throw new IOException("The publisher has been closed");
+    }
+    if ((connection == null) || (!connection.isOpen())) {
+      connection = connector.getConnection();
+    }
+    if ((channel = connection.createChannel()) == null) {
+      throw new IOException("No channel is available");
+    }
+
+    channel.confirmSelect();
+
+    return channel;
+  }
+
+  /**
+   * Fails every parked and outstanding publish, stops the drain thread, then closes the shared connection.
+   *
+   * @throws IOException if closing the connection fails.
+   */
+  public void close ()
+    throws IOException {
+
+    if (closed.compareAndSet(false, true)) {
+      for (ConfirmChannel confirmChannel : confirmChannels) {
+        confirmChannel.abandon();
+      }
+
+      drainExecutor.shutdown();
+
+      synchronized (this) {
+        if ((connection != null) && connection.isOpen()) {
+          connection.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * One pooled channel with its confirm window, backlog and current channel incarnation.
+   */
+  private class ConfirmChannel {
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Semaphore window;
+    private final ArrayBlockingQueue<PendingPublish> backlogQueue;
+    private ChannelState channelState;
+
+    /**
+     * Creates the pooled channel.
+     *
+     * @param confirmWindow   the number of messages that may await their confirm at once.
+     * @param backlogCapacity the number of publishes parked while the window is full.
+     */
+    private ConfirmChannel (int confirmWindow, int backlogCapacity) {
+
+      window = new Semaphore(confirmWindow);
+      backlogQueue = new ArrayBlockingQueue<>(backlogCapacity);
+    }
+
+    /**
+     * Returns the number of messages sent on the current incarnation and not yet confirmed.
+     *
+     * @return the outstanding confirm count.
+     */
+    private synchronized int getOutstandingCount () {
+
+      return (channelState == null) ? 0 : channelState.getOutstandingMap().size();
+    }
+
+    /**
+     * Returns the number of parked publishes.
+     *
+     * @return the backlog count.
+     */
+    private int getBacklogCount () {
+
+      return backlogQueue.size();
+    }
+
+    /**
+     * Sends the publish if the window has room and nothing is parked ahead of it, and otherwise parks it.
+     *
+     * @param pendingPublish the publish.
+     * @throws InterruptedException if interrupted while waiting for room in the backlog.
+     */
+    private void publish (PendingPublish pendingPublish)
+      throws InterruptedException {
+
+      if (backlogQueue.isEmpty() && window.tryAcquire()) {
+        transmit(pendingPublish);
+      } else {
+        while (!backlogQueue.offer(pendingPublish, 100, TimeUnit.MILLISECONDS)) {
+          if (closed.get()) {
+            pendingPublish.fail(new IOException("The publisher has been closed"));
+
+            return;
+          }
+        }
+
+        drain();
+      }
+    }
+
+    /**
+     * Sends parked publishes for as long as the window has room.
+     */
+    private void drain () {
+
+      PendingPublish pendingPublish;
+
+      while ((!backlogQueue.isEmpty()) && window.tryAcquire()) {
+        if ((pendingPublish = backlogQueue.poll()) == null) {
+          // Another thread emptied the backlog; loop back so a publish parked meanwhile is not stranded.
+          window.release();
+        } else {
+          transmit(pendingPublish);
+        }
+      }
+    }
+
+    /**
+     * Hands draining to the drain thread, unless a drain of this channel is already waiting there.  The
+     * flag is cleared before the drain runs, so permits freed while it runs schedule another pass.
+     */
+    private void scheduleDrain () {
+
+      if (drainScheduled.compareAndSet(false, true)) {
+        try {
+          drainExecutor.execute(() -> {
+            drainScheduled.set(false);
+            drain();
+          });
+        } catch (RejectedExecutionException rejectedExecutionException) {
+          // The publisher has been closed, and its backlog abandoned along with the drain thread.
+          drainScheduled.set(false);
+        }
+      }
+    }
+
+    /**
+     * Sends a publish that holds a window permit, registering it under its delivery tag first.  On
+     * failure the permit is returned and the publish failed.
+     *
+     * @param pendingPublish the publish.
+     */
+    private synchronized void transmit (PendingPublish pendingPublish) {
+
+      ChannelState currentState;
+      long deliveryTag;
+
+      try {
+        currentState = ensureChannelState();
+      } catch (IOException | TimeoutException exception) {
+        window.release();
+        pendingPublish.fail(exception);
+
+        return;
+      }
+
+      currentState.getOutstandingMap().put(deliveryTag = currentState.getChannel().getNextPublishSeqNo(), pendingPublish);
+      try {
+        currentState.getChannel().basicPublish(pendingPublish.getExchangeName(), pendingPublish.getRoutingKey(), true, false, pendingPublish.getProperties(), pendingPublish.getBody());
+      } catch (IOException | RuntimeException exception) {
+        if (currentState.getOutstandingMap().remove(deliveryTag) != null) {
+          window.release();
+        }
+
+        pendingPublish.fail(exception);
+      }
+    }
+
+    /**
+     * Returns the current channel incarnation, opening a new one if there is none or it has closed.
+     *
+     * @return the open channel incarnation.
+     * @throws IOException      if the channel cannot be opened.
+     * @throws TimeoutException if opening the connection times out.
+     */
+    private ChannelState ensureChannelState ()
+      throws IOException, TimeoutException {
+
+      if ((channelState == null) || (!channelState.getChannel().isOpen())) {
+
+        final ChannelState nextState = new ChannelState(openChannel());
+
+        nextState.getChannel().addConfirmListener(new ConfirmListener() {
+
+          @Override
+          public void handleAck (long deliveryTag, boolean multiple) {
+
+            settle(nextState, deliveryTag, multiple, null);
+          }
+
+          @Override
+          public void handleNack (long deliveryTag, boolean multiple) {
+
+            settle(nextState, deliveryTag, multiple, new IOException("The broker rejected the message(" + deliveryTag + ")"));
+          }
+        });
+        if (publisherConfirmationHandler != null) {
+          nextState.getChannel().addConfirmListener(publisherConfirmationHandler.generateConfirmListener());
+        }
+        // Listeners run on the connection's own threads, so the lost publishes are failed but their
+        // replacement channel is left to the next send, or the drain thread, rather than opened from there.
+        nextState.getChannel().addShutdownListener((cause) -> fail(nextState, cause));
+
+        channelState = nextState;
+      }
+
+      return channelState;
+    }
+
+    /**
+     * Completes the publishes settled by a confirm, returns their permits, and schedules the parked
+     * publishes the freed window admits to be sent from the drain thread.
+     *
+     * @param confirmedState the channel incarnation the confirm arrived on.
+     * @param deliveryTag    the confirmed delivery tag.
+     * @param multiple       {@code true} if every tag up to and including {@code deliveryTag} is settled.
+     * @param cause          {@code null} for an ack, or the failure for a nack.
+     */
+    private void settle (ChannelState confirmedState, long deliveryTag, boolean multiple, Exception cause) {
+
+      ConcurrentSkipListMap<Long, PendingPublish> outstandingMap = confirmedState.getOutstandingMap();
+      int settledCount = 0;
+
+      if (multiple) {
+
+        Map.Entry<Long, PendingPublish> firstEntry;
+        PendingPublish pendingPublish;
+
+        while (((firstEntry = outstandingMap.firstEntry()) != null) && (firstEntry.getKey() <= deliveryTag)) {
+          if ((pendingPublish = outstandingMap.remove(firstEntry.getKey())) != null) {
+            pendingPublish.settle(cause);
+            settledCount++;
+          }
+        }
+      } else {
+
+        PendingPublish pendingPublish;
+
+        if ((pendingPublish = outstandingMap.remove(deliveryTag)) != null) {
+          pendingPublish.settle(cause);
+          settledCount++;
+        }
+      }
+
+      if (settledCount > 0) {
+        window.release(settledCount);
+        if (!backlogQueue.isEmpty()) {
+          scheduleDrain();
+        }
+      }
+    }
+
+    /**
+     * Fails the publishes outstanding on a lost channel incarnation, returns their permits, and schedules
+     * any parked publishes to be sent on a replacement channel from the drain thread.
+     *
+     * @param lostState the channel incarnation that was lost.
+     * @param cause     the reason it was lost.
+     */
+    private void fail (ChannelState lostState, Exception cause) {
+
+      ConcurrentSkipListMap<Long, PendingPublish> outstandingMap = lostState.getOutstandingMap();
+      Map.Entry<Long, PendingPublish> firstEntry;
+      int failedCount = 0;
+
+      while ((firstEntry = outstandingMap.pollFirstEntry()) != null) {
+        firstEntry.getValue().fail(cause);
+        failedCount++;
+      }
+
+      if (failedCount > 0) {
+        window.release(failedCount);
+        if ((!closed.get()) && (!backlogQueue.isEmpty())) {
+          scheduleDrain();
+        }
+      }
+    }
+
+    /**
+     * Fails every parked and outstanding publish once the publisher is closed.
+     */
+    private void abandon () {
+
+      IOException closedException = new IOException("The publisher has been closed");
+      PendingPublish pendingPublish;
+
+      while ((pendingPublish = backlogQueue.poll()) != null) {
+        pendingPublish.fail(closedException);
+      }
+
+      synchronized (this) {
+        if (channelState != null) {
+          fail(channelState, closedException);
+        }
+      }
+    }
+  }
+
+  /**
+   * One incarnation of a pooled channel, with the publishes sent on it that await their confirm keyed
+   * by delivery tag.  Tags restart with each incarnation, so they are never shared between incarnations.
+   */
+  private static class ChannelState {
+
+    private final ConcurrentSkipListMap<Long, PendingPublish> outstandingMap = new ConcurrentSkipListMap<>();
+    private final Channel channel;
+
+    /**
+     * Wraps a freshly opened channel.
+     *
+     * @param channel the channel, already in confirm mode.
+     */
+    private ChannelState (Channel channel) {
+
+      this.channel = channel;
+    }
+
+    /**
+     * Returns the channel.
+     *
+     * @return the channel.
+     */
+    private Channel getChannel () {
+
+      return channel;
+    }
+
+    /**
+     * Returns the publishes awaiting their confirm.
+     *
+     * @return outstanding publishes keyed by delivery tag.
+     */
+    private ConcurrentSkipListMap<Long, PendingPublish> getOutstandingMap () {
+
+      return outstandingMap;
+    }
+  }
+
+  /**
+   * A message to publish together with the future its confirm completes.
+   */
+  private static class PendingPublish {
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final AMQP.BasicProperties properties;
+    private final String exchangeName;
+    private final String routingKey;
+    private final byte[] body;
+
+    /**
+     * Creates the pending publish.
+     *
+     * @param exchangeName exchange to publish to.
+     * @param routingKey   binding key for the target queue.
+     * @param properties   message properties.
+     * @param body         message payload.
+     */
+    private PendingPublish (String exchangeName, String routingKey, AMQP.BasicProperties properties, byte[] body) {
+
+      this.exchangeName = exchangeName;
+      this.routingKey = routingKey;
+      this.properties = properties;
+      this.body = body;
+    }
+
+    /**
+     * Returns the future completed by the message's confirm.
+     *
+     * @return the confirm future.
+     */
+    private CompletableFuture<Void> getFuture () {
+
+      return future;
+    }
+
+    /**
+     * Returns the exchange to publish to.
+     *
+     * @return exchange name.
+     */
+    private String getExchangeName () {
+
+      return exchangeName;
+    }
+
+    /**
+     * Returns the binding key for the target queue.
+     *
+     * @return routing key.
+     */
+    private String getRoutingKey () {
+
+      return routingKey;
+    }
+
+    /**
+     * Returns the message properties.
+     *
+     * @return message properties.
+     */
+    private AMQP.BasicProperties getProperties () {
+
+      return properties;
+    }
+
+    /**
+     * Returns the message payload.
+     *
+     * @return message body.
+     */
+    private byte[] getBody () {
+
+      return body;
+    }
+
+    /**
+     * Completes the future by the outcome of a confirm.
+     *
+     * @param cause {@code null} for an ack, or the failure for a nack.
+     */
+    private void settle (Exception cause) {
+
+      if (cause == null) {
+        future.complete(null);
+      } else {
+        future.completeExceptionally(cause);
+      }
+    }
+
+    /**
+     * Completes the future exceptionally.
+     *
+     * @param cause the failure.
+     */
+    private void fail (Exception cause) {
+
+      future.completeExceptionally(cause);
+      LoggerManager.getLogger(ConfirmingPublisher.class).debug("Publish to exchange(%s) with routing key(%s) failed: %s", exchangeName, routingKey, cause.getMessage());
+    }
+  }
+}
@@ -32,39 +32,36 @@
  */
 package org.smallmind.phalanx.wire.transport.amqp.rabbitmq;
 
-import java.util.Map;
 import org.smallmind.claxon.registry.Instrument;
 import org.smallmind.claxon.registry.Tag;
 import org.smallmind.claxon.registry.meter.MeterFactory;
 import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
 import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdmittedInvocation;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.WireInvocationCircuit;
-import org.smallmind.phalanx.wire.transport.WireProperty;
 import org.smallmind.phalanx.worker.WorkQueue;
 import org.smallmind.phalanx.worker.Worker;
 
 /**
- * Worker that decodes RabbitMQ invocation messages and dispatches them through the invocation circuit.
+ * Worker that dispatches RabbitMQ invocations, already decoded and admitted, through the invocation circuit.
  */
-public class InvocationWorker extends Worker<RabbitMQMessage> {
-
-  private static final String CALLER_ID_AMQP_KEY = "x-opt-" + WireProperty.CALLER_ID.getKey();
+public class InvocationWorker extends Worker<AdmittedInvocation> {
 
   private final ResponseTransmitter responseTransmitter;
   private final WireInvocationCircuit invocationCircuit;
   private final SignalCodec signalCodec;
 
   /**
-   * Creates a worker wired to decode and execute RabbitMQ invocation messages.
+   * Creates a worker wired to execute RabbitMQ invocations.
    *
-   * @param workQueue           queue supplying incoming RabbitMQ messages.
+   * @param workQueue           queue supplying admitted invocations.
    * @param responseTransmitter transport used to publish results back to callers.
    * @param invocationCircuit   circuit that routes invocations to service implementations.
-   * @param signalCodec         codec for decoding {@link org.smallmind.phalanx.wire.signal.InvocationSignal} payloads.
+   * @param signalCodec         codec for decoding invocation arguments.
    */
-  public InvocationWorker (WorkQueue<RabbitMQMessage> workQueue, ResponseTransmitter responseTransmitter, WireInvocationCircuit invocationCircuit, SignalCodec signalCodec) {
+  public InvocationWorker (WorkQueue<AdmittedInvocation> workQueue, ResponseTransmitter responseTransmitter, WireInvocationCircuit invocationCircuit, SignalCodec signalCodec) {
 
     super(workQueue);
 
@@ -74,38 +71,22 @@ public class InvocationWorker extends Worker<RabbitMQMessage> {
   }
 
   /**
-   * Decodes the invocation payload and performs the invocation using the circuit.
+   * Performs the invocation using the circuit.
    *
-   * @param message RabbitMQ message containing an invocation.
-   * @throws Throwable if decoding or invocation fails.
+   * @param admittedInvocation the admitted invocation.
+   * @throws Throwable if the invocation fails.
    */
   @Override
-  public void engageWork (final RabbitMQMessage message)
+  public void engageWork (final AdmittedInvocation admittedInvocation)
     throws Throwable {
 
-    InvocationSignal invocationSignal = signalCodec.decode(message.getBody(), 0, message.getBody().length, InvocationSignal.class);
+    InvocationSignal invocationSignal = admittedInvocation.getInvocationSignal();
 
     Instrument.with(InvocationWorker.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("operation", "invoke"), new Tag("service", invocationSignal.getRoute().getService()), new Tag("method", invocationSignal.getRoute().getFunction().getName()), new Tag("version", Integer.toString(invocationSignal.getRoute().getVersion()))).on(
-      () -> invocationCircuit.handle(responseTransmitter, signalCodec, getCallerId(message.getProperties().getHeaders()), message.getProperties().getMessageId(), invocationSignal)
+      () -> invocationCircuit.handle(responseTransmitter, signalCodec, admittedInvocation)
     );
   }
 
-  /**
-   * Extracts the caller id from AMQP headers if present.
-   *
-   * @param headers message headers.
-   * @return caller id string or {@code null} when absent.
-   */
-  private String getCallerId (Map<String, Object> headers) {
-
-    if ((headers != null) && (headers.containsKey(CALLER_ID_AMQP_KEY))) {
-
-      return headers.get(CALLER_ID_AMQP_KEY).toString();
-    }
-
-    return null;
-  }
-
   /**
    * Closes any resources owned by the worker. No-op because resources are managed externally.
    */
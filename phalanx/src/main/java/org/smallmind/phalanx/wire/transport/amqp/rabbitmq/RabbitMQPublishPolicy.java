@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport.amqp.rabbitmq;
+
+/**
+ * Holder for the confirm-tracked publishing configuration of a {@link RabbitMQRequestTransport}.
+ *
+ * <p>Invocations are published round-robin over a pool of {@code channelCount} channels in confirm
+ * mode, each of which allows at most {@code confirmWindow} messages to await their broker confirm.
+ * Publishes arriving while a channel's window is full are parked in a backlog of
+ * {@code backlogCapacity} entries and sent as confirms free the window; only when the backlog is full
+ * too do callers block.  Defaults are 4 channels, a window of 256, and a backlog of 1024.</p>
+ */
+public class RabbitMQPublishPolicy {
+
+  private int channelCount = 4;
+  private int confirmWindow = 256;
+  private int backlogCapacity = 1024;
+
+  /**
+   * Returns the number of confirm-mode channels publishes are spread over.
+   *
+   * @return the channel count
+   */
+  public int getChannelCount () {
+
+    return channelCount;
+  }
+
+  /**
+   * Sets the number of confirm-mode channels publishes are spread over.
+   *
+   * @param channelCount the channel count; must be positive
+   */
+  public void setChannelCount (int channelCount) {
+
+    this.channelCount = channelCount;
+  }
+
+  /**
+   * Returns the number of messages per channel that may await their broker confirm at once.
+   *
+   * @return the per-channel confirm window
+   */
+  public int getConfirmWindow () {
+
+    return confirmWindow;
+  }
+
+  /**
+   * Sets the number of messages per channel that may await their broker confirm at once.
+   *
+   * @param confirmWindow the per-channel confirm window; must be positive
+   */
+  public void setConfirmWindow (int confirmWindow) {
+
+    this.confirmWindow = confirmWindow;
+  }
+
+  /**
+   * Returns the number of publishes per channel parked while its confirm window is full.
+   *
+   * @return the per-channel backlog capacity
+   */
+  public int getBacklogCapacity () {
+
+    return backlogCapacity;
+  }
+
+  /**
+   * Sets the number of publishes per channel parked while its confirm window is full, beyond which
+   * callers block.
+   *
+   * @param backlogCapacity the per-channel backlog capacity; must be positive
+   */
+  public void setBacklogCapacity (int backlogCapacity) {
+
+    this.backlogCapacity = backlogCapacity;
+  }
+}
@@ -34,6 +34,7 @@ package org.smallmind.phalanx.wire.transport.amqp.rabbitmq;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -66,6 +67,7 @@ public class RabbitMQRequestTransport extends AbstractRequestTransport {
   private final SignalCodec signalCodec;
   private final LinkedBlockingQueue<RequestMessageRouter> routerQueue;
   private final RequestMessageRouter[] requestMessageRouters;
+  private final ConfirmingPublisher confirmingPublisher;
   private final String callerId = SnowflakeId.newInstance().generateDottedString();
 
   /**
@@ -88,15 +90,43 @@ public class RabbitMQRequestTransport extends AbstractRequestTransport {
   public RabbitMQRequestTransport (RabbitMQConnector rabbitMQConnector, QueueContractor ephemeralQueueContractor, NameConfiguration nameConfiguration, SignalCodec signalCodec, int clusterSize, int concurrencyLimit, long defaultTimeoutSeconds, int messageTTLSeconds, boolean autoAcknowledge, PublisherConfirmationHandler publisherConfirmationHandler)
     throws IOException, TimeoutException {
 
+    this(rabbitMQConnector, ephemeralQueueContractor, nameConfiguration, signalCodec, clusterSize, concurrencyLimit, defaultTimeoutSeconds, messageTTLSeconds, autoAcknowledge, publisherConfirmationHandler, null);
+  }
+
+  /**
+   * Constructs the transport as above, but when a publish policy is given invocations are published
+   * through a {@link ConfirmingPublisher}, over a pool of confirm-mode channels with windowed confirm
+   * tracking, instead of on each router's own channel.  Routers then only consume responses, and the
+   * confirmation handler, if any, is attached to the pooled channels.
+   *
+   * @param rabbitMQConnector            source of AMQP connections and channels
+   * @param ephemeralQueueContractor     declares the per-router ephemeral reply queues
+   * @param nameConfiguration            naming scheme for exchanges and queues
+   * @param signalCodec                  serialises and deserialises wire signals
+   * @param clusterSize                  number of distinct {@link RequestMessageRouter} instances to create
+   * @param concurrencyLimit             minimum pool size; entries are reused if greater than {@code clusterSize}
+   * @param defaultTimeoutSeconds        seconds to wait for a response when the caller specifies no timeout
+   * @param messageTTLSeconds            per-message TTL applied at publish time
+   * @param autoAcknowledge              {@code true} to ack response deliveries automatically
+   * @param publisherConfirmationHandler receives AMQP publisher confirms; {@code null} disables confirms unless a publish policy is given
+   * @param publishPolicy                pooled confirm-mode publishing configuration, or {@code null} to publish on the routers' channels
+   * @throws IOException      if a channel cannot be opened or a queue cannot be declared
+   * @throws TimeoutException if the AMQP broker does not respond during initialisation
+   */
+  public RabbitMQRequestTransport (RabbitMQConnector rabbitMQConnector, QueueContractor ephemeralQueueContractor, NameConfiguration nameConfiguration, SignalCodec signalCodec, int clusterSize, int concurrencyLimit, long defaultTimeoutSeconds, int messageTTLSeconds, boolean autoAcknowledge, PublisherConfirmationHandler publisherConfirmationHandler, RabbitMQPublishPolicy publishPolicy)
+    throws IOException, TimeoutException {
+
     super(defaultTimeoutSeconds);
 
     int routerIndex = 0;
 
     this.signalCodec = signalCodec;
 
+    confirmingPublisher = (publishPolicy == null) ? null : new ConfirmingPublisher(rabbitMQConnector, publishPolicy, publisherConfirmationHandler);
+
     requestMessageRouters = new RequestMessageRouter[clusterSize];
     for (int index = 0; index < requestMessageRouters.length; index++) {
-      requestMessageRouters[index] = new RequestMessageRouter(rabbitMQConnector, ephemeralQueueContractor, nameConfiguration, this, signalCodec, callerId, index, messageTTLSeconds, autoAcknowledge, publisherConfirmationHandler);
+      requestMessageRouters[index] = new RequestMessageRouter(rabbitMQConnector, ephemeralQueueContractor, nameConfiguration, this, signalCodec, callerId, index, messageTTLSeconds, autoAcknowledge, (confirmingPublisher == null) ? publisherConfirmationHandler : null, confirmingPublisher);
       requestMessageRouters[index].initialize();
     }
 
@@ -144,7 +174,7 @@ public class RabbitMQRequestTransport extends AbstractRequestTransport {
       String messageId;
       boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
 
-      messageId = requestMessageRouter.publish(inOnly, (String)voice.getServiceGroup(), voice, route, arguments, contexts);
+      messageId = requestMessageRouter.publish(inOnly, getDeadline(voice, inOnly), (String)voice.getServiceGroup(), voice, route, arguments, contexts);
 
       return Instrument.with(RabbitMQRequestTransport.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.ACQUIRE_RESULT.getDisplay())).on(
         () -> acquireResult(signalCodec, route, voice, messageId, inOnly)
@@ -154,6 +184,34 @@ public class RabbitMQRequestTransport extends AbstractRequestTransport {
     }
   }
 
+  /**
+   * Acquires a router from the pool and publishes the invocation signal, returning the router as soon as
+   * the publish completes and answering a future of the correlated result rather than waiting for it.
+   *
+   * @param voice     routing and conversation metadata for this call
+   * @param route     target service, version, and function descriptor
+   * @param arguments named argument map to encode into the signal
+   * @param contexts  optional {@link org.smallmind.phalanx.wire.signal.WireContext} values propagated with the call
+   * @return a future of the decoded return value for IN_OUT calls, or of {@code null} for IN_ONLY calls
+   * @throws Throwable if the publish fails or the transport is closed
+   */
+  @Override
+  public CompletableFuture<Object> transmitAsynchronously (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Throwable {
+
+    final RequestMessageRouter requestMessageRouter = acquireRequestMessageRouter();
+    boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
+    String messageId;
+
+    try {
+      messageId = requestMessageRouter.publish(inOnly, getDeadline(voice, inOnly), (String)voice.getServiceGroup(), voice, route, arguments, contexts);
+    } finally {
+      routerQueue.put(requestMessageRouter);
+    }
+
+    return acquireFuture(signalCodec, route, voice, messageId, inOnly);
+  }
+
   /**
    * Polls the router pool in one-second intervals until a router is available or the transport
    * has been closed.
@@ -181,7 +239,8 @@ public class RabbitMQRequestTransport extends AbstractRequestTransport {
   }
 
   /**
-   * Sets the closed flag and shuts down all {@link RequestMessageRouter} instances.
+   * Sets the closed flag and shuts down all {@link RequestMessageRouter} instances, then the pooled
+   * publisher, if any, failing the confirms still outstanding.
    * Subsequent calls to {@link #transmit} will throw once the pool drains.
    *
    * @throws Exception if any router fails to close
@@ -194,6 +253,10 @@ public class RabbitMQRequestTransport extends AbstractRequestTransport {
       for (RequestMessageRouter requestMessageRouter : requestMessageRouters) {
         requestMessageRouter.close();
       }
+
+      if (confirmingPublisher != null) {
+        confirmingPublisher.close();
+      }
     }
   }
 }
@@ -33,26 +33,37 @@
 package org.smallmind.phalanx.wire.transport.amqp.rabbitmq;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import com.rabbitmq.client.AMQP;
 import org.smallmind.nutsnbolts.util.SnowflakeId;
 import org.smallmind.phalanx.wire.TransportException;
+import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdaptiveConcurrencyLimiter;
+import org.smallmind.phalanx.wire.transport.AdmittedInvocation;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
 import org.smallmind.phalanx.wire.transport.TransportState;
 import org.smallmind.phalanx.wire.transport.WireInvocationCircuit;
+import org.smallmind.phalanx.wire.transport.WireProperty;
 import org.smallmind.phalanx.wire.transport.WiredService;
+import org.smallmind.phalanx.worker.WorkEngine;
 import org.smallmind.phalanx.worker.WorkManager;
 import org.smallmind.phalanx.worker.WorkQueue;
 import org.smallmind.phalanx.worker.WorkerFactory;
 
 /**
- * RabbitMQ-based response transport that consumes requests and publishes results.
+ * RabbitMQ-based response transport that consumes requests and publishes results. Requests are decoded
+ * and admitted by the invocation circuit on the consumer thread, so that expired requests, and requests
+ * beyond any concurrency limit, are shed before they are queued for the workers.
  */
-public class RabbitMQResponseTransport extends WorkManager<InvocationWorker, RabbitMQMessage> implements WorkerFactory<InvocationWorker, RabbitMQMessage>, ResponseTransport, ResponseTransmitter {
+public class RabbitMQResponseTransport extends WorkManager<InvocationWorker, AdmittedInvocation> implements WorkerFactory<InvocationWorker, AdmittedInvocation>, ResponseTransport, ResponseTransmitter {
+
+  private static final String CALLER_ID_AMQP_KEY = "x-opt-" + WireProperty.CALLER_ID.getKey();
 
   private final AtomicBoolean closed = new AtomicBoolean(false);
   private final AtomicReference<TransportState> transportStateRef = new AtomicReference<>(TransportState.PLAYING);
@@ -84,7 +95,33 @@ public class RabbitMQResponseTransport extends WorkManager<InvocationWorker, Rab
   public RabbitMQResponseTransport (RabbitMQConnector rabbitMQConnector, QueueContractor enduringQueueContractor, QueueContractor ephemeralQueueContractor, NameConfiguration nameConfiguration, Class<InvocationWorker> workerClass, SignalCodec signalCodec, String serviceGroup, int clusterSize, int concurrencyLimit, int messageTTLSeconds, boolean autoAcknowledge, PublisherConfirmationHandler publisherConfirmationHandler)
     throws IOException, InterruptedException, TimeoutException {
 
-    super(workerClass, concurrencyLimit);
+    this(rabbitMQConnector, enduringQueueContractor, ephemeralQueueContractor, nameConfiguration, workerClass, signalCodec, serviceGroup, clusterSize, concurrencyLimit, messageTTLSeconds, autoAcknowledge, publisherConfirmationHandler, WorkEngine.POOLED);
+  }
+
+  /**
+   * Creates a response transport as above, running the invocation worker pool on the given engine.
+   *
+   * @param rabbitMQConnector            connector for creating AMQP channels.
+   * @param enduringQueueContractor      contractor for durable talk queues.
+   * @param ephemeralQueueContractor     contractor for ephemeral shout and whisper queues.
+   * @param nameConfiguration            exchange and queue naming scheme.
+   * @param workerClass                  worker class used for invocation handling.
+   * @param signalCodec                  codec for serializing and deserializing signals.
+   * @param serviceGroup                 service group name embedded in AMQP routing keys.
+   * @param clusterSize                  number of response routers to create.
+   * @param concurrencyLimit             maximum number of concurrent invocation workers.
+   * @param messageTTLSeconds            message time-to-live in seconds.
+   * @param autoAcknowledge              whether consumers should auto-ack delivered messages.
+   * @param publisherConfirmationHandler optional handler for publisher confirms; may be {@code null}.
+   * @param workEngine                   engine that hands invocations to the worker pool.
+   * @throws IOException          if router initialization fails.
+   * @throws InterruptedException if startup is interrupted.
+   * @throws TimeoutException     if router initialization times out.
+   */
+  public RabbitMQResponseTransport (RabbitMQConnector rabbitMQConnector, QueueContractor enduringQueueContractor, QueueContractor ephemeralQueueContractor, NameConfiguration nameConfiguration, Class<InvocationWorker> workerClass, SignalCodec signalCodec, String serviceGroup, int clusterSize, int concurrencyLimit, int messageTTLSeconds, boolean autoAcknowledge, PublisherConfirmationHandler publisherConfirmationHandler, WorkEngine workEngine)
+    throws IOException, InterruptedException, TimeoutException {
+
+    super(workerClass, concurrencyLimit, workEngine);
 
     int routerIndex = 0;
 
@@ -138,15 +175,53 @@ public class RabbitMQResponseTransport extends WorkManager<InvocationWorker, Rab
   /**
    * Creates a worker to handle incoming invocation messages.
    *
-   * @param transferQueue queue supplying RabbitMQ messages.
+   * @param transferQueue queue supplying admitted invocations.
    * @return new {@link InvocationWorker}.
    */
   @Override
-  public InvocationWorker createWorker (WorkQueue<RabbitMQMessage> transferQueue) {
+  public InvocationWorker createWorker (WorkQueue<AdmittedInvocation> transferQueue) {
 
     return new InvocationWorker(transferQueue, this, invocationCircuit, signalCodec);
   }
 
+  /**
+   * Decodes an inbound request and, unless the invocation circuit sheds it, queues it for a worker.
+   *
+   * @param properties AMQP properties of the request.
+   * @param body       encoded invocation signal.
+   * @throws Throwable if decoding fails or the invocation cannot be queued.
+   */
+  public void dispatch (AMQP.BasicProperties properties, byte[] body)
+    throws Throwable {
+
+    AdmittedInvocation admittedInvocation;
+
+    if ((admittedInvocation = invocationCircuit.admit(this, getCallerId(properties.getHeaders()), properties.getMessageId(), signalCodec.decode(body, 0, body.length, InvocationSignal.class))) != null) {
+      try {
+        execute(admittedInvocation);
+      } catch (Throwable throwable) {
+        admittedInvocation.release();
+        throw throwable;
+      }
+    }
+  }
+
+  /**
+   * Extracts the caller id from AMQP headers if present.
+   *
+   * @param headers message headers.
+   * @return caller id string or {@code null} when absent.
+   */
+  private String getCallerId (Map<String, Object> headers) {
+
+    if ((headers != null) && (headers.containsKey(CALLER_ID_AMQP_KEY))) {
+
+      return headers.get(CALLER_ID_AMQP_KEY).toString();
+    }
+
+    return null;
+  }
+
   /**
    * @return current transport state.
    */
@@ -156,6 +231,50 @@ public class RabbitMQResponseTransport extends WorkManager<InvocationWorker, Rab
     return transportStateRef.get();
   }
 
+  /**
+   * Returns the limiter guarding invocation on this transport, if any.
+   *
+   * @return the adaptive concurrency limiter, or {@code null} if invocations are not adaptively limited
+   */
+  @Override
+  public AdaptiveConcurrencyLimiter getConcurrencyLimiter () {
+
+    return invocationCircuit.getConcurrencyLimiter();
+  }
+
+  /**
+   * Sets a limiter to guard invocation on this transport, after which invocations arriving while the
+   * limit is reached are refused rather than run.
+   *
+   * @param concurrencyLimiter the adaptive concurrency limiter, or {@code null} to remove it
+   */
+  public void setConcurrencyLimiter (AdaptiveConcurrencyLimiter concurrencyLimiter) {
+
+    invocationCircuit.setConcurrencyLimiter(concurrencyLimiter);
+  }
+
+  /**
+   * Returns the number of inbound invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  @Override
+  public long getExpiredShedCount () {
+
+    return invocationCircuit.getExpiredShedCount();
+  }
+
+  /**
+   * Returns the number of inbound invocations refused because the adaptive concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  @Override
+  public long getOverloadShedCount () {
+
+    return invocationCircuit.getOverloadShedCount();
+  }
+
   /**
    * Resumes message consumption across routers.
    *
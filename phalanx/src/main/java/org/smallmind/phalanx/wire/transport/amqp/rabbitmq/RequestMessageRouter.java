@@ -55,6 +55,7 @@ import org.smallmind.phalanx.wire.signal.WireContext;
 import org.smallmind.phalanx.wire.transport.ClaxonTag;
 import org.smallmind.phalanx.wire.transport.WireProperty;
 import org.smallmind.scribe.pen.LoggerManager;
+import org.smallmind.web.json.scaffold.fault.Fault;
 
 /**
  * Routes request/response messages for callers over RabbitMQ, including consumer setup and message construction.
@@ -64,6 +65,7 @@ public class RequestMessageRouter extends MessageRouter {
   private static final String CALLER_ID_AMQP_KEY = "x-opt-" + WireProperty.CALLER_ID.getKey();
 
   private final QueueContractor ephemeralQueueContractor;
+  private final ConfirmingPublisher confirmingPublisher;
   private final RabbitMQRequestTransport requestTransport;
   private final SignalCodec signalCodec;
   private final String callerId;
@@ -84,12 +86,14 @@ public class RequestMessageRouter extends MessageRouter {
    * @param ttlSeconds                   message time-to-live in seconds for published invocations.
    * @param autoAcknowledge              whether to auto-ack response deliveries.
    * @param publisherConfirmationHandler optional handler for publisher confirms; may be {@code null}.
+   * @param confirmingPublisher          optional pooled publisher through which invocations are sent instead of this router's channel; may be {@code null}.
    */
-  public RequestMessageRouter (RabbitMQConnector connector, QueueContractor ephemeralQueueContractor, NameConfiguration nameConfiguration, RabbitMQRequestTransport requestTransport, SignalCodec signalCodec, String callerId, int index, int ttlSeconds, boolean autoAcknowledge, PublisherConfirmationHandler publisherConfirmationHandler) {
+  public RequestMessageRouter (RabbitMQConnector connector, QueueContractor ephemeralQueueContractor, NameConfiguration nameConfiguration, RabbitMQRequestTransport requestTransport, SignalCodec signalCodec, String callerId, int index, int ttlSeconds, boolean autoAcknowledge, PublisherConfirmationHandler publisherConfirmationHandler, ConfirmingPublisher confirmingPublisher) {
 
     super(connector, "wire", nameConfiguration, publisherConfirmationHandler);
 
     this.ephemeralQueueContractor = ephemeralQueueContractor;
+    this.confirmingPublisher = confirmingPublisher;
     this.requestTransport = requestTransport;
     this.signalCodec = signalCodec;
     this.callerId = callerId;
@@ -163,8 +167,13 @@ public class RequestMessageRouter extends MessageRouter {
 
   /**
    * Publishes an invocation message using a routing key derived from the vocal mode and service group.
+   * When a {@link ConfirmingPublisher} was supplied the message is handed to it, and this method returns
+   * without waiting for the broker's confirm.  If the message is nacked, or otherwise cannot be published,
+   * a request/reply caller is answered with the failure as a fault rather than left to time out, while the
+   * failure of an in-only message, which nobody awaits, is logged.
    *
    * @param inOnly       whether the conversation expects a reply.
+   * @param deadline     epoch milliseconds after which the caller stops waiting, or {@code 0} if unbounded.
    * @param serviceGroup target service group.
    * @param voice        invocation metadata including mode and instance id.
    * @param route        route to the target method.
@@ -173,17 +182,30 @@ public class RequestMessageRouter extends MessageRouter {
    * @return generated message id.
    * @throws Throwable if message construction or publishing fails.
    */
-  public String publish (final boolean inOnly, final String serviceGroup, final Voice<?, ?> voice, final Route route, final Map<String, Object> arguments, final WireContext... contexts)
+  public String publish (final boolean inOnly, final long deadline, final String serviceGroup, final Voice<?, ?> voice, final Route route, final Map<String, Object> arguments, final WireContext... contexts)
     throws Throwable {
 
-    RabbitMQMessage rabbitMQMessage = constructMessage(inOnly, route, arguments, contexts);
+    RabbitMQMessage rabbitMQMessage = constructMessage(inOnly, deadline, route, arguments, contexts);
     StringBuilder routingKeyBuilder = new StringBuilder(voice.getMode().getName()).append("-").append(serviceGroup);
 
     if (voice.getMode().equals(VocalMode.WHISPER)) {
       routingKeyBuilder.append('[').append(voice.getInstanceId()).append(']');
     }
 
-    send(routingKeyBuilder.toString(), getRequestExchangeName(), rabbitMQMessage.getProperties(), rabbitMQMessage.getBody());
+    if (confirmingPublisher == null) {
+      send(routingKeyBuilder.toString(), getRequestExchangeName(), rabbitMQMessage.getProperties(), rabbitMQMessage.getBody());
+    } else {
+      confirmingPublisher.publish(getRequestExchangeName(), routingKeyBuilder.toString(), rabbitMQMessage.getProperties(), rabbitMQMessage.getBody()).whenComplete((unused, throwable) -> {
+        if (throwable != null) {
+          if (inOnly) {
+            LoggerManager.getLogger(RequestMessageRouter.class).error(throwable);
+          } else {
+            // The failure may beat the caller to registering its callback, which completeCallback() allows for.
+            requestTransport.completeCallback(rabbitMQMessage.getProperties().getMessageId(), new ResultSignal(true, null, new Fault(throwable)));
+          }
+        }
+      });
+    }
 
     return rabbitMQMessage.getProperties().getMessageId();
   }
@@ -192,13 +214,14 @@ public class RequestMessageRouter extends MessageRouter {
    * Creates an invocation message with headers and encoded payload.
    *
    * @param inOnly    whether the conversation expects a response.
+   * @param deadline  epoch milliseconds after which the caller stops waiting, or {@code 0} if unbounded.
    * @param route     route to the target method.
    * @param arguments invocation arguments.
    * @param contexts  optional contexts.
    * @return message ready for publication.
    * @throws Throwable if encoding fails.
    */
-  private RabbitMQMessage constructMessage (final boolean inOnly, final Route route, final Map<String, Object> arguments, final WireContext... contexts)
+  private RabbitMQMessage constructMessage (final boolean inOnly, final long deadline, final Route route, final Map<String, Object> arguments, final WireContext... contexts)
     throws Throwable {
 
     return Instrument.with(RequestMessageRouter.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.CONSTRUCT_MESSAGE.getDisplay())).on(() -> {
@@ -217,7 +240,7 @@ public class RequestMessageRouter extends MessageRouter {
           .expiration(String.valueOf(ttlSeconds * 1000))
           .headers(headerMap).build();
 
-      return new RabbitMQMessage(properties, signalCodec.encode(new InvocationSignal(inOnly, route, arguments, contexts)));
+      return new RabbitMQMessage(properties, signalCodec.encode(new InvocationSignal(inOnly, deadline, route, arguments, contexts)));
     });
   }
 }
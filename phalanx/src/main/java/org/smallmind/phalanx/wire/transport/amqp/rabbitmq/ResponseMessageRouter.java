@@ -204,7 +204,7 @@ public class ResponseMessageRouter extends MessageRouter {
           LoggerManager.getLogger(ResponseMessageRouter.class).debug("request message received(%s) in %d ms...", properties.getMessageId(), timeInQueue);
           Instrument.with(ResponseMessageRouter.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("queue", ClaxonTag.REQUEST_TRANSIT_TIME.getDisplay())).update((timeInQueue >= 0) ? timeInQueue : 0, TimeUnit.MILLISECONDS);
 
-          responseTransport.execute(new RabbitMQMessage(properties, body));
+          responseTransport.dispatch(properties, body);
         } catch (Throwable throwable) {
           LoggerManager.getLogger(ResponseMessageRouter.class).error(throwable);
         } finally {
@@ -32,82 +32,64 @@
  */
 package org.smallmind.phalanx.wire.transport.jms;
 
-import jakarta.jms.BytesMessage;
-import jakarta.jms.Message;
 import org.smallmind.claxon.registry.Instrument;
 import org.smallmind.claxon.registry.Tag;
 import org.smallmind.claxon.registry.meter.MeterFactory;
 import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
-import org.smallmind.phalanx.wire.TransportException;
 import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdmittedInvocation;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.WireInvocationCircuit;
-import org.smallmind.phalanx.wire.transport.WireProperty;
 import org.smallmind.phalanx.worker.WorkQueue;
 import org.smallmind.phalanx.worker.Worker;
 
 /**
- * Worker that dequeues incoming JMS {@link BytesMessage} payloads, decodes them as
- * {@link InvocationSignal} objects, and dispatches them through the {@link WireInvocationCircuit}.
+ * Worker that dequeues invocations, already decoded and admitted by the {@link JmsResponseTransport},
+ * and dispatches them through the {@link WireInvocationCircuit}.
  *
  * <p>One worker instance is allocated per slot in the worker pool managed by
- * {@link JmsResponseTransport}.  Each call to {@link #engageWork(Message)} handles exactly
- * one request message.
+ * {@link JmsResponseTransport}.  Each call to {@link #engageWork(AdmittedInvocation)} handles exactly
+ * one request.
  */
-public class InvocationWorker extends Worker<Message> {
+public class InvocationWorker extends Worker<AdmittedInvocation> {
 
   private final ResponseTransmitter responseTransmitter;
   private final WireInvocationCircuit invocationCircuit;
   private final SignalCodec signalCodec;
 
-  private final byte[] buffer;
-
   /**
-   * Constructs a worker that can decode and dispatch invocation messages.
+   * Constructs a worker that can dispatch invocations.
    *
-   * @param workQueue            work queue from which this worker draws messages
-   * @param responseTransmitter  transmitter used to send results back to callers
-   * @param invocationCircuit    circuit that routes decoded invocations to registered services
-   * @param signalCodec          codec used to deserialise {@link InvocationSignal} payloads
-   * @param maximumMessageLength maximum byte length of any single inbound message payload
+   * @param workQueue           work queue from which this worker draws admitted invocations
+   * @param responseTransmitter transmitter used to send results back to callers
+   * @param invocationCircuit   circuit that routes decoded invocations to registered services
+   * @param signalCodec         codec used to deserialise invocation arguments
    */
-  public InvocationWorker (WorkQueue<Message> workQueue, ResponseTransmitter responseTransmitter, WireInvocationCircuit invocationCircuit, SignalCodec signalCodec, int maximumMessageLength) {
+  public InvocationWorker (WorkQueue<AdmittedInvocation> workQueue, ResponseTransmitter responseTransmitter, WireInvocationCircuit invocationCircuit, SignalCodec signalCodec) {
 
     super(workQueue);
 
     this.responseTransmitter = responseTransmitter;
     this.invocationCircuit = invocationCircuit;
     this.signalCodec = signalCodec;
-
-    buffer = new byte[maximumMessageLength];
   }
 
   /**
-   * Reads the byte payload from {@code message}, decodes an {@link InvocationSignal},
-   * and executes the invocation through the circuit.  Throws {@link TransportException}
-   * if the payload exceeds the configured maximum.
+   * Executes the invocation through the circuit.
    *
-   * @param message inbound JMS {@link BytesMessage} containing an encoded {@link InvocationSignal}
-   * @throws Throwable if decoding or invocation dispatch fails
+   * @param admittedInvocation the admitted invocation
+   * @throws Throwable if invocation dispatch fails
    */
   @Override
-  public void engageWork (final Message message)
+  public void engageWork (final AdmittedInvocation admittedInvocation)
     throws Throwable {
 
-    if (((BytesMessage)message).getBodyLength() > buffer.length) {
-      throw new TransportException("Message length exceeds maximum capacity %d > %d", ((BytesMessage)message).getBodyLength(), buffer.length);
-    } else {
-
-      final InvocationSignal invocationSignal;
-
-      ((BytesMessage)message).readBytes(buffer);
-      invocationSignal = signalCodec.decode(buffer, 0, (int)((BytesMessage)message).getBodyLength(), InvocationSignal.class);
+    InvocationSignal invocationSignal = admittedInvocation.getInvocationSignal();
 
-      Instrument.with(InvocationWorker.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("operation", "invoke"), new Tag("service", invocationSignal.getRoute().getService()), new Tag("method", invocationSignal.getRoute().getFunction().getName())).on(
-        () -> invocationCircuit.handle(responseTransmitter, signalCodec, message.getStringProperty(WireProperty.CALLER_ID.getKey()), message.getJMSMessageID(), invocationSignal)
-      );
-    }
+    Instrument.with(InvocationWorker.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("operation", "invoke"), new Tag("service", invocationSignal.getRoute().getService()), new Tag("method", invocationSignal.getRoute().getFunction().getName())).on(
+      () -> invocationCircuit.handle(responseTransmitter, signalCodec, admittedInvocation)
+    );
   }
 
   /**
@@ -33,6 +33,7 @@
 package org.smallmind.phalanx.wire.transport.jms;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -171,7 +172,7 @@ public class JmsRequestTransport extends AbstractRequestTransport {
       Message requestMessage;
       String messageId;
 
-      messageHandler.send(requestMessage = constructMessage(messageHandler, inOnly, (String)voice.getServiceGroup(), voice.getMode().equals(VocalMode.WHISPER) ? (String)voice.getInstanceId() : null, route, arguments, contexts));
+      messageHandler.send(requestMessage = constructMessage(messageHandler, inOnly, getDeadline(voice, inOnly), (String)voice.getServiceGroup(), voice.getMode().equals(VocalMode.WHISPER) ? (String)voice.getInstanceId() : null, route, arguments, contexts));
       messageId = requestMessage.getJMSMessageID();
 
       return Instrument.with(JmsRequestTransport.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.ACQUIRE_RESULT.getDisplay())).on(
@@ -182,6 +183,36 @@ public class JmsRequestTransport extends AbstractRequestTransport {
     }
   }
 
+  /**
+   * Encodes and sends the invocation as {@link #transmit(Voice, Route, Map, WireContext...)} does, but
+   * returns the {@link MessageHandler} to its pool as soon as the message is sent, answering a future of
+   * the result rather than waiting for it.
+   *
+   * @param voice     vocal-mode descriptor carrying conversation type and addressing info
+   * @param route     target service route (service name, function, version)
+   * @param arguments invocation arguments keyed by parameter name
+   * @param contexts  optional wire context entries to propagate with the message
+   * @return a future of the result object for request-reply conversations, or of {@code null} for in-only calls
+   * @throws Throwable if encoding or transmission fails
+   */
+  @Override
+  public CompletableFuture<Object> transmitAsynchronously (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Throwable {
+
+    LinkedBlockingQueue<MessageHandler> messageQueue = voice.getMode().equals(VocalMode.TALK) ? talkQueue : whisperAndShoutQueue;
+    final MessageHandler messageHandler = acquireMessageHandler(messageQueue);
+    boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
+    Message requestMessage;
+
+    try {
+      messageHandler.send(requestMessage = constructMessage(messageHandler, inOnly, getDeadline(voice, inOnly), (String)voice.getServiceGroup(), voice.getMode().equals(VocalMode.WHISPER) ? (String)voice.getInstanceId() : null, route, arguments, contexts));
+    } finally {
+      messageQueue.put(messageHandler);
+    }
+
+    return acquireFuture(signalCodec, route, voice, requestMessage.getJMSMessageID(), inOnly);
+  }
+
   /**
    * Polls the handler pool until a {@link MessageHandler} is available or the transport is closed.
    *
@@ -213,6 +244,7 @@ public class JmsRequestTransport extends AbstractRequestTransport {
    *
    * @param messageHandler handler used to create the message
    * @param inOnly         {@code true} for fire-and-forget calls (caller id is not stamped)
+   * @param deadline       epoch milliseconds after which the caller stops waiting, or {@code 0} if unbounded
    * @param serviceGroup   service group header value
    * @param instanceId     instance id header value, or {@code null} for non-whisper calls
    * @param route          target route header value
@@ -221,7 +253,7 @@ public class JmsRequestTransport extends AbstractRequestTransport {
    * @return populated JMS {@link Message} ready to send
    * @throws Throwable if the message cannot be created or encoded
    */
-  private Message constructMessage (final MessageHandler messageHandler, final boolean inOnly, final String serviceGroup, final String instanceId, final Route route, final Map<String, Object> arguments, final WireContext... contexts)
+  private Message constructMessage (final MessageHandler messageHandler, final boolean inOnly, final long deadline, final String serviceGroup, final String instanceId, final Route route, final Map<String, Object> arguments, final WireContext... contexts)
     throws Throwable {
 
     return Instrument.with(JmsRequestTransport.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.CONSTRUCT_MESSAGE.getDisplay())).on(() -> {
@@ -230,7 +262,7 @@ public class JmsRequestTransport extends AbstractRequestTransport {
 
       requestMessage = messageHandler.createMessage();
 
-      requestMessage.writeBytes(signalCodec.encode(new InvocationSignal(inOnly, route, arguments, contexts)));
+      requestMessage.writeBytes(signalCodec.encode(new InvocationSignal(inOnly, deadline, route, arguments, contexts)));
 
       if (!inOnly) {
         requestMessage.setStringProperty(WireProperty.CALLER_ID.getKey(), callerId);
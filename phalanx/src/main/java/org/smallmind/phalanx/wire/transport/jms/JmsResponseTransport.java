@@ -46,8 +46,11 @@ import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
 import org.smallmind.nutsnbolts.util.SnowflakeId;
 import org.smallmind.phalanx.wire.ServiceDefinitionException;
 import org.smallmind.phalanx.wire.TransportException;
+import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdaptiveConcurrencyLimiter;
+import org.smallmind.phalanx.wire.transport.AdmittedInvocation;
 import org.smallmind.phalanx.wire.transport.ClaxonTag;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
@@ -70,8 +73,11 @@ import org.smallmind.phalanx.worker.WorkerFactory;
  *   <li><b>shout</b> – topic listeners without instance filtering
  *   <li><b>whisper</b> – topic listeners filtered to this transport's unique instance id
  * </ul>
+ *
+ * <p>Requests are decoded and admitted by the invocation circuit on the listener thread, so that expired
+ * requests, and requests beyond any concurrency limit, are shed before they are queued for the workers.
  */
-public class JmsResponseTransport extends WorkManager<InvocationWorker, Message> implements WorkerFactory<InvocationWorker, Message>, ResponseTransport, ResponseTransmitter {
+public class JmsResponseTransport extends WorkManager<InvocationWorker, AdmittedInvocation> implements WorkerFactory<InvocationWorker, AdmittedInvocation>, ResponseTransport, ResponseTransmitter {
 
   private final AtomicBoolean closed = new AtomicBoolean(false);
   private final AtomicReference<TransportState> transportStateRef = new AtomicReference<>(TransportState.PLAYING);
@@ -174,13 +180,44 @@ public class JmsResponseTransport extends WorkManager<InvocationWorker, Message>
   /**
    * Creates an {@link InvocationWorker} bound to the given work queue.
    *
-   * @param workQueue work queue from which the new worker draws messages
+   * @param workQueue work queue from which the new worker draws admitted invocations
    * @return a new {@link InvocationWorker} instance
    */
   @Override
-  public InvocationWorker createWorker (WorkQueue<Message> workQueue) {
+  public InvocationWorker createWorker (WorkQueue<AdmittedInvocation> workQueue) {
 
-    return new InvocationWorker(workQueue, this, invocationCircuit, signalCodec, maximumMessageLength);
+    return new InvocationWorker(workQueue, this, invocationCircuit, signalCodec);
+  }
+
+  /**
+   * Reads and decodes an inbound request and, unless the invocation circuit sheds it, queues it for a
+   * worker.  Throws {@link TransportException} if the payload exceeds the configured maximum.
+   *
+   * @param message inbound JMS {@link BytesMessage} containing an encoded {@link InvocationSignal}
+   * @throws Throwable if reading or decoding fails, or the invocation cannot be queued
+   */
+  public void dispatch (Message message)
+    throws Throwable {
+
+    BytesMessage bytesMessage = (BytesMessage)message;
+
+    if (bytesMessage.getBodyLength() > maximumMessageLength) {
+      throw new TransportException("Message length exceeds maximum capacity %d > %d", bytesMessage.getBodyLength(), maximumMessageLength);
+    } else {
+
+      AdmittedInvocation admittedInvocation;
+      byte[] buffer = new byte[(int)bytesMessage.getBodyLength()];
+
+      bytesMessage.readBytes(buffer);
+      if ((admittedInvocation = invocationCircuit.admit(this, message.getStringProperty(WireProperty.CALLER_ID.getKey()), message.getJMSMessageID(), signalCodec.decode(buffer, 0, buffer.length, InvocationSignal.class))) != null) {
+        try {
+          execute(admittedInvocation);
+        } catch (Throwable throwable) {
+          admittedInvocation.release();
+          throw throwable;
+        }
+      }
+    }
   }
 
   /**
@@ -194,6 +231,50 @@ public class JmsResponseTransport extends WorkManager<InvocationWorker, Message>
     return transportStateRef.get();
   }
 
+  /**
+   * Returns the limiter guarding invocation on this transport, if any.
+   *
+   * @return the adaptive concurrency limiter, or {@code null} if invocations are not adaptively limited
+   */
+  @Override
+  public AdaptiveConcurrencyLimiter getConcurrencyLimiter () {
+
+    return invocationCircuit.getConcurrencyLimiter();
+  }
+
+  /**
+   * Sets a limiter to guard invocation on this transport, after which invocations arriving while the
+   * limit is reached are refused rather than run.
+   *
+   * @param concurrencyLimiter the adaptive concurrency limiter, or {@code null} to remove it
+   */
+  public void setConcurrencyLimiter (AdaptiveConcurrencyLimiter concurrencyLimiter) {
+
+    invocationCircuit.setConcurrencyLimiter(concurrencyLimiter);
+  }
+
+  /**
+   * Returns the number of inbound invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  @Override
+  public long getExpiredShedCount () {
+
+    return invocationCircuit.getExpiredShedCount();
+  }
+
+  /**
+   * Returns the number of inbound invocations refused because the adaptive concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  @Override
+  public long getOverloadShedCount () {
+
+    return invocationCircuit.getOverloadShedCount();
+  }
+
   /**
    * Transitions from {@link TransportState#PAUSED} to {@link TransportState#PLAYING} and
    * resumes message delivery on all request listeners.  No-op if already playing.
@@ -147,7 +147,7 @@ public class RequestListener implements SessionEmployer, MessageListener {
 
   /**
    * Receives an inbound request message, records the queue transit time as a Claxon metric,
-   * and submits the message to the {@link JmsResponseTransport} for asynchronous execution.
+   * and hands the message to the {@link JmsResponseTransport}, which admits it and queues it for asynchronous execution.
    *
    * @param message the inbound JMS message containing an encoded invocation signal
    */
@@ -161,7 +161,7 @@ public class RequestListener implements SessionEmployer, MessageListener {
       LoggerManager.getLogger(QueueOperator.class).debug("request message received(%s) in %d ms...", message.getJMSMessageID(), timeInQueue);
       Instrument.with(RequestListener.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("queue", ClaxonTag.REQUEST_TRANSIT_TIME.getDisplay())).update((timeInQueue >= 0) ? timeInQueue : 0, TimeUnit.MILLISECONDS);
 
-      jmsResponseTransport.execute(message);
+      jmsResponseTransport.dispatch(message);
     } catch (Throwable throwable) {
       LoggerManager.getLogger(RequestListener.class).error(throwable);
     }
@@ -56,6 +56,11 @@ public class HeaderUtility {
    */
   public static final String CORRELATION_ID = "correlationId";
 
+  /**
+   * Header key marking a record that packs several in-only invocations, carrying their count.
+   */
+  public static final String PACKED = "packed";
+
   /**
    * Returns the UTF-8 decoded value of the first header in {@code record} whose key equals
    * {@code headerName}.
@@ -32,25 +32,25 @@
  */
 package org.smallmind.phalanx.wire.transport.kafka;
 
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.smallmind.claxon.registry.Instrument;
 import org.smallmind.claxon.registry.Tag;
 import org.smallmind.claxon.registry.meter.MeterFactory;
 import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
 import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdmittedInvocation;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.WireInvocationCircuit;
 import org.smallmind.phalanx.worker.WorkQueue;
 import org.smallmind.phalanx.worker.Worker;
 
 /**
- * Work-queue consumer that deserializes inbound Kafka records into {@link InvocationSignal}s
- * and dispatches each one through the {@link WireInvocationCircuit}.  Each invocation is wrapped
- * in a speedometer instrument tagged by operation, service, method name, and version to support
- * throughput monitoring.
+ * Work-queue consumer that dispatches each invocation, decoded and admitted by the
+ * {@link KafkaResponseTransport}, through the {@link WireInvocationCircuit}.  Each invocation is
+ * wrapped in a speedometer instrument tagged by operation, service, method name, and version to
+ * support throughput monitoring.
  */
-public class InvocationWorker extends Worker<ConsumerRecord<Long, byte[]>> {
+public class InvocationWorker extends Worker<AdmittedInvocation> {
 
   private final ResponseTransmitter responseTransmitter;
   private final WireInvocationCircuit invocationCircuit;
@@ -59,12 +59,12 @@ public class InvocationWorker extends Worker<ConsumerRecord<Long, byte[]>> {
   /**
    * Constructs a worker bound to the given work queue and shared infrastructure.
    *
-   * @param workQueue           queue from which Kafka records are drained
+   * @param workQueue           queue from which admitted invocations are drained
    * @param responseTransmitter transmitter used to publish results back to the originating caller
    * @param invocationCircuit   circuit that resolves and invokes the target service method
-   * @param signalCodec         codec used to deserialize record bytes into an {@link InvocationSignal}
+   * @param signalCodec         codec used to deserialize invocation arguments
    */
-  public InvocationWorker (WorkQueue<ConsumerRecord<Long, byte[]>> workQueue, ResponseTransmitter responseTransmitter, WireInvocationCircuit invocationCircuit, SignalCodec signalCodec) {
+  public InvocationWorker (WorkQueue<AdmittedInvocation> workQueue, ResponseTransmitter responseTransmitter, WireInvocationCircuit invocationCircuit, SignalCodec signalCodec) {
 
     super(workQueue);
 
@@ -74,21 +74,20 @@ public class InvocationWorker extends Worker<ConsumerRecord<Long, byte[]>> {
   }
 
   /**
-   * Decodes an {@link InvocationSignal} from {@code record} and delegates execution to the
-   * invocation circuit.  The entire operation is measured by a speedometer instrument tagged
-   * with the route's service name, method name, and version.
+   * Executes a single invocation through the invocation circuit, measured by a speedometer instrument
+   * tagged with the route's service name, method name, and version.
    *
-   * @param record the Kafka record whose value bytes encode an {@link InvocationSignal}
-   * @throws Throwable if signal decoding fails or the invocation circuit raises an error
+   * @param admittedInvocation the admitted invocation
+   * @throws Throwable if the invocation circuit raises an error
    */
   @Override
-  public void engageWork (final ConsumerRecord<Long, byte[]> record)
+  public void engageWork (final AdmittedInvocation admittedInvocation)
     throws Throwable {
 
-    InvocationSignal invocationSignal = signalCodec.decode(record.value(), 0, record.value().length, InvocationSignal.class);
+    InvocationSignal invocationSignal = admittedInvocation.getInvocationSignal();
 
     Instrument.with(InvocationWorker.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("operation", "invoke"), new Tag("service", invocationSignal.getRoute().getService()), new Tag("method", invocationSignal.getRoute().getFunction().getName()), new Tag("version", Integer.toString(invocationSignal.getRoute().getVersion()))).on(
-      () -> invocationCircuit.handle(responseTransmitter, signalCodec, HeaderUtility.getHeader(record, "callerId"), HeaderUtility.getHeader(record, HeaderUtility.MESSAGE_ID), invocationSignal)
+      () -> invocationCircuit.handle(responseTransmitter, signalCodec, admittedInvocation)
     );
   }
 
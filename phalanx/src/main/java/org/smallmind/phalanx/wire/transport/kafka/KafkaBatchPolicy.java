@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport.kafka;
+
+/**
+ * Holder for the micro-batching configuration of a {@link KafkaRequestTransport}.
+ *
+ * <p>Invocations are queued into a bounded buffer per request topic, which a single sender thread
+ * drains into the topic's producer once the buffer holds {@code maxBatchSize} records or its oldest
+ * record has lingered for {@code lingerMilliseconds}.  Callers block while a topic's buffer is full,
+ * which applies back pressure instead of spawning threads.  When {@code packWhispers} is enabled,
+ * in-only whisper invocations of the same service drained together are packed, up to
+ * {@code maxPackSize} at a time, into a single record.  As one sender serves every topic, each producer
+ * blocks for at most {@code maxBlockMilliseconds} on a send that cannot be accepted, after which the record,
+ * and the rest of the topic's batch, are failed rather than holding up the other topics.  Defaults are a
+ * capacity of 1024, batches of 128, a 2 millisecond linger, a 1000 millisecond block, and no packing.</p>
+ */
+public class KafkaBatchPolicy {
+
+  private boolean packWhispers = false;
+  private int bufferCapacity = 1024;
+  private int maxBatchSize = 128;
+  private int maxPackSize = 32;
+  private long lingerMilliseconds = 2;
+  private long maxBlockMilliseconds = 1000;
+
+  /**
+   * Returns the number of records each topic buffer holds before callers block.
+   *
+   * @return the per-topic buffer capacity
+   */
+  public int getBufferCapacity () {
+
+    return bufferCapacity;
+  }
+
+  /**
+   * Sets the number of records each topic buffer holds before callers block.
+   *
+   * @param bufferCapacity the per-topic buffer capacity; must be positive
+   */
+  public void setBufferCapacity (int bufferCapacity) {
+
+    this.bufferCapacity = bufferCapacity;
+  }
+
+  /**
+   * Returns the buffered record count at which a topic is drained without waiting out the linger.
+   *
+   * @return the maximum number of records drained from a topic at once
+   */
+  public int getMaxBatchSize () {
+
+    return maxBatchSize;
+  }
+
+  /**
+   * Sets the buffered record count at which a topic is drained without waiting out the linger.
+   *
+   * @param maxBatchSize the maximum number of records drained from a topic at once; must be positive
+   */
+  public void setMaxBatchSize (int maxBatchSize) {
+
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Returns how long the oldest record of a topic may wait for companions before the topic is drained.
+   *
+   * @return the linger in milliseconds
+   */
+  public long getLingerMilliseconds () {
+
+    return lingerMilliseconds;
+  }
+
+  /**
+   * Sets how long the oldest record of a topic may wait for companions before the topic is drained.
+   * A value of {@code 0} drains each record as soon as the sender sees it.
+   *
+   * @param lingerMilliseconds the linger in milliseconds
+   */
+  public void setLingerMilliseconds (long lingerMilliseconds) {
+
+    this.lingerMilliseconds = lingerMilliseconds;
+  }
+
+  /**
+   * Returns the longest a topic's producer may block the sender on a send it cannot accept.
+   *
+   * @return the maximum block in milliseconds
+   */
+  public long getMaxBlockMilliseconds () {
+
+    return maxBlockMilliseconds;
+  }
+
+  /**
+   * Sets the longest a topic's producer may block the sender on a send it cannot accept, being the producer's
+   * {@code max.block.ms}.
+   *
+   * @param maxBlockMilliseconds the maximum block in milliseconds
+   */
+  public void setMaxBlockMilliseconds (long maxBlockMilliseconds) {
+
+    this.maxBlockMilliseconds = maxBlockMilliseconds;
+  }
+
+  /**
+   * Returns whether in-only whisper invocations of the same service are packed into shared records.
+   *
+   * @return {@code true} if packing is enabled
+   */
+  public boolean isPackWhispers () {
+
+    return packWhispers;
+  }
+
+  /**
+   * Enables or disables the packing of in-only whisper invocations of the same service into shared records.
+   * Packed records are only understood by response transports of this version or later.
+   *
+   * @param packWhispers {@code true} to enable packing
+   */
+  public void setPackWhispers (boolean packWhispers) {
+
+    this.packWhispers = packWhispers;
+  }
+
+  /**
+   * Returns the maximum number of invocations packed into one record.
+   *
+   * @return the maximum pack size
+   */
+  public int getMaxPackSize () {
+
+    return maxPackSize;
+  }
+
+  /**
+   * Sets the maximum number of invocations packed into one record.
+   *
+   * @param maxPackSize the maximum pack size; must be positive
+   */
+  public void setMaxPackSize (int maxPackSize) {
+
+    this.maxPackSize = maxPackSize;
+  }
+}
@@ -35,16 +35,15 @@ package org.smallmind.phalanx.wire.transport.kafka;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
 import org.smallmind.claxon.registry.Instrument;
 import org.smallmind.claxon.registry.Tag;
 import org.smallmind.claxon.registry.meter.MeterFactory;
@@ -55,43 +54,50 @@ import org.smallmind.kafka.utility.KafkaGroupProtocol;
 import org.smallmind.kafka.utility.KafkaServer;
 import org.smallmind.nutsnbolts.util.SnowflakeId;
 import org.smallmind.phalanx.wire.ConversationType;
+import org.smallmind.phalanx.wire.VocalMode;
 import org.smallmind.phalanx.wire.Voice;
 import org.smallmind.phalanx.wire.Whispering;
 import org.smallmind.phalanx.wire.signal.InvocationSignal;
+import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.Route;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
 import org.smallmind.phalanx.wire.signal.WireContext;
 import org.smallmind.phalanx.wire.transport.AbstractRequestTransport;
 import org.smallmind.phalanx.wire.transport.ClaxonTag;
 import org.smallmind.phalanx.wire.transport.amqp.rabbitmq.RequestMessageRouter;
+import org.smallmind.scribe.pen.LoggerManager;
+import org.smallmind.web.json.scaffold.fault.Fault;
 
 /**
  * Kafka-backed request transport.  Serializes {@link InvocationSignal}s onto the appropriate
- * per-service-group topic (shout, talk, or whisper) and awaits correlated
- * {@link org.smallmind.phalanx.wire.signal.ResultSignal} responses on a caller-specific
- * response topic.
+ * per-service-group topic (shout, talk, or whisper) and awaits correlated {@link ResultSignal}
+ * responses on a caller-specific response topic.
  *
  * <p>A lazily-populated producer map holds one {@link Producer} per request topic.  Producers
- * are created on first use and all are closed together during {@link #close()}.  A dedicated
- * {@link KafkaMessageIngester} runs the response consumer threads and completes pending requests
- * via the parent-class callback mechanism.
+ * are created on first use and all are closed together during {@link #close()}.  Records are not
+ * sent by the calling thread, but queued into a {@link KafkaTransmitPipeline}, whose single sender
+ * drains bounded per-topic buffers into the producers in batches as configured by a
+ * {@link KafkaBatchPolicy}, optionally packing in-only whisper invocations of the same service into
+ * one record.  A record the sender cannot hand to its producer fails the waiting call at once.  A dedicated {@link KafkaMessageIngester} runs the response consumer threads and
+ * completes pending requests via the parent-class callback mechanism.
  */
 public class KafkaRequestTransport extends AbstractRequestTransport {
 
-  private final ExecutorService executorService = new ThreadPoolExecutor(1, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
   private final ReentrantReadWriteLock producerLock = new ReentrantReadWriteLock();
   private final AtomicBoolean closed = new AtomicBoolean(false);
   private final KafkaConnector connector;
   private final SignalCodec signalCodec;
   private final TopicNames topicNames;
   private final KafkaMessageIngester responseMessageIngester;
+  private final KafkaTransmitPipeline transmitPipeline;
+  private final KafkaBatchPolicy batchPolicy;
   private final ConcurrentHashMap<String, Producer<Long, byte[]>> producerMap = new ConcurrentHashMap<>();
   private final String nodeName;
   private final String callerId = SnowflakeId.newInstance().generateDottedString();
   private final String responseTopicName;
 
   /**
-   * Constructs the transport, verifies Kafka broker availability, and starts the response ingester.
+   * Constructs the transport with the default {@link KafkaBatchPolicy}.
    *
    * @param nodeName                  label appended to producer and consumer client IDs for tracing
    * @param signalCodec               codec used to serialize {@link InvocationSignal}s and deserialize results
@@ -106,9 +112,31 @@ public class KafkaRequestTransport extends AbstractRequestTransport {
   public KafkaRequestTransport (String nodeName, SignalCodec signalCodec, int concurrencyLimit, long defaultTimeoutSeconds, int startupGracePeriodSeconds, KafkaGroupProtocol groupProtocol, KafkaServer... servers)
     throws KafkaConnectionException, InterruptedException {
 
+    this(nodeName, signalCodec, new KafkaBatchPolicy(), concurrencyLimit, defaultTimeoutSeconds, startupGracePeriodSeconds, groupProtocol, servers);
+  }
+
+  /**
+   * Constructs the transport, verifies Kafka broker availability, and starts the response ingester and
+   * the transmit pipeline.
+   *
+   * @param nodeName                  label appended to producer and consumer client IDs for tracing
+   * @param signalCodec               codec used to serialize {@link InvocationSignal}s and deserialize results
+   * @param batchPolicy               buffering, batching and packing configuration of the transmit pipeline
+   * @param concurrencyLimit          number of parallel response consumer threads
+   * @param defaultTimeoutSeconds     seconds a caller waits for a response when no explicit timeout is provided
+   * @param startupGracePeriodSeconds seconds to retry broker connectivity before throwing
+   * @param groupProtocol             Kafka group protocol for the response consumer threads
+   * @param servers                   Kafka bootstrap servers to connect to
+   * @throws KafkaConnectionException if no broker becomes reachable within the grace period
+   * @throws InterruptedException     if interrupted while the response ingester is starting
+   */
+  public KafkaRequestTransport (String nodeName, SignalCodec signalCodec, KafkaBatchPolicy batchPolicy, int concurrencyLimit, long defaultTimeoutSeconds, int startupGracePeriodSeconds, KafkaGroupProtocol groupProtocol, KafkaServer... servers)
+    throws KafkaConnectionException, InterruptedException {
+
     super(defaultTimeoutSeconds);
 
     this.signalCodec = signalCodec;
+    this.batchPolicy = batchPolicy;
     this.nodeName = nodeName;
 
     long start = System.currentTimeMillis();
@@ -134,6 +162,8 @@ public class KafkaRequestTransport extends AbstractRequestTransport {
     if (!responseMessageIngester.awaitConsumerAssignment((startupGracePeriodSeconds * 1000L) - (System.currentTimeMillis() - start), TimeUnit.MILLISECONDS)) {
       throw new KafkaConnectionException("Unable to confirm consumer readiness within the specified grace period");
     }
+
+    transmitPipeline = new KafkaTransmitPipeline(nodeName, callerId, batchPolicy, this::getProducer, this::failRecord);
   }
 
   /**
@@ -161,16 +191,50 @@ public class KafkaRequestTransport extends AbstractRequestTransport {
 
     producerLock.readLock().lock();
     try {
-      return closed.get() ? null : producerMap.computeIfAbsent(topic, alsoTopic -> connector.createProducer("wire-producer-" + alsoTopic + "-" + nodeName));
+      return closed.get() ? null : producerMap.computeIfAbsent(topic, alsoTopic -> connector.createProducer("wire-producer-" + alsoTopic + "-" + nodeName, batchPolicy.getMaxBlockMilliseconds()));
     } finally {
       producerLock.readLock().unlock();
     }
   }
 
   /**
-   * Encodes the invocation as an {@link InvocationSignal}, selects the request topic based on
-   * the voice mode (shout, talk, or whisper), publishes the record asynchronously, and — for
-   * two-way conversations — blocks until the correlated response arrives or the timeout expires.
+   * Fails the call waiting on a record the transmit pipeline could not send, answering it with the failure as a
+   * fault rather than leaving it to time out. The failure may beat the caller to registering its callback, which
+   * {@link #completeCallback(String, ResultSignal)} allows for. Records packing in-only invocations carry no
+   * message id, and like any other in-only record have nobody to tell, so their failure is logged.
+   *
+   * @param record    the record that could not be sent
+   * @param exception the reason the send failed
+   */
+  private void failRecord (ProducerRecord<Long, byte[]> record, Exception exception) {
+
+    Header messageIdHeader;
+
+    if ((messageIdHeader = record.headers().lastHeader(HeaderUtility.MESSAGE_ID)) == null) {
+      LoggerManager.getLogger(KafkaRequestTransport.class).error(exception);
+    } else {
+
+      boolean inOnly;
+
+      try {
+        // only the failure path pays to decode the signal, rather than every record carrying the conversation type
+        inOnly = signalCodec.decode(record.value(), 0, record.value().length, InvocationSignal.class).isInOnly();
+      } catch (Exception decodeException) {
+        exception.addSuppressed(decodeException);
+        inOnly = false;
+      }
+
+      if (inOnly) {
+        LoggerManager.getLogger(KafkaRequestTransport.class).error(exception);
+      } else {
+        completeCallback(new String(messageIdHeader.value()), new ResultSignal(true, null, new Fault(exception)));
+      }
+    }
+  }
+
+  /**
+   * Publishes the invocation and — for two-way conversations — blocks until the correlated response
+   * arrives or the timeout expires.
    *
    * @param voice     describes the conversation type and target service group or instance
    * @param route     identifies the target service, method name, and version
@@ -185,37 +249,90 @@ public class KafkaRequestTransport extends AbstractRequestTransport {
   public Object transmit (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
     throws Throwable {
 
-    Producer<Long, byte[]> requestProducer;
-    String messageId = SnowflakeId.newInstance().generateDottedString();
+    boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
+    String messageId = send(inOnly, voice, route, arguments, contexts);
+
+    return Instrument.with(KafkaRequestTransport.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.ACQUIRE_RESULT.getDisplay())).on(
+      () -> acquireResult(signalCodec, route, voice, messageId, inOnly)
+    );
+  }
+
+  /**
+   * Publishes the invocation and returns a future of the correlated response without blocking.
+   *
+   * @param voice     describes the conversation type and target service group or instance
+   * @param route     identifies the target service, method name, and version
+   * @param arguments named method arguments to encode in the invocation signal
+   * @param contexts  optional wire contexts forwarded with the invocation
+   * @return a future of the decoded result object for two-way calls, or of {@code null} for {@link ConversationType#IN_ONLY} calls
+   * @throws AlreadyClosedException if the transport has been closed before or during this call
+   * @throws Throwable              if signal encoding fails
+   */
+  @Override
+  public CompletableFuture<Object> transmitAsynchronously (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Throwable {
+
     boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
 
+    return acquireFuture(signalCodec, route, voice, send(inOnly, voice, route, arguments, contexts), inOnly);
+  }
+
+  /**
+   * Encodes the invocation as an {@link InvocationSignal}, selects the request topic based on
+   * the voice mode (shout, talk, or whisper), and queues the record into the transmit pipeline.
+   * In-only whispers are queued as packable signals when the batch policy enables packing; no
+   * response is correlated for them, so their message id is never sent.
+   *
+   * @param inOnly    whether the conversation expects no response
+   * @param voice     describes the conversation type and target service group or instance
+   * @param route     identifies the target service, method name, and version
+   * @param arguments named method arguments to encode in the invocation signal
+   * @param contexts  optional wire contexts forwarded with the invocation
+   * @return the message id under which the response will be correlated
+   * @throws AlreadyClosedException if the transport has been closed before or during this call
+   * @throws InterruptedException  if interrupted while waiting for space in the topic's buffer
+   * @throws Throwable              if signal encoding fails
+   */
+  private String send (boolean inOnly, Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Throwable {
+
+    String messageId = SnowflakeId.newInstance().generateDottedString();
+
     String topic = switch (voice.getMode()) {
       case SHOUT -> topicNames.getShoutTopicName((String)voice.getServiceGroup());
       case TALK -> topicNames.getTalkTopicName((String)voice.getServiceGroup());
       case WHISPER -> topicNames.getWhisperTopicName((String)voice.getServiceGroup(), ((Whispering)voice).getInstanceId());
     };
 
-    if ((requestProducer = getProducer(topic)) == null) {
+    if (closed.get()) {
       throw new AlreadyClosedException();
+    } else if (inOnly && VocalMode.WHISPER.equals(voice.getMode()) && batchPolicy.isPackWhispers()) {
+
+      byte[] signal = Instrument.with(RequestMessageRouter.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.CONSTRUCT_MESSAGE.getDisplay())).on(
+        () -> signalCodec.encode(new InvocationSignal(inOnly, getDeadline(voice, inOnly), route, arguments, contexts))
+      );
+
+      transmitPipeline.enqueuePackable(topic, route.getService(), signal);
+
+      return messageId;
     } else {
 
       ProducerRecord<Long, byte[]> record = Instrument.with(RequestMessageRouter.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.CONSTRUCT_MESSAGE.getDisplay())).on(
-        () -> new ProducerRecord<>(topic, signalCodec.encode(new InvocationSignal(inOnly, route, arguments, contexts)))
+        () -> new ProducerRecord<>(topic, signalCodec.encode(new InvocationSignal(inOnly, getDeadline(voice, inOnly), route, arguments, contexts)))
       );
 
       record.headers().add(HeaderUtility.MESSAGE_ID, messageId.getBytes());
       record.headers().add(HeaderUtility.CALLER_ID, callerId.getBytes());
 
-      executorService.submit(() -> requestProducer.send(record));
+      transmitPipeline.enqueue(record);
 
-      return Instrument.with(KafkaRequestTransport.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.ACQUIRE_RESULT.getDisplay())).on(
-        () -> acquireResult(signalCodec, route, voice, messageId, inOnly)
-      );
+      return messageId;
     }
   }
 
   /**
-   * Closes all cached producers under the write lock, then shuts down the response ingester.
+   * Drains the transmit pipeline, closes all cached producers under the write lock, then shuts down
+   * the response ingester.
    * After this method returns, subsequent calls to {@link #transmit} will throw
    * {@link AlreadyClosedException}.
    *
@@ -225,9 +342,11 @@ public class KafkaRequestTransport extends AbstractRequestTransport {
   public void close ()
     throws Exception {
 
+    transmitPipeline.close();
+
     producerLock.writeLock().lock();
     try {
-      if (closed.compareAndExchange(false, true)) {
+      if (closed.compareAndSet(false, true)) {
         for (Producer<Long, byte[]> producer : producerMap.values()) {
           producer.close();
         }
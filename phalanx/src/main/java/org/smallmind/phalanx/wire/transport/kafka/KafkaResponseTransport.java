@@ -57,8 +57,11 @@ import org.smallmind.kafka.utility.KafkaGroupProtocol;
 import org.smallmind.kafka.utility.KafkaServer;
 import org.smallmind.nutsnbolts.util.MutationUtility;
 import org.smallmind.nutsnbolts.util.SnowflakeId;
+import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdaptiveConcurrencyLimiter;
+import org.smallmind.phalanx.wire.transport.AdmittedInvocation;
 import org.smallmind.phalanx.wire.transport.ClaxonTag;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
@@ -66,6 +69,7 @@ import org.smallmind.phalanx.wire.transport.TransportState;
 import org.smallmind.phalanx.wire.transport.WireInvocationCircuit;
 import org.smallmind.phalanx.wire.transport.WiredService;
 import org.smallmind.phalanx.wire.transport.amqp.rabbitmq.RequestMessageRouter;
+import org.smallmind.phalanx.worker.WorkEngine;
 import org.smallmind.phalanx.worker.WorkManager;
 import org.smallmind.phalanx.worker.WorkQueue;
 import org.smallmind.phalanx.worker.WorkerFactory;
@@ -80,8 +84,12 @@ import org.smallmind.phalanx.worker.WorkerFactory;
  * a single service group.  The whisper topic is per-instance and is automatically deleted from
  * the broker when {@link #close()} is called.  Ingestion can be suspended and resumed via
  * {@link #pause()} and {@link #play()} without stopping the worker pool.
+ *
+ * <p>Records are decoded, and packed records unpacked, on the ingester thread, where each invocation is
+ * admitted by the invocation circuit before it is queued, so that expired invocations, and invocations
+ * beyond any concurrency limit, are shed before they reach the worker pool.
  */
-public class KafkaResponseTransport extends WorkManager<InvocationWorker, ConsumerRecord<Long, byte[]>> implements WorkerFactory<InvocationWorker, ConsumerRecord<Long, byte[]>>, ResponseTransport, ResponseTransmitter {
+public class KafkaResponseTransport extends WorkManager<InvocationWorker, AdmittedInvocation> implements WorkerFactory<InvocationWorker, AdmittedInvocation>, ResponseTransport, ResponseTransmitter {
 
   private final ExecutorService executorService = new ThreadPoolExecutor(1, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
   private final ReentrantReadWriteLock producerLock = new ReentrantReadWriteLock();
@@ -118,7 +126,28 @@ public class KafkaResponseTransport extends WorkManager<InvocationWorker, Consum
   public KafkaResponseTransport (String nodeName, String serviceGroup, Class<InvocationWorker> workerClass, SignalCodec signalCodec, int concurrencyLimit, int startupGracePeriodSeconds, KafkaGroupProtocol groupProtocol, KafkaServer... servers)
     throws KafkaConnectionException, InterruptedException {
 
-    super(workerClass, concurrencyLimit);
+    this(nodeName, serviceGroup, workerClass, signalCodec, concurrencyLimit, startupGracePeriodSeconds, groupProtocol, WorkEngine.POOLED, servers);
+  }
+
+  /**
+   * Constructs the response transport as above, running the invocation worker pool on the given engine.
+   *
+   * @param nodeName                  label appended to producer and consumer client IDs for tracing
+   * @param serviceGroup              logical service group whose topics this transport subscribes to
+   * @param workerClass               {@link InvocationWorker} subclass instantiated by the work manager
+   * @param signalCodec               codec for encoding {@link ResultSignal}s and decoding {@link org.smallmind.phalanx.wire.signal.InvocationSignal}s
+   * @param concurrencyLimit          thread count applied to both the ingesters and the invocation worker pool
+   * @param startupGracePeriodSeconds seconds to retry broker connectivity before throwing
+   * @param groupProtocol             Kafka group protocol for the whisper, talk, and shout consumer threads
+   * @param workEngine                engine that hands invocations to the worker pool
+   * @param servers                   Kafka bootstrap servers to connect to
+   * @throws KafkaConnectionException if no broker becomes reachable within the grace period
+   * @throws InterruptedException     if interrupted while starting ingesters or the worker pool
+   */
+  public KafkaResponseTransport (String nodeName, String serviceGroup, Class<InvocationWorker> workerClass, SignalCodec signalCodec, int concurrencyLimit, int startupGracePeriodSeconds, KafkaGroupProtocol groupProtocol, WorkEngine workEngine, KafkaServer... servers)
+    throws KafkaConnectionException, InterruptedException {
+
+    super(workerClass, concurrencyLimit, workEngine);
 
     ResponseCallback responseCallback = new ResponseCallback(this);
     String talkTopicName;
@@ -200,15 +229,60 @@ public class KafkaResponseTransport extends WorkManager<InvocationWorker, Consum
    * Creates a new {@link InvocationWorker} wired to the shared invocation circuit and response
    * transmitter.  Called by the parent {@link WorkManager} to populate the worker pool.
    *
-   * @param workQueue queue from which the worker drains inbound {@link ConsumerRecord} items
-   * @return a new {@link InvocationWorker} ready to process invocation records
+   * @param workQueue queue from which the worker drains admitted invocations
+   * @return a new {@link InvocationWorker} ready to process invocations
    */
   @Override
-  public InvocationWorker createWorker (WorkQueue<ConsumerRecord<Long, byte[]>> workQueue) {
+  public InvocationWorker createWorker (WorkQueue<AdmittedInvocation> workQueue) {
 
     return new InvocationWorker(workQueue, this, invocationCircuit, signalCodec);
   }
 
+  /**
+   * Decodes the {@link InvocationSignal}s carried by an inbound record, unpacking records flagged with
+   * the {@link HeaderUtility#PACKED} header, and queues each invocation the invocation circuit admits.
+   *
+   * @param record the Kafka record whose value encodes an {@link InvocationSignal}, or a pack of them
+   * @throws Throwable if decoding fails or an invocation cannot be queued
+   */
+  public void dispatch (ConsumerRecord<Long, byte[]> record)
+    throws Throwable {
+
+    String callerId = HeaderUtility.getHeader(record, HeaderUtility.CALLER_ID);
+    String messageId = HeaderUtility.getHeader(record, HeaderUtility.MESSAGE_ID);
+
+    if (HeaderUtility.getHeader(record, HeaderUtility.PACKED) == null) {
+      dispatch(callerId, messageId, signalCodec.decode(record.value(), 0, record.value().length, InvocationSignal.class));
+    } else {
+      for (byte[] signal : KafkaTransmitPipeline.unpack(record.value())) {
+        dispatch(callerId, messageId, signalCodec.decode(signal, 0, signal.length, InvocationSignal.class));
+      }
+    }
+  }
+
+  /**
+   * Queues a single invocation for the worker pool, unless the invocation circuit sheds it.
+   *
+   * @param callerId         identifier of the originating caller
+   * @param messageId        correlation identifier of the request
+   * @param invocationSignal the decoded invocation
+   * @throws Throwable if the invocation cannot be queued
+   */
+  private void dispatch (String callerId, String messageId, InvocationSignal invocationSignal)
+    throws Throwable {
+
+    AdmittedInvocation admittedInvocation;
+
+    if ((admittedInvocation = invocationCircuit.admit(this, callerId, messageId, invocationSignal)) != null) {
+      try {
+        execute(admittedInvocation);
+      } catch (Throwable throwable) {
+        admittedInvocation.release();
+        throw throwable;
+      }
+    }
+  }
+
   /**
    * Returns the current lifecycle state of this transport.
    *
@@ -221,6 +295,50 @@ public class KafkaResponseTransport extends WorkManager<InvocationWorker, Consum
     return transportStateRef.get();
   }
 
+  /**
+   * Returns the limiter guarding invocation on this transport, if any.
+   *
+   * @return the adaptive concurrency limiter, or {@code null} if invocations are not adaptively limited
+   */
+  @Override
+  public AdaptiveConcurrencyLimiter getConcurrencyLimiter () {
+
+    return invocationCircuit.getConcurrencyLimiter();
+  }
+
+  /**
+   * Sets a limiter to guard invocation on this transport, after which invocations arriving while the
+   * limit is reached are refused rather than run.
+   *
+   * @param concurrencyLimiter the adaptive concurrency limiter, or {@code null} to remove it
+   */
+  public void setConcurrencyLimiter (AdaptiveConcurrencyLimiter concurrencyLimiter) {
+
+    invocationCircuit.setConcurrencyLimiter(concurrencyLimiter);
+  }
+
+  /**
+   * Returns the number of inbound invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  @Override
+  public long getExpiredShedCount () {
+
+    return invocationCircuit.getExpiredShedCount();
+  }
+
+  /**
+   * Returns the number of inbound invocations refused because the adaptive concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  @Override
+  public long getOverloadShedCount () {
+
+    return invocationCircuit.getOverloadShedCount();
+  }
+
   /**
    * Resumes ingestion on all three topic ingesters if the transport is currently
    * {@link TransportState#PAUSED}.  Does nothing when the transport is in any other state.
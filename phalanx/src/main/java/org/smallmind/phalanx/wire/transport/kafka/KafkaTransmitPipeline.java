@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport.kafka;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.smallmind.scribe.pen.LoggerManager;
+
+/**
+ * Transmit pipeline of a {@link KafkaRequestTransport}.  Records are queued into a bounded buffer per
+ * request topic and handed to the topic's producer by a single daemon sender thread, as governed by a
+ * {@link KafkaBatchPolicy}, so that bursts are batched by the producer rather than fanned out across
+ * threads.  In-only whisper invocations may be queued as packable signals, which the sender merges
+ * per service into records flagged with the {@link HeaderUtility#PACKED} header, whose value is a
+ * sequence of length-prefixed encoded signals.
+ * <p>
+ * As the one sender serves every topic, a producer that cannot accept a record, for want of metadata or buffer
+ * space, must not hold it for long. Producers are expected to bound their {@code max.block.ms}, and a record whose
+ * send fails is handed to the failure handler, as is the rest of its topic's batch without being offered, so a
+ * stalled topic delays the others by at most one such block per drain. Records the producer accepts but then fails
+ * to deliver are handed to the failure handler from the producer's callback.
+ */
+public class KafkaTransmitPipeline {
+
+  private final ConcurrentHashMap<String, TopicBuffer> bufferMap = new ConcurrentHashMap<>();
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final Function<String, Producer<Long, byte[]>> producerSource;
+  private final BiConsumer<ProducerRecord<Long, byte[]>, Exception> failureHandler;
+  private final KafkaBatchPolicy batchPolicy;
+  private final Thread senderThread;
+  private final String callerId;
+  private final long lingerNanos;
+  private volatile boolean idle;
+
+  /**
+   * Constructs the pipeline and starts its sender thread.
+   *
+   * @param nodeName       label used to name the sender thread
+   * @param callerId       caller id stamped onto packed records
+   * @param batchPolicy    buffer, batch, linger and packing configuration
+   * @param producerSource supplies the producer for a topic, or {@code null} once producers are closed
+   * @param failureHandler told of each record that could not be sent, and why
+   */
+  public KafkaTransmitPipeline (String nodeName, String callerId, KafkaBatchPolicy batchPolicy, Function<String, Producer<Long, byte[]>> producerSource, BiConsumer<ProducerRecord<Long, byte[]>, Exception> failureHandler) {
+
+    this.callerId = callerId;
+    this.batchPolicy = batchPolicy;
+    this.producerSource = producerSource;
+    this.failureHandler = failureHandler;
+
+    lingerNanos = TimeUnit.MILLISECONDS.toNanos(batchPolicy.getLingerMilliseconds());
+
+    senderThread = new Thread(new Sender());
+    senderThread.setName("phalanx-kafka-sender-" + nodeName);
+    senderThread.setDaemon(true);
+    senderThread.start();
+  }
+
+  /**
+   * Queues a record for its topic, blocking while the topic's buffer is full.
+   *
+   * @param record the record to send
+   * @throws AlreadyClosedException if the pipeline is closed before the record could be queued
+   * @throws InterruptedException   if interrupted while waiting for buffer space
+   */
+  public void enqueue (ProducerRecord<Long, byte[]> record)
+    throws AlreadyClosedException, InterruptedException {
+
+    offer(record.topic(), new PendingRecord(record, null, null));
+  }
+
+  /**
+   * Queues an encoded in-only signal that may be packed with others of the same service bound for the
+   * same topic, blocking while the topic's buffer is full.
+   *
+   * @param topic   the request topic
+   * @param service the service name, which keys packing within the topic
+   * @param signal  the encoded invocation signal
+   * @throws AlreadyClosedException if the pipeline is closed before the signal could be queued
+   * @throws InterruptedException   if interrupted while waiting for buffer space
+   */
+  public void enqueuePackable (String topic, String service, byte[] signal)
+    throws AlreadyClosedException, InterruptedException {
+
+    offer(topic, new PendingRecord(null, service, signal));
+  }
+
+  /**
+   * Queues a pending record, waking the sender when it is idle or the topic's batch fills.
+   *
+   * @param topic         the request topic
+   * @param pendingRecord the record to queue
+   * @throws AlreadyClosedException if the pipeline is closed before the record could be queued
+   * @throws InterruptedException   if interrupted while waiting for buffer space
+   */
+  private void offer (String topic, PendingRecord pendingRecord)
+    throws AlreadyClosedException, InterruptedException {
+
+    TopicBuffer topicBuffer = bufferMap.computeIfAbsent(topic, alsoTopic -> new TopicBuffer(alsoTopic, batchPolicy.getBufferCapacity()));
+
+    do {
+      if (closed.get()) {
+        throw new AlreadyClosedException();
+      }
+    } while (!topicBuffer.getQueue().offer(pendingRecord, 100, TimeUnit.MILLISECONDS));
+
+    // an idle sender has no linger deadline to wake it, while a lingering one wakes no later than this record's own deadline
+    if (idle || (topicBuffer.getQueue().size() >= batchPolicy.getMaxBatchSize())) {
+      LockSupport.unpark(senderThread);
+    }
+  }
+
+  /**
+   * Stops accepting records, and waits for the sender to drain everything already queued.
+   *
+   * @throws InterruptedException if interrupted while waiting for the sender to finish
+   */
+  public void close ()
+    throws InterruptedException {
+
+    if (closed.compareAndSet(false, true)) {
+
+      ArrayList<PendingRecord> batch = new ArrayList<>(batchPolicy.getMaxBatchSize());
+
+      LockSupport.unpark(senderThread);
+      senderThread.join();
+
+      // Callers may have passed the closed check just as the sender finished, so sweep up after it
+      for (TopicBuffer topicBuffer : bufferMap.values()) {
+        while (topicBuffer.getQueue().drainTo(batch, batchPolicy.getMaxBatchSize()) > 0) {
+          try {
+            send(topicBuffer.getTopic(), batch);
+          } finally {
+            batch.clear();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Hands a drained batch to the topic's producer, merging packable signals per service. Once a send fails,
+   * the remainder of the batch is failed without being offered.
+   *
+   * @param topic the request topic
+   * @param batch the records drained from the topic's buffer, in queue order
+   */
+  private void send (String topic, ArrayList<PendingRecord> batch) {
+
+    Producer<Long, byte[]> producer;
+    LinkedHashMap<String, LinkedList<byte[]>> packMap = null;
+    Exception stallException = null;
+
+    if ((producer = producerSource.apply(topic)) == null) {
+      LoggerManager.getLogger(KafkaTransmitPipeline.class).error(stallException = new AlreadyClosedException());
+    }
+
+    for (PendingRecord pendingRecord : batch) {
+      if (pendingRecord.getRecord() != null) {
+        stallException = send(producer, pendingRecord.getRecord(), stallException);
+      } else {
+
+        LinkedList<byte[]> signalList;
+
+        if (packMap == null) {
+          packMap = new LinkedHashMap<>();
+        }
+        if ((signalList = packMap.get(pendingRecord.getService())) == null) {
+          packMap.put(pendingRecord.getService(), signalList = new LinkedList<>());
+        }
+
+        signalList.add(pendingRecord.getSignal());
+        if (signalList.size() >= batchPolicy.getMaxPackSize()) {
+          stallException = send(producer, pack(topic, signalList), stallException);
+          signalList.clear();
+        }
+      }
+    }
+
+    if (packMap != null) {
+      for (Map.Entry<String, LinkedList<byte[]>> packEntry : packMap.entrySet()) {
+        if (!packEntry.getValue().isEmpty()) {
+          stallException = send(producer, pack(topic, packEntry.getValue()), stallException);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends a single record, unless an earlier send of the same batch has failed, in which case the record is
+   * failed with the same exception.
+   *
+   * @param producer       the topic's producer, or {@code null} if producers are closed
+   * @param record         the record to send
+   * @param stallException the failure of an earlier send of the batch, or {@code null} if there has been none
+   * @return the failure that should stop the rest of the batch, or {@code null} if the record was accepted
+   */
+  private Exception send (Producer<Long, byte[]> producer, ProducerRecord<Long, byte[]> record, Exception stallException) {
+
+    if (stallException != null) {
+      fail(record, stallException);
+
+      return stallException;
+    }
+
+    try {
+      producer.send(record, (metadata, exception) -> {
+        if (exception != null) {
+          LoggerManager.getLogger(KafkaTransmitPipeline.class).error(exception);
+          fail(record, exception);
+        }
+      });
+
+      return null;
+    } catch (Exception exception) {
+      LoggerManager.getLogger(KafkaTransmitPipeline.class).error(exception);
+      fail(record, exception);
+
+      return exception;
+    }
+  }
+
+  /**
+   * Hands a record that could not be sent to the failure handler, which must not disturb the sender.
+   *
+   * @param record    the record that could not be sent
+   * @param exception the reason the send failed
+   */
+  private void fail (ProducerRecord<Long, byte[]> record, Exception exception) {
+
+    try {
+      failureHandler.accept(record, exception);
+    } catch (Exception handlerException) {
+      LoggerManager.getLogger(KafkaTransmitPipeline.class).error(handlerException);
+    }
+  }
+
+  /**
+   * Builds a packed record holding the given signals, each prefixed by its 4 byte length.
+   *
+   * @param topic      the request topic
+   * @param signalList the encoded signals to pack
+   * @return the packed record
+   */
+  private ProducerRecord<Long, byte[]> pack (String topic, LinkedList<byte[]> signalList) {
+
+    ProducerRecord<Long, byte[]> record;
+    ByteBuffer packBuffer;
+    int packLength = 0;
+
+    for (byte[] signal : signalList) {
+      packLength += 4 + signal.length;
+    }
+
+    packBuffer = ByteBuffer.allocate(packLength);
+    for (byte[] signal : signalList) {
+      packBuffer.putInt(signal.length).put(signal);
+    }
+
+    record = new ProducerRecord<>(topic, packBuffer.array());
+    record.headers().add(HeaderUtility.CALLER_ID, callerId.getBytes());
+    record.headers().add(HeaderUtility.PACKED, Integer.toString(signalList.size()).getBytes());
+
+    return record;
+  }
+
+  /**
+   * Splits the value of a packed record back into its encoded signals.
+   *
+   * @param value the packed record value
+   * @return the encoded signals in packing order
+   */
+  public static LinkedList<byte[]> unpack (byte[] value) {
+
+    LinkedList<byte[]> signalList = new LinkedList<>();
+    ByteBuffer packBuffer = ByteBuffer.wrap(value);
+
+    while (packBuffer.hasRemaining()) {
+
+      byte[] signal = new byte[packBuffer.getInt()];
+
+      packBuffer.get(signal);
+      signalList.add(signal);
+    }
+
+    return signalList;
+  }
+
+  /**
+   * A queued unit of work, either a complete record or a packable encoded signal.
+   */
+  private static class PendingRecord {
+
+    private final ProducerRecord<Long, byte[]> record;
+    private final String service;
+    private final byte[] signal;
+    private final long enqueuedNanos = System.nanoTime();
+
+    /**
+     * Constructs a pending record.
+     *
+     * @param record  the complete record, or {@code null} for a packable signal
+     * @param service the service keying packing, or {@code null} for a complete record
+     * @param signal  the packable encoded signal, or {@code null} for a complete record
+     */
+    private PendingRecord (ProducerRecord<Long, byte[]> record, String service, byte[] signal) {
+
+      this.record = record;
+      this.service = service;
+      this.signal = signal;
+    }
+
+    /**
+     * Returns the complete record.
+     *
+     * @return the record, or {@code null} for a packable signal
+     */
+    public ProducerRecord<Long, byte[]> getRecord () {
+
+      return record;
+    }
+
+    /**
+     * Returns the service keying packing.
+     *
+     * @return the service name, or {@code null} for a complete record
+     */
+    public String getService () {
+
+      return service;
+    }
+
+    /**
+     * Returns the packable encoded signal.
+     *
+     * @return the encoded signal, or {@code null} for a complete record
+     */
+    public byte[] getSignal () {
+
+      return signal;
+    }
+
+    /**
+     * Returns when this record was queued.
+     *
+     * @return the {@link System#nanoTime()} at construction
+     */
+    public long getEnqueuedNanos () {
+
+      return enqueuedNanos;
+    }
+  }
+
+  /**
+   * The bounded buffer of a single request topic.
+   */
+  private static class TopicBuffer {
+
+    private final ArrayBlockingQueue<PendingRecord> queue;
+    private final String topic;
+
+    /**
+     * Constructs a buffer.
+     *
+     * @param topic    the request topic
+     * @param capacity the maximum number of queued records
+     */
+    private TopicBuffer (String topic, int capacity) {
+
+      this.topic = topic;
+
+      queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Returns the request topic.
+     *
+     * @return the topic name
+     */
+    public String getTopic () {
+
+      return topic;
+    }
+
+    /**
+     * Returns the bounded queue of pending records.
+     *
+     * @return the queue
+     */
+    public ArrayBlockingQueue<PendingRecord> getQueue () {
+
+      return queue;
+    }
+  }
+
+  /**
+   * Single sender loop, which drains every topic whose batch is full or whose oldest record has lingered
+   * long enough, then parks until the next linger deadline or a wake up from a producer thread.  Once the
+   * pipeline closes, all topics are drained regardless of linger and the loop exits.
+   */
+  private class Sender implements Runnable {
+
+    /**
+     * Runs the drain loop until the pipeline is closed and empty.
+     */
+    @Override
+    public void run () {
+
+      ArrayList<PendingRecord> batch = new ArrayList<>(batchPolicy.getMaxBatchSize());
+
+      while (true) {
+
+        boolean closing = closed.get();
+        boolean pending = false;
+        long now = System.nanoTime();
+        long parkNanos = Long.MAX_VALUE;
+
+        for (TopicBuffer topicBuffer : bufferMap.values()) {
+
+          PendingRecord oldestRecord;
+
+          while ((oldestRecord = topicBuffer.getQueue().peek()) != null) {
+
+            long waitNanos = lingerNanos - (now - oldestRecord.getEnqueuedNanos());
+
+            if (closing || (waitNanos <= 0) || (topicBuffer.getQueue().size() >= batchPolicy.getMaxBatchSize())) {
+              topicBuffer.getQueue().drainTo(batch, batchPolicy.getMaxBatchSize());
+              try {
+                send(topicBuffer.getTopic(), batch);
+              } finally {
+                batch.clear();
+              }
+            } else {
+              pending = true;
+              parkNanos = Math.min(parkNanos, waitNanos);
+              break;
+            }
+          }
+        }
+
+        if (closing && (!pending)) {
+          break;
+        } else if (pending) {
+          LockSupport.parkNanos(parkNanos);
+        } else {
+          // announce idleness before the final look, so a record queued after that look is sure to see the flag
+          idle = true;
+          if (!hasQueuedRecords()) {
+            LockSupport.park();
+          }
+          idle = false;
+        }
+      }
+    }
+
+    /**
+     * Determines whether any topic still holds a queued record.
+     *
+     * @return {@code true} if a record is waiting to be sent
+     */
+    private boolean hasQueuedRecords () {
+
+      for (TopicBuffer topicBuffer : bufferMap.values()) {
+        if (!topicBuffer.getQueue().isEmpty()) {
+
+          return true;
+        }
+      }
+
+      return false;
+    }
+  }
+}
@@ -45,8 +45,8 @@ import org.smallmind.scribe.pen.LoggerManager;
 /**
  * Kafka {@link Consumer} callback supplied to the ingesters of {@link KafkaResponseTransport}.
  * For each inbound invocation record, measures how long it waited in the topic, records that
- * transit duration as a metric, and then submits the record to the transport's worker queue for
- * execution.
+ * transit duration as a metric, and then hands the record to the transport, which decodes and
+ * admits its invocations before queueing them for execution.
  */
 public class ResponseCallback implements Consumer<ConsumerRecord<Long, byte[]>> {
 
@@ -65,7 +65,7 @@ public class ResponseCallback implements Consumer<ConsumerRecord<Long, byte[]>>
   /**
    * Computes the transit time of {@code record} (wall-clock time minus the record's Kafka
    * timestamp), logs receipt at DEBUG level, records the duration as a metric, and delegates
-   * the record to the transport for queued execution.  Any error is logged and swallowed so the
+   * the record to the transport for admission and queued execution.  Any error is logged and swallowed so the
    * consumer poll loop continues.
    *
    * @param record inbound Kafka record encoding an invocation request
@@ -80,7 +80,7 @@ public class ResponseCallback implements Consumer<ConsumerRecord<Long, byte[]>>
       LoggerManager.getLogger(ResponseCallback.class).debug("request message received(%s) in %d ms...", HeaderUtility.getHeader(record, HeaderUtility.MESSAGE_ID), timeInQueue);
       Instrument.with(ResponseCallback.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("queue", ClaxonTag.REQUEST_TRANSIT_TIME.getDisplay())).update((timeInQueue >= 0) ? timeInQueue : 0, TimeUnit.MILLISECONDS);
 
-      transport.execute(record);
+      transport.dispatch(record);
     } catch (Throwable throwable) {
       LoggerManager.getLogger(ResponseCallback.class).error(throwable.getMessage(), throwable);
     }
@@ -36,6 +36,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.smallmind.phalanx.wire.ConversationType;
 import org.smallmind.phalanx.wire.VocalMode;
 import org.smallmind.phalanx.wire.Voice;
@@ -119,9 +120,8 @@ public class MockRequestTransport extends AbstractRequestTransport {
   }
 
   /**
-   * Encodes the invocation as an {@link InvocationSignal}, sends the message to the appropriate
-   * mock channel (whisper topic or talk queue) via the router, and — for two-way conversations —
-   * blocks until the correlated response arrives or the timeout expires.
+   * Sends the invocation and — for two-way conversations — blocks until the correlated response
+   * arrives or the timeout expires.
    *
    * @param voice     describes the conversation type and target service group or instance
    * @param route     identifies the target service, method name, and version
@@ -135,11 +135,50 @@ public class MockRequestTransport extends AbstractRequestTransport {
   public Object transmit (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
     throws Throwable {
 
+    boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
+
+    return acquireResult(signalCodec, route, voice, send(inOnly, voice, route, arguments, contexts), inOnly);
+  }
+
+  /**
+   * Sends the invocation and returns a future of the correlated response without blocking.
+   *
+   * @param voice     describes the conversation type and target service group or instance
+   * @param route     identifies the target service, method name, and version
+   * @param arguments named method arguments to encode in the invocation signal
+   * @param contexts  optional wire contexts forwarded with the invocation
+   * @return a future of the decoded result object for two-way calls, or of {@code null} for
+   * {@link org.smallmind.phalanx.wire.ConversationType#IN_ONLY} calls
+   * @throws Throwable if signal encoding fails
+   */
+  @Override
+  public CompletableFuture<Object> transmitAsynchronously (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Throwable {
+
+    boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
+
+    return acquireFuture(signalCodec, route, voice, send(inOnly, voice, route, arguments, contexts), inOnly);
+  }
+
+  /**
+   * Encodes the invocation as an {@link InvocationSignal} and sends the message to the appropriate
+   * mock channel (whisper topic or talk queue) via the router.
+   *
+   * @param inOnly    whether the conversation expects no response
+   * @param voice     describes the conversation type and target service group or instance
+   * @param route     identifies the target service, method name, and version
+   * @param arguments named method arguments to encode in the invocation signal
+   * @param contexts  optional wire contexts forwarded with the invocation
+   * @return the message id under which the response will be correlated
+   * @throws Exception if signal encoding fails
+   */
+  private String send (boolean inOnly, Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts)
+    throws Exception {
+
     MockMessage message;
     String messageId = UUID.randomUUID().toString();
-    boolean inOnly = voice.getConversation().getConversationType().equals(ConversationType.IN_ONLY);
 
-    message = new MockMessage(signalCodec.encode(new InvocationSignal(inOnly, route, arguments, contexts)));
+    message = new MockMessage(signalCodec.encode(new InvocationSignal(inOnly, getDeadline(voice, inOnly), route, arguments, contexts)));
 
     if (!inOnly) {
       message.getProperties().setHeader(WireProperty.CALLER_ID.getKey(), callerId);
@@ -158,7 +197,7 @@ public class MockRequestTransport extends AbstractRequestTransport {
       messageRouter.getTalkRequestQueue().send(message);
     }
 
-    return acquireResult(signalCodec, route, voice, messageId, inOnly);
+    return messageId;
   }
 
   /**
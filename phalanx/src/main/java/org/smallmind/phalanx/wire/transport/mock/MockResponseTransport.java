@@ -40,6 +40,7 @@ import org.smallmind.phalanx.wire.ServiceDefinitionException;
 import org.smallmind.phalanx.wire.signal.InvocationSignal;
 import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.SignalCodec;
+import org.smallmind.phalanx.wire.transport.AdaptiveConcurrencyLimiter;
 import org.smallmind.phalanx.wire.transport.ResponseTransmitter;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
 import org.smallmind.phalanx.wire.transport.TransportState;
@@ -183,6 +184,50 @@ public class MockResponseTransport implements ResponseTransport, ResponseTransmi
     return transportStateRef.get();
   }
 
+  /**
+   * Returns the limiter guarding invocation on this transport, if any.
+   *
+   * @return the adaptive concurrency limiter, or {@code null} if invocations are not adaptively limited
+   */
+  @Override
+  public AdaptiveConcurrencyLimiter getConcurrencyLimiter () {
+
+    return invocationCircuit.getConcurrencyLimiter();
+  }
+
+  /**
+   * Sets a limiter to guard invocation on this transport, after which invocations arriving while the
+   * limit is reached are refused rather than run.
+   *
+   * @param concurrencyLimiter the adaptive concurrency limiter, or {@code null} to remove it
+   */
+  public void setConcurrencyLimiter (AdaptiveConcurrencyLimiter concurrencyLimiter) {
+
+    invocationCircuit.setConcurrencyLimiter(concurrencyLimiter);
+  }
+
+  /**
+   * Returns the number of inbound invocations dropped because their caller deadline had passed on arrival.
+   *
+   * @return the count of expired invocations shed
+   */
+  @Override
+  public long getExpiredShedCount () {
+
+    return invocationCircuit.getExpiredShedCount();
+  }
+
+  /**
+   * Returns the number of inbound invocations refused because the adaptive concurrency limit had been reached.
+   *
+   * @return the count of overloaded invocations shed
+   */
+  @Override
+  public long getOverloadShedCount () {
+
+    return invocationCircuit.getOverloadShedCount();
+  }
+
   /**
    * Resumes talk-request delivery if the transport is currently {@link TransportState#PAUSED}.
    * Does nothing when the transport is in any other state.
@@ -48,7 +48,22 @@ public enum ClaxonTag {
   /**
    * Tag emitted to record the duration a worker spent idle between work items.
    */
-  WORKER_IDLE("Worker Idle");
+  WORKER_IDLE("Worker Idle"),
+
+  /**
+   * Tag emitted to record the number of work items accepted but not yet taken up by a worker.
+   */
+  QUEUE_DEPTH("Queue Depth"),
+
+  /**
+   * Tag emitted to record the time a work item waited before a worker took it up.
+   */
+  WORK_WAIT("Work Wait"),
+
+  /**
+   * Tag emitted to record the time a worker spent engaged on a work item.
+   */
+  WORK_SERVICE("Work Service");
 
   private final String display;
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.worker;
+
+import java.util.concurrent.TimeUnit;
+import org.smallmind.scribe.pen.LoggerManager;
+
+/**
+ * The {@link WorkEngine#POOLED} engine, which runs each worker's own polling loop on a daemon platform
+ * thread and hands work over through the shared {@link WorkQueue}.
+ *
+ * @param <W> the worker type
+ * @param <T> the type of work items dispatched
+ */
+class PooledWorkDispatcher<W extends Worker<T>, T> implements WorkDispatcher<T> {
+
+  private final WorkQueue<T> workQueue;
+  private final W[] workers;
+
+  /**
+   * Starts a thread for each worker.
+   *
+   * @param workers   the workers, each of which polls {@code workQueue}
+   * @param workQueue the queue shared by the workers
+   */
+  PooledWorkDispatcher (W[] workers, WorkQueue<T> workQueue) {
+
+    this.workers = workers;
+    this.workQueue = workQueue;
+
+    for (W worker : workers) {
+
+      Thread workerThread = new Thread(worker);
+
+      workerThread.setDaemon(true);
+      workerThread.start();
+    }
+  }
+
+  /**
+   * The shared queue's depth is not observable, so this engine reports none.
+   *
+   * @return always {@code 0}
+   */
+  @Override
+  public int getQueueDepth () {
+
+    return 0;
+  }
+
+  /**
+   * Offers the work item to the queue, retrying until it is accepted.
+   *
+   * @param work the work item
+   * @throws InterruptedException if interrupted while offering
+   */
+  @Override
+  public void dispatch (T work)
+    throws InterruptedException {
+
+    boolean success;
+
+    do {
+      success = workQueue.offer(work, 1, TimeUnit.SECONDS);
+    } while (!success);
+  }
+
+  /**
+   * Stops each worker in turn, logging rather than propagating failures so that the remaining workers
+   * are still stopped.
+   */
+  @Override
+  public void shutDown () {
+
+    for (W worker : workers) {
+      try {
+        worker.stop();
+      } catch (Exception exception) {
+        LoggerManager.getLogger(WorkManager.class).error(exception);
+      }
+    }
+  }
+}
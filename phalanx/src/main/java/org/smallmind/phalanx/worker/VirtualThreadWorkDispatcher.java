@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.worker;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.smallmind.claxon.registry.Instrument;
+import org.smallmind.claxon.registry.Tag;
+import org.smallmind.claxon.registry.meter.GaugeBuilder;
+import org.smallmind.claxon.registry.meter.MeterFactory;
+import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
+import org.smallmind.scribe.pen.LoggerManager;
+
+/**
+ * The {@link WorkEngine#VIRTUAL} engine, which starts a virtual thread for every unit of work.  A
+ * semaphore with one permit per worker bounds the units in flight, so each unit can borrow an idle
+ * worker for its duration, and callers block once every worker is busy.  The time callers wait for a
+ * permit, the time spent in {@link Worker#engageWork(Object)}, and the number of waiting callers are
+ * reported to Claxon.
+ *
+ * @param <W> the worker type
+ * @param <T> the type of work items dispatched
+ */
+class VirtualThreadWorkDispatcher<W extends Worker<T>, T> implements WorkDispatcher<T> {
+
+  private final ConcurrentLinkedDeque<W> idleWorkers = new ConcurrentLinkedDeque<>();
+  private final AtomicInteger waitingCount = new AtomicInteger();
+  private final ThreadFactory threadFactory = Thread.ofVirtual().name("phalanx-virtual-worker-", 0).factory();
+  private final Semaphore permits;
+  private final W[] workers;
+
+  /**
+   * Constructs the engine over the given workers, whose number sets the concurrency limit.
+   *
+   * @param workers the workers to lend out
+   */
+  VirtualThreadWorkDispatcher (W[] workers) {
+
+    this.workers = workers;
+
+    permits = new Semaphore(workers.length);
+    for (W worker : workers) {
+      idleWorkers.push(worker);
+    }
+
+    Instrument.with(WorkManager.class, MeterFactory.instance(GaugeBuilder::new), new Tag("event", ClaxonTag.QUEUE_DEPTH.getDisplay())).track(this, dispatcher -> (long)dispatcher.getQueueDepth());
+  }
+
+  /**
+   * Returns the number of callers waiting for a permit.
+   *
+   * @return the current queue depth
+   */
+  @Override
+  public int getQueueDepth () {
+
+    return waitingCount.get();
+  }
+
+  /**
+   * Waits for a permit, then runs the work item on a new virtual thread with an idle worker.
+   *
+   * @param work the work item
+   * @throws InterruptedException if interrupted while waiting for a permit
+   */
+  @Override
+  public void dispatch (T work)
+    throws InterruptedException {
+
+    long waitStart = System.nanoTime();
+
+    waitingCount.incrementAndGet();
+    try {
+      permits.acquire();
+    } finally {
+      waitingCount.decrementAndGet();
+    }
+
+    Instrument.with(WorkManager.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.WORK_WAIT.getDisplay())).update(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+    try {
+      threadFactory.newThread(() -> engage(idleWorkers.pop(), work)).start();
+    } catch (RuntimeException runtimeException) {
+      permits.release();
+      throw runtimeException;
+    }
+  }
+
+  /**
+   * Runs a work item on the borrowed worker, then returns the worker and its permit.
+   *
+   * @param worker the borrowed worker
+   * @param work   the work item
+   */
+  private void engage (W worker, T work) {
+
+    long serviceStart = System.nanoTime();
+
+    try {
+      worker.engageWork(work);
+    } catch (Throwable throwable) {
+      LoggerManager.getLogger(worker.getClass()).error(throwable);
+    } finally {
+      Instrument.with(WorkManager.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.WORK_SERVICE.getDisplay())).update(System.nanoTime() - serviceStart, TimeUnit.NANOSECONDS);
+
+      idleWorkers.push(worker);
+      permits.release();
+    }
+  }
+
+  /**
+   * Takes every permit, which waits out the units in flight, then closes the workers.
+   *
+   * @throws InterruptedException if interrupted while waiting for the units in flight
+   */
+  @Override
+  public void shutDown ()
+    throws InterruptedException {
+
+    permits.acquire(workers.length);
+
+    for (W worker : workers) {
+      try {
+        worker.close();
+      } catch (Exception exception) {
+        LoggerManager.getLogger(WorkManager.class).error(exception);
+      }
+    }
+  }
+}
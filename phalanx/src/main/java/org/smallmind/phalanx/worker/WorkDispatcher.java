@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.worker;
+
+/**
+ * Engine behind a started {@link WorkManager}, which hands work to the manager's workers.
+ *
+ * @param <T> the type of work items dispatched
+ */
+interface WorkDispatcher<T> {
+
+  /**
+   * Returns the number of work items accepted but not yet taken up by a worker.
+   *
+   * @return the current queue depth
+   */
+  int getQueueDepth ();
+
+  /**
+   * Hands a work item to the workers, blocking while the engine is saturated.
+   *
+   * @param work the work item
+   * @throws InterruptedException if interrupted while waiting for capacity
+   */
+  void dispatch (T work)
+    throws InterruptedException;
+
+  /**
+   * Finishes the work already accepted, then stops and closes the workers.
+   *
+   * @throws InterruptedException if interrupted while waiting for outstanding work
+   */
+  void shutDown ()
+    throws InterruptedException;
+}
@@ -33,23 +33,26 @@
 package org.smallmind.phalanx.worker;
 
 import java.lang.reflect.Array;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import org.smallmind.claxon.registry.Instrument;
 import org.smallmind.claxon.registry.Tag;
 import org.smallmind.claxon.registry.meter.MeterFactory;
 import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
+import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
 import org.smallmind.nutsnbolts.util.ComponentStatus;
-import org.smallmind.scribe.pen.LoggerManager;
 
 /**
  * Manages a fixed-size pool of {@link Worker} instances sharing a common {@link WorkQueue}.
  *
  * <p>The manager owns the full lifecycle of its workers: it creates and starts them via a
  * {@link WorkerFactory} on {@link #startUp}, dispatches work items through {@link #execute},
- * and cooperatively shuts them down via {@link #shutDown}.  Metrics for work-acquisition latency
- * are recorded with Claxon.  Concurrent calls to {@code startUp} or {@code shutDown} are safe;
- * subsequent callers spin-wait until the transition in progress completes.</p>
+ * and cooperatively shuts them down via {@link #shutDown}.  How work reaches the workers is decided by
+ * the manager's {@link WorkEngine}: a fixed pool of platform threads polling the {@link WorkQueue}
+ * (the default), a virtual thread per unit of work limited by a semaphore, or a work-stealing pool of
+ * platform threads with per-worker deques.  Metrics for work-acquisition latency are recorded with
+ * Claxon, and the virtual and work-stealing engines also report queue depth, wait time and service
+ * time.  Concurrent calls to {@code startUp} or {@code shutDown} are safe; subsequent callers
+ * spin-wait until the transition in progress completes.</p>
  *
  * @param <W> the concrete {@link Worker} subtype managed by this instance
  * @param <T> the type of work items accepted by the underlying queue
@@ -58,9 +61,10 @@ public class WorkManager<W extends Worker<T>, T> {
 
   private final AtomicReference<ComponentStatus> statusRef = new AtomicReference<>(ComponentStatus.STOPPED);
   private final WorkQueue<T> workQueue;
+  private final WorkEngine workEngine;
   private final Class<W> workerClass;
   private final int concurrencyLimit;
-  private W[] workers;
+  private WorkDispatcher<T> dispatcher;
 
   /**
    * Creates a manager that uses a {@link TransferringWorkQueue} as the default queue implementation.
@@ -70,7 +74,19 @@ public class WorkManager<W extends Worker<T>, T> {
    */
   public WorkManager (Class<W> workerClass, int concurrencyLimit) {
 
-    this(workerClass, concurrencyLimit, new TransferringWorkQueue<>());
+    this(workerClass, concurrencyLimit, WorkEngine.POOLED);
+  }
+
+  /**
+   * Creates a manager running on the given engine, with a {@link TransferringWorkQueue} for the pooled engine.
+   *
+   * @param workerClass      the runtime class of the worker type, used to allocate the worker array
+   * @param concurrencyLimit the maximum number of workers to run concurrently
+   * @param workEngine       the engine that hands work to the workers
+   */
+  public WorkManager (Class<W> workerClass, int concurrencyLimit, WorkEngine workEngine) {
+
+    this(workerClass, concurrencyLimit, workEngine, new TransferringWorkQueue<>());
   }
 
   /**
@@ -82,8 +98,24 @@ public class WorkManager<W extends Worker<T>, T> {
    */
   public WorkManager (Class<W> workerClass, int concurrencyLimit, WorkQueue<T> workQueue) {
 
+    this(workerClass, concurrencyLimit, WorkEngine.POOLED, workQueue);
+  }
+
+  /**
+   * Creates a manager running on the given engine with an explicitly supplied queue implementation.  Only
+   * the pooled engine hands work over through the queue; the others still pass it to each worker they
+   * create, but never offer to it.
+   *
+   * @param workerClass      the runtime class of the worker type, used to allocate the worker array
+   * @param concurrencyLimit the maximum number of workers to run concurrently
+   * @param workEngine       the engine that hands work to the workers
+   * @param workQueue        the queue through which the pooled engine hands work items off to workers
+   */
+  public WorkManager (Class<W> workerClass, int concurrencyLimit, WorkEngine workEngine, WorkQueue<T> workQueue) {
+
     this.workerClass = workerClass;
     this.concurrencyLimit = concurrencyLimit;
+    this.workEngine = workEngine;
     this.workQueue = workQueue;
   }
 
@@ -97,11 +129,22 @@ public class WorkManager<W extends Worker<T>, T> {
     return concurrencyLimit;
   }
 
+  /**
+   * Returns the engine that hands work to the workers.
+   *
+   * @return the engine supplied at construction time
+   */
+  public WorkEngine getWorkEngine () {
+
+    return workEngine;
+  }
+
   /**
    * Starts the worker pool if it is not already started.
    *
-   * <p>Workers are created via {@code workerFactory}, wrapped in daemon threads, and started immediately.
-   * If a start is already in progress the calling thread spin-waits until it completes.</p>
+   * <p>Workers are created via {@code workerFactory} and handed to the engine, which for the pooled and
+   * work-stealing engines starts a daemon thread per worker immediately.  If a start is already in
+   * progress the calling thread spin-waits until it completes.</p>
    *
    * @param workerFactory factory used to create each worker instance
    * @throws InterruptedException if the calling thread is interrupted while spin-waiting for a concurrent start
@@ -111,15 +154,19 @@ public class WorkManager<W extends Worker<T>, T> {
 
     if (statusRef.compareAndSet(ComponentStatus.STOPPED, ComponentStatus.STARTING)) {
 
-      workers = (W[])Array.newInstance(workerClass, concurrencyLimit);
-      for (int index = 0; index < workers.length; index++) {
+      W[] workers = (W[])Array.newInstance(workerClass, concurrencyLimit);
 
-        Thread workerThread = new Thread(workers[index] = workerFactory.createWorker(workQueue));
-
-        workerThread.setDaemon(true);
-        workerThread.start();
+      for (int index = 0; index < workers.length; index++) {
+        workers[index] = workerFactory.createWorker(workQueue);
       }
 
+      dispatcher = switch (workEngine) {
+        case POOLED -> new PooledWorkDispatcher<>(workers, workQueue);
+        case VIRTUAL -> new VirtualThreadWorkDispatcher<>(workers);
+        case WORK_STEALING -> new WorkStealingWorkDispatcher<>(workers);
+        default -> throw new UnknownSwitchCaseException(workEngine.name());
+      };
+
       statusRef.set(ComponentStatus.STARTED);
     } else {
       while (ComponentStatus.STARTING.equals(statusRef.get())) {
@@ -129,7 +176,7 @@ public class WorkManager<W extends Worker<T>, T> {
   }
 
   /**
-   * Submits a work item for processing, blocking with retries until the queue accepts it.
+   * Submits a work item for processing, blocking until the engine accepts it.
    *
    * <p>The method measures and records work-acquisition time via Claxon.  The manager must be in the
    * {@code STARTED} state; otherwise a {@link WorkManagerException} is thrown.</p>
@@ -145,22 +192,18 @@ public class WorkManager<W extends Worker<T>, T> {
       throw new WorkManagerException("%s is not in the 'started' state", WorkManager.class.getSimpleName());
     }
 
-    Instrument.with(WorkManager.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.ACQUIRE_WORKER.getDisplay())).on(() -> {
-
-      boolean success;
-
-      do {
-        success = workQueue.offer(work, 1, TimeUnit.SECONDS);
-      } while (!success);
-    });
+    Instrument.with(WorkManager.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.ACQUIRE_WORKER.getDisplay())).on(
+      () -> dispatcher.dispatch(work)
+    );
   }
 
   /**
    * Stops all workers and transitions the manager to the {@code STOPPED} state.
    *
-   * <p>Each worker's {@link Worker#stop} method is called in sequence; any exception thrown is logged
-   * and the remaining workers are still stopped.  If a shutdown is already in progress the calling
-   * thread spin-waits until it completes.</p>
+   * <p>The pooled engine calls each worker's {@link Worker#stop} method in sequence, while the other
+   * engines first finish the work already accepted and then call {@link Worker#close}; any exception
+   * thrown is logged and the remaining workers are still stopped.  If a shutdown is already in progress
+   * the calling thread spin-waits until it completes.</p>
    *
    * @throws InterruptedException if the calling thread is interrupted while spin-waiting for a concurrent shutdown
    */
@@ -168,13 +211,7 @@ public class WorkManager<W extends Worker<T>, T> {
     throws InterruptedException {
 
     if (statusRef.compareAndSet(ComponentStatus.STARTED, ComponentStatus.STOPPING)) {
-      for (W worker : workers) {
-        try {
-          worker.stop();
-        } catch (Exception exception) {
-          LoggerManager.getLogger(WorkManager.class).error(exception);
-        }
-      }
+      dispatcher.shutDown();
       statusRef.set(ComponentStatus.STOPPED);
     } else {
       while (ComponentStatus.STOPPING.equals(statusRef.get())) {
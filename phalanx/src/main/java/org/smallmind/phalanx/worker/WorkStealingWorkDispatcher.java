@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.worker;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.smallmind.claxon.registry.Instrument;
+import org.smallmind.claxon.registry.Tag;
+import org.smallmind.claxon.registry.meter.GaugeBuilder;
+import org.smallmind.claxon.registry.meter.MeterFactory;
+import org.smallmind.claxon.registry.meter.SpeedometerBuilder;
+import org.smallmind.scribe.pen.LoggerManager;
+
+/**
+ * The {@link WorkEngine#WORK_STEALING} engine, which runs one daemon platform thread per worker, each
+ * owning a deque of pending work.  External callers distribute work round-robin onto the tails of the
+ * deques, while work dispatched from a worker thread is pushed onto the head of that worker's own deque
+ * for locality.  A worker takes from the head of its own deque and, when that is empty, steals from the
+ * tail of a peer's, parking only when every deque is empty.  Work dispatched by external callers is bounded
+ * at {@link #CAPACITY_FACTOR} pending items per worker, beyond which those callers block.  Work dispatched
+ * from a worker thread bypasses the bound, as only workers free capacity, and a worker blocked on it could
+ * leave none to do so.  The number of pending items,
+ * the time each item waits in a deque, and the time spent in {@link Worker#engageWork(Object)} are
+ * reported to Claxon.
+ *
+ * @param <W> the worker type
+ * @param <T> the type of work items dispatched
+ */
+class WorkStealingWorkDispatcher<W extends Worker<T>, T> implements WorkDispatcher<T> {
+
+  private static final int CAPACITY_FACTOR = 16;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger(0);
+  private final ThreadLocal<StealingWorker> currentWorker = new ThreadLocal<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicInteger roundRobin = new AtomicInteger();
+  private final ArrayList<StealingWorker> stealingWorkers;
+  private final Semaphore capacity;
+  private final W[] workers;
+  private volatile boolean stopped = false;
+
+  /**
+   * Constructs the engine, starting a thread for each of the given workers.
+   *
+   * @param workers the workers, one per thread
+   */
+  WorkStealingWorkDispatcher (W[] workers) {
+
+    int poolId = POOL_COUNTER.incrementAndGet();
+
+    this.workers = workers;
+
+    capacity = new Semaphore(workers.length * CAPACITY_FACTOR);
+    stealingWorkers = new ArrayList<>(workers.length);
+    for (int index = 0; index < workers.length; index++) {
+      stealingWorkers.add(new StealingWorker(index, workers[index]));
+    }
+
+    for (StealingWorker stealingWorker : stealingWorkers) {
+
+      Thread workerThread = new Thread(stealingWorker);
+
+      workerThread.setName("phalanx-stealing-worker-" + poolId + "-" + stealingWorker.getIndex());
+      workerThread.setDaemon(true);
+      stealingWorker.setThread(workerThread);
+      workerThread.start();
+    }
+
+    Instrument.with(WorkManager.class, MeterFactory.instance(GaugeBuilder::new), new Tag("event", ClaxonTag.QUEUE_DEPTH.getDisplay())).track(this, dispatcher -> (long)dispatcher.getQueueDepth());
+  }
+
+  /**
+   * Returns the number of work items waiting in the deques.
+   *
+   * @return the current queue depth
+   */
+  @Override
+  public int getQueueDepth () {
+
+    return pendingCount.get();
+  }
+
+  /**
+   * Places the work item on a deque, blocking an external caller while the pending capacity is exhausted,
+   * and wakes a worker to take it.
+   *
+   * @param work the work item
+   * @throws InterruptedException if interrupted while waiting for capacity
+   */
+  @Override
+  public void dispatch (T work)
+    throws InterruptedException {
+
+    StealingWorker owner;
+
+    if ((owner = currentWorker.get()) != null) {
+      pendingCount.incrementAndGet();
+      owner.getDeque().offerFirst(new PendingWork<>(work, false));
+    } else {
+      capacity.acquire();
+      pendingCount.incrementAndGet();
+      (owner = stealingWorkers.get(Math.floorMod(roundRobin.getAndIncrement(), stealingWorkers.size()))).getDeque().offerLast(new PendingWork<>(work, true));
+    }
+
+    if (owner.isIdle()) {
+      LockSupport.unpark(owner.getThread());
+    } else {
+      for (StealingWorker stealingWorker : stealingWorkers) {
+        if (stealingWorker.isIdle()) {
+          LockSupport.unpark(stealingWorker.getThread());
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Lets the workers drain every deque, waits for their threads to finish, then closes the workers.
+   *
+   * @throws InterruptedException if interrupted while waiting for the worker threads
+   */
+  @Override
+  public void shutDown ()
+    throws InterruptedException {
+
+    stopped = true;
+
+    for (StealingWorker stealingWorker : stealingWorkers) {
+      LockSupport.unpark(stealingWorker.getThread());
+    }
+    for (StealingWorker stealingWorker : stealingWorkers) {
+      stealingWorker.getThread().join();
+    }
+
+    for (W worker : workers) {
+      try {
+        worker.close();
+      } catch (Exception exception) {
+        LoggerManager.getLogger(WorkManager.class).error(exception);
+      }
+    }
+  }
+
+  /**
+   * A work item stamped with the time it was dispatched.
+   *
+   * @param <T> the type of the work item
+   */
+  private static class PendingWork<T> {
+
+    private final T work;
+    private final long dispatchedNanos = System.nanoTime();
+    private final boolean bounded;
+
+    /**
+     * Constructs a pending item.
+     *
+     * @param work    the work item
+     * @param bounded whether the item holds a unit of the pending capacity
+     */
+    private PendingWork (T work, boolean bounded) {
+
+      this.work = work;
+      this.bounded = bounded;
+    }
+
+    /**
+     * Returns the work item.
+     *
+     * @return the work item
+     */
+    public T getWork () {
+
+      return work;
+    }
+
+    /**
+     * Returns when the work item was dispatched.
+     *
+     * @return the {@link System#nanoTime()} at dispatch
+     */
+    public long getDispatchedNanos () {
+
+      return dispatchedNanos;
+    }
+
+    /**
+     * Returns whether the item holds a unit of the pending capacity, to be released when it is taken.
+     *
+     * @return {@code true} if dispatched by an external caller
+     */
+    public boolean isBounded () {
+
+      return bounded;
+    }
+  }
+
+  /**
+   * The run loop of one worker thread and the deque it owns.
+   */
+  private class StealingWorker implements Runnable {
+
+    private final ConcurrentLinkedDeque<PendingWork<T>> deque = new ConcurrentLinkedDeque<>();
+    private final W worker;
+    private final int index;
+    private volatile boolean idle = false;
+    private Thread thread;
+
+    /**
+     * Constructs the run loop for a worker.
+     *
+     * @param index  the position of this worker among its peers
+     * @param worker the worker that engages the work
+     */
+    private StealingWorker (int index, W worker) {
+
+      this.index = index;
+      this.worker = worker;
+    }
+
+    /**
+     * Returns the position of this worker among its peers.
+     *
+     * @return the worker index
+     */
+    public int getIndex () {
+
+      return index;
+    }
+
+    /**
+     * Returns the deque owned by this worker.
+     *
+     * @return the deque of pending work
+     */
+    public ConcurrentLinkedDeque<PendingWork<T>> getDeque () {
+
+      return deque;
+    }
+
+    /**
+     * Returns whether this worker is parked, or about to park, for lack of work.
+     *
+     * @return {@code true} if idle
+     */
+    public boolean isIdle () {
+
+      return idle;
+    }
+
+    /**
+     * Returns the thread running this worker.
+     *
+     * @return the worker thread
+     */
+    public Thread getThread () {
+
+      return thread;
+    }
+
+    /**
+     * Sets the thread running this worker.
+     *
+     * @param thread the worker thread
+     */
+    public void setThread (Thread thread) {
+
+      this.thread = thread;
+    }
+
+    /**
+     * Takes the next item from the head of this worker's deque or, failing that, steals one from the tail
+     * of a peer's deque, starting at a random peer.
+     *
+     * @return the next item, or {@code null} if every deque is empty
+     */
+    private PendingWork<T> take () {
+
+      PendingWork<T> pendingWork;
+
+      if ((pendingWork = deque.pollFirst()) == null) {
+
+        int start = ThreadLocalRandom.current().nextInt(stealingWorkers.size());
+
+        for (int offset = 0; offset < stealingWorkers.size(); offset++) {
+
+          StealingWorker victim = stealingWorkers.get((start + offset) % stealingWorkers.size());
+
+          if ((victim != this) && ((pendingWork = victim.getDeque().pollLast()) != null)) {
+            break;
+          }
+        }
+      }
+
+      if (pendingWork != null) {
+        pendingCount.decrementAndGet();
+        if (pendingWork.isBounded()) {
+          capacity.release();
+        }
+      }
+
+      return pendingWork;
+    }
+
+    /**
+     * Engages work until the engine is stopped and every deque is drained.  Before parking, the worker
+     * marks itself idle and then looks for work once more, so that an item dispatched concurrently is
+     * either seen here or followed by a wake up.
+     */
+    @Override
+    public void run () {
+
+      currentWorker.set(this);
+
+      while (true) {
+
+        PendingWork<T> pendingWork;
+
+        if ((pendingWork = take()) == null) {
+          idle = true;
+          if ((pendingWork = take()) == null) {
+            if (stopped && (pendingCount.get() == 0)) {
+              idle = false;
+              break;
+            }
+
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+          }
+          idle = false;
+        }
+
+        if (pendingWork != null) {
+
+          long serviceStart = System.nanoTime();
+
+          Instrument.with(WorkManager.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.WORK_WAIT.getDisplay())).update(serviceStart - pendingWork.getDispatchedNanos(), TimeUnit.NANOSECONDS);
+
+          try {
+            worker.engageWork(pendingWork.getWork());
+          } catch (Throwable throwable) {
+            LoggerManager.getLogger(worker.getClass()).error(throwable);
+          } finally {
+            Instrument.with(WorkManager.class, MeterFactory.instance(SpeedometerBuilder::new), new Tag("event", ClaxonTag.WORK_SERVICE.getDisplay())).update(System.nanoTime() - serviceStart, TimeUnit.NANOSECONDS);
+          }
+        }
+      }
+    }
+  }
+}
@@ -33,6 +33,7 @@
 package org.smallmind.phalanx.wire;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 import org.smallmind.nutsnbolts.context.ContextException;
 import org.smallmind.nutsnbolts.context.ContextFactory;
 import org.smallmind.nutsnbolts.lang.PerApplicationContext;
@@ -154,4 +155,11 @@ public class MockWireTest {
 
     Assert.assertNotNull(capturedException);
   }
+
+  @Test(dependsOnMethods = "testComplexArguments")
+  public void testAsynchronousInvocation ()
+    throws Exception {
+
+    Assert.assertEquals(wireTestingService.echoStringLater("The lazy dog").get(10, TimeUnit.SECONDS), "The lazy dog");
+  }
 }
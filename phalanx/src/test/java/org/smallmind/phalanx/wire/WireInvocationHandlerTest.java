@@ -34,6 +34,7 @@ package org.smallmind.phalanx.wire;
 
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.smallmind.nutsnbolts.context.ContextFactory;
 import org.smallmind.phalanx.wire.signal.ResultSignal;
 import org.smallmind.phalanx.wire.signal.Route;
@@ -73,6 +74,9 @@ public class WireInvocationHandlerTest {
       throws Exception;
 
     String plain (@Argument("a") String a);
+
+    @InOut(timeoutSeconds = 3)
+    CompletableFuture<String> talkLater (@Argument("a") String a);
   }
 
   private WireInvocationHandler handler (ParameterExtractor<String> serviceGroupExtractor, ParameterExtractor<String> instanceIdExtractor, ParameterExtractor<Long> timeoutExtractor, RequestTransport transport)
@@ -155,6 +159,20 @@ public class WireInvocationHandlerTest {
     Assert.assertEquals(((TwoWayConversation)transport.voice.getConversation()).getTimeout(), (Long)99L);
   }
 
+  @Test
+  public void testFutureReturningMethodTransmitsAsynchronously ()
+    throws Throwable {
+
+    CapturingRequestTransport transport = new CapturingRequestTransport();
+    Object result = handler(new StaticParameterExtractor<>("group"), null, null, transport).invoke(null, method("talkLater"), new Object[] {"x"});
+
+    Assert.assertTrue(transport.asynchronous);
+    Assert.assertTrue(result instanceof CompletableFuture);
+    Assert.assertEquals(((CompletableFuture<?>)result).get(), "RESULT");
+    Assert.assertEquals(((TwoWayConversation)transport.voice.getConversation()).getTimeout(), (Long)3L);
+    Assert.assertEquals(transport.route.getFunction().getName(), "talkLater");
+  }
+
   @Test(expectedExceptions = ServiceDefinitionException.class)
   public void testNullServiceGroupExtractorIsRejectedAtConstruction ()
     throws Exception {
@@ -244,6 +262,7 @@ public class WireInvocationHandlerTest {
     private Route route;
     private Map<String, Object> arguments;
     private WireContext[] contexts;
+    private boolean asynchronous;
 
     @Override
     public String getCallerId () {
@@ -262,6 +281,14 @@ public class WireInvocationHandlerTest {
       return "RESULT";
     }
 
+    @Override
+    public CompletableFuture<Object> transmitAsynchronously (Voice<?, ?> voice, Route route, Map<String, Object> arguments, WireContext... contexts) {
+
+      asynchronous = true;
+
+      return CompletableFuture.completedFuture(transmit(voice, route, arguments, contexts));
+    }
+
     @Override
     public void completeCallback (String correlationId, ResultSignal resultSignal) {
 
@@ -33,6 +33,7 @@
 package org.smallmind.phalanx.wire;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 import org.smallmind.nutsnbolts.context.ExpectedContexts;
 
 public interface WireTestingService {
@@ -62,6 +63,8 @@ public interface WireTestingService {
 
   String echoString (@Argument("string") String string);
 
+  CompletableFuture<String> echoStringLater (@Argument("string") String string);
+
   LocalDateTime echoDate (@Argument("date") LocalDateTime date);
 
   Color[] echoColors (@Argument("colors") Color... colors);
@@ -33,6 +33,7 @@
 package org.smallmind.phalanx.wire;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 import org.smallmind.nutsnbolts.context.ContextFactory;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
 import org.smallmind.phalanx.wire.transport.WiredService;
@@ -128,6 +129,12 @@ public class WireTestingServiceImpl implements WireTestingService, WiredService
     return string;
   }
 
+  @Override
+  public CompletableFuture<String> echoStringLater (@Argument("string") String string) {
+
+    return CompletableFuture.supplyAsync(() -> string);
+  }
+
   @Override
   public LocalDateTime echoDate (@Argument("date") LocalDateTime date) {
 
@@ -35,6 +35,7 @@ package org.smallmind.phalanx.wire.jmx;
 import java.lang.management.ManagementFactory;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import org.smallmind.phalanx.wire.transport.AdaptiveConcurrencyLimiter;
 import org.smallmind.phalanx.wire.transport.ResponseTransport;
 import org.smallmind.phalanx.wire.transport.TransportState;
 import org.smallmind.phalanx.wire.transport.WiredService;
@@ -65,6 +66,27 @@ public class ResponseTransportMonitorTest {
     Assert.assertEquals(transport.getState(), TransportState.PLAYING);
   }
 
+  @Test
+  public void testShedCountsAndLimitAreExposed ()
+    throws Exception {
+
+    StubResponseTransport transport = new StubResponseTransport();
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = new ObjectName("org.smallmind.phalanx.test:type=ResponseTransport,id=shedding");
+
+    mBeanServer.registerMBean(new ResponseTransportMonitor(transport), objectName);
+    try {
+      Assert.assertEquals(mBeanServer.getAttribute(objectName, "ExpiredShedCount"), 3L);
+      Assert.assertEquals(mBeanServer.getAttribute(objectName, "OverloadShedCount"), 5L);
+      Assert.assertEquals(mBeanServer.getAttribute(objectName, "ConcurrencyLimit"), 0);
+
+      transport.concurrencyLimiter = new AdaptiveConcurrencyLimiter(4, 1, 8);
+      Assert.assertEquals(mBeanServer.getAttribute(objectName, "ConcurrencyLimit"), 4);
+    } finally {
+      mBeanServer.unregisterMBean(objectName);
+    }
+  }
+
   @Test
   public void testManagedThroughMBeanServer ()
     throws Exception {
@@ -90,6 +112,7 @@ public class ResponseTransportMonitorTest {
 
   private static class StubResponseTransport implements ResponseTransport {
 
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
     private TransportState state = TransportState.PLAYING;
 
     @Override
@@ -104,6 +127,24 @@ public class ResponseTransportMonitorTest {
       return "stub";
     }
 
+    @Override
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter () {
+
+      return concurrencyLimiter;
+    }
+
+    @Override
+    public long getExpiredShedCount () {
+
+      return 3;
+    }
+
+    @Override
+    public long getOverloadShedCount () {
+
+      return 5;
+    }
+
     @Override
     public TransportState getState () {
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.signal;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import org.smallmind.phalanx.wire.Argument;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Exercises the tagged binary format of {@link BinarySignalCodec}: ordinal argument encoding for routes
+ * with a registered {@link ArgumentSchema}, the name keyed fallback, schema mismatch detection, result
+ * round trips and truncated payloads. Service names are unique per test to avoid cross-test bleed in the
+ * shared schema cache.
+ */
+@Test(groups = "unit")
+public class BinarySignalCodecTest {
+
+  public interface Arithmetic {
+
+    long add (@Argument("left") int left, @Argument("right") long right, @Argument("label") String label, @Argument("scale") double scale, @Argument("payload") byte[] payload);
+  }
+
+  public interface RenamedArithmetic {
+
+    long add (@Argument("first") int left, @Argument("second") long right, @Argument("label") String label, @Argument("scale") double scale, @Argument("payload") byte[] payload);
+  }
+
+  private Method addMethod (Class<?> serviceInterface)
+    throws NoSuchMethodException {
+
+    return serviceInterface.getMethod("add", int.class, long.class, String.class, double.class, byte[].class);
+  }
+
+  private HashMap<String, Object> arguments () {
+
+    HashMap<String, Object> arguments = new HashMap<>();
+
+    arguments.put("left", -7);
+    arguments.put("right", 1L << 40);
+    arguments.put("label", "sum");
+    arguments.put("scale", 2.5D);
+    arguments.put("payload", new byte[] {1, 2, 3});
+
+    return arguments;
+  }
+
+  @Test
+  public void testOrdinalInvocationRoundTrip ()
+    throws Exception {
+
+    BinarySignalCodec codec = new BinarySignalCodec();
+    Route route = new Route(1, "bsc-ordinal", new Function(addMethod(Arithmetic.class)));
+    InvocationSignal decoded;
+    byte[] bytes;
+    byte[] padded;
+
+    ArgumentSchema.register(1, "bsc-ordinal", addMethod(Arithmetic.class));
+    bytes = codec.encode(new InvocationSignal(true, route, arguments()));
+    padded = new byte[bytes.length + 4];
+    System.arraycopy(bytes, 0, padded, 2, bytes.length);
+
+    decoded = codec.decode(padded, 2, bytes.length, InvocationSignal.class);
+
+    Assert.assertTrue(decoded.isInOnly());
+    Assert.assertEquals(decoded.getRoute().getVersion(), 1);
+    Assert.assertEquals(decoded.getRoute().getService(), "bsc-ordinal");
+    Assert.assertEquals(decoded.getRoute().getFunction(), route.getFunction());
+    Assert.assertEquals(decoded.getArguments().get("left"), -7);
+    Assert.assertEquals(decoded.getArguments().get("right"), 1L << 40);
+    Assert.assertEquals(decoded.getArguments().get("label"), "sum");
+    Assert.assertEquals(decoded.getArguments().get("scale"), 2.5D);
+    Assert.assertEquals((byte[])decoded.getArguments().get("payload"), new byte[] {1, 2, 3});
+    Assert.assertNull(decoded.getContexts());
+  }
+
+  @Test
+  public void testOrdinalEncodingOmitsArgumentNames ()
+    throws Exception {
+
+    BinarySignalCodec codec = new BinarySignalCodec();
+    byte[] named = codec.encode(new InvocationSignal(false, new Route(1, "bsc-compact", new Function(addMethod(Arithmetic.class))), arguments()));
+    byte[] ordinal;
+
+    ArgumentSchema.register(1, "bsc-compact", addMethod(Arithmetic.class));
+    ordinal = codec.encode(new InvocationSignal(false, new Route(1, "bsc-compact", new Function(addMethod(Arithmetic.class))), arguments()));
+
+    Assert.assertTrue(ordinal.length < named.length);
+  }
+
+  @Test
+  public void testUnregisteredRouteFallsBackToNamedArguments ()
+    throws Exception {
+
+    BinarySignalCodec codec = new BinarySignalCodec();
+    byte[] bytes = codec.encode(new InvocationSignal(false, new Route(2, "bsc-named", new Function(addMethod(Arithmetic.class))), arguments()));
+    InvocationSignal decoded = codec.decode(bytes, 0, bytes.length, InvocationSignal.class);
+
+    Assert.assertEquals(decoded.getArguments().size(), 5);
+    Assert.assertEquals(decoded.getArguments().get("right"), 1L << 40);
+    Assert.assertEquals(codec.extractObject(decoded.getArguments().get("left"), int.class), Integer.valueOf(-7));
+  }
+
+  @Test
+  public void testMismatchedSchemaIsRejected ()
+    throws Exception {
+
+    BinarySignalCodec codec = new BinarySignalCodec();
+    byte[] bytes;
+
+    ArgumentSchema.register(1, "bsc-mismatch", addMethod(Arithmetic.class));
+    bytes = codec.encode(new InvocationSignal(false, new Route(1, "bsc-mismatch", new Function(addMethod(Arithmetic.class))), arguments()));
+
+    ArgumentSchema.clear();
+    ArgumentSchema.register(1, "bsc-mismatch", addMethod(RenamedArithmetic.class));
+
+    try {
+      codec.decode(bytes, 0, bytes.length, InvocationSignal.class);
+      Assert.fail("Expected an IOException");
+    } catch (IOException ioException) {
+      Assert.assertTrue(ioException.getMessage().contains("does not match"));
+    }
+  }
+
+  @Test
+  public void testResultRoundTrip ()
+    throws Exception {
+
+    BinarySignalCodec codec = new BinarySignalCodec();
+    byte[] bytes = codec.encode(new ResultSignal(false, "J", 99L));
+    ResultSignal decoded = codec.decode(bytes, 0, bytes.length, ResultSignal.class);
+
+    Assert.assertFalse(decoded.isError());
+    Assert.assertEquals(decoded.getNativeType(), "J");
+    Assert.assertEquals(codec.extractObject(decoded.getResult(), long.class), Long.valueOf(99L));
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testTruncatedPayloadIsRejected ()
+    throws Exception {
+
+    BinarySignalCodec codec = new BinarySignalCodec();
+    byte[] bytes = codec.encode(new ResultSignal(false, "Ljava/lang/String;", "truncated"));
+
+    codec.decode(bytes, 0, bytes.length - 3, ResultSignal.class);
+  }
+}
@@ -33,6 +33,9 @@
 package org.smallmind.phalanx.wire.transport;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.smallmind.phalanx.wire.TransportTimeoutException;
 import org.smallmind.phalanx.wire.TwoWayConversation;
 import org.smallmind.phalanx.wire.Talking;
@@ -50,7 +53,8 @@ import org.testng.annotations.Test;
  * Drives the callback-correlation logic of {@link AbstractRequestTransport} without a broker: in-only
  * calls skip waiting, a result that arrives before registration is read immediately, an
  * asynchronously-delivered result unblocks the waiter, and the per-call timeout is resolved from the
- * conversation (explicit positive value) or the transport default (null or non-positive value).
+ * conversation (explicit positive value) or the transport default (null or non-positive value). The
+ * future-based acquisition is held to the same contract without parking the caller.
  */
 @Test(groups = "unit")
 public class AbstractRequestTransportTest {
@@ -183,6 +187,62 @@ public class AbstractRequestTransportTest {
     Assert.assertEquals(transport.acquireResult(signalCodec, route(), voice(5L), "duplicate-message", false), "once");
   }
 
+  @Test
+  public void testInOnlyFutureIsAlreadyComplete ()
+    throws Exception {
+
+    TestRequestTransport transport = new TestRequestTransport(30L);
+    CompletableFuture<Object> future = transport.acquireFuture(signalCodec, route(), voice(5L), "in-only-future", true);
+
+    Assert.assertTrue(future.isDone());
+    Assert.assertNull(future.get());
+  }
+
+  @Test
+  public void testResultArrivingBeforeFutureRegistrationCompletesFuture ()
+    throws Exception {
+
+    TestRequestTransport transport = new TestRequestTransport(30L);
+
+    transport.completeCallback("early-future", stringResult("early"));
+
+    Assert.assertEquals(transport.acquireFuture(signalCodec, route(), voice(5L), "early-future", false).get(1, TimeUnit.SECONDS), "early");
+  }
+
+  @Test
+  public void testDeliveredResultCompletesFutureWithoutBlockingCaller ()
+    throws Exception {
+
+    TestRequestTransport transport = new TestRequestTransport(30L);
+    CompletableFuture<Object> future = transport.acquireFuture(signalCodec, route(), voice(10L), "late-future", false);
+
+    Assert.assertFalse(future.isDone());
+
+    transport.completeCallback("late-future", stringResult("late"));
+
+    Assert.assertTrue(future.isDone());
+    Assert.assertEquals(future.get(), "late");
+  }
+
+  @Test
+  public void testUnansweredFutureTimesOut ()
+    throws Exception {
+
+    TestRequestTransport transport = new TestRequestTransport(30L);
+    CompletableFuture<Object> future = transport.acquireFuture(signalCodec, route(), voice(1L), "timeout-future", false);
+
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      Assert.fail("Expected a TransportTimeoutException");
+    } catch (ExecutionException executionException) {
+      Assert.assertTrue(executionException.getCause() instanceof TransportTimeoutException);
+    }
+
+    //  A response arriving after the timeout finds no callback and must not disturb the completed future
+    transport.completeCallback("timeout-future", stringResult("too late"));
+    Assert.assertTrue(future.isCompletedExceptionally());
+  }
+
   private static class TestRequestTransport extends AbstractRequestTransport {
 
     public TestRequestTransport (long defaultTimeoutSeconds) {
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport;
+
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that {@link AdaptiveConcurrencyLimiter} bounds acquisition at its limit, cuts the limit on
+ * completions slower than the tolerated multiple of the baseline latency, and grows it again while fast
+ * completions keep the limit in use, always within its floor and ceiling.
+ */
+@Test(groups = "unit")
+public class AdaptiveConcurrencyLimiterTest {
+
+  @Test
+  public void testAcquisitionIsBoundedByTheLimit () {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4);
+
+    Assert.assertTrue(limiter.tryAcquire());
+    Assert.assertTrue(limiter.tryAcquire());
+    Assert.assertFalse(limiter.tryAcquire());
+    Assert.assertEquals(limiter.getInFlight(), 2);
+  }
+
+  @Test
+  public void testSlowCompletionsCutTheLimitToTheFloor () {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 8);
+
+    limiter.tryAcquire();
+    limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+    for (int count = 0; count < 50; count++) {
+      limiter.tryAcquire();
+      limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    Assert.assertEquals(limiter.getLimit(), 2);
+  }
+
+  @Test
+  public void testFastCompletionsGrowTheLimitToTheCeiling () {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 4);
+
+    for (int count = 0; count < 100; count++) {
+      while (limiter.tryAcquire()) {
+      }
+      for (int index = limiter.getInFlight(); index > 0; index--) {
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+      }
+    }
+
+    Assert.assertEquals(limiter.getLimit(), 4);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInitialLimitOutsideBoundsIsRejected () {
+
+    new AdaptiveConcurrencyLimiter(10, 1, 4);
+  }
+}
@@ -34,6 +34,7 @@ package org.smallmind.phalanx.wire.transport;
 
 import java.lang.reflect.InvocationTargetException;
 import org.smallmind.nutsnbolts.context.ContextFactory;
+import org.smallmind.phalanx.wire.Argument;
 import org.smallmind.phalanx.wire.MissingInvocationException;
 import org.smallmind.phalanx.wire.TestWireContext;
 import org.smallmind.phalanx.wire.WireTestingException;
@@ -164,6 +165,83 @@ public class MethodInvokerTest {
     Assert.assertFalse(ContextFactory.exists(TestWireContext.class));
   }
 
+  @Test
+  public void testPrimitiveArgumentsAndResultsDispatchThroughHandles ()
+    throws Exception {
+
+    Function addFunction = new Function(WireTestingService.class.getMethod("addNumbers", int.class, int.class));
+    Function doNothingFunction = new Function(WireTestingService.class.getMethod("doNothing"));
+
+    Assert.assertEquals(methodInvoker.remoteInvocation(null, addFunction, 7, 8), 15);
+    Assert.assertNull(methodInvoker.remoteInvocation(null, doNothingFunction));
+  }
+
+  @Test
+  public void testMismatchedArgumentsAreIllegalRatherThanTargetFailures ()
+    throws Exception {
+
+    Function addFunction = new Function(WireTestingService.class.getMethod("addNumbers", int.class, int.class));
+    Function echoFunction = new Function(WireTestingService.class.getMethod("echoString", String.class));
+
+    //  Each of these fails in the compiled handle's own argument adaptation before the service is reached, so
+    //  none may surface as an exception thrown by the service.
+    for (Object[] arguments : new Object[][] {{7}, {7, null}, {7, "8"}}) {
+      try {
+        methodInvoker.remoteInvocation(null, addFunction, arguments);
+        Assert.fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException illegalArgumentException) {
+        // expected
+      }
+    }
+    try {
+      methodInvoker.remoteInvocation(null, echoFunction, 8);
+      Assert.fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException illegalArgumentException) {
+      // expected
+    }
+
+    //  widening and unboxing conversions remain legal, as they are for reflection
+    Assert.assertEquals(methodInvoker.remoteInvocation(null, addFunction, (short)7, 'A'), 72);
+    Assert.assertEquals(methodInvoker.remoteInvocation(null, echoFunction, (Object)null), null);
+  }
+
+  @Test
+  public void testMatchDistinguishesOverloadsBySignature ()
+    throws Exception {
+
+    MethodInvoker invoker = new MethodInvoker(new OverloadedServiceImpl(), OverloadedService.class);
+    Function partialFunction = new Function("describe");
+
+    partialFunction.setSignature(new Function(OverloadedService.class.getMethod("describe", int.class)).getSignature());
+
+    Function matched = invoker.match(partialFunction);
+
+    Assert.assertNotNull(matched);
+    Assert.assertEquals(invoker.remoteInvocation(null, matched, 3), "int");
+  }
+
+  public interface OverloadedService {
+
+    String describe (@Argument("value") int value);
+
+    String describe (@Argument("value") String value);
+  }
+
+  public static class OverloadedServiceImpl implements OverloadedService {
+
+    @Override
+    public String describe (int value) {
+
+      return "int";
+    }
+
+    @Override
+    public String describe (String value) {
+
+      return "string";
+    }
+  }
+
   public interface ErrorService {
 
     void boom ();
@@ -34,6 +34,9 @@ package org.smallmind.phalanx.wire.transport;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.smallmind.phalanx.wire.WireTestingService;
 import org.smallmind.phalanx.wire.WireTestingServiceImpl;
 import org.smallmind.phalanx.wire.signal.Function;
@@ -51,7 +54,9 @@ import org.testng.annotations.Test;
  * Drives the server-side dispatch and error-propagation contract of {@link WireInvocationCircuit}:
  * a successful call transmits the result, a service-thrown exception and an unregistered service
  * both come back as a {@link Fault}, a non-{@link java.io.Serializable} result is rejected as a
- * fault, and a fire-and-forget (in-only) failure transmits nothing at all.
+ * fault, and a fire-and-forget (in-only) failure transmits nothing at all. A returned stage is answered
+ * when it completes, without holding the dispatching thread. Expired invocations are shed silently,
+ * and invocations beyond the adaptive concurrency limit are refused as a fault.
  */
 @Test(groups = "unit")
 public class WireInvocationCircuitTest {
@@ -85,6 +90,29 @@ public class WireInvocationCircuitTest {
     Assert.assertEquals(transmitter.nativeType, "Ljava/lang/String;");
   }
 
+  @Test
+  public void testCompletionStageResultIsAwaitedAndTransmittedAsValue ()
+    throws Exception {
+
+    WireInvocationCircuit circuit = new WireInvocationCircuit();
+    CapturingTransmitter transmitter = new CapturingTransmitter();
+
+    circuit.register(WireTestingService.class, new WireTestingServiceImpl());
+
+    HashMap<String, Object> arguments = new HashMap<>();
+    arguments.put("string", "later");
+
+    Function function = new Function(WireTestingService.class.getMethod("echoStringLater", String.class));
+
+    circuit.handle(transmitter, signalCodec, "caller", "message", invocation(false, 1, "WireTestService", function, arguments));
+
+    Assert.assertTrue(transmitter.transmittedLatch.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(transmitter.transmitted);
+    Assert.assertFalse(transmitter.error);
+    Assert.assertEquals(transmitter.result, "later");
+    Assert.assertEquals(transmitter.nativeType, "Ljava/lang/String;");
+  }
+
   @Test
   public void testServiceExceptionIsReturnedAsFault ()
     throws Exception {
@@ -227,20 +255,151 @@ public class WireInvocationCircuitTest {
     Assert.assertEquals(transmitter.result, "hello");
   }
 
+  @Test
+  public void testExpiredInvocationIsShedWithoutResponse ()
+    throws Exception {
+
+    WireInvocationCircuit circuit = new WireInvocationCircuit();
+    CapturingTransmitter transmitter = new CapturingTransmitter();
+
+    circuit.register(WireTestingService.class, new WireTestingServiceImpl());
+
+    HashMap<String, Object> arguments = new HashMap<>();
+    arguments.put("string", "hello");
+
+    circuit.handle(transmitter, signalCodec, "caller", "message", new InvocationSignal(false, System.currentTimeMillis() - 1, new Route(1, "WireTestService", new Function(WireTestingService.class.getMethod("echoString", String.class))), arguments));
+
+    Assert.assertFalse(transmitter.transmitted);
+    Assert.assertEquals(circuit.getExpiredShedCount(), 1L);
+  }
+
+  @Test
+  public void testInvocationBeyondConcurrencyLimitIsRefusedAsFault ()
+    throws Exception {
+
+    WireInvocationCircuit circuit = new WireInvocationCircuit();
+    CapturingTransmitter transmitter = new CapturingTransmitter();
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+
+    circuit.register(WireTestingService.class, new WireTestingServiceImpl());
+    circuit.setConcurrencyLimiter(limiter);
+
+    HashMap<String, Object> arguments = new HashMap<>();
+    arguments.put("string", "hello");
+
+    Assert.assertTrue(limiter.tryAcquire());
+    circuit.handle(transmitter, signalCodec, "caller", "message", invocation(false, 1, "WireTestService", new Function(WireTestingService.class.getMethod("echoString", String.class)), arguments));
+
+    Assert.assertTrue(transmitter.transmitted);
+    Assert.assertTrue(transmitter.error);
+    Assert.assertTrue(transmitter.result instanceof Fault);
+    Assert.assertEquals(circuit.getOverloadShedCount(), 1L);
+
+    limiter.release(1000);
+    circuit.handle(transmitter, signalCodec, "caller", "message", invocation(false, 1, "WireTestService", new Function(WireTestingService.class.getMethod("echoString", String.class)), arguments));
+
+    Assert.assertFalse(transmitter.error);
+    Assert.assertEquals(transmitter.result, "hello");
+    Assert.assertEquals(limiter.getInFlight(), 0);
+  }
+
+  @Test
+  public void testAdmittedInvocationHoldsItsPermitUntilHandled ()
+    throws Exception {
+
+    WireInvocationCircuit circuit = new WireInvocationCircuit();
+    CapturingTransmitter transmitter = new CapturingTransmitter();
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+    AdmittedInvocation admittedInvocation;
+
+    circuit.register(WireTestingService.class, new WireTestingServiceImpl());
+    circuit.setConcurrencyLimiter(limiter);
+
+    HashMap<String, Object> arguments = new HashMap<>();
+    arguments.put("string", "hello");
+
+    Assert.assertNull(circuit.admit(transmitter, "caller", "message", new InvocationSignal(false, System.currentTimeMillis() - 1, new Route(1, "WireTestService", new Function(WireTestingService.class.getMethod("echoString", String.class))), arguments)));
+    Assert.assertEquals(circuit.getExpiredShedCount(), 1L);
+    Assert.assertFalse(transmitter.transmitted);
+
+    admittedInvocation = circuit.admit(transmitter, "caller", "message", invocation(false, 1, "WireTestService", new Function(WireTestingService.class.getMethod("echoString", String.class)), arguments));
+
+    Assert.assertNotNull(admittedInvocation);
+    Assert.assertEquals(limiter.getInFlight(), 1);
+    Assert.assertNull(circuit.admit(transmitter, "caller", "other", invocation(false, 1, "WireTestService", new Function(WireTestingService.class.getMethod("echoString", String.class)), arguments)));
+    Assert.assertEquals(circuit.getOverloadShedCount(), 1L);
+    Assert.assertTrue(transmitter.error);
+
+    circuit.handle(transmitter, signalCodec, admittedInvocation);
+
+    Assert.assertFalse(transmitter.error);
+    Assert.assertEquals(transmitter.result, "hello");
+    Assert.assertEquals(limiter.getInFlight(), 0);
+
+    admittedInvocation.release();
+    Assert.assertEquals(limiter.getInFlight(), 0);
+  }
+
+  @Test
+  public void testPendingStageDoesNotHoldTheDispatchingThread ()
+    throws Exception {
+
+    WireInvocationCircuit circuit = new WireInvocationCircuit();
+    CapturingTransmitter transmitter = new CapturingTransmitter();
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+    DeferredServiceImpl deferredService = new DeferredServiceImpl();
+
+    circuit.register(DeferredService.class, deferredService);
+    circuit.setConcurrencyLimiter(limiter);
+
+    circuit.handle(transmitter, signalCodec, "caller", "message", invocation(false, 9, "Deferred", new Function(DeferredService.class.getMethod("defer")), new HashMap<>()));
+
+    Assert.assertFalse(transmitter.transmitted);
+    Assert.assertEquals(limiter.getInFlight(), 1);
+
+    deferredService.future.complete("done");
+
+    Assert.assertTrue(transmitter.transmitted);
+    Assert.assertFalse(transmitter.error);
+    Assert.assertEquals(transmitter.result, "done");
+    Assert.assertEquals(transmitter.nativeType, "Ljava/lang/String;");
+    Assert.assertEquals(limiter.getInFlight(), 0);
+  }
+
+  @Test
+  public void testExceptionallyCompletedStageIsReturnedAsFault ()
+    throws Exception {
+
+    WireInvocationCircuit circuit = new WireInvocationCircuit();
+    CapturingTransmitter transmitter = new CapturingTransmitter();
+    DeferredServiceImpl deferredService = new DeferredServiceImpl();
+
+    circuit.register(DeferredService.class, deferredService);
+
+    circuit.handle(transmitter, signalCodec, "caller", "message", invocation(false, 9, "Deferred", new Function(DeferredService.class.getMethod("defer")), new HashMap<>()));
+    deferredService.future.completeExceptionally(new IllegalStateException("failed later"));
+
+    Assert.assertTrue(transmitter.transmitted);
+    Assert.assertTrue(transmitter.error);
+    Assert.assertTrue(transmitter.result instanceof Fault);
+  }
+
   private static class CapturingTransmitter implements ResponseTransmitter {
 
-    private Object result;
-    private String nativeType;
-    private boolean transmitted;
-    private boolean error;
+    private final CountDownLatch transmittedLatch = new CountDownLatch(1);
+    private volatile Object result;
+    private volatile String nativeType;
+    private volatile boolean transmitted;
+    private volatile boolean error;
 
     @Override
     public void transmit (String callerId, String correlationId, boolean error, String nativeType, Object result) {
 
-      this.transmitted = true;
       this.error = error;
       this.nativeType = nativeType;
       this.result = result;
+      this.transmitted = true;
+      transmittedLatch.countDown();
     }
   }
 
@@ -314,4 +473,37 @@ public class WireInvocationCircuitTest {
       throw new FaultWrappingException(fault);
     }
   }
+
+  public interface DeferredService {
+
+    CompletableFuture<String> defer ();
+  }
+
+  public static class DeferredServiceImpl implements DeferredService, WiredService {
+
+    private final CompletableFuture<String> future = new CompletableFuture<>();
+
+    @Override
+    public int getVersion () {
+
+      return 9;
+    }
+
+    @Override
+    public String getServiceName () {
+
+      return "Deferred";
+    }
+
+    @Override
+    public void setResponseTransport (ResponseTransport responseTransport) {
+
+    }
+
+    @Override
+    public CompletableFuture<String> defer () {
+
+      return future;
+    }
+  }
 }
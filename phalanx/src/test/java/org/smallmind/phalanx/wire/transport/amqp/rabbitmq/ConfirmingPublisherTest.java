@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport.amqp.rabbitmq;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Drives {@link ConfirmingPublisher} against hand-built fake channels standing in for a broker, to
+ * verify round-robin publishing over the channel pool, settlement of whole delivery tag ranges by a
+ * single {@code multiple} ack, nacks and lost channels failing their publishes, and publishes parked
+ * behind a full confirm window being sent, off the confirming thread, as confirms arrive.
+ */
+@Test(groups = "unit")
+public class ConfirmingPublisherTest {
+
+  private static RabbitMQPublishPolicy publishPolicy (int channelCount, int confirmWindow, int backlogCapacity) {
+
+    RabbitMQPublishPolicy publishPolicy = new RabbitMQPublishPolicy();
+
+    publishPolicy.setChannelCount(channelCount);
+    publishPolicy.setConfirmWindow(confirmWindow);
+    publishPolicy.setBacklogCapacity(backlogCapacity);
+
+    return publishPolicy;
+  }
+
+  private static CompletableFuture<Void> publish (ConfirmingPublisher publisher)
+    throws InterruptedException {
+
+    return publisher.publish("wire-request", "talk-default", new AMQP.BasicProperties(), new byte[] {1});
+  }
+
+  @Test
+  public void testPublishesAreSpreadRoundRobin ()
+    throws Exception {
+
+    FakeBroker broker = new FakeBroker();
+    ConfirmingPublisher publisher = new ConfirmingPublisher(broker.connector(), publishPolicy(2, 16, 16), null);
+
+    for (int count = 0; count < 6; count++) {
+      publish(publisher);
+    }
+
+    Assert.assertEquals(broker.getChannelList().size(), 2);
+    Assert.assertEquals(broker.getChannelList().get(0).getPublishCount(), 3);
+    Assert.assertEquals(broker.getChannelList().get(1).getPublishCount(), 3);
+    Assert.assertEquals(publisher.getOutstandingCount(), 6);
+  }
+
+  @Test
+  public void testMultipleAckSettlesTheWholeRange ()
+    throws Exception {
+
+    FakeBroker broker = new FakeBroker();
+    ConfirmingPublisher publisher = new ConfirmingPublisher(broker.connector(), publishPolicy(1, 16, 16), null);
+    List<CompletableFuture<Void>> futureList = new LinkedList<>();
+
+    for (int count = 0; count < 5; count++) {
+      futureList.add(publish(publisher));
+    }
+
+    broker.getChannelList().get(0).ack(3, true);
+
+    for (int index = 0; index < 5; index++) {
+      Assert.assertEquals(futureList.get(index).isDone(), index < 3);
+    }
+    Assert.assertEquals(publisher.getOutstandingCount(), 2);
+
+    broker.getChannelList().get(0).ack(5, false);
+    Assert.assertTrue(futureList.get(4).isDone());
+    Assert.assertFalse(futureList.get(3).isDone());
+  }
+
+  @Test
+  public void testNackAndLostChannelFailTheirPublishes ()
+    throws Exception {
+
+    FakeBroker broker = new FakeBroker();
+    ConfirmingPublisher publisher = new ConfirmingPublisher(broker.connector(), publishPolicy(1, 16, 16), null);
+    CompletableFuture<Void> nackedFuture = publish(publisher);
+    CompletableFuture<Void> lostFuture = publish(publisher);
+
+    broker.getChannelList().get(0).nack(1, false);
+    Assert.assertTrue(nackedFuture.isCompletedExceptionally());
+    Assert.assertFalse(lostFuture.isDone());
+
+    broker.getChannelList().get(0).shutDown();
+    Assert.assertTrue(lostFuture.isCompletedExceptionally());
+    Assert.assertEquals(publisher.getOutstandingCount(), 0);
+
+    publish(publisher);
+    Assert.assertEquals(broker.getChannelList().size(), 2, "a lost channel should be replaced on the next send");
+  }
+
+  @Test
+  public void testFullWindowParksPublishesUntilConfirmed ()
+    throws Exception {
+
+    FakeBroker broker = new FakeBroker();
+    ConfirmingPublisher publisher = new ConfirmingPublisher(broker.connector(), publishPolicy(1, 2, 8), null);
+
+    for (int count = 0; count < 5; count++) {
+      publish(publisher);
+    }
+
+    Assert.assertEquals(broker.getChannelList().get(0).getPublishCount(), 2);
+    Assert.assertEquals(publisher.getBacklogCount(), 3);
+
+    broker.getChannelList().get(0).ack(2, true);
+    broker.getChannelList().get(0).awaitPublishCount(4);
+    Assert.assertEquals(broker.getChannelList().get(0).getPublishCount(), 4);
+    Assert.assertEquals(publisher.getBacklogCount(), 1);
+    Assert.assertFalse(broker.getChannelList().get(0).getPublishThreadList().subList(2, 4).contains(Thread.currentThread()), "parked publishes should not be sent from the confirming thread");
+  }
+
+  @Test
+  public void testCloseFailsParkedAndOutstandingPublishes ()
+    throws Exception {
+
+    FakeBroker broker = new FakeBroker();
+    ConfirmingPublisher publisher = new ConfirmingPublisher(broker.connector(), publishPolicy(1, 1, 4), null);
+    CompletableFuture<Void> outstandingFuture = publish(publisher);
+    CompletableFuture<Void> parkedFuture = publish(publisher);
+
+    publisher.close();
+
+    Assert.assertTrue(outstandingFuture.isCompletedExceptionally());
+    Assert.assertTrue(parkedFuture.isCompletedExceptionally());
+    Assert.assertTrue(publish(publisher).isCompletedExceptionally());
+  }
+
+  @Test
+  public void testSustainedPublishingAgainstRangeAckingBroker ()
+    throws Exception {
+
+    FakeBroker broker = new FakeBroker();
+    ConfirmingPublisher publisher = new ConfirmingPublisher(broker.connector(), publishPolicy(4, 64, 256), null);
+    List<CompletableFuture<Void>> futureList = new LinkedList<>();
+    Thread ackThread = new Thread(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        for (FakeChannel channel : broker.getChannelList()) {
+          channel.ackAll();
+        }
+        Thread.onSpinWait();
+      }
+    });
+
+    ackThread.setDaemon(true);
+    ackThread.start();
+    try {
+      for (int count = 0; count < 20000; count++) {
+        futureList.add(publish(publisher));
+      }
+
+      CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+    } finally {
+      ackThread.interrupt();
+    }
+
+    Assert.assertEquals(publisher.getOutstandingCount(), 0);
+    Assert.assertEquals(publisher.getBacklogCount(), 0);
+  }
+
+  private static class FakeBroker {
+
+    private final List<FakeChannel> channelList = new CopyOnWriteArrayList<>();
+
+    public List<FakeChannel> getChannelList () {
+
+      return channelList;
+    }
+
+    public RabbitMQConnector connector () {
+
+      Connection connection = (Connection)Proxy.newProxyInstance(ConfirmingPublisherTest.class.getClassLoader(), new Class[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+        case "createChannel" -> {
+
+          FakeChannel fakeChannel = new FakeChannel();
+
+          channelList.add(fakeChannel);
+
+          yield Proxy.newProxyInstance(ConfirmingPublisherTest.class.getClassLoader(), new Class[] {Channel.class}, fakeChannel);
+        }
+        case "isOpen" -> true;
+        default -> null;
+      });
+
+      return new RabbitMQConnector(null) {
+
+        @Override
+        public Connection getConnection () {
+
+          return connection;
+        }
+      };
+    }
+  }
+
+  private static class FakeChannel implements InvocationHandler {
+
+    private final List<ConfirmListener> confirmListenerList = new CopyOnWriteArrayList<>();
+    private final List<ShutdownListener> shutdownListenerList = new CopyOnWriteArrayList<>();
+    private final List<Thread> publishThreadList = new CopyOnWriteArrayList<>();
+    private volatile boolean open = true;
+    private volatile long nextPublishSeqNo = 1;
+    private long ackedSeqNo = 0;
+
+    public int getPublishCount () {
+
+      return (int)(nextPublishSeqNo - 1);
+    }
+
+    public List<Thread> getPublishThreadList () {
+
+      return publishThreadList;
+    }
+
+    public void awaitPublishCount (int publishCount)
+      throws InterruptedException {
+
+      long deadline = System.currentTimeMillis() + 5000;
+
+      while ((getPublishCount() < publishCount) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(10);
+      }
+    }
+
+    public void ack (long deliveryTag, boolean multiple)
+      throws Exception {
+
+      for (ConfirmListener confirmListener : confirmListenerList) {
+        confirmListener.handleAck(deliveryTag, multiple);
+      }
+    }
+
+    public void nack (long deliveryTag, boolean multiple)
+      throws Exception {
+
+      for (ConfirmListener confirmListener : confirmListenerList) {
+        confirmListener.handleNack(deliveryTag, multiple);
+      }
+    }
+
+    public synchronized void ackAll () {
+
+      long publishedSeqNo = nextPublishSeqNo - 1;
+
+      if (publishedSeqNo > ackedSeqNo) {
+        try {
+          ack(ackedSeqNo = publishedSeqNo, true);
+        } catch (Exception exception) {
+          throw new RuntimeException(exception);
+        }
+      }
+    }
+
+    public void shutDown () {
+
+      open = false;
+      for (ShutdownListener shutdownListener : shutdownListenerList) {
+        shutdownListener.shutdownCompleted(new ShutdownSignalException(false, false, null, null));
+      }
+    }
+
+    @Override
+    public Object invoke (Object proxy, Method method, Object[] args) {
+
+      return switch (method.getName()) {
+        case "getNextPublishSeqNo" -> nextPublishSeqNo;
+        case "basicPublish" -> {
+          publishThreadList.add(Thread.currentThread());
+          nextPublishSeqNo++;
+          yield null;
+        }
+        case "addConfirmListener" -> {
+          confirmListenerList.add((ConfirmListener)args[0]);
+          yield null;
+        }
+        case "addShutdownListener" -> {
+          shutdownListenerList.add((ShutdownListener)args[0]);
+          yield null;
+        }
+        case "isOpen" -> open;
+        default -> null;
+      };
+    }
+  }
+}
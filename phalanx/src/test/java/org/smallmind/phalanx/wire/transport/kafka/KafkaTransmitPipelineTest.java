@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.phalanx.wire.transport.kafka;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Drives {@link KafkaTransmitPipeline} against a hand-built fake producer (no broker) to verify that
+ * records linger in their topic buffer until a batch fills or the pipeline closes, that an idle sender
+ * is woken by records queued concurrently, that in-only
+ * signals are packed per service up to the configured pack size, that a topic whose producer cannot
+ * accept a record fails the rest of its batch without holding up other topics, and that a closed
+ * pipeline refuses further records.
+ */
+@Test(groups = "unit")
+public class KafkaTransmitPipelineTest {
+
+  private static Producer<Long, byte[]> proxyProducer (List<ProducerRecord<Long, byte[]>> sentList) {
+
+    return (Producer<Long, byte[]>)Proxy.newProxyInstance(KafkaTransmitPipelineTest.class.getClassLoader(), new Class[] {Producer.class}, (proxy, method, args) -> {
+      if (method.getName().equals("send")) {
+        sentList.add((ProducerRecord<Long, byte[]>)args[0]);
+      }
+
+      return null;
+    });
+  }
+
+  private static KafkaBatchPolicy batchPolicy (int maxBatchSize, boolean packWhispers, int maxPackSize) {
+
+    KafkaBatchPolicy batchPolicy = new KafkaBatchPolicy();
+
+    batchPolicy.setLingerMilliseconds(60000);
+    batchPolicy.setMaxBatchSize(maxBatchSize);
+    batchPolicy.setPackWhispers(packWhispers);
+    batchPolicy.setMaxPackSize(maxPackSize);
+
+    return batchPolicy;
+  }
+
+  @Test
+  public void testRecordsLingerUntilClose ()
+    throws Exception {
+
+    List<ProducerRecord<Long, byte[]>> sentList = Collections.synchronizedList(new LinkedList<>());
+    Producer<Long, byte[]> producer = proxyProducer(sentList);
+    KafkaTransmitPipeline pipeline = new KafkaTransmitPipeline("linger", "caller", batchPolicy(100, false, 1), topic -> producer, (record, exception) -> {
+    });
+
+    for (int index = 0; index < 5; index++) {
+      pipeline.enqueue(new ProducerRecord<>("linger-topic", new byte[] {(byte)index}));
+    }
+
+    Thread.sleep(100);
+    Assert.assertTrue(sentList.isEmpty());
+
+    pipeline.close();
+    Assert.assertEquals(sentList.size(), 5);
+    for (int index = 0; index < 5; index++) {
+      Assert.assertEquals(sentList.get(index).value()[0], (byte)index);
+    }
+  }
+
+  @Test
+  public void testFullBatchDrainsWithoutLinger ()
+    throws Exception {
+
+    List<ProducerRecord<Long, byte[]>> sentList = Collections.synchronizedList(new LinkedList<>());
+    Producer<Long, byte[]> producer = proxyProducer(sentList);
+    KafkaTransmitPipeline pipeline = new KafkaTransmitPipeline("batch", "caller", batchPolicy(4, false, 1), topic -> producer, (record, exception) -> {
+    });
+    long deadline = System.currentTimeMillis() + 5000;
+
+    for (int index = 0; index < 6; index++) {
+      pipeline.enqueue(new ProducerRecord<>("batch-topic", new byte[] {(byte)index}));
+    }
+
+    while ((sentList.size() < 4) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(10);
+    }
+
+    Assert.assertEquals(sentList.size(), 4);
+
+    pipeline.close();
+    Assert.assertEquals(sentList.size(), 6);
+  }
+
+  @Test
+  public void testIdleSenderWakesForConcurrentlyQueuedRecords ()
+    throws Exception {
+
+    List<ProducerRecord<Long, byte[]>> sentList = Collections.synchronizedList(new LinkedList<>());
+    Producer<Long, byte[]> producer = proxyProducer(sentList);
+    KafkaBatchPolicy batchPolicy = batchPolicy(100, false, 1);
+    KafkaTransmitPipeline pipeline;
+    CyclicBarrier barrier = new CyclicBarrier(2);
+
+    batchPolicy.setLingerMilliseconds(1);
+    pipeline = new KafkaTransmitPipeline("wake", "caller", batchPolicy, topic -> producer, (record, exception) -> {
+    });
+
+    // Two producers filling an empty topic together must not both leave the waking of the idle sender to the other.
+    for (int round = 0; round < 200; round++) {
+
+      Thread racer = new Thread(() -> {
+        try {
+          barrier.await();
+          pipeline.enqueue(new ProducerRecord<>("wake-topic", new byte[] {1}));
+        } catch (Exception exception) {
+          throw new RuntimeException(exception);
+        }
+      });
+      long deadline = System.currentTimeMillis() + 5000;
+
+      racer.start();
+      barrier.await();
+      pipeline.enqueue(new ProducerRecord<>("wake-topic", new byte[] {2}));
+      racer.join();
+
+      while ((sentList.size() < (round + 1) * 2) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(1);
+      }
+
+      Assert.assertEquals(sentList.size(), (round + 1) * 2, "the sender slept through queued records");
+    }
+
+    pipeline.close();
+  }
+
+  @Test
+  public void testPackablesArePackedPerService ()
+    throws Exception {
+
+    List<ProducerRecord<Long, byte[]>> sentList = Collections.synchronizedList(new LinkedList<>());
+    Producer<Long, byte[]> producer = proxyProducer(sentList);
+    KafkaTransmitPipeline pipeline = new KafkaTransmitPipeline("pack", "caller", batchPolicy(100, true, 3), topic -> producer, (record, exception) -> {
+    });
+    int unpackedCount = 0;
+
+    for (int index = 0; index < 7; index++) {
+      pipeline.enqueuePackable("pack-topic", ((index % 2) == 0) ? "even" : "odd", new byte[] {(byte)index, 42});
+    }
+
+    pipeline.close();
+
+    Assert.assertEquals(sentList.size(), 3);
+    for (ProducerRecord<Long, byte[]> record : sentList) {
+      Assert.assertNotNull(record.headers().lastHeader(HeaderUtility.PACKED));
+      for (byte[] signal : KafkaTransmitPipeline.unpack(record.value())) {
+        Assert.assertEquals(signal.length, 2);
+        Assert.assertEquals(signal[1], (byte)42);
+        unpackedCount++;
+      }
+    }
+
+    Assert.assertEquals(unpackedCount, 7);
+  }
+
+  @Test
+  public void testStalledTopicFailsItsBatchAndSparesOtherTopics ()
+    throws Exception {
+
+    List<ProducerRecord<Long, byte[]>> sentList = Collections.synchronizedList(new LinkedList<>());
+    List<ProducerRecord<Long, byte[]>> failedList = Collections.synchronizedList(new LinkedList<>());
+    Producer<Long, byte[]> producer = proxyProducer(sentList);
+    Producer<Long, byte[]> stalledProducer = (Producer<Long, byte[]>)Proxy.newProxyInstance(KafkaTransmitPipelineTest.class.getClassLoader(), new Class[] {Producer.class}, (proxy, method, args) -> {
+      if (method.getName().equals("send")) {
+        throw new TimeoutException("Topic stalled-topic not present in metadata after 100 ms.");
+      }
+
+      return null;
+    });
+    KafkaTransmitPipeline pipeline = new KafkaTransmitPipeline("stall", "caller", batchPolicy(100, false, 1), topic -> topic.equals("stalled-topic") ? stalledProducer : producer, (record, exception) -> {
+      Assert.assertTrue(exception instanceof TimeoutException);
+      failedList.add(record);
+    });
+
+    for (int index = 0; index < 3; index++) {
+      pipeline.enqueue(new ProducerRecord<>("stalled-topic", new byte[] {(byte)index}));
+      pipeline.enqueue(new ProducerRecord<>("healthy-topic", new byte[] {(byte)index}));
+    }
+
+    pipeline.close();
+
+    Assert.assertEquals(sentList.size(), 3);
+    Assert.assertEquals(failedList.size(), 3);
+    for (ProducerRecord<Long, byte[]> record : sentList) {
+      Assert.assertEquals(record.topic(), "healthy-topic");
+    }
+    for (ProducerRecord<Long, byte[]> record : failedList) {
+      Assert.assertEquals(record.topic(), "stalled-topic");
+    }
+  }
+
+  @Test(expectedExceptions = AlreadyClosedException.class)
+  public void testEnqueueAfterCloseThrows ()
+    throws Exception {
+
+    List<ProducerRecord<Long, byte[]>> sentList = Collections.synchronizedList(new LinkedList<>());
+    Producer<Long, byte[]> producer = proxyProducer(sentList);
+    KafkaTransmitPipeline pipeline = new KafkaTransmitPipeline("closed", "caller", batchPolicy(100, false, 1), topic -> producer, (record, exception) -> {
+    });
+
+    pipeline.close();
+    pipeline.enqueue(new ProducerRecord<>("closed-topic", new byte[] {1}));
+  }
+}
@@ -38,6 +38,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.smallmind.nutsnbolts.lang.PerApplicationContext;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -47,7 +48,7 @@ import org.testng.annotations.Test;
  * Exercises the reusable worker-pool primitives: the {@link WorkManager} lifecycle guard and
  * start/dispatch path, and the differing hand-off semantics of the two {@link WorkQueue}
  * implementations ({@link BlockingWorkQueue} buffers, {@link TransferringWorkQueue} requires a
- * waiting consumer).
+ * waiting consumer), plus the virtual-thread and work-stealing {@link WorkEngine} variants.
  */
 @Test(groups = "unit")
 public class WorkerPoolTest {
@@ -167,6 +168,87 @@ public class WorkerPoolTest {
     }
   }
 
+  @Test
+  public void testVirtualEngineProcessesSubmittedWork ()
+    throws Throwable {
+
+    assertEngineProcessesSubmittedWork(WorkEngine.VIRTUAL);
+  }
+
+  @Test
+  public void testWorkStealingEngineProcessesSubmittedWork ()
+    throws Throwable {
+
+    assertEngineProcessesSubmittedWork(WorkEngine.WORK_STEALING);
+  }
+
+  @Test
+  public void testWorkStealingEngineDrainsAcceptedWorkOnShutDown ()
+    throws Throwable {
+
+    List<String> collected = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(100);
+    WorkManager<CollectingWorker, String> manager = new WorkManager<>(CollectingWorker.class, 2, WorkEngine.WORK_STEALING);
+
+    manager.startUp(workQueue -> new CollectingWorker(workQueue, collected, latch));
+    for (int index = 0; index < 100; index++) {
+      manager.execute(String.valueOf(index));
+    }
+    manager.shutDown();
+
+    Assert.assertEquals(latch.getCount(), 0L);
+    Assert.assertEquals(collected.size(), 100);
+  }
+
+  @Test
+  public void testWorkStealingWorkersDispatchUnderAFullBound ()
+    throws Throwable {
+
+    AtomicReference<WorkManager<FanOutWorker, String>> managerRef = new AtomicReference<>();
+    CountDownLatch engagedLatch = new CountDownLatch(2);
+    CountDownLatch releaseLatch = new CountDownLatch(1);
+    CountDownLatch leafLatch = new CountDownLatch(32 + (2 * 50));
+    WorkManager<FanOutWorker, String> manager = new WorkManager<>(FanOutWorker.class, 2, WorkEngine.WORK_STEALING);
+
+    managerRef.set(manager);
+    manager.startUp(workQueue -> new FanOutWorker(workQueue, managerRef, engagedLatch, releaseLatch, leafLatch));
+    try {
+      manager.execute("fan");
+      manager.execute("fan");
+
+      //  with both workers held inside the fan out, fill the whole pending bound (16 per worker) from outside
+      Assert.assertTrue(engagedLatch.await(5, TimeUnit.SECONDS), "both workers did not take a fan out item");
+      for (int index = 0; index < 32; index++) {
+        manager.execute("leaf");
+      }
+      releaseLatch.countDown();
+
+      Assert.assertTrue(leafLatch.await(5, TimeUnit.SECONDS), "workers dispatching under a full bound deadlocked");
+    } finally {
+      manager.shutDown();
+    }
+  }
+
+  private void assertEngineProcessesSubmittedWork (WorkEngine workEngine)
+    throws Throwable {
+
+    List<String> collected = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(50);
+    WorkManager<CollectingWorker, String> manager = new WorkManager<>(CollectingWorker.class, 4, workEngine);
+
+    manager.startUp(workQueue -> new CollectingWorker(workQueue, collected, latch));
+    try {
+      for (int index = 0; index < 50; index++) {
+        manager.execute(String.valueOf(index));
+      }
+
+      Assert.assertTrue(latch.await(5, TimeUnit.SECONDS), "workers did not process the submitted items in time");
+      Assert.assertEquals(collected.size(), 50);
+    } finally {
+      manager.shutDown();
+    }
+  }
+
   public static class CollectingWorker extends Worker<String> {
 
     private final List<String> collected;
@@ -193,6 +275,45 @@ public class WorkerPoolTest {
     }
   }
 
+  public static class FanOutWorker extends Worker<String> {
+
+    private final AtomicReference<WorkManager<FanOutWorker, String>> managerRef;
+    private final CountDownLatch engagedLatch;
+    private final CountDownLatch releaseLatch;
+    private final CountDownLatch leafLatch;
+
+    public FanOutWorker (WorkQueue<String> workQueue, AtomicReference<WorkManager<FanOutWorker, String>> managerRef, CountDownLatch engagedLatch, CountDownLatch releaseLatch, CountDownLatch leafLatch) {
+
+      super(workQueue);
+
+      this.managerRef = managerRef;
+      this.engagedLatch = engagedLatch;
+      this.releaseLatch = releaseLatch;
+      this.leafLatch = leafLatch;
+    }
+
+    @Override
+    public void engageWork (String transfer)
+      throws Throwable {
+
+      if ("fan".equals(transfer)) {
+        engagedLatch.countDown();
+        releaseLatch.await();
+
+        for (int index = 0; index < 50; index++) {
+          managerRef.get().execute("leaf");
+        }
+      } else {
+        leafLatch.countDown();
+      }
+    }
+
+    @Override
+    public void close () {
+
+    }
+  }
+
   private static class RejectOnceWorkQueue<E> implements WorkQueue<E> {
 
     private final AtomicBoolean firstOffer = new AtomicBoolean(true);
@@ -48,6 +48,8 @@ import org.smallmind.scribe.pen.adapter.Parameters;
 /**
  * Pure-scribe {@link LoggerAdapter} that creates {@link IndigenousRecord} instances and routes them
  * through registered filters, enhancers, and appenders without delegating to any external logging framework.
+ * The level check that precedes every log operation reads a single volatile threshold, so calls at a disabled
+ * level neither take a lock nor allocate a record or {@link DefaultLoggerContext}.
  */
 public class IndigenousLoggerAdapter implements LoggerAdapter {
 
@@ -55,8 +57,9 @@ public class IndigenousLoggerAdapter implements LoggerAdapter {
   private final ConcurrentLinkedQueue<Appender> appenderList;
   private final ConcurrentLinkedQueue<Enhancer> enhancerList;
   private final String name;
-  private Level level = Level.INFO;
-  private boolean autoFillLoggerContext = false;
+  private volatile Level level = Level.INFO;
+  private volatile int threshold = Level.INFO.ordinal();
+  private volatile boolean autoFillLoggerContext = false;
 
   /**
    * Builds an adapter for the named logger, initialising empty filter, appender, and enhancer queues
@@ -198,6 +201,18 @@ public class IndigenousLoggerAdapter implements LoggerAdapter {
   public void setLevel (Level level) {
 
     this.level = level;
+    threshold = level.equals(Level.OFF) ? Integer.MAX_VALUE : level.ordinal();
+  }
+
+  /**
+   * Fast path level check, comparing the requested level against the precomputed threshold ordinal.
+   *
+   * @param level the level of the prospective record
+   * @return {@code true} if a record at the given level passes the threshold
+   */
+  private boolean isLoggable (Level level) {
+
+    return (level.ordinal() >= threshold) && (!level.equals(Level.OFF));
   }
 
   /**
@@ -213,7 +228,7 @@ public class IndigenousLoggerAdapter implements LoggerAdapter {
 
     IndigenousRecord record;
 
-    if ((!level.equals(Level.OFF)) && getLevel().noGreater(level)) {
+    if (isLoggable(level)) {
       record = new IndigenousRecord(name, level, throwable, message, args);
       if (willLog(record)) {
         completeLogOperation(record);
@@ -234,7 +249,7 @@ public class IndigenousLoggerAdapter implements LoggerAdapter {
 
     IndigenousRecord record;
 
-    if ((!level.equals(Level.OFF)) && getLevel().noGreater(level)) {
+    if (isLoggable(level)) {
       record = new IndigenousRecord(name, level, throwable, (object == null) ? null : object.toString());
       if (willLog(record)) {
         completeLogOperation(record);
@@ -255,7 +270,7 @@ public class IndigenousLoggerAdapter implements LoggerAdapter {
 
     IndigenousRecord record;
 
-    if ((!level.equals(Level.OFF)) && getLevel().noGreater(level)) {
+    if (isLoggable(level)) {
       record = new IndigenousRecord(name, level, throwable, (supplier == null) ? null : supplier.get());
       if (willLog(record)) {
         completeLogOperation(record);
@@ -106,6 +106,25 @@ public class IndigenousLoggerAdapterTest {
     Assert.assertEquals(appender.size(), 0);
   }
 
+  public void testDisabledLevelNeverReachesFilters () {
+
+    CapturingAppender appender = new CapturingAppender();
+    IndigenousLoggerAdapter adapter = new IndigenousLoggerAdapter("disabled");
+    AtomicInteger count = new AtomicInteger(0);
+
+    adapter.addAppender(appender);
+    adapter.addFilter(record -> count.incrementAndGet() > 0);
+    adapter.setLevel(Level.ERROR);
+
+    adapter.logMessage(Level.WARN, null, "disabled");
+    Assert.assertEquals(count.get(), 0);
+
+    adapter.setLevel(Level.TRACE);
+    adapter.logMessage(Level.TRACE, null, "enabled");
+    Assert.assertEquals(count.get(), 1);
+    Assert.assertEquals(appender.size(), 1);
+  }
+
   public void testPrintfFormatting () {
 
     CapturingAppender appender = new CapturingAppender();
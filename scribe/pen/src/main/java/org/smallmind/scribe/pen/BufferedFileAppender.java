@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * High-throughput variant of {@link FileAppender} that group-commits output. Each formatted record is encoded
+ * as UTF-8 through a reusable {@link CharsetEncoder} into a reusable direct {@link ByteBuffer}, and the buffer
+ * is written to the file's {@link FileChannel} in batches as directed by a {@link FlushPolicy}, rather than
+ * issuing a write and flush per record.
+ * <p>
+ * {@link Rollover} is evaluated once per batch, against the size of the whole batch, so an archived file may
+ * exceed a size-based threshold by at most one batch. When the flush policy includes a time threshold, a
+ * daemon thread ({@code scribe-file-flush}) writes batches that would otherwise wait for the next record; it is
+ * stopped by {@link #close()}. Output still pending when the process exits without calling {@link #close()} is
+ * lost, so prefer an {@link Level#ERROR} flush level for records that must survive a crash.
+ */
+public class BufferedFileAppender extends AbstractFormattedAppender {
+
+  private static final int DEFAULT_BUFFER_SIZE = 65536;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final StringBuilder formatBuilder = new StringBuilder(256);
+  private final ByteBuffer buffer;
+  private FileChannel fileChannel;
+  private Thread flushThread;
+  private Path logPath;
+  private Cleanup cleanup;
+  private Rollover rollover;
+  private FlushPolicy flushPolicy = new FlushPolicy();
+  private boolean closed = false;
+  private long fileSize = 0;
+  private long lastModified = 0;
+  private long firstPendingMillis;
+
+  /**
+   * Constructs a buffered file appender with a 64 KiB buffer and the default {@link FlushPolicy}; the log path
+   * must be supplied via {@link #setLogPath(Path)} or {@link #setLogFile(String)} before use.
+   */
+  public BufferedFileAppender () {
+
+    super();
+
+    buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a buffered file appender that writes to the file at the given path string with the default
+   * {@link FlushPolicy}.
+   *
+   * @param logFile path string identifying the log file
+   * @throws IOException if the path cannot be resolved, is a directory, or the file channel cannot be opened
+   */
+  public BufferedFileAppender (String logFile)
+    throws IOException {
+
+    this(Paths.get(logFile), null, null, null, null, new FlushPolicy());
+  }
+
+  /**
+   * Constructs a buffered file appender that writes to the given path with the default {@link FlushPolicy}.
+   *
+   * @param logPath path identifying the log file
+   * @throws IOException if the path is a directory or the file channel cannot be opened
+   */
+  public BufferedFileAppender (Path logPath)
+    throws IOException {
+
+    this(logPath, null, null, null, null, new FlushPolicy());
+  }
+
+  /**
+   * Constructs a buffered file appender with a rollover policy, a formatter and a flush policy.
+   *
+   * @param logPath     path identifying the log file
+   * @param rollover    policy that determines when and how the log file is rotated, or {@code null} for none
+   * @param formatter   the formatter used to convert log records to strings
+   * @param flushPolicy policy deciding when batches are written
+   * @throws IOException if the path is a directory or the file channel cannot be opened
+   */
+  public BufferedFileAppender (Path logPath, Rollover rollover, Formatter formatter, FlushPolicy flushPolicy)
+    throws IOException {
+
+    this(logPath, rollover, null, formatter, null, flushPolicy);
+  }
+
+  /**
+   * Constructs a buffered file appender with the full complement of rollover policy, cleanup policy, formatter,
+   * error handler and flush policy.
+   *
+   * @param logFile      path string identifying the log file
+   * @param rollover     policy that determines when and how the log file is rotated, or {@code null} for none
+   * @param cleanup      policy that removes old archived log files after each rollover, or {@code null} for none
+   * @param formatter    the formatter used to convert log records to strings, or {@code null} for no formatting
+   * @param errorHandler the handler invoked when output or formatting fails, or {@code null} to discard errors
+   * @param flushPolicy  policy deciding when batches are written
+   * @throws IOException if the path cannot be resolved, is a directory, or the file channel cannot be opened
+   */
+  public BufferedFileAppender (String logFile, Rollover rollover, Cleanup cleanup, Formatter formatter, ErrorHandler errorHandler, FlushPolicy flushPolicy)
+    throws IOException {
+
+    this(Paths.get(logFile), rollover, cleanup, formatter, errorHandler, flushPolicy);
+  }
+
+  /**
+   * Constructs a buffered file appender with the full complement of rollover policy, cleanup policy, formatter,
+   * error handler and flush policy.
+   *
+   * @param logPath      path identifying the log file
+   * @param rollover     policy that determines when and how the log file is rotated, or {@code null} for none
+   * @param cleanup      policy that removes old archived log files after each rollover, or {@code null} for none
+   * @param formatter    the formatter used to convert log records to strings, or {@code null} for no formatting
+   * @param errorHandler the handler invoked when output or formatting fails, or {@code null} to discard errors
+   * @param flushPolicy  policy deciding when batches are written
+   * @throws IOException if the path is a directory or the file channel cannot be opened
+   */
+  public BufferedFileAppender (Path logPath, Rollover rollover, Cleanup cleanup, Formatter formatter, ErrorHandler errorHandler, FlushPolicy flushPolicy)
+    throws IOException {
+
+    super(formatter, errorHandler);
+
+    this.rollover = rollover;
+    this.cleanup = cleanup;
+    this.flushPolicy = flushPolicy;
+
+    buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+
+    setLogPath(logPath);
+  }
+
+  /**
+   * Returns the rollover policy currently assigned to this appender.
+   *
+   * @return the active rollover policy, or {@code null} if no rollover policy is configured
+   */
+  public Rollover getRollover () {
+
+    return rollover;
+  }
+
+  /**
+   * Sets the rollover policy used to rotate the log file when size or age thresholds are met.
+   *
+   * @param rollover the rollover policy to apply, or {@code null} to disable rollover
+   */
+  public void setRollover (Rollover rollover) {
+
+    this.rollover = rollover;
+  }
+
+  /**
+   * Returns the cleanup policy currently assigned to this appender.
+   *
+   * @return the active cleanup policy, or {@code null} if no cleanup policy is configured
+   */
+  public Cleanup getCleanup () {
+
+    return cleanup;
+  }
+
+  /**
+   * Sets the cleanup policy used to prune old archived log files after each rollover.
+   *
+   * @param cleanup the cleanup policy to apply, or {@code null} to disable cleanup
+   */
+  public void setCleanup (Cleanup cleanup) {
+
+    this.cleanup = cleanup;
+  }
+
+  /**
+   * Returns the flush policy currently assigned to this appender.
+   *
+   * @return the active flush policy
+   */
+  public FlushPolicy getFlushPolicy () {
+
+    return flushPolicy;
+  }
+
+  /**
+   * Sets the flush policy deciding when batches are written. A time threshold only starts the background flush
+   * thread if set before the log path.
+   *
+   * @param flushPolicy the flush policy to apply; must not be {@code null}
+   */
+  public synchronized void setFlushPolicy (FlushPolicy flushPolicy) {
+
+    this.flushPolicy = flushPolicy;
+  }
+
+  /**
+   * Returns the path of the current active log file.
+   *
+   * @return the active log file path
+   */
+  public Path getLogPath () {
+
+    return logPath;
+  }
+
+  /**
+   * Sets the target log file path, creating any missing parent directories and opening a new append-mode file
+   * channel to the file.
+   *
+   * @param logPath path to the log file; must not refer to an existing directory
+   * @throws IOException if the path is a directory, parent directories cannot be created, or the file channel
+   *                     cannot be opened
+   */
+  public synchronized void setLogPath (Path logPath)
+    throws IOException {
+
+    this.logPath = logPath;
+
+    if (Files.isDirectory(logPath)) {
+      throw new IOException("File must specify a non-directory path(" + logPath.toAbsolutePath() + ")");
+    } else {
+
+      Path parentPath;
+
+      if ((parentPath = logPath.getParent()) != null) {
+        Files.createDirectories(parentPath);
+      }
+
+      openChannel();
+
+      if ((flushThread == null) && (flushPolicy.getFlushMilliseconds() > 0)) {
+        flushThread = new Thread(new FlushWorker(flushPolicy.getFlushMilliseconds()));
+        flushThread.setName("scribe-file-flush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+      }
+    }
+  }
+
+  /**
+   * Sets the target log file path from a string, creating parent directories and opening the file channel.
+   *
+   * @param logFile path string identifying the log file; must not refer to an existing directory
+   * @throws IOException if the path cannot be resolved, is a directory, or the file channel cannot be opened
+   */
+  public void setLogFile (String logFile)
+    throws IOException {
+
+    setLogPath(Paths.get(logFile));
+  }
+
+  /**
+   * Formats the record and appends it to the pending batch, so that the record's level can take part in the
+   * flush decision. An {@link AppendingFormatter} renders into a buffer owned by this appender, so no
+   * intermediate string is created for the record.
+   *
+   * @param record the record to output
+   * @throws Exception if no formatter is set, formatting fails, or the batch cannot be written
+   */
+  @Override
+  public void handleOutput (Record<?> record)
+    throws Exception {
+
+    Formatter formatter;
+
+    if ((formatter = getFormatter()) instanceof AppendingFormatter) {
+      synchronized (this) {
+        formatBuilder.setLength(0);
+        ((AppendingFormatter)formatter).format(record, formatBuilder);
+        append(formatBuilder, record.getLevel());
+      }
+    } else if (formatter != null) {
+      append(formatter.format(record), record.getLevel());
+    } else {
+      throw new LoggerException("No formatter set for log output on this appender(%s)", this.getClass().getCanonicalName());
+    }
+  }
+
+  /**
+   * Appends pre-formatted text to the pending batch; the batch is written when the flush policy's byte or time
+   * threshold is reached.
+   *
+   * @param formattedOutput the fully formatted text to append; must not be {@code null}
+   * @throws LoggerException if this appender has already been closed or the batch cannot be written
+   */
+  @Override
+  public void handleOutput (String formattedOutput)
+    throws LoggerException {
+
+    append(formattedOutput, null);
+  }
+
+  /**
+   * Writes any pending output to the file immediately.
+   *
+   * @throws LoggerException if this appender has already been closed or the batch cannot be written
+   */
+  public synchronized void flush ()
+    throws LoggerException {
+
+    if (closed) {
+      throw new LoggerException("Appender to file(%s) has been previously closed", logPath.toAbsolutePath());
+    }
+
+    writeBatch();
+  }
+
+  /**
+   * Writes any pending output, stops the background flush thread, closes the file channel and marks this
+   * appender as closed. If the appender is already closed, this method does nothing.
+   *
+   * @throws LoggerException if the pending batch cannot be written or the file channel cannot be closed
+   */
+  @Override
+  public synchronized void close ()
+    throws LoggerException {
+
+    if (!closed) {
+      closed = true;
+
+      if (flushThread != null) {
+        flushThread.interrupt();
+      }
+
+      try {
+        writeBatch();
+      } finally {
+        try {
+          fileChannel.close();
+        } catch (IOException ioException) {
+          throw new LoggerException(ioException);
+        }
+      }
+    }
+  }
+
+  /**
+   * Opens an append-mode file channel to the current log path and resets the internal file-size counter and
+   * last-modified timestamp.
+   *
+   * @throws IOException if the file channel cannot be created or the file attributes cannot be read
+   */
+  private void openChannel ()
+    throws IOException {
+
+    fileChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    lastModified = Files.getLastModifiedTime(logPath).toMillis();
+    fileSize = 0;
+  }
+
+  /**
+   * Encodes the text into the pending batch, writing the batch whenever the buffer fills, and then consults the
+   * flush policy.
+   *
+   * @param formattedOutput the text to append
+   * @param level           the level of the originating record, or {@code null} if unknown
+   * @throws LoggerException if this appender has already been closed or a batch cannot be written
+   */
+  private synchronized void append (CharSequence formattedOutput, Level level)
+    throws LoggerException {
+
+    if (closed) {
+      throw new LoggerException("Appender to file(%s) has been previously closed", logPath.toAbsolutePath());
+    }
+
+    if (fileChannel != null) {
+
+      CharBuffer charBuffer = CharBuffer.wrap(formattedOutput);
+
+      // the time threshold runs from the oldest unflushed record, so a steady trickle of writes cannot postpone it
+      if (buffer.position() == 0) {
+        firstPendingMillis = System.currentTimeMillis();
+      }
+
+      encoder.reset();
+      while (encoder.encode(charBuffer, buffer, true).isOverflow()) {
+        writeBatch();
+      }
+      while (encoder.flush(buffer).isOverflow()) {
+        writeBatch();
+      }
+
+      if (flushPolicy.isFlushRequired(buffer.position(), System.currentTimeMillis() - firstPendingMillis, level)) {
+        writeBatch();
+      }
+    }
+  }
+
+  /**
+   * Writes the pending batch to the file channel, first rolling the file over if the rollover policy is
+   * triggered by the size of the batch.
+   *
+   * @throws LoggerException if the rollover or file-move operations fail, a new file channel cannot be opened,
+   *                         the cleanup policy raises an {@link IOException}, or the write itself fails
+   */
+  private void writeBatch ()
+    throws LoggerException {
+
+    long now = System.currentTimeMillis();
+    int batchSize;
+
+    // whatever is encoded after this write, such as the rest of an oversized record, is pending from now
+    firstPendingMillis = now;
+
+    if ((batchSize = buffer.position()) > 0) {
+      if ((rollover != null) && rollover.willRollover(fileSize, lastModified, batchSize)) {
+
+        Path rolloverPath = FileNameUtility.calculateUniquePath(logPath, rollover.getSeparator(), rollover.getTimestampSuffix(LocalDateTime.now()), true);
+
+        try {
+          fileChannel.close();
+        } catch (IOException ioException) {
+          throw new LoggerException(ioException, "Unable to close the current log file(%s)", logPath.toAbsolutePath());
+        }
+        try {
+          Files.move(logPath, rolloverPath);
+        } catch (IOException ioException) {
+          throw new LoggerException(ioException, "Could not rollover the log file to the archive name(%s)", rolloverPath.toAbsolutePath());
+        }
+        try {
+          openChannel();
+        } catch (IOException ioException) {
+          throw new LoggerException(ioException, "Unable to create the new log file(%s)", logPath.toAbsolutePath());
+        }
+
+        if (cleanup != null) {
+          try {
+            cleanup.vacuum(logPath);
+          } catch (IOException ioException) {
+            throw new LoggerException(ioException);
+          }
+        }
+      }
+
+      buffer.flip();
+      try {
+        while (buffer.hasRemaining()) {
+          fileChannel.write(buffer);
+        }
+
+        fileSize += batchSize;
+        lastModified = now;
+      } catch (IOException ioException) {
+        throw new LoggerException(ioException, "Error attempting to output to file(%s)", logPath.toAbsolutePath());
+      } finally {
+        buffer.clear();
+      }
+    }
+  }
+
+  /**
+   * Writes the pending batch once it has waited for the flush policy's time threshold.
+   */
+  private synchronized void flushIfStale () {
+
+    if ((!closed) && flushPolicy.isFlushRequired(buffer.position(), System.currentTimeMillis() - firstPendingMillis, null)) {
+      try {
+        writeBatch();
+      } catch (LoggerException loggerException) {
+        handleError(Logger.unknown(), loggerException);
+      }
+    }
+  }
+
+  private class FlushWorker implements Runnable {
+
+    private final long intervalMilliseconds;
+
+    /**
+     * Constructs a worker that checks for stale output at the given interval.
+     *
+     * @param intervalMilliseconds the time threshold of the flush policy
+     */
+    private FlushWorker (long intervalMilliseconds) {
+
+      this.intervalMilliseconds = intervalMilliseconds;
+    }
+
+    /**
+     * Periodically writes pending output that has waited past the time threshold, until interrupted by
+     * {@link #close()}.
+     */
+    @Override
+    public void run () {
+
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          Thread.sleep(intervalMilliseconds);
+          flushIfStale();
+        }
+      } catch (InterruptedException interruptedException) {
+        // closed
+      }
+    }
+  }
+}
@@ -42,6 +42,7 @@ import org.smallmind.nutsnbolts.util.DotNotationException;
 public class ClassNameTemplate extends Template {
 
   private DotNotation notation;
+  private String matchPrefix;
 
   /**
    * Constructs an unconfigured template; {@link #setPattern(String)} must be called before this
@@ -128,11 +129,37 @@ public class ClassNameTemplate extends Template {
   public void setPattern (String pattern)
     throws LoggerException {
 
+    StringBuilder prefixBuilder = new StringBuilder();
+
     try {
       notation = new DotNotation(pattern);
     } catch (DotNotationException dotNotationException) {
       throw new LoggerException(dotNotationException);
     }
+
+    for (String segment : pattern.split("\\.", -1)) {
+      if (segment.equals("*") || segment.equals("?")) {
+        break;
+      }
+
+      if (prefixBuilder.length() > 0) {
+        prefixBuilder.append('.');
+      }
+      prefixBuilder.append(segment);
+    }
+
+    matchPrefix = (prefixBuilder.length() == 0) ? null : prefixBuilder.toString();
+  }
+
+  /**
+   * Returns the literal segments of the pattern that precede its first wildcard.
+   *
+   * @return the pattern's literal prefix, or {@code null} if the pattern starts with a wildcard or was never set
+   */
+  @Override
+  public String getMatchPrefix () {
+
+    return matchPrefix;
   }
 
   /**
@@ -32,15 +32,13 @@
  */
 package org.smallmind.scribe.pen;
 
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
 
 /**
  * Pattern rule that renders one conversion token from a {@link PatternFormatter} pattern, applying
  * optional fixed-width padding (left or right), dot-notation precision truncation, and multi-line
- * prefix handling for stack-trace ({@code %s}) and parameter ({@code %p}) fields.
+ * prefix handling for stack-trace ({@code %s}) and parameter ({@code %p}) fields. Single-line fields are
+ * rendered straight into the formatter's builder, without intermediate padded or truncated strings.
  */
 public class ConversionPatternRule implements PatternRule {
 
@@ -218,7 +216,7 @@ public class ConversionPatternRule implements PatternRule {
     switch (conversion) {
       case 'd':
 
-        return trimToWidthAndPad(timestamp.getTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getMillis()), ZoneId.systemDefault())));
+        return trimToWidthAndPad(timestamp.getTimestamp(record.getMillis()));
       case 't':
 
         return trimToWidthAndPad(String.valueOf(record.getMillis()));
@@ -354,6 +352,221 @@ public class ConversionPatternRule implements PatternRule {
     }
   }
 
+  /**
+   * Appends the header, field value and footer directly to the builder, applying the same width, padding and
+   * precision rules as {@link #convert(Record, Timestamp)} without creating intermediate strings for the
+   * single-line fields. Nothing is appended when the field is unavailable for this record.
+   *
+   * @param formatBuilder the builder receiving the rendered output
+   * @param record        the log record from which field values are extracted
+   * @param timestamp     the timestamp provider used to render the {@code d} (date) conversion
+   */
+  @Override
+  public void render (StringBuilder formatBuilder, Record<?> record, Timestamp timestamp) {
+
+    LoggerContext loggerContext;
+    Throwable throwable;
+    String message;
+
+    switch (conversion) {
+      case 'd':
+        appendField(formatBuilder, timestamp.getTimestamp(record.getMillis()), 0);
+        break;
+      case 't':
+        appendNumber(formatBuilder, record.getMillis());
+        break;
+      case 'n':
+
+        String loggerName = record.getLoggerName();
+
+        appendField(formatBuilder, loggerName, dotPrecisionStart(loggerName));
+        break;
+      case 'l':
+        appendField(formatBuilder, record.getLevel().name(), 0);
+        break;
+      case 'm':
+        if (((message = record.getMessage()) == null) && ((throwable = record.getThrown()) != null)) {
+          message = throwable.getMessage();
+        }
+
+        appendField(formatBuilder, message, 0);
+        break;
+      case 'T':
+        appendField(formatBuilder, record.getThreadName(), 0);
+        break;
+      case 'C':
+        if (((loggerContext = record.getLoggerContext()) != null) && loggerContext.isFilled()) {
+
+          String className = loggerContext.getClassName();
+
+          appendField(formatBuilder, className, dotPrecisionStart(className));
+        }
+        break;
+      case 'M':
+        if (((loggerContext = record.getLoggerContext()) != null) && loggerContext.isFilled()) {
+          appendField(formatBuilder, loggerContext.getMethodName(), 0);
+        }
+        break;
+      case 'N':
+        if (((loggerContext = record.getLoggerContext()) != null) && loggerContext.isFilled()) {
+          appendField(formatBuilder, loggerContext.isNativeMethod() ? "true" : "false", 0);
+        }
+        break;
+      case 'L':
+        if (((loggerContext = record.getLoggerContext()) != null) && loggerContext.isFilled()) {
+          appendNumber(formatBuilder, loggerContext.getLineNumber());
+        }
+        break;
+      case 'F':
+        if (((loggerContext = record.getLoggerContext()) != null) && loggerContext.isFilled()) {
+          appendField(formatBuilder, loggerContext.getFileName(), 0);
+        }
+        break;
+      case 's':
+      case 'p':
+        // multi-line fields are rare and unaffected by width, so they keep building through convert()
+        PatternRule.super.render(formatBuilder, record, timestamp);
+        break;
+      default:
+        throw new UnknownSwitchCaseException("%c", conversion);
+    }
+  }
+
+  /**
+   * Appends the header, the portion of the field starting at {@code start} padded or truncated to the configured
+   * width, and the footer. Does nothing if the field is {@code null}.
+   *
+   * @param formatBuilder the builder receiving the rendered output
+   * @param field         the field value, or {@code null}
+   * @param start         the index of the first character of the field to render
+   */
+  private void appendField (StringBuilder formatBuilder, String field, int start) {
+
+    if (field != null) {
+
+      int length = field.length() - start;
+
+      if (header != null) {
+        formatBuilder.append(header);
+      }
+
+      if (length < width) {
+        switch (padding) {
+          case NONE:
+            formatBuilder.append(field, start, field.length());
+            break;
+          case RIGHT:
+            formatBuilder.append(field, start, field.length());
+            appendSpaces(formatBuilder, width - length);
+            break;
+          case LEFT:
+            appendSpaces(formatBuilder, width - length);
+            formatBuilder.append(field, start, field.length());
+            break;
+          default:
+            throw new UnknownSwitchCaseException(padding.name());
+        }
+      } else if (width > 0) {
+        formatBuilder.append(field, start, start + width);
+      } else {
+        formatBuilder.append(field, start, field.length());
+      }
+
+      if (footer != null) {
+        formatBuilder.append(footer);
+      }
+    }
+  }
+
+  /**
+   * Appends the header, the decimal value padded to the configured width, and the footer, without converting the
+   * value to a string. Values wider than the configured width fall back to {@link #appendField} for truncation.
+   *
+   * @param formatBuilder the builder receiving the rendered output
+   * @param value         the numeric field value
+   */
+  private void appendNumber (StringBuilder formatBuilder, long value) {
+
+    int digits = decimalLength(value);
+
+    if ((width > 0) && (digits > width)) {
+      appendField(formatBuilder, String.valueOf(value), 0);
+    } else {
+      if (header != null) {
+        formatBuilder.append(header);
+      }
+
+      if ((digits < width) && padding.equals(Padding.LEFT)) {
+        appendSpaces(formatBuilder, width - digits);
+      }
+
+      formatBuilder.append(value);
+
+      if ((digits < width) && padding.equals(Padding.RIGHT)) {
+        appendSpaces(formatBuilder, width - digits);
+      }
+
+      if (footer != null) {
+        formatBuilder.append(footer);
+      }
+    }
+  }
+
+  /**
+   * Appends the given number of space characters.
+   *
+   * @param formatBuilder the builder receiving the spaces
+   * @param count         the number of spaces to append
+   */
+  private void appendSpaces (StringBuilder formatBuilder, int count) {
+
+    for (int index = 0; index < count; index++) {
+      formatBuilder.append(' ');
+    }
+  }
+
+  /**
+   * Returns the number of characters in the decimal representation of the value, including any minus sign.
+   *
+   * @param value the value to measure
+   * @return the length of {@code String.valueOf(value)}
+   */
+  private int decimalLength (long value) {
+
+    int length = (value < 0) ? 2 : 1;
+    long remaining = value;
+
+    while ((remaining /= 10) != 0) {
+      length++;
+    }
+
+    return length;
+  }
+
+  /**
+   * Returns the index at which the last {@code precision} dot-delimited segments of the field begin, or {@code 0}
+   * if precision is not configured or the field does not have more segments than the precision allows.
+   *
+   * @param field the dot-delimited string, or {@code null}
+   * @return the start index of the retained segments
+   */
+  private int dotPrecisionStart (String field) {
+
+    if ((field != null) && (precision > 0)) {
+
+      int dots = 0;
+
+      for (int index = field.length() - 1; index >= 0; index--) {
+        if ((field.charAt(index) == '.') && (++dots == precision)) {
+
+          return index + 1;
+        }
+      }
+    }
+
+    return 0;
+  }
+
   /**
    * Truncates a dot-delimited value to at most the last {@code precision} segments. For example, with
    * {@code precision=2} and the input {@code "com.example.myapp.MyClass"}, the result is
@@ -370,26 +583,7 @@ public class ConversionPatternRule implements PatternRule {
       return null;
     }
 
-    if (precision > 0) {
-
-      String[] segments;
-
-      if ((segments = field.split("\\.", -1)).length > precision) {
-
-        StringBuilder segmentBuilder = new StringBuilder();
-
-        for (int count = segments.length - precision; count < segments.length; count++) {
-          if (count > (segments.length - precision)) {
-            segmentBuilder.append('.');
-          }
-          segmentBuilder.append(segments[count]);
-        }
-
-        return segmentBuilder.toString();
-      }
-    }
-
-    return field;
+    return field.substring(dotPrecisionStart(field));
   }
 
   /**
@@ -32,6 +32,7 @@
  */
 package org.smallmind.scribe.pen;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -40,12 +41,16 @@ import java.time.format.DateTimeFormatter;
  * A {@link Timestamp} implementation that produces formatted date-time strings using a
  * {@link DateTimeFormatter}; the default instance uses an ISO-like pattern
  * ({@code yyyy-MM-dd'T'HH:mm:ss.SSSZ}) and is accessible via {@link #getDefaultInstance()}.
+ * <p>
+ * The most recently formatted millisecond is cached, so the many records logged within the same millisecond
+ * share one formatted string through {@link #getTimestamp(long)}.
  */
 public class DateFormatTimestamp implements Timestamp {
 
   private static final DateFormatTimestamp STANDARD_TIMESTAMP = new DateFormatTimestamp();
 
-  private DateTimeFormatter dateTimeFormatter;
+  private volatile DateTimeFormatter dateTimeFormatter;
+  private volatile FormattedMillis formattedMillis;
 
   /**
    * Constructs a timestamp backed by the default ISO-like pattern {@code yyyy-MM-dd'T'HH:mm:ss.SSSZ}.
@@ -90,9 +95,10 @@ public class DateFormatTimestamp implements Timestamp {
    *
    * @param dateTimeFormatter the new formatter to use
    */
-  public void setDateTimeFormatter (DateTimeFormatter dateTimeFormatter) {
+  public synchronized void setDateTimeFormatter (DateTimeFormatter dateTimeFormatter) {
 
     this.dateTimeFormatter = dateTimeFormatter;
+    formattedMillis = null;
   }
 
   /**
@@ -107,4 +113,81 @@ public class DateFormatTimestamp implements Timestamp {
 
     return dateTimeFormatter.format(date.atZone(ZoneId.systemDefault()));
   }
+
+  /**
+   * Formats the epoch milliseconds in the system default time zone, returning the cached string when the same
+   * millisecond was formatted last.
+   *
+   * @param millis the epoch milliseconds to format
+   * @return the formatted timestamp string
+   */
+  @Override
+  public String getTimestamp (long millis) {
+
+    FormattedMillis cached;
+
+    if (((cached = formattedMillis) != null) && (cached.getMillis() == millis)) {
+
+      return cached.getFormatted();
+    }
+
+    return format(millis);
+  }
+
+  /**
+   * Formats the epoch milliseconds and caches the result, under the same lock as
+   * {@link #setDateTimeFormatter(DateTimeFormatter)} so a stale formatter's output is never cached.
+   *
+   * @param millis the epoch milliseconds to format
+   * @return the formatted timestamp string
+   */
+  private synchronized String format (long millis) {
+
+    String formatted = dateTimeFormatter.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+
+    formattedMillis = new FormattedMillis(millis, formatted);
+
+    return formatted;
+  }
+
+  /**
+   * Immutable pairing of an epoch millisecond with its formatted string, published as a unit.
+   */
+  private static class FormattedMillis {
+
+    private final String formatted;
+    private final long millis;
+
+    /**
+     * Constructs a cache entry.
+     *
+     * @param millis    the epoch milliseconds
+     * @param formatted the formatted timestamp for {@code millis}
+     */
+    private FormattedMillis (long millis, String formatted) {
+
+      this.millis = millis;
+      this.formatted = formatted;
+    }
+
+    /**
+     * Returns the epoch milliseconds of this entry.
+     *
+     * @return the epoch milliseconds
+     */
+    private long getMillis () {
+
+      return millis;
+    }
+
+    /**
+     * Returns the formatted timestamp of this entry.
+     *
+     * @return the formatted timestamp
+     */
+    private String getFormatted () {
+
+      return formatted;
+    }
+  }
 }
@@ -32,18 +32,48 @@
  */
 package org.smallmind.scribe.pen;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 /**
- * A {@link LoggerContext} that identifies the originating caller by walking
- * {@code Thread.currentThread().getStackTrace()}, skipping frames that belong to the logging
- * infrastructure, and capturing the first non-logging frame; the result is stored under
- * double-checked locking so the stack walk happens at most once per instance.
+ * A {@link LoggerContext} that identifies the originating caller by walking the current thread's stack with a
+ * {@link StackWalker}, skipping frames that belong to the logging infrastructure, and capturing the first
+ * non-logging frame. The walk stops at that frame rather than materializing the whole stack, and the result is
+ * stored under double-checked locking so the walk happens at most once per instance.
+ * <p>
+ * With {@link CallerCapture#DEFERRED} only the captured stack frame is kept, and the comparatively expensive
+ * conversion to a source file and line number is put off until those values are first requested, which lets
+ * an asynchronous appender pay for it off the logging thread. A deferred context resolves its frame before
+ * being serialized.
  */
 public class DefaultLoggerContext implements LoggerContext {
 
+  private static final StackWalker STACK_WALKER = StackWalker.getInstance();
   private final AtomicBoolean filled = new AtomicBoolean(false);
-  private StackTraceElement contextElement;
+  private final CallerCapture callerCapture;
+  private transient StackWalker.StackFrame contextFrame;
+  private volatile StackTraceElement contextElement;
+
+  /**
+   * Constructs a context using the capture mode configured via {@link LoggerManager#setCallerCapture(CallerCapture)}.
+   */
+  public DefaultLoggerContext () {
+
+    this(LoggerManager.getCallerCapture());
+  }
+
+  /**
+   * Constructs a context using the given capture mode.
+   *
+   * @param callerCapture whether file and line are resolved when the context is filled in or when first requested
+   */
+  public DefaultLoggerContext (CallerCapture callerCapture) {
+
+    this.callerCapture = callerCapture;
+  }
 
   /**
    * Returns {@code true} if the given class name is part of the logging infrastructure as
@@ -57,6 +87,36 @@ public class DefaultLoggerContext implements LoggerContext {
     return LoggerManager.isLoggingClass(className);
   }
 
+  /**
+   * Consumes stack frames from the top of the stack, primes on the first logging-infrastructure frame, and
+   * returns the first frame after it that is no longer part of the infrastructure. Frames below the caller are
+   * never visited.
+   *
+   * @param frameStream the lazily produced stack frames of the current thread
+   * @return the caller's frame, or {@code null} if no logging frame, or no non-logging frame after one, exists
+   */
+  private static StackWalker.StackFrame findCallerFrame (Stream<StackWalker.StackFrame> frameStream) {
+
+    Iterator<StackWalker.StackFrame> frameIterator = frameStream.iterator();
+    boolean primed = false;
+
+    while (frameIterator.hasNext()) {
+
+      StackWalker.StackFrame currentFrame = frameIterator.next();
+
+      if (primed) {
+        if (!willPrime(currentFrame.getClassName())) {
+
+          return currentFrame;
+        }
+      } else {
+        primed = willPrime(currentFrame.getClassName());
+      }
+    }
+
+    return null;
+  }
+
   /**
    * Returns {@code true} if the caller context has already been captured from the stack.
    *
@@ -88,7 +148,7 @@ public class DefaultLoggerContext implements LoggerContext {
 
     setContextElement();
 
-    return contextElement.getClassName();
+    return (contextFrame != null) ? contextFrame.getClassName() : contextElement.getClassName();
   }
 
   /**
@@ -101,7 +161,7 @@ public class DefaultLoggerContext implements LoggerContext {
 
     setContextElement();
 
-    return contextElement.getMethodName();
+    return (contextFrame != null) ? contextFrame.getMethodName() : contextElement.getMethodName();
   }
 
   /**
@@ -114,7 +174,7 @@ public class DefaultLoggerContext implements LoggerContext {
 
     setContextElement();
 
-    return contextElement.getFileName();
+    return resolveContextElement().getFileName();
   }
 
   /**
@@ -127,7 +187,7 @@ public class DefaultLoggerContext implements LoggerContext {
 
     setContextElement();
 
-    return contextElement.isNativeMethod();
+    return (contextFrame != null) ? contextFrame.isNativeMethod() : contextElement.isNativeMethod();
   }
 
   /**
@@ -140,13 +200,14 @@ public class DefaultLoggerContext implements LoggerContext {
 
     setContextElement();
 
-    return contextElement.getLineNumber();
+    return resolveContextElement().getLineNumber();
   }
 
   /**
-   * Performs a double-checked lock to ensure the stack walk occurs exactly once: iterates over
-   * the current thread's stack frames, primes on the first logging-infrastructure frame, then
-   * captures the first frame that is no longer part of the infrastructure as the caller context.
+   * Performs a double-checked lock to ensure the stack walk occurs exactly once: walks the current thread's
+   * stack frames, primes on the first logging-infrastructure frame, then captures the first frame that is no
+   * longer part of the infrastructure as the caller context. In {@link CallerCapture#EAGER} mode the frame is
+   * immediately resolved to a {@link StackTraceElement}.
    *
    * @throws IllegalStateException if no logging frame is found in the stack, or if no
    *                               non-logging frame follows the logging frames
@@ -157,26 +218,55 @@ public class DefaultLoggerContext implements LoggerContext {
       synchronized (this) {
         if (!filled.get()) {
 
-          boolean primed = false;
-
-          for (StackTraceElement currentElement : Thread.currentThread().getStackTrace()) {
-            if (primed) {
-              if (!willPrime(currentElement.getClassName())) {
-                contextElement = currentElement;
-                break;
-              }
-            } else {
-              primed = willPrime(currentElement.getClassName());
-            }
-          }
+          StackWalker.StackFrame callerFrame;
 
-          if (!primed || (contextElement == null)) {
+          if ((callerFrame = STACK_WALKER.walk(DefaultLoggerContext::findCallerFrame)) == null) {
             throw new IllegalStateException("The logging call context was not found");
           }
 
+          if (CallerCapture.DEFERRED.equals(callerCapture)) {
+            contextFrame = callerFrame;
+          } else {
+            contextElement = callerFrame.toStackTraceElement();
+          }
+
           filled.set(true);
         }
       }
     }
   }
+
+  /**
+   * Returns the caller's {@link StackTraceElement}, resolving it from the captured stack frame on first use.
+   *
+   * @return the caller's stack trace element
+   */
+  private StackTraceElement resolveContextElement () {
+
+    if (contextElement == null) {
+      synchronized (this) {
+        if (contextElement == null) {
+          contextElement = contextFrame.toStackTraceElement();
+        }
+      }
+    }
+
+    return contextElement;
+  }
+
+  /**
+   * Resolves a deferred stack frame, which is not itself serializable, before writing this context.
+   *
+   * @param objectOutputStream the stream this context is being serialized to
+   * @throws IOException if the stream cannot be written
+   */
+  private void writeObject (ObjectOutputStream objectOutputStream)
+    throws IOException {
+
+    if (contextFrame != null) {
+      resolveContextElement();
+    }
+
+    objectOutputStream.defaultWriteObject();
+  }
 }
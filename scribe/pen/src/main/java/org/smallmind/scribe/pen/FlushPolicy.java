@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+/**
+ * Group-commit policy for a {@link BufferedFileAppender}, deciding when accumulated output is written to the
+ * file. A batch is written as soon as any enabled condition holds: the pending bytes reach a threshold, the
+ * oldest pending output has waited long enough, or a record at or above a given level arrives. Thresholds of
+ * {@code 0} (or a {@code null} level) disable the corresponding condition.
+ */
+public class FlushPolicy {
+
+  private final Level flushLevel;
+  private final long flushBytes;
+  private final long flushMilliseconds;
+
+  /**
+   * Constructs a policy that writes every 8 KiB, at least once a second, and immediately on {@link Level#ERROR}.
+   */
+  public FlushPolicy () {
+
+    this(8192, 1000, Level.ERROR);
+  }
+
+  /**
+   * Constructs a policy from explicit thresholds.
+   *
+   * @param flushBytes        number of pending bytes that triggers a write, or {@code 0} to disable
+   * @param flushMilliseconds maximum time output may remain pending, or {@code 0} to disable
+   * @param flushLevel        least severe level whose records trigger an immediate write, or {@code null} to disable
+   */
+  public FlushPolicy (long flushBytes, long flushMilliseconds, Level flushLevel) {
+
+    this.flushBytes = Math.max(0, flushBytes);
+    this.flushMilliseconds = Math.max(0, flushMilliseconds);
+    this.flushLevel = flushLevel;
+  }
+
+  /**
+   * Returns the number of pending bytes that triggers a write.
+   *
+   * @return the byte threshold, or {@code 0} if disabled
+   */
+  public long getFlushBytes () {
+
+    return flushBytes;
+  }
+
+  /**
+   * Returns the maximum time output may remain pending before it is written.
+   *
+   * @return the time threshold in milliseconds, or {@code 0} if disabled
+   */
+  public long getFlushMilliseconds () {
+
+    return flushMilliseconds;
+  }
+
+  /**
+   * Returns the least severe level whose records trigger an immediate write.
+   *
+   * @return the level threshold, or {@code null} if disabled
+   */
+  public Level getFlushLevel () {
+
+    return flushLevel;
+  }
+
+  /**
+   * Determines whether pending output should be written now.
+   *
+   * @param pendingBytes            number of bytes accumulated since the last write
+   * @param millisecondsSinceFlush  time the oldest pending output has been waiting
+   * @param level                   level of the record just appended, or {@code null} if unknown
+   * @return {@code true} if the pending batch should be written
+   */
+  public boolean isFlushRequired (long pendingBytes, long millisecondsSinceFlush, Level level) {
+
+    if (pendingBytes == 0) {
+
+      return false;
+    }
+
+    return ((flushBytes > 0) && (pendingBytes >= flushBytes)) || ((flushMilliseconds > 0) && (millisecondsSinceFlush >= flushMilliseconds)) || ((flushLevel != null) && (level != null) && level.atLeast(flushLevel));
+  }
+}
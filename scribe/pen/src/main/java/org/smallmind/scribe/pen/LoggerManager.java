@@ -32,22 +32,26 @@
  */
 package org.smallmind.scribe.pen;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Static registry that creates, caches, and manages {@link Logger} instances and maps each one to
- * its highest-priority matching {@link Template}. Logger lookup uses double-checked locking for
- * safe, low-contention creation. Adding or removing a template triggers re-association of all
- * known loggers.
+ * its highest-priority matching {@link Template}. Logger lookup is lock free; only the creation of a
+ * new logger and changes to the registered templates serialize on the manager. Templates are indexed
+ * in an immutable trie keyed on the dot-notated segments of their match prefix, which is replaced
+ * copy-on-write whenever a template is added or removed, so resolving a logger only consults templates
+ * that could possibly match its name. Adding a template only scores that template against the known
+ * loggers, and removing one only re-resolves the loggers it governed.
  */
 public class LoggerManager {
 
-  private static final HashMap<String, Logger> LOGGER_MAP = new HashMap<String, Logger>();
-  private static final HashMap<Logger, Template> TEMPLATE_MAP = new HashMap<Logger, Template>();
-  private static final HashSet<Template> TEMPLATE_SET = new HashSet<Template>();
+  private static final ConcurrentHashMap<String, Logger> LOGGER_MAP = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<Logger, TemplateTrie.TemplateMatch> TEMPLATE_MAP = new ConcurrentHashMap<>();
   private static final CopyOnWriteArraySet<String> LOGGING_PACKAGE_PREFIX_QUEUE = new CopyOnWriteArraySet<String>();
+  private static volatile TemplateTrie TEMPLATE_TRIE = new TemplateTrie();
+  private static volatile CallerCapture CALLER_CAPTURE = CallerCapture.EAGER;
 
   static {
 
@@ -66,6 +70,29 @@ public class LoggerManager {
     LOGGING_PACKAGE_PREFIX_QUEUE.add(packageName);
   }
 
+  /**
+   * Returns the capture mode used by newly created {@link DefaultLoggerContext} instances; defaults to
+   * {@link CallerCapture#EAGER}.
+   *
+   * @return the current caller capture mode
+   */
+  public static CallerCapture getCallerCapture () {
+
+    return CALLER_CAPTURE;
+  }
+
+  /**
+   * Sets the capture mode used by newly created {@link DefaultLoggerContext} instances. Choose
+   * {@link CallerCapture#DEFERRED} when location-aware patterns are rendered by asynchronous appenders, so that
+   * source file and line resolution happens on the appender's thread rather than the logging thread.
+   *
+   * @param callerCapture the caller capture mode; must not be {@code null}
+   */
+  public static void setCallerCapture (CallerCapture callerCapture) {
+
+    CALLER_CAPTURE = callerCapture;
+  }
+
   /**
    * Tests whether the given fully qualified class name belongs to any registered logging
    * infrastructure package and should therefore be skipped during call-stack inspection.
@@ -86,32 +113,52 @@ public class LoggerManager {
   }
 
   /**
-   * Adds a template to the active template set and immediately re-associates every known logger
-   * with the highest-priority matching template. Has no effect if the template is already registered.
+   * Adds a template to the active template set, scoring it against every known logger and re-associating
+   * each logger for which it beats the current template. On equal priority the earlier registered template
+   * keeps the logger. Has no effect if the template is already registered.
    *
    * @param template template to register; must not be {@code null}
    */
   public static void addTemplate (Template template) {
 
     synchronized (LoggerManager.class) {
-      if (!TEMPLATE_SET.contains(template)) {
-        TEMPLATE_SET.add(template);
-        reAssociateAllLoggers();
+
+      TemplateTrie.TemplateEntry entry;
+
+      if (!TEMPLATE_TRIE.contains(template)) {
+        TEMPLATE_TRIE = TEMPLATE_TRIE.add(template);
+        entry = TEMPLATE_TRIE.getEntry(template);
+
+        for (Logger logger : LOGGER_MAP.values()) {
+
+          TemplateTrie.TemplateMatch currentMatch = TEMPLATE_MAP.get(logger);
+          int priority;
+
+          if (((priority = entry.match(logger.getName())) > Template.NO_MATCH) && ((currentMatch == null) || (priority > currentMatch.getPriority()))) {
+            associateTemplate(logger, new TemplateTrie.TemplateMatch(template, priority, entry.getSequence()));
+          }
+        }
       }
     }
   }
 
   /**
-   * Removes a template from the active template set and immediately re-associates every known logger
-   * with the highest-priority remaining matching template. Has no effect if the template is not registered.
+   * Removes a template from the active template set and re-associates every logger it governed with the
+   * highest-priority remaining matching template. Has no effect if the template is not registered.
    *
    * @param template template to remove; must not be {@code null}
    */
   public static void removeTemplate (Template template) {
 
     synchronized (LoggerManager.class) {
-      if (TEMPLATE_SET.remove(template)) {
-        reAssociateAllLoggers();
+      if (TEMPLATE_TRIE.contains(template)) {
+        TEMPLATE_TRIE = TEMPLATE_TRIE.remove(template);
+
+        for (Map.Entry<Logger, TemplateTrie.TemplateMatch> matchEntry : TEMPLATE_MAP.entrySet()) {
+          if (matchEntry.getValue().getTemplate().equals(template)) {
+            associateTemplate(matchEntry.getKey(), TEMPLATE_TRIE.resolve(matchEntry.getKey().getName()));
+          }
+        }
       }
     }
   }
@@ -124,9 +171,9 @@ public class LoggerManager {
    */
   public static Template getTemplate (Logger logger) {
 
-    synchronized (LoggerManager.class) {
-      return TEMPLATE_MAP.get(logger);
-    }
+    TemplateTrie.TemplateMatch match;
+
+    return ((match = TEMPLATE_MAP.get(logger)) == null) ? null : match.getTemplate();
   }
 
   /**
@@ -142,9 +189,9 @@ public class LoggerManager {
   }
 
   /**
-   * Returns the cached {@link Logger} for the given name, or creates and caches a new one using
-   * double-checked locking. Newly created loggers are immediately associated with the best matching
-   * template from the active template set.
+   * Returns the cached {@link Logger} for the given name without locking, or creates and caches a new one.
+   * Newly created loggers are associated with the best matching template before they are published, so no
+   * caller ever sees an unconfigured logger.
    *
    * @param name the logger name; must not be {@code null}
    * @return the cached or newly created logger for that name
@@ -157,8 +204,8 @@ public class LoggerManager {
       synchronized (LoggerManager.class) {
         if ((logger = LOGGER_MAP.get(name)) == null) {
           logger = new Logger(name);
+          associateTemplate(logger, TEMPLATE_TRIE.resolve(name));
           LOGGER_MAP.put(name, logger);
-          associateTemplate(logger);
         }
       }
     }
@@ -175,52 +222,33 @@ public class LoggerManager {
    */
   protected static void commitTemplateChanges (Template.Change change, Template template) {
 
-    synchronized (LoggerManager.class) {
-      for (Logger logger : TEMPLATE_MAP.keySet()) {
-        if (TEMPLATE_MAP.get(logger).equals(template)) {
-          template.applyChange(change, logger);
-        }
+    for (Map.Entry<Logger, TemplateTrie.TemplateMatch> matchEntry : TEMPLATE_MAP.entrySet()) {
+      if (matchEntry.getValue().getTemplate().equals(template)) {
+        template.applyChange(change, matchEntry.getKey());
       }
     }
   }
 
   /**
-   * Iterates over all known loggers and re-runs template matching for each one, updating the
-   * template association map and applying any changed configuration.
-   */
-  private static void reAssociateAllLoggers () {
-
-    for (Logger logger : LOGGER_MAP.values()) {
-      associateTemplate(logger);
-    }
-  }
-
-  /**
-   * Finds the highest-priority matching template for the given logger, applies it if the association
-   * has changed, and updates the template map accordingly. Removes the logger from the map if no
-   * template matches.
+   * Records the match as the logger's template association and, if the governing template has changed,
+   * applies it. The association is recorded before the template is applied, so that a concurrent change to
+   * the template is either seen by the application or pushed to the logger by
+   * {@link #commitTemplateChanges(Template.Change, Template)}. Removes the association if nothing matches.
    *
-   * @param logger the logger to match and configure
+   * @param logger the logger to configure
+   * @param match  the winning match, or {@code null} if no template matches the logger
    */
-  private static void associateTemplate (Logger logger) {
+  private static void associateTemplate (Logger logger, TemplateTrie.TemplateMatch match) {
 
-    Template matchingTemplate = null;
-    int matchingPriority = Template.NO_MATCH;
-    int templatePriority;
+    if (match == null) {
+      TEMPLATE_MAP.remove(logger);
+    } else {
 
-    for (Template template : TEMPLATE_SET) {
-      templatePriority = template.matchLogger(logger.getName());
-      if (templatePriority > matchingPriority) {
-        matchingTemplate = template;
-        matchingPriority = templatePriority;
-      }
-    }
+      TemplateTrie.TemplateMatch priorMatch;
 
-    if (matchingTemplate == null) {
-      TEMPLATE_MAP.remove(logger);
-    } else if (!matchingTemplate.equals(getTemplate(logger))) {
-      matchingTemplate.apply(logger);
-      TEMPLATE_MAP.put(logger, matchingTemplate);
+      if (((priorMatch = TEMPLATE_MAP.put(logger, match)) == null) || (!priorMatch.getTemplate().equals(match.getTemplate()))) {
+        match.getTemplate().apply(logger);
+      }
     }
   }
 }
@@ -45,8 +45,12 @@ import java.util.regex.Pattern;
  * {@code M} (method), {@code N} (native flag), {@code L} (line number), {@code F} (file name),
  * {@code s} (stack trace), and {@code p} (parameters). The default pattern is
  * {@code "%d %n %+5l [%T] - %m"}.
+ * <p>
+ * Rules render directly into a {@link StringBuilder}; {@link #format(Record)} reuses a per-thread builder, and
+ * appenders holding their own buffer can avoid even the final string through
+ * {@link #format(Record, StringBuilder)}.
  */
-public class PatternFormatter implements Formatter {
+public class PatternFormatter implements AppendingFormatter {
 
   /*
   Operation of this parser is similar to that of String formatting Flags. Each Flag has the general form
@@ -97,6 +101,9 @@ public class PatternFormatter implements Formatter {
 
   private static final Pattern CONVERSION_PATTERN = Pattern.compile("%%|(\\{([^{}]+))?%(([+\\-])?(\\d+))?(\\.(\\d+))?(!([+\\-])([^!]*)!)?([dtnlmTCMNLFsp])(([^{%]+)})?");
   private static final StaticPatternRule DOUBLE_PERCENT_RULE = new StaticPatternRule("%");
+  private static final ThreadLocal<StringBuilder> FORMAT_BUILDER_LOCAL = new ThreadLocal<>();
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+  private static final int MAXIMUM_RETAINED_CAPACITY = 16384;
   private PatternRule[] patternRules;
   private Timestamp timestamp;
 
@@ -195,34 +202,55 @@ public class PatternFormatter implements Formatter {
   /**
    * Applies all pattern rules to the record and returns the resulting string, appending the
    * platform line separator at the end. Rules whose {@code convert()} method returns {@code null}
-   * are omitted, including their header and footer.
+   * are omitted, including their header and footer. The rules render into a builder reused by the
+   * calling thread, so the returned string is the only allocation on the common path; a reentrant call on the
+   * same thread renders into a builder of its own.
    *
    * @param record the log record to format
    * @return the formatted log line, terminated by the platform-specific line separator
    */
+  @Override
   public String format (Record<?> record) {
 
-    StringBuilder formatBuilder = new StringBuilder();
-    String conversion;
-    String header;
-    String footer;
+    StringBuilder formatBuilder;
 
-    for (PatternRule patternRule : patternRules) {
-      if ((conversion = patternRule.convert(record, timestamp)) != null) {
-        if ((header = patternRule.getHeader()) != null) {
-          formatBuilder.append(header);
-        }
+    // the builder is taken out of its slot while in use, so a nested format() on this thread (e.g. from a
+    // parameter's toString() that logs) renders into a fresh builder rather than clearing ours
+    if ((formatBuilder = FORMAT_BUILDER_LOCAL.get()) == null) {
+      formatBuilder = new StringBuilder(256);
+    } else {
+      FORMAT_BUILDER_LOCAL.set(null);
+      formatBuilder.setLength(0);
+    }
 
-        formatBuilder.append(conversion);
+    try {
+      format(record, formatBuilder);
 
-        if ((footer = patternRule.getFooter()) != null) {
-          formatBuilder.append(footer);
-        }
+      return formatBuilder.toString();
+    } finally {
+      // an unusually large record (e.g. a deep stack trace) should not pin its buffer to the thread forever
+      if (formatBuilder.capacity() <= MAXIMUM_RETAINED_CAPACITY) {
+        FORMAT_BUILDER_LOCAL.set(formatBuilder);
       }
     }
+  }
+
+  /**
+   * Applies all pattern rules to the record, appending the output and the platform line separator to the
+   * supplied builder.
+   *
+   * @param record        the log record to format
+   * @param formatBuilder the builder receiving the formatted log line
+   */
+  @Override
+  public void format (Record<?> record, StringBuilder formatBuilder) {
 
-    formatBuilder.append(System.getProperty("line.separator"));
+    if (patternRules != null) {
+      for (PatternRule patternRule : patternRules) {
+        patternRule.render(formatBuilder, record, timestamp);
+      }
+    }
 
-    return formatBuilder.toString();
+    formatBuilder.append(LINE_SEPARATOR);
   }
 }
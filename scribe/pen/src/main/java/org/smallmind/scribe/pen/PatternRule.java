@@ -60,4 +60,34 @@ public interface PatternRule {
    * @return the formatted fragment; never {@code null}
    */
   String convert (Record<?> record, Timestamp timestamp);
+
+  /**
+   * Appends this rule's header, converted fragment and footer to the builder, or nothing at all if the fragment
+   * is absent. The default implementation delegates to {@link #convert(Record, Timestamp)}; rules may override it
+   * to write directly into the builder without creating intermediate strings.
+   *
+   * @param formatBuilder the builder receiving the rendered output
+   * @param record        the log record from which to extract information
+   * @param timestamp     the timestamp strategy to use when formatting date/time values
+   */
+  default void render (StringBuilder formatBuilder, Record<?> record, Timestamp timestamp) {
+
+    String conversion;
+
+    if ((conversion = convert(record, timestamp)) != null) {
+
+      String header;
+      String footer;
+
+      if ((header = getHeader()) != null) {
+        formatBuilder.append(header);
+      }
+
+      formatBuilder.append(conversion);
+
+      if ((footer = getFooter()) != null) {
+        formatBuilder.append(footer);
+      }
+    }
+  }
 }
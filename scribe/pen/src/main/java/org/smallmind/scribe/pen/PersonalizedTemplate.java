@@ -113,6 +113,17 @@ public class PersonalizedTemplate extends Template {
     }
   }
 
+  /**
+   * Returns the personalized logger name, which is the only name this template can match.
+   *
+   * @return the logger name, or {@code null} if it has not been set
+   */
+  @Override
+  public String getMatchPrefix () {
+
+    return loggerNameRef.get();
+  }
+
   /**
    * Returns {@code Integer.MAX_VALUE} when {@code loggerName} exactly equals the configured name,
    * giving this template the highest possible priority, or {@link Template#NO_MATCH} for any other name.
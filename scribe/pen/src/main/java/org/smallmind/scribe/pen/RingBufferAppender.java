@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
+
+/**
+ * Appender decorator that hands records from any number of logging threads to a single drain thread through a
+ * preallocated, lock-free ring buffer, in the manner of the LMAX Disruptor. Publishing claims a slot with a
+ * single compare-and-set and allocates nothing; on each pass the drain thread forwards every record published
+ * since its last pass to the wrapped appender, one at a time in publication order, and then releases all of
+ * their slots at once. Closing seals the claim sequence, so that every record claimed before the close is
+ * delivered and every later publish is refused.
+ * <p>
+ * When no records are waiting the drain thread idles according to its {@link WaitStrategy}. With
+ * {@link WaitStrategy#PARK} producers only unpark the drain thread when it has announced that it is parked,
+ * so a busy appender pays no per-record wake-up. What happens when the ring is full is decided by the
+ * {@link OverflowPolicy}; records discarded by the policy are counted in {@link #getDroppedCount()}.
+ * <p>
+ * Unlike {@link AsynchronousAppender}, which may run several workers, delivery here is always single-threaded,
+ * so the wrapped appender sees records in the order their slots were claimed.
+ */
+public class RingBufferAppender extends AbstractWrappedAppender {
+
+  private static final long DRAIN_PARK_NANOS = 10_000_000L;
+  // Added to the claim sequence by close(); sequences never approach the threshold, so a larger value means sealed
+  private static final long SEAL = 1L << 62;
+  private static final long SEAL_THRESHOLD = 1L << 61;
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+  private final AtomicLong claimSequence = new AtomicLong(-1);
+  private final AtomicLong consumedSequence = new AtomicLong(-1);
+  private final AtomicLong overflowCount = new AtomicLong(0);
+  private final AtomicLong droppedCount = new AtomicLong(0);
+  private final CountDownLatch exitLatch = new CountDownLatch(1);
+  private final AtomicReferenceArray<Record<?>> ring;
+  private final AtomicIntegerArray publishedRounds;
+  private final WaitStrategy waitStrategy;
+  private final OverflowPolicy overflowPolicy;
+  private final Level overflowLevel;
+  private final Thread drainThread;
+  private final int capacity;
+  private final int mask;
+  private final int indexShift;
+  private final int sampleRate;
+  private volatile boolean parked = false;
+
+  /**
+   * Constructs a ring buffer appender holding 1024 records, whose drain thread parks when idle and whose
+   * producers block when the ring is full.
+   *
+   * @param internalAppender the underlying appender that records are ultimately forwarded to
+   */
+  public RingBufferAppender (Appender internalAppender) {
+
+    this(internalAppender, 1024, WaitStrategy.PARK, OverflowPolicy.BLOCK);
+  }
+
+  /**
+   * Constructs a ring buffer appender with the given capacity, wait strategy and overflow policy. The overflow
+   * level used by {@link OverflowPolicy#DROP_BELOW_LEVEL} defaults to {@link Level#WARN}, and the sample rate
+   * used by {@link OverflowPolicy#SAMPLE} defaults to 10.
+   *
+   * @param internalAppender the underlying appender that records are ultimately forwarded to
+   * @param capacity         number of slots in the ring, rounded up to the next power of two
+   * @param waitStrategy     how the drain thread and blocked producers idle
+   * @param overflowPolicy   what happens to records published while the ring is full
+   */
+  public RingBufferAppender (Appender internalAppender, int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+
+    this(internalAppender, capacity, waitStrategy, overflowPolicy, Level.WARN, 10);
+  }
+
+  /**
+   * Constructs a ring buffer appender and immediately starts its daemon drain thread.
+   *
+   * @param internalAppender the underlying appender that records are ultimately forwarded to
+   * @param capacity         number of slots in the ring, rounded up to the next power of two (minimum 2)
+   * @param waitStrategy     how the drain thread and blocked producers idle
+   * @param overflowPolicy   what happens to records published while the ring is full
+   * @param overflowLevel    for {@link OverflowPolicy#DROP_BELOW_LEVEL}, the least severe level that is never dropped
+   * @param sampleRate       for {@link OverflowPolicy#SAMPLE}, keep one in this many overflowing records (minimum 1)
+   */
+  public RingBufferAppender (Appender internalAppender, int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy, Level overflowLevel, int sampleRate) {
+
+    super(internalAppender);
+
+    int[] initialRounds;
+
+    this.waitStrategy = waitStrategy;
+    this.overflowPolicy = overflowPolicy;
+    this.overflowLevel = overflowLevel;
+    this.sampleRate = Math.max(1, sampleRate);
+
+    this.capacity = (capacity <= 2) ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    mask = this.capacity - 1;
+    indexShift = Integer.numberOfTrailingZeros(this.capacity);
+
+    initialRounds = new int[this.capacity];
+    Arrays.fill(initialRounds, -1);
+
+    ring = new AtomicReferenceArray<>(this.capacity);
+    publishedRounds = new AtomicIntegerArray(initialRounds);
+
+    drainThread = new Thread(new DrainWorker());
+    drainThread.setName("scribe-ring-buffer-drain");
+    drainThread.setDaemon(true);
+    drainThread.start();
+  }
+
+  /**
+   * Returns the number of slots in the ring, after rounding to a power of two.
+   *
+   * @return the ring capacity
+   */
+  public int getCapacity () {
+
+    return capacity;
+  }
+
+  /**
+   * Returns the number of records discarded by the {@link OverflowPolicy} since this appender was created.
+   *
+   * @return the count of dropped records
+   */
+  public long getDroppedCount () {
+
+    return droppedCount.get();
+  }
+
+  /**
+   * Claims a slot in the ring and publishes the given record into it. If the ring is full the configured
+   * {@link OverflowPolicy} decides whether the caller waits or the record is dropped. If this appender has
+   * already been closed, a {@link LoggerException} is created and routed to the configured error handler rather
+   * than thrown to the caller.
+   *
+   * @param record the log record to enqueue for asynchronous publication
+   */
+  @Override
+  public void publish (Record<?> record) {
+
+    try {
+      if (finished.get()) {
+        throw new LoggerException("%s has been previously closed", this.getClass().getSimpleName());
+      } else {
+
+        long sequence;
+
+        if ((sequence = claim(record)) >= 0) {
+
+          int index = (int)(sequence & mask);
+
+          ring.lazySet(index, record);
+          publishedRounds.set(index, (int)(sequence >>> indexShift));
+
+          if (parked) {
+            LockSupport.unpark(drainThread);
+          }
+        }
+      }
+    } catch (Exception exception) {
+      handleError(record, exception);
+    }
+  }
+
+  /**
+   * Stops accepting records, seals the claim sequence so that no slot can be claimed afterward, waits for the
+   * drain thread to deliver every record claimed before the seal, and then closes the wrapped appender.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting for the drain thread
+   * @throws LoggerException      if the wrapped appender throws during its own {@code close()}
+   */
+  @Override
+  public void close ()
+    throws InterruptedException, LoggerException {
+
+    long current;
+
+    finished.set(true);
+    do {
+      current = claimSequence.get();
+    } while ((current < SEAL_THRESHOLD) && (!claimSequence.compareAndSet(current, current + SEAL)));
+
+    LockSupport.unpark(drainThread);
+    exitLatch.await();
+
+    super.close();
+  }
+
+  /**
+   * Claims the next sequence, applying the overflow policy while the ring is full.
+   *
+   * @param record the record being published
+   * @return the claimed sequence, or -1 if the record was dropped
+   * @throws LoggerException if the appender is closed before a slot is claimed, including while the caller waits for space
+   */
+  private long claim (Record<?> record)
+    throws LoggerException {
+
+    boolean admitted = false;
+
+    while (true) {
+
+      long current = claimSequence.get();
+      long next = current + 1;
+
+      if (current >= SEAL_THRESHOLD) {
+        throw new LoggerException("%s has been closed", this.getClass().getSimpleName());
+      } else if (next - capacity > consumedSequence.get()) {
+        if (!admitted) {
+          if (!admitOverflow(record)) {
+            droppedCount.incrementAndGet();
+
+            return -1;
+          }
+          admitted = true;
+        }
+
+        if (finished.get()) {
+          throw new LoggerException("%s has been closed while waiting for buffer space", this.getClass().getSimpleName());
+        }
+
+        waitStrategy.idle();
+      } else if (claimSequence.compareAndSet(current, next)) {
+
+        return next;
+      }
+    }
+  }
+
+  /**
+   * Decides whether a record published into a full ring should wait for space.
+   *
+   * @param record the overflowing record
+   * @return {@code true} if the record should wait, {@code false} if it should be dropped
+   */
+  private boolean admitOverflow (Record<?> record) {
+
+    switch (overflowPolicy) {
+      case BLOCK:
+        return true;
+      case DROP_BELOW_LEVEL:
+        return (record.getLevel() == null) || record.getLevel().atLeast(overflowLevel);
+      case SAMPLE:
+        return (overflowCount.getAndIncrement() % sampleRate) == 0;
+      default:
+        throw new UnknownSwitchCaseException(overflowPolicy.name());
+    }
+  }
+
+  /**
+   * Returns the highest claimed sequence, stripped of the seal added by {@link #close()}.
+   *
+   * @return the highest claimed sequence
+   */
+  private long claimed () {
+
+    long current;
+
+    return ((current = claimSequence.get()) >= SEAL_THRESHOLD) ? current - SEAL : current;
+  }
+
+  /**
+   * Returns the highest sequence, starting at {@code from}, up to which every slot has been published.
+   *
+   * @param from    the first sequence to check
+   * @param claimed the highest claimed sequence
+   * @return the highest contiguous published sequence, or {@code from - 1} if {@code from} is not yet published
+   */
+  private long highestPublished (long from, long claimed) {
+
+    for (long sequence = from; sequence <= claimed; sequence++) {
+      if (publishedRounds.get((int)(sequence & mask)) != (int)(sequence >>> indexShift)) {
+
+        return sequence - 1;
+      }
+    }
+
+    return claimed;
+  }
+
+  private class DrainWorker implements Runnable {
+
+    /**
+     * Runs the drain loop, forwarding each contiguous run of published records to the wrapped appender, one
+     * record at a time, and then releasing their slots together. Any exception during forwarding is routed to
+     * the configured error handler. Once the claim sequence has been sealed by {@link #close()}, no further slot
+     * can be claimed, so the loop exits after every slot up to the seal has been delivered, after which the exit
+     * latch is counted down to unblock {@link #close()}.
+     */
+    @Override
+    public void run () {
+
+      try {
+
+        long next = consumedSequence.get() + 1;
+
+        while (true) {
+
+          long available;
+
+          if ((available = highestPublished(next, claimed())) >= next) {
+            for (long sequence = next; sequence <= available; sequence++) {
+
+              int index = (int)(sequence & mask);
+              Record<?> record = ring.get(index);
+
+              ring.lazySet(index, null);
+              try {
+                publishToWrappedAppender(record);
+              } catch (Exception exception) {
+                handleError(record, exception);
+              }
+            }
+
+            consumedSequence.set(available);
+            next = available + 1;
+          } else if ((claimSequence.get() >= SEAL_THRESHOLD) && (next > claimed())) {
+            break;
+          } else if (WaitStrategy.PARK.equals(waitStrategy)) {
+            parked = true;
+            if ((highestPublished(next, claimed()) < next) && (!finished.get())) {
+              LockSupport.parkNanos(this, DRAIN_PARK_NANOS);
+            }
+            parked = false;
+          } else {
+            waitStrategy.idle();
+          }
+        }
+      } finally {
+        exitLatch.countDown();
+      }
+    }
+  }
+}
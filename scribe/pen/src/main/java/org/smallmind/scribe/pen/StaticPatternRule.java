@@ -82,4 +82,17 @@ public class StaticPatternRule implements PatternRule {
 
     return staticField;
   }
+
+  /**
+   * Appends the fixed literal string this rule was constructed with.
+   *
+   * @param formatBuilder the builder receiving the rendered output
+   * @param record        the log record being formatted (unused)
+   * @param timestamp     the timestamp provider (unused)
+   */
+  @Override
+  public void render (StringBuilder formatBuilder, Record<?> record, Timestamp timestamp) {
+
+    formatBuilder.append(staticField);
+  }
 }
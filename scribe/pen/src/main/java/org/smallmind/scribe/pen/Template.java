@@ -148,14 +148,32 @@ public abstract class Template {
    */
   public abstract int matchLogger (String loggerName);
 
+  /**
+   * Returns the leading dot-notated name segments that every logger matched by this template must start
+   * with, if the template can declare them. {@link LoggerManager} indexes templates by this prefix, so a
+   * template is only asked to {@link #matchLogger(String) match} loggers under it. The value is read once,
+   * when the template is registered.
+   *
+   * @return the required name prefix, or {@code null} (the default) if the template may match any name
+   */
+  public String getMatchPrefix () {
+
+    return null;
+  }
+
   /**
    * Registers this template with {@link LoggerManager}, immediately applying it to all currently
    * known matching loggers and enabling automatic propagation of future configuration changes.
+   * The manager is called outside this template's monitor, because applying templates to loggers
+   * acquires the manager before the template.
    */
-  public synchronized void register () {
+  public void register () {
+
+    synchronized (this) {
+      registered = true;
+    }
 
     LoggerManager.addTemplate(this);
-    registered = true;
   }
 
   /**
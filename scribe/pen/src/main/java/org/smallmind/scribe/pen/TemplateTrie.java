@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Immutable index of the registered {@link Template}s, keyed on the dot-notated name segments that each template
+ * declares through {@link Template#getMatchPrefix()}. Resolving a logger walks the trie along the segments of the
+ * logger's name (split on {@code '.'} and {@code '$'}) and only consults the templates found on that path, so
+ * templates for unrelated packages are never asked to match. Changes produce a new trie, leaving the previous one
+ * intact for concurrent readers.
+ */
+class TemplateTrie {
+
+  private final TemplateEntry[] entries;
+  private final Node root;
+  private final long nextSequence;
+
+  /**
+   * Constructs an empty trie.
+   */
+  TemplateTrie () {
+
+    this(new TemplateEntry[0], 0);
+  }
+
+  /**
+   * Constructs a trie over the given entries.
+   *
+   * @param entries      the registered templates in registration order
+   * @param nextSequence the sequence number to assign to the next registered template
+   */
+  private TemplateTrie (TemplateEntry[] entries, long nextSequence) {
+
+    this.entries = entries;
+    this.nextSequence = nextSequence;
+
+    root = new Node();
+    for (TemplateEntry entry : entries) {
+
+      Node node = root;
+
+      for (String segment : entry.getPrefixSegments()) {
+        node = node.getOrCreateChild(segment);
+      }
+
+      node.addEntry(entry);
+    }
+  }
+
+  /**
+   * Splits a dot-notated name into its segments, treating {@code '$'} as a separator like {@code '.'}, in the same
+   * way that {@link org.smallmind.nutsnbolts.util.DotNotation} patterns match names.
+   *
+   * @param name the name to split
+   * @return the non-empty segments of the name
+   */
+  private static String[] split (String name) {
+
+    return Arrays.stream(name.split("[.$]")).filter((segment) -> !segment.isEmpty()).toArray(String[]::new);
+  }
+
+  /**
+   * Returns whether the template is part of this trie.
+   *
+   * @param template the template to look for
+   * @return {@code true} if the template has been added
+   */
+  boolean contains (Template template) {
+
+    return getEntry(template) != null;
+  }
+
+  /**
+   * Returns the entry recorded for the template.
+   *
+   * @param template the template to look for
+   * @return the template's entry, or {@code null} if the template is not part of this trie
+   */
+  TemplateEntry getEntry (Template template) {
+
+    for (TemplateEntry entry : entries) {
+      if (entry.getTemplate().equals(template)) {
+        return entry;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns a new trie that also indexes the given template, which ranks after every template already present
+   * when match priorities tie.
+   *
+   * @param template the template to add
+   * @return the new trie
+   */
+  TemplateTrie add (Template template) {
+
+    TemplateEntry[] expandedEntries = Arrays.copyOf(entries, entries.length + 1);
+    String matchPrefix = template.getMatchPrefix();
+
+    expandedEntries[entries.length] = new TemplateEntry(template, (matchPrefix == null) ? new String[0] : split(matchPrefix), nextSequence);
+
+    return new TemplateTrie(expandedEntries, nextSequence + 1);
+  }
+
+  /**
+   * Returns a new trie without the given template.
+   *
+   * @param template the template to remove
+   * @return the new trie, or this trie if the template was not present
+   */
+  TemplateTrie remove (Template template) {
+
+    TemplateEntry entry;
+
+    if ((entry = getEntry(template)) == null) {
+
+      return this;
+    }
+
+    return new TemplateTrie(Arrays.stream(entries).filter((candidate) -> candidate != entry).toArray(TemplateEntry[]::new), nextSequence);
+  }
+
+  /**
+   * Finds the template with the highest match priority for the logger name, consulting only the templates whose
+   * prefix lies on the name's path through the trie. Ties go to the earliest registered template.
+   *
+   * @param loggerName the name of the logger to resolve
+   * @return the winning match, or {@code null} if no template matches
+   */
+  TemplateMatch resolve (String loggerName) {
+
+    TemplateMatch bestMatch = null;
+    Node node = root;
+    int index = 0;
+
+    while (true) {
+      for (TemplateEntry entry : node.getEntries()) {
+
+        int priority;
+
+        if (((priority = entry.getTemplate().matchLogger(loggerName)) > Template.NO_MATCH) && ((bestMatch == null) || (priority > bestMatch.getPriority()) || ((priority == bestMatch.getPriority()) && (entry.getSequence() < bestMatch.getSequence())))) {
+          bestMatch = new TemplateMatch(entry.getTemplate(), priority, entry.getSequence());
+        }
+      }
+
+      while ((index < loggerName.length()) && isSeparator(loggerName.charAt(index))) {
+        index++;
+      }
+
+      if (index == loggerName.length()) {
+        break;
+      } else {
+
+        int end = index;
+
+        while ((end < loggerName.length()) && (!isSeparator(loggerName.charAt(end)))) {
+          end++;
+        }
+
+        if ((node = node.getChild(loggerName.substring(index, end))) == null) {
+          break;
+        }
+
+        index = end;
+      }
+    }
+
+    return bestMatch;
+  }
+
+  /**
+   * Returns whether the character separates name segments.
+   *
+   * @param singleChar the character to test
+   * @return {@code true} for {@code '.'} and {@code '$'}
+   */
+  private boolean isSeparator (char singleChar) {
+
+    return (singleChar == '.') || (singleChar == '$');
+  }
+
+  /**
+   * A registered template together with its parsed prefix and registration sequence.
+   */
+  static class TemplateEntry {
+
+    private final Template template;
+    private final String[] prefixSegments;
+    private final long sequence;
+
+    /**
+     * Constructs an entry.
+     *
+     * @param template       the registered template
+     * @param prefixSegments the leading name segments every matching logger must have
+     * @param sequence       the registration sequence, used to break priority ties
+     */
+    private TemplateEntry (Template template, String[] prefixSegments, long sequence) {
+
+      this.template = template;
+      this.prefixSegments = prefixSegments;
+      this.sequence = sequence;
+    }
+
+    /**
+     * Returns the registered template.
+     *
+     * @return the template
+     */
+    Template getTemplate () {
+
+      return template;
+    }
+
+    /**
+     * Returns the leading name segments every matching logger must have.
+     *
+     * @return the prefix segments, empty if the template may match any name
+     */
+    String[] getPrefixSegments () {
+
+      return prefixSegments;
+    }
+
+    /**
+     * Returns the registration sequence of the template.
+     *
+     * @return the sequence number
+     */
+    long getSequence () {
+
+      return sequence;
+    }
+
+    /**
+     * Scores the logger name against the template, without consulting the template when the name lacks the
+     * template's prefix.
+     *
+     * @param loggerName the name of the logger
+     * @return the template's match priority, or {@link Template#NO_MATCH}
+     */
+    int match (String loggerName) {
+
+      int index = 0;
+
+      for (String segment : prefixSegments) {
+        while ((index < loggerName.length()) && ((loggerName.charAt(index) == '.') || (loggerName.charAt(index) == '$'))) {
+          index++;
+        }
+
+        if ((!loggerName.startsWith(segment, index)) || ((index + segment.length() < loggerName.length()) && (loggerName.charAt(index + segment.length()) != '.') && (loggerName.charAt(index + segment.length()) != '$'))) {
+
+          return Template.NO_MATCH;
+        }
+
+        index += segment.length();
+      }
+
+      return template.matchLogger(loggerName);
+    }
+  }
+
+  /**
+   * The outcome of resolving a logger: the winning template, its priority and its registration sequence.
+   */
+  static class TemplateMatch {
+
+    private final Template template;
+    private final long sequence;
+    private final int priority;
+
+    /**
+     * Constructs a match.
+     *
+     * @param template the matching template
+     * @param priority the template's match priority for the logger
+     * @param sequence the template's registration sequence
+     */
+    TemplateMatch (Template template, int priority, long sequence) {
+
+      this.template = template;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    /**
+     * Returns the matching template.
+     *
+     * @return the template
+     */
+    Template getTemplate () {
+
+      return template;
+    }
+
+    /**
+     * Returns the template's match priority for the logger.
+     *
+     * @return the match priority
+     */
+    int getPriority () {
+
+      return priority;
+    }
+
+    /**
+     * Returns the template's registration sequence.
+     *
+     * @return the sequence number
+     */
+    long getSequence () {
+
+      return sequence;
+    }
+  }
+
+  /**
+   * A trie node, holding the templates whose prefix ends at this node and the children for longer prefixes.
+   */
+  private static class Node {
+
+    private final HashMap<String, Node> childMap = new HashMap<>();
+    private TemplateEntry[] entries = new TemplateEntry[0];
+
+    /**
+     * Returns the child for the segment.
+     *
+     * @param segment the next name segment
+     * @return the child node, or {@code null} if no template prefix continues with the segment
+     */
+    private Node getChild (String segment) {
+
+      return childMap.get(segment);
+    }
+
+    /**
+     * Returns the child for the segment, creating it if necessary; only used while the trie is being built.
+     *
+     * @param segment the next prefix segment
+     * @return the child node
+     */
+    private Node getOrCreateChild (String segment) {
+
+      return childMap.computeIfAbsent(segment, (key) -> new Node());
+    }
+
+    /**
+     * Returns the templates whose prefix ends at this node.
+     *
+     * @return the node's entries
+     */
+    private TemplateEntry[] getEntries () {
+
+      return entries;
+    }
+
+    /**
+     * Adds a template whose prefix ends at this node; only used while the trie is being built.
+     *
+     * @param entry the entry to add
+     */
+    private void addEntry (TemplateEntry entry) {
+
+      entries = Arrays.copyOf(entries, entries.length + 1);
+      entries[entries.length - 1] = entry;
+    }
+  }
+}
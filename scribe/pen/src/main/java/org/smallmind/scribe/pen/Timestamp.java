@@ -32,7 +32,9 @@
  */
 package org.smallmind.scribe.pen;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Strategy that converts a {@link LocalDateTime} value into a formatted timestamp string for inclusion in log
@@ -47,4 +49,17 @@ public interface Timestamp {
    * @return the formatted timestamp string
    */
   String getTimestamp (LocalDateTime date);
+
+  /**
+   * Formats the supplied epoch milliseconds into a timestamp string. The default implementation converts to a
+   * {@link LocalDateTime} in the system default time zone and delegates to {@link #getTimestamp(LocalDateTime)};
+   * implementations may override it to avoid that conversion, for example by caching.
+   *
+   * @param millis the epoch milliseconds to format
+   * @return the formatted timestamp string
+   */
+  default String getTimestamp (long millis) {
+
+    return getTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+  }
 }
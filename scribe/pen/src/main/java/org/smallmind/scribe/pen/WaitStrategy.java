@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idle behavior used by a {@link RingBufferAppender} when its drain thread finds no published records, and by
+ * blocked producers when the ring is full. The strategies trade CPU consumption against hand-off latency.
+ */
+public enum WaitStrategy {
+
+  /**
+   * Busy-spins with {@link Thread#onSpinWait()}; lowest latency, burns a core while idle.
+   */
+  SPIN {
+    @Override
+    public void idle () {
+
+      Thread.onSpinWait();
+    }
+  },
+  /**
+   * Yields the processor with {@link Thread#yield()}; low latency with less aggressive CPU use than spinning.
+   */
+  YIELD {
+    @Override
+    public void idle () {
+
+      Thread.yield();
+    }
+  },
+  /**
+   * Parks the thread for a short interval; idle threads consume almost no CPU at the cost of wake-up latency.
+   */
+  PARK {
+    @Override
+    public void idle () {
+
+      LockSupport.parkNanos(this, 50_000L);
+    }
+  };
+
+  /**
+   * Waits once, in the manner of this strategy, before the caller re-checks its condition.
+   */
+  public abstract void idle ();
+}
@@ -33,18 +33,24 @@
 package org.smallmind.scribe.pen.fluentbit;
 
 import java.io.IOException;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.msgpack.jackson.dataformat.MessagePackFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 import org.smallmind.nutsnbolts.http.Base64Codec;
 import org.smallmind.scribe.pen.AbstractAppender;
 import org.smallmind.scribe.pen.DateFormatTimestamp;
@@ -56,18 +62,21 @@ import org.smallmind.scribe.pen.RecordElement;
 import org.smallmind.scribe.pen.Timestamp;
 import org.springframework.beans.factory.InitializingBean;
 
-// TODO: The underlying org.msgpack.jackson.dataformat will be dependent on jackson 2.x for the foreseeable future
-
 /**
- * Scribe appender that collects log records from a {@link SynchronousQueue}, batches them up to a configurable
- * size or grace period, serializes each batch to MessagePack via Jackson, and sends it to a Fluent Bit TCP
- * input; worker threads are started by {@link #afterPropertiesSet()} and run until {@link #close()} is called.
+ * Scribe appender that forwards log records to a Fluent Bit {@code forward} input. Records are handed over through
+ * a bounded buffer without blocking the logging thread (records arriving while the buffer is full are dropped and
+ * counted, see {@link #getDroppedCount()}). Worker threads drain the buffer, stream each record as MessagePack into
+ * a reusable buffer as it arrives, and send batches as Forward protocol {@code PackedForward} chunks, optionally
+ * gzip compressed as {@code CompressedPackedForward}, over a non-blocking {@link SocketChannel}. When
+ * acknowledgements are required, each chunk carries a chunk id and up to {@link #setMaxInFlight(int)} chunks may
+ * await their ack at once; unacknowledged chunks are resent over a new connection after the timeout. Worker
+ * threads are started by {@link #afterPropertiesSet()} and run until {@link #close()} is called.
  */
 public class FluentBitAppender extends AbstractAppender implements InitializingBean {
 
   private final AtomicBoolean closed = new AtomicBoolean(false);
-  private final ObjectMapper objectMapper = new ObjectMapper(new MessagePackFactory());
-  private final SynchronousQueue<org.smallmind.scribe.pen.Record<?>> recordQueue = new SynchronousQueue<>();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private ArrayBlockingQueue<Record<?>> recordQueue;
   private CountDownLatch finishedLatch;
   private MessagePackFormatter formatter;
   private Map<String, String> additionalEventData;
@@ -75,11 +84,16 @@ public class FluentBitAppender extends AbstractAppender implements InitializingB
   private RecordElement[] recordElements = RecordElement.values();
   private String newLine = System.lineSeparator();
   private String host;
+  private boolean gzip = false;
+  private boolean requireAck = false;
   private long batchGracePeriodMilliseconds = 3000;
+  private long timeoutMilliseconds = 5000;
   private int port;
   private int retryAttempts = 3;
   private int concurrencyLimit = 1;
   private int batchSize = 1;
+  private int bufferSize = 8192;
+  private int maxInFlight = 4;
 
   /**
    * Constructs a {@code FluentBitAppender} with the given name and no error handler; appender errors will be
@@ -180,8 +194,8 @@ public class FluentBitAppender extends AbstractAppender implements InitializingB
   }
 
   /**
-   * Sets the number of worker threads started by {@link #afterPropertiesSet()} to drain the record queue
-   * and send batches; the effective minimum is 1.
+   * Sets the number of worker threads started by {@link #afterPropertiesSet()} to drain the record buffer
+   * and send batches, each over its own connection; the effective minimum is 1.
    *
    * @param concurrencyLimit the number of concurrent sender threads
    */
@@ -212,44 +226,115 @@ public class FluentBitAppender extends AbstractAppender implements InitializingB
     this.batchGracePeriodMilliseconds = Math.max(1000L, batchGracePeriodMilliseconds);
   }
 
+  /**
+   * Sets the number of records the hand-off buffer holds while waiting for a worker; records logged while the
+   * buffer is full are dropped rather than blocking the logging thread. Must be set before
+   * {@link #afterPropertiesSet()}; the effective minimum is 1.
+   *
+   * @param bufferSize the capacity of the record buffer
+   */
+  public void setBufferSize (int bufferSize) {
+
+    this.bufferSize = Math.max(1, bufferSize);
+  }
+
+  /**
+   * Sets whether batches are sent gzip compressed, as Forward protocol {@code CompressedPackedForward} chunks.
+   *
+   * @param gzip {@code true} to compress each batch
+   */
+  public void setGzip (boolean gzip) {
+
+    this.gzip = gzip;
+  }
+
+  /**
+   * Sets whether each chunk carries a chunk id and must be acknowledged by Fluent Bit, in which case chunks
+   * without an ack within the timeout are resent over a new connection.
+   *
+   * @param requireAck {@code true} to request and track acknowledgements
+   */
+  public void setRequireAck (boolean requireAck) {
+
+    this.requireAck = requireAck;
+  }
+
+  /**
+   * Sets the number of chunks a worker may have sent but not yet seen acknowledged before it waits for acks;
+   * only relevant when acknowledgements are required. The effective minimum is 1.
+   *
+   * @param maxInFlight the maximum number of unacknowledged chunks per worker
+   */
+  public void setMaxInFlight (int maxInFlight) {
+
+    this.maxInFlight = Math.max(1, maxInFlight);
+  }
+
+  /**
+   * Sets the number of milliseconds allowed for a connection to be established, for a stalled write to make
+   * progress, and for a chunk to be acknowledged; the effective minimum is 100 ms.
+   *
+   * @param timeoutMilliseconds the network timeout in milliseconds
+   */
+  public void setTimeoutMilliseconds (long timeoutMilliseconds) {
+
+    this.timeoutMilliseconds = Math.max(100L, timeoutMilliseconds);
+  }
+
+  /**
+   * Returns the number of records dropped because the hand-off buffer was full.
+   *
+   * @return the dropped record count
+   */
+  public long getDroppedCount () {
+
+    return droppedCount.get();
+  }
+
   /**
    * Initializes the {@link MessagePackFormatter} from the configured timestamp, record elements, and newline
-   * string, creates the finish latch, and starts the configured number of {@code FluentBitWorker} threads;
-   * must be called before any records are submitted.
+   * string, creates the record buffer and finish latch, and starts the configured number of
+   * {@code FluentBitWorker} threads; must be called before any records are submitted.
    */
   @Override
   public void afterPropertiesSet () {
 
     formatter = new MessagePackFormatter(timestamp, recordElements, newLine);
+    recordQueue = new ArrayBlockingQueue<>(bufferSize);
     finishedLatch = new CountDownLatch(concurrencyLimit);
 
     for (int index = 0; index < concurrencyLimit; index++) {
-      new Thread(new FluentBitWorker(finishedLatch)).start();
+
+      Thread workerThread = new Thread(new FluentBitWorker(finishedLatch));
+
+      workerThread.setName("scribe-fluentbit-" + index);
+      workerThread.setDaemon(true);
+      workerThread.start();
     }
   }
 
   /**
-   * Places the record onto the internal {@link SynchronousQueue} for pickup by a worker thread; blocks until
-   * a worker accepts the record.
+   * Offers the record to the internal buffer for pickup by a worker thread without waiting; if the buffer is
+   * full the record is dropped and counted.
    *
    * @param record the log record to deliver to Fluent Bit
-   * @throws LoggerException      if this appender has already been closed
-   * @throws InterruptedException if the calling thread is interrupted while waiting for a worker to accept the record
+   * @throws LoggerException if this appender has already been closed
    */
   @Override
-  public synchronized void handleOutput (org.smallmind.scribe.pen.Record<?> record)
-    throws LoggerException, InterruptedException {
+  public void handleOutput (Record<?> record)
+    throws LoggerException {
 
     if (closed.get()) {
       throw new LoggerException("%s has been previously closed", this.getClass().getSimpleName());
-    } else {
-      recordQueue.put(record);
+    } else if (!recordQueue.offer(record)) {
+      droppedCount.incrementAndGet();
     }
   }
 
   /**
    * Marks this appender as closed so that no further records are accepted, then waits for all worker threads
-   * to finish draining the queue and transmitting any pending batches; idempotent on repeated calls.
+   * to finish draining the buffer, transmitting any pending batches and collecting outstanding acks; idempotent
+   * on repeated calls.
    *
    * @throws LoggerException if the calling thread is interrupted while waiting for workers to finish
    */
@@ -257,7 +342,7 @@ public class FluentBitAppender extends AbstractAppender implements InitializingB
   public synchronized void close ()
     throws LoggerException {
 
-    if (closed.compareAndSet(false, true)) {
+    if (closed.compareAndSet(false, true) && (finishedLatch != null)) {
       try {
         finishedLatch.await();
       } catch (InterruptedException interruptedException) {
@@ -269,8 +354,15 @@ public class FluentBitAppender extends AbstractAppender implements InitializingB
   private class FluentBitWorker implements Runnable {
 
     private final CountDownLatch finishedLatch;
-    private Socket socket;
-    private ArrayNode entriesNode = JsonNodeFactory.instance.arrayNode(batchSize);
+    private final MessagePackWriter entriesWriter = new MessagePackWriter(16384);
+    private final MessagePackWriter chunkWriter = new MessagePackWriter(16384);
+    private final LinkedHashMap<String, InFlightChunk> inFlightMap = new LinkedHashMap<>();
+    private final ByteBuffer ackBuffer = ByteBuffer.allocate(1024);
+    private SocketChannel socketChannel;
+    private SelectionKey selectionKey;
+    private Selector selector;
+    private long batchStartMillis;
+    private int entryCount = 0;
 
     /**
      * Constructs a worker that will count down the given latch when it finishes, allowing
@@ -284,120 +376,512 @@ public class FluentBitAppender extends AbstractAppender implements InitializingB
     }
 
     /**
-     * Polls the record queue in a loop, builds batches up to the configured size or grace period, sends each
-     * completed batch to Fluent Bit, and exits cleanly when the appender is closed, flushing any remaining
-     * records and decrementing the finish latch.
+     * Drains the record buffer in a loop, packing each record into the pending batch as it arrives, sends the
+     * batch once it is full or its grace period has elapsed, and processes acknowledgements between batches.
+     * Once the appender is closed and the buffer is empty, any remaining batch is sent, outstanding acks are
+     * awaited for up to the timeout, and the finish latch is decremented.
      */
     @Override
     public void run () {
 
       try {
-
-        long lastSentMillis = System.currentTimeMillis();
-
-        while (!closed.get()) {
+        while (!(closed.get() && recordQueue.isEmpty())) {
           try {
 
             Record<?> record;
+            long waitMilliseconds = (entryCount == 0) ? 1000 : Math.max(1, Math.min(1000, batchStartMillis + batchGracePeriodMilliseconds - System.currentTimeMillis()));
 
-            if ((record = recordQueue.poll(1, TimeUnit.SECONDS)) != null) {
-
-              ArrayNode entryNode = JsonNodeFactory.instance.arrayNode();
-              ObjectNode messageNode = JsonNodeFactory.instance.objectNode();
-              ObjectNode recordNode = formatter.format(record);
-
-              if ((additionalEventData != null) && (!additionalEventData.isEmpty())) {
-                for (Map.Entry<String, String> additionalDataEntry : additionalEventData.entrySet()) {
-                  recordNode.put(additionalDataEntry.getKey(), additionalDataEntry.getValue());
-                }
-              }
-
-              messageNode.set("message", recordNode);
-              entryNode.add(record.getMillis() / 1000);
-              entryNode.add(messageNode);
+            if ((record = recordQueue.poll(waitMilliseconds, TimeUnit.MILLISECONDS)) != null) {
+              do {
+                pack(record);
+              } while ((entryCount < batchSize) && ((record = recordQueue.poll()) != null));
+            }
 
-              if ((entriesNode.add(entryNode).size() >= batchSize) || ((System.currentTimeMillis()) - lastSentMillis >= batchGracePeriodMilliseconds)) {
-                lastSentMillis = System.currentTimeMillis();
-                send();
-              }
-            } else if ((!entriesNode.isEmpty()) && ((System.currentTimeMillis() - lastSentMillis) >= batchGracePeriodMilliseconds)) {
-              lastSentMillis = System.currentTimeMillis();
+            if ((entryCount >= batchSize) || ((entryCount > 0) && (closed.get() || ((System.currentTimeMillis() - batchStartMillis) >= batchGracePeriodMilliseconds)))) {
               send();
             }
+
+            if (requireAck) {
+              processAcks(0);
+            }
           } catch (InterruptedException interruptedException) {
             handleError(Logger.unknown(), interruptedException);
           }
         }
 
-        try {
-          if (socket != null) {
-            socket.close();
-          }
-        } catch (IOException ioException) {
-          handleError(Logger.unknown(), ioException);
+        if (entryCount > 0) {
+          send();
         }
+
+        awaitOutstandingAcks();
       } catch (Throwable throwable) {
         // Just in case, we should know something bad has happened
         handleError(Logger.unknown(), throwable);
       } finally {
+        disconnect();
+
+        try {
+          if (selector != null) {
+            selector.close();
+          }
+        } catch (IOException ioException) {
+          handleError(Logger.unknown(), ioException);
+        }
+
         finishedLatch.countDown();
       }
     }
 
     /**
-     * Sends the current batch to Fluent Bit, reconnecting as needed.
+     * Streams a record into the pending batch as a Forward protocol entry of {@code [EventTime, {"message": record}]}.
+     * A record that fails to serialize is backed out of the batch and reported to the error handler.
+     *
+     * @param record the record to pack
+     */
+    private void pack (Record<?> record) {
+
+      int mark = entriesWriter.size();
+
+      try {
+        entriesWriter.packArrayHeader(2);
+        entriesWriter.packEventTime(record.getMillis());
+        entriesWriter.packMapHeader(1);
+        entriesWriter.packString("message");
+        formatter.pack(record, additionalEventData, entriesWriter);
+
+        if (entryCount++ == 0) {
+          batchStartMillis = System.currentTimeMillis();
+        }
+      } catch (Exception exception) {
+        entriesWriter.rewind(mark);
+        handleError(record, exception);
+      }
+    }
+
+    /**
+     * Wraps the pending batch in a {@code PackedForward} (or, when gzip is enabled, {@code CompressedPackedForward})
+     * chunk and transmits it, first waiting for acks if the in-flight limit has been reached. The batch is
+     * cleared whether or not the transmission succeeds; failures are reported to the error handler.
      */
     private void send () {
 
       try {
-        ArrayNode eventNode = JsonNodeFactory.instance.arrayNode();
-        ObjectNode optionNode = JsonNodeFactory.instance.objectNode();
-        byte[] chunk = new byte[16];
-        int retry = 0;
 
-        ThreadLocalRandom.current().nextBytes(chunk);
-        optionNode.put("chunk", Base64Codec.encode(chunk));
-        optionNode.put("size", batchSize);
+        String chunkId = requireAck ? generateChunkId() : null;
 
-        eventNode.add(getName());
-        eventNode.add(entriesNode);
-        eventNode.add(optionNode);
+        chunkWriter.reset();
+        chunkWriter.packArrayHeader(3);
+        chunkWriter.packString(getName());
 
-        do {
-          try {
-            if (socket == null) {
-              connect();
-            } else if (socket.isClosed() || (!socket.isConnected())) {
-              socket.close();
-              connect();
-            }
+        if (gzip) {
 
-            socket.getOutputStream().write(objectMapper.writeValueAsBytes(eventNode));
-          } catch (IOException ioException) {
-            socket = null;
-            if (++retry > retryAttempts) {
-              throw new FluentBitConnectionException(ioException, "Failed to connect to host(%s:%d)", host, port);
-            }
+          int mark = chunkWriter.beginBinary();
+
+          try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(chunkWriter.asOutputStream(), 8192)) {
+            gzipOutputStream.write(entriesWriter.getBuffer(), 0, entriesWriter.size());
           }
-        } while (socket == null);
+
+          chunkWriter.endBinary(mark);
+        } else {
+          chunkWriter.packBinaryHeader(entriesWriter.size());
+          chunkWriter.write(entriesWriter.getBuffer(), 0, entriesWriter.size());
+        }
+
+        chunkWriter.packMapHeader(1 + ((chunkId != null) ? 1 : 0) + (gzip ? 1 : 0));
+        chunkWriter.packString("size");
+        chunkWriter.packLong(entryCount);
+        if (chunkId != null) {
+          chunkWriter.packString("chunk");
+          chunkWriter.packString(chunkId);
+        }
+        if (gzip) {
+          chunkWriter.packString("compressed");
+          chunkWriter.packString("gzip");
+        }
+
+        if (requireAck) {
+          while (inFlightMap.size() >= maxInFlight) {
+            processAcks(100);
+          }
+        }
+
+        transmit(chunkId);
       } catch (IOException ioException) {
         handleError(Logger.unknown(), ioException);
       } finally {
-        entriesNode = JsonNodeFactory.instance.arrayNode(batchSize);
+        entriesWriter.reset();
+        entryCount = 0;
+      }
+    }
+
+    /**
+     * Writes the chunk held by the chunk writer, reconnecting as needed, and registers it as in flight when it
+     * carries a chunk id.
+     *
+     * @param chunkId the chunk id awaiting acknowledgement, or {@code null} if no ack is expected
+     * @throws FluentBitConnectionException if the chunk cannot be written within the configured retry attempts
+     */
+    private void transmit (String chunkId)
+      throws FluentBitConnectionException {
+
+      int retry = 0;
+
+      while (true) {
+        try {
+          connectIfNecessary();
+          write(chunkWriter.asByteBuffer());
+          break;
+        } catch (IOException ioException) {
+          disconnect();
+          if (++retry >= retryAttempts) {
+            throw new FluentBitConnectionException(ioException, "Failed to connect to host(%s:%d)", host, port);
+          }
+        }
+      }
+
+      if (chunkId != null) {
+        inFlightMap.put(chunkId, new InFlightChunk(chunkWriter.toByteArray()));
       }
     }
 
     /**
-     * Opens a TCP connection to the configured Fluent Bit host.
+     * Waits up to the given time for acknowledgements and removes the acknowledged chunks from the in-flight
+     * set, then redelivers if the oldest outstanding chunk has waited longer than the timeout.
      *
-     * @throws IOException if the socket cannot be created
+     * @param blockMilliseconds the maximum time to wait for data, or {@code 0} to only consume what has arrived
      */
-    private void connect ()
+    private void processAcks (long blockMilliseconds) {
+
+      if (!inFlightMap.isEmpty()) {
+        if (socketChannel != null) {
+          try {
+            if (((blockMilliseconds > 0) ? selector.select(blockMilliseconds) : selector.selectNow()) > 0) {
+              selector.selectedKeys().clear();
+              readAcks();
+            }
+          } catch (IOException ioException) {
+            disconnect();
+          }
+        } else if (blockMilliseconds > 0) {
+          try {
+            Thread.sleep(blockMilliseconds);
+          } catch (InterruptedException interruptedException) {
+            handleError(Logger.unknown(), interruptedException);
+          }
+        }
+
+        if ((!inFlightMap.isEmpty()) && ((System.currentTimeMillis() - inFlightMap.values().iterator().next().getSentMillis()) >= timeoutMilliseconds)) {
+          redeliver();
+        }
+      }
+    }
+
+    /**
+     * Reads whatever acknowledgement bytes are available and retires every chunk whose complete ack
+     * ({@code {"ack": chunkId}}) has arrived, keeping any partial ack for the next read.
+     *
+     * @throws IOException if the connection has been closed or the response cannot be parsed
+     */
+    private void readAcks ()
       throws IOException {
 
-      socket = new Socket(host, port);
-      socket.setTcpNoDelay(true);
-      socket.setSoTimeout(1000);
+      if (socketChannel.read(ackBuffer) < 0) {
+        throw new IOException("Connection closed by host(" + host + ":" + port + ")");
+      }
+
+      ackBuffer.flip();
+      try {
+        while (ackBuffer.hasRemaining()) {
+
+          int start = ackBuffer.position();
+
+          try {
+            inFlightMap.remove(parseAck());
+          } catch (BufferUnderflowException bufferUnderflowException) {
+            ackBuffer.position(start);
+            break;
+          }
+        }
+      } finally {
+        ackBuffer.compact();
+      }
+
+      if (!ackBuffer.hasRemaining()) {
+        throw new IOException("Unparseable acknowledgement from host(" + host + ":" + port + ")");
+      }
+    }
+
+    /**
+     * Decodes one acknowledgement map from the ack buffer.
+     *
+     * @return the acknowledged chunk id
+     * @throws IOException              if the response is not a map of strings containing an {@code ack} entry
+     * @throws BufferUnderflowException if the buffer does not yet hold the complete map
+     */
+    private String parseAck ()
+      throws IOException {
+
+      String ack = null;
+      int header = ackBuffer.get() & 0xFF;
+      int size;
+
+      if ((header & 0xF0) == 0x80) {
+        size = header & 0x0F;
+      } else if (header == 0xDE) {
+        size = ackBuffer.getShort() & 0xFFFF;
+      } else {
+        throw new IOException("Unexpected acknowledgement format(" + header + ") from host(" + host + ":" + port + ")");
+      }
+
+      for (int index = 0; index < size; index++) {
+
+        String key = parseString();
+        String value = parseString();
+
+        if ("ack".equals(key)) {
+          ack = value;
+        }
+      }
+
+      if (ack == null) {
+        throw new IOException("Missing ack in response from host(" + host + ":" + port + ")");
+      }
+
+      return ack;
+    }
+
+    /**
+     * Decodes one MessagePack string from the ack buffer.
+     *
+     * @return the decoded string
+     * @throws IOException              if the next value is not a string
+     * @throws BufferUnderflowException if the buffer does not yet hold the complete string
+     */
+    private String parseString ()
+      throws IOException {
+
+      byte[] bytes;
+      int header = ackBuffer.get() & 0xFF;
+      int length;
+
+      if ((header & 0xE0) == 0xA0) {
+        length = header & 0x1F;
+      } else if (header == 0xD9) {
+        length = ackBuffer.get() & 0xFF;
+      } else if (header == 0xDA) {
+        length = ackBuffer.getShort() & 0xFFFF;
+      } else {
+        throw new IOException("Unexpected acknowledgement format(" + header + ") from host(" + host + ":" + port + ")");
+      }
+
+      if (ackBuffer.remaining() < length) {
+        throw new BufferUnderflowException();
+      }
+
+      ackBuffer.get(bytes = new byte[length]);
+
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Abandons the current connection and resends every unacknowledged chunk over a new one. Chunks that have
+     * already been sent the configured number of times are dropped and reported to the error handler instead;
+     * if reconnection fails the remaining chunks are tried again after another timeout.
+     */
+    private void redeliver () {
+
+      Iterator<Map.Entry<String, InFlightChunk>> inFlightIter = inFlightMap.entrySet().iterator();
+      long now = System.currentTimeMillis();
+
+      disconnect();
+
+      while (inFlightIter.hasNext()) {
+
+        Map.Entry<String, InFlightChunk> inFlightEntry = inFlightIter.next();
+
+        if (inFlightEntry.getValue().getAttempts() >= retryAttempts) {
+          inFlightIter.remove();
+          handleError(Logger.unknown(), new FluentBitConnectionException("No acknowledgement of chunk(%s) from host(%s:%d)", inFlightEntry.getKey(), host, port));
+        } else {
+          inFlightEntry.getValue().setSentMillis(now);
+        }
+      }
+
+      try {
+        connectIfNecessary();
+      } catch (IOException ioException) {
+        disconnect();
+      }
+    }
+
+    /**
+     * Waits up to the timeout for the acks of all chunks still in flight, reporting any that never arrive.
+     */
+    private void awaitOutstandingAcks () {
+
+      long deadline = System.currentTimeMillis() + timeoutMilliseconds;
+      long remaining;
+
+      while ((!inFlightMap.isEmpty()) && ((remaining = deadline - System.currentTimeMillis()) > 0)) {
+        processAcks(remaining);
+      }
+
+      if (!inFlightMap.isEmpty()) {
+        handleError(Logger.unknown(), new FluentBitConnectionException("%d chunks unacknowledged by host(%s:%d) at close", inFlightMap.size(), host, port));
+        inFlightMap.clear();
+      }
+    }
+
+    /**
+     * Opens a connection to the configured Fluent Bit host if none is open, switching it to non-blocking mode,
+     * and resends any chunks still awaiting acknowledgement.
+     *
+     * @throws IOException if the connection cannot be established or the resend fails
+     */
+    private void connectIfNecessary ()
+      throws IOException {
+
+      if (socketChannel == null) {
+        if (selector == null) {
+          selector = Selector.open();
+        }
+
+        socketChannel = SocketChannel.open();
+        socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        socketChannel.socket().connect(new InetSocketAddress(host, port), (int)timeoutMilliseconds);
+        socketChannel.configureBlocking(false);
+        selectionKey = socketChannel.register(selector, SelectionKey.OP_READ);
+        ackBuffer.clear();
+
+        for (InFlightChunk inFlightChunk : inFlightMap.values()) {
+          write(ByteBuffer.wrap(inFlightChunk.getFrame()));
+          inFlightChunk.incrementAttempts();
+        }
+      }
+    }
+
+    /**
+     * Writes the buffer fully to the non-blocking channel, waiting for the socket to become writable whenever
+     * the send buffer is full.
+     *
+     * @param byteBuffer the bytes to write
+     * @throws IOException if the write fails or makes no progress within the timeout
+     */
+    private void write (ByteBuffer byteBuffer)
+      throws IOException {
+
+      while (byteBuffer.hasRemaining()) {
+        if (socketChannel.write(byteBuffer) == 0) {
+          selectionKey.interestOps(SelectionKey.OP_WRITE);
+          try {
+            if (selector.select(timeoutMilliseconds) == 0) {
+              throw new IOException("Timed out writing to host(" + host + ":" + port + ")");
+            }
+            selector.selectedKeys().clear();
+          } finally {
+            selectionKey.interestOps(SelectionKey.OP_READ);
+          }
+        }
+      }
+    }
+
+    /**
+     * Closes the current connection, if any, ignoring errors.
+     */
+    private void disconnect () {
+
+      if (socketChannel != null) {
+        try {
+          socketChannel.close();
+        } catch (IOException ioException) {
+          // the connection is being discarded either way
+        } finally {
+          socketChannel = null;
+          selectionKey = null;
+        }
+      }
+    }
+
+    /**
+     * Generates a random chunk id for acknowledgement tracking.
+     *
+     * @return a Base64 encoded 128-bit random id
+     * @throws IOException if the id cannot be encoded
+     */
+    private String generateChunkId ()
+      throws IOException {
+
+      byte[] chunk = new byte[16];
+
+      ThreadLocalRandom.current().nextBytes(chunk);
+
+      return Base64Codec.encode(chunk);
+    }
+  }
+
+  private static class InFlightChunk {
+
+    private final byte[] frame;
+    private long sentMillis = System.currentTimeMillis();
+    private int attempts = 1;
+
+    /**
+     * Tracks a chunk that has been sent once and awaits its acknowledgement.
+     *
+     * @param frame the complete encoded chunk, retained for resending
+     */
+    private InFlightChunk (byte[] frame) {
+
+      this.frame = frame;
+    }
+
+    /**
+     * Returns the complete encoded chunk.
+     *
+     * @return the chunk bytes
+     */
+    private byte[] getFrame () {
+
+      return frame;
+    }
+
+    /**
+     * Returns the time the chunk was last sent, or last scheduled for resending.
+     *
+     * @return the epoch milliseconds of the last send
+     */
+    private long getSentMillis () {
+
+      return sentMillis;
+    }
+
+    /**
+     * Sets the time the chunk was last sent, or scheduled for resending.
+     *
+     * @param sentMillis the epoch milliseconds of the send
+     */
+    private void setSentMillis (long sentMillis) {
+
+      this.sentMillis = sentMillis;
+    }
+
+    /**
+     * Returns the number of times the chunk has been sent.
+     *
+     * @return the send count
+     */
+    private int getAttempts () {
+
+      return attempts;
+    }
+
+    /**
+     * Records one more send of the chunk.
+     */
+    private void incrementAttempts () {
+
+      attempts++;
+      sentMillis = System.currentTimeMillis();
     }
   }
 }
@@ -42,6 +42,17 @@ import org.smallmind.nutsnbolts.lang.FormattedIOException;
  */
 public class FluentBitConnectionException extends FormattedIOException {
 
+  /**
+   * Constructs a {@code FluentBitConnectionException} with a printf-style diagnostic message and no root cause.
+   *
+   * @param message a printf-style message template describing the failure context
+   * @param args    arguments substituted into the message template
+   */
+  public FluentBitConnectionException (String message, Object... args) {
+
+    super(message, args);
+  }
+
   /**
    * Constructs a {@code FluentBitConnectionException} with a root cause and a printf-style diagnostic message.
    *
@@ -32,9 +32,7 @@
  */
 package org.smallmind.scribe.pen.fluentbit;
 
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.Map;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.smallmind.nutsnbolts.lang.UnknownSwitchCaseException;
@@ -49,7 +47,9 @@ import org.smallmind.scribe.pen.Timestamp;
 /**
  * Converts a Scribe {@link Record} into a Jackson {@link com.fasterxml.jackson.databind.node.ObjectNode}
  * that can be serialized to MessagePack for delivery to Fluent Bit, rendering only the {@link RecordElement}
- * fields selected at construction time and using the supplied newline string in stack trace output.
+ * fields selected at construction time and using the supplied newline string in stack trace output. The same
+ * fields can also be streamed straight into a {@link MessagePackWriter} via
+ * {@link #pack(Record, Map, MessagePackWriter)}, without building a node tree.
  */
 public class MessagePackFormatter {
 
@@ -86,7 +86,7 @@ public class MessagePackFormatter {
     for (RecordElement recordElement : recordElements) {
       switch (recordElement) {
         case DATE:
-          messageNode.put("date", timestamp.getTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getMillis()), ZoneId.systemDefault())));
+          messageNode.put("date", timestamp.getTimestamp(record.getMillis()));
           break;
         case MILLISECONDS:
           messageNode.put("milliseconds", record.getMillis());
@@ -132,6 +132,188 @@ public class MessagePackFormatter {
     return messageNode;
   }
 
+  /**
+   * Streams the record's selected fields, followed by any additional event data, into the writer as a single
+   * MessagePack map with the same keys and nesting as {@link #format(Record)}.
+   *
+   * @param record              the log record to serialize
+   * @param additionalEventData static fields appended to the map, or {@code null}
+   * @param writer              the writer receiving the encoded map
+   */
+  public void pack (Record<?> record, Map<String, String> additionalEventData, MessagePackWriter writer) {
+
+    int mark = writer.beginMap();
+    int size = 0;
+
+    for (RecordElement recordElement : recordElements) {
+      switch (recordElement) {
+        case DATE:
+          writer.packString("date");
+          writer.packString(timestamp.getTimestamp(record.getMillis()));
+          size++;
+          break;
+        case MILLISECONDS:
+          writer.packString("milliseconds");
+          writer.packLong(record.getMillis());
+          size++;
+          break;
+        case LOGGER_NAME:
+          writer.packString("logger");
+          writer.packString(record.getLoggerName());
+          size++;
+          break;
+        case LEVEL:
+          writer.packString("level");
+          writer.packString(record.getLevel().name());
+          size++;
+          break;
+        case MESSAGE:
+
+          String message;
+
+          if ((message = record.getMessage()) == null) {
+
+            Throwable throwable;
+
+            if ((throwable = record.getThrown()) != null) {
+              message = throwable.getMessage();
+            }
+          }
+
+          writer.packString("message");
+          writer.packString(message);
+          size++;
+          break;
+        case THREAD:
+          size += packThreadInfo(writer, record.getThreadName(), record.getThreadID());
+          break;
+        case LOGGER_CONTEXT:
+          size += packLoggerContext(writer, record.getLoggerContext());
+          break;
+        case PARAMETERS:
+          size += packParameters(writer, record.getParameters());
+          break;
+        case STACK_TRACE:
+
+          Throwable thrown;
+
+          if ((thrown = record.getThrown()) != null) {
+            writer.packString("stackTrace");
+            writer.packString(renderStackTrace(thrown));
+            size++;
+          }
+          break;
+        default:
+          throw new UnknownSwitchCaseException(recordElement.name());
+      }
+    }
+
+    if (additionalEventData != null) {
+      for (Map.Entry<String, String> additionalDataEntry : additionalEventData.entrySet()) {
+        writer.packString(additionalDataEntry.getKey());
+        writer.packString(additionalDataEntry.getValue());
+        size++;
+      }
+    }
+
+    writer.endMap(mark, size);
+  }
+
+  /**
+   * Streams thread name and id as a nested map when available.
+   *
+   * @param writer     the writer receiving the entry
+   * @param threadName thread name, may be {@code null}
+   * @param threadId   thread id, or non-positive if unavailable
+   * @return the number of entries written to the enclosing map (0 or 1)
+   */
+  private int packThreadInfo (MessagePackWriter writer, String threadName, long threadId) {
+
+    if ((threadName != null) || (threadId > 0)) {
+      writer.packString("thread");
+      writer.packMapHeader(((threadName != null) ? 1 : 0) + ((threadId > 0) ? 1 : 0));
+      if (threadName != null) {
+        writer.packString("name");
+        writer.packString(threadName);
+      }
+      if (threadId > 0) {
+        writer.packString("id");
+        writer.packLong(threadId);
+      }
+
+      return 1;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Streams logger context information as a nested map when it has been captured.
+   *
+   * @param writer        the writer receiving the entry
+   * @param loggerContext logger context containing caller details
+   * @return the number of entries written to the enclosing map (0 or 1)
+   */
+  private int packLoggerContext (MessagePackWriter writer, LoggerContext loggerContext) {
+
+    if ((loggerContext != null) && (loggerContext.isFilled())) {
+
+      boolean includeLine = (!loggerContext.isNativeMethod()) && (loggerContext.getLineNumber() > 0);
+
+      writer.packString("context");
+      writer.packMapHeader(includeLine ? 5 : 4);
+      writer.packString("class");
+      writer.packString(loggerContext.getClassName());
+      writer.packString("method");
+      writer.packString(loggerContext.getMethodName());
+      writer.packString("native");
+      writer.packBoolean(loggerContext.isNativeMethod());
+      if (includeLine) {
+        writer.packString("line");
+        writer.packLong(loggerContext.getLineNumber());
+      }
+      writer.packString("file");
+      writer.packString(loggerContext.getFileName());
+
+      return 1;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Streams parameters as a nested map keyed by parameter names, skipping parameters without a key.
+   *
+   * @param writer     the writer receiving the entry
+   * @param parameters parameters from the record
+   * @return the number of entries written to the enclosing map (0 or 1)
+   */
+  private int packParameters (MessagePackWriter writer, Parameter[] parameters) {
+
+    int keyedCount = 0;
+
+    for (Parameter parameter : parameters) {
+      if (parameter.getKey() != null) {
+        keyedCount++;
+      }
+    }
+
+    if (keyedCount > 0) {
+      writer.packString("parameters");
+      writer.packMapHeader(keyedCount);
+      for (Parameter parameter : parameters) {
+        if (parameter.getKey() != null) {
+          writer.packString(parameter.getKey());
+          writer.packString((parameter.getValue() == null) ? null : parameter.getValue().toString());
+        }
+      }
+
+      return 1;
+    }
+
+    return 0;
+  }
+
   /**
    * Adds thread name and id to the message node when available.
    *
@@ -219,50 +401,59 @@ public class MessagePackFormatter {
    */
   private void appendStackTrace (ObjectNode messageNode, Throwable throwable) {
 
-    StackTraceElement[] prevStackTrace = null;
-    int repeatedElements;
-
     if (throwable != null) {
+      messageNode.put("stackTrace", renderStackTrace(throwable));
+    }
+  }
+
+  /**
+   * Renders a throwable stack trace, including its causes, with elided repeated frames.
+   *
+   * @param throwable throwable to render
+   * @return the rendered stack trace
+   */
+  private String renderStackTrace (Throwable throwable) {
 
-      StringBuilder traceBuilder = new StringBuilder();
+    StringBuilder traceBuilder = new StringBuilder();
+    StackTraceElement[] prevStackTrace = null;
+    int repeatedElements;
 
-      do {
+    do {
 
-        if (prevStackTrace == null) {
-          traceBuilder.append("Exception in thread ");
-        } else {
-          traceBuilder.append("Caused by: ");
-        }
+      if (prevStackTrace == null) {
+        traceBuilder.append("Exception in thread ");
+      } else {
+        traceBuilder.append("Caused by: ");
+      }
 
-        traceBuilder.append(throwable.getClass().getCanonicalName());
-        traceBuilder.append(": ");
-        traceBuilder.append(throwable.getMessage());
-        traceBuilder.append(newLine);
+      traceBuilder.append(throwable.getClass().getCanonicalName());
+      traceBuilder.append(": ");
+      traceBuilder.append(throwable.getMessage());
+      traceBuilder.append(newLine);
 
-        for (StackTraceElement singleElement : throwable.getStackTrace()) {
+      for (StackTraceElement singleElement : throwable.getStackTrace()) {
 
-          traceBuilder.append("   ");
+        traceBuilder.append("   ");
 
-          if (prevStackTrace != null) {
-            if ((repeatedElements = findRepeatedStackElements(singleElement, prevStackTrace)) >= 0) {
-              traceBuilder.append("   ... ");
-              traceBuilder.append(repeatedElements);
-              traceBuilder.append(" more");
-              traceBuilder.append(newLine);
-              break;
-            }
+        if (prevStackTrace != null) {
+          if ((repeatedElements = findRepeatedStackElements(singleElement, prevStackTrace)) >= 0) {
+            traceBuilder.append("   ... ");
+            traceBuilder.append(repeatedElements);
+            traceBuilder.append(" more");
+            traceBuilder.append(newLine);
+            break;
           }
-
-          traceBuilder.append("   at ");
-          traceBuilder.append(singleElement.toString());
-          traceBuilder.append(newLine);
         }
 
-        prevStackTrace = throwable.getStackTrace();
-      } while ((throwable = throwable.getCause()) != null);
+        traceBuilder.append("   at ");
+        traceBuilder.append(singleElement.toString());
+        traceBuilder.append(newLine);
+      }
 
-      messageNode.put("stackTrace", traceBuilder.toString());
-    }
+      prevStackTrace = throwable.getStackTrace();
+    } while ((throwable = throwable.getCause()) != null);
+
+    return traceBuilder.toString();
   }
 
   /**
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen.fluentbit;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming MessagePack encoder writing into a growable byte array that is reused across batches via
+ * {@link #reset()}, so that records can be serialized incrementally as they are drained rather than first being
+ * assembled into a tree of nodes. Only the subset of the format needed by the Fluent Bit Forward protocol is
+ * supported (nil, booleans, integers, strings, binaries, arrays, maps and the {@code EventTime} extension).
+ * Instances are not thread safe.
+ */
+public class MessagePackWriter {
+
+  private final OutputStream outputStream = new WriterOutputStream();
+  private byte[] buffer;
+  private int position = 0;
+
+  /**
+   * Constructs a writer with a 4KiB initial buffer.
+   */
+  public MessagePackWriter () {
+
+    this(4096);
+  }
+
+  /**
+   * Constructs a writer with the given initial buffer capacity, which grows as needed.
+   *
+   * @param initialCapacity the initial capacity of the backing array in bytes
+   */
+  public MessagePackWriter (int initialCapacity) {
+
+    buffer = new byte[Math.max(16, initialCapacity)];
+  }
+
+  /**
+   * Discards the written content, retaining the backing array for reuse.
+   */
+  public void reset () {
+
+    position = 0;
+  }
+
+  /**
+   * Discards any content written after the given size, e.g. to back out a partially serialized value.
+   *
+   * @param size a size previously returned by {@link #size()}
+   */
+  public void rewind (int size) {
+
+    position = Math.min(position, size);
+  }
+
+  /**
+   * Returns the number of bytes written since the last {@link #reset()}.
+   *
+   * @return the number of encoded bytes
+   */
+  public int size () {
+
+    return position;
+  }
+
+  /**
+   * Returns the backing array; only the first {@link #size()} bytes are meaningful.
+   *
+   * @return the backing array, which is replaced whenever the writer grows
+   */
+  public byte[] getBuffer () {
+
+    return buffer;
+  }
+
+  /**
+   * Returns a copy of the written content.
+   *
+   * @return a new array holding the first {@link #size()} bytes
+   */
+  public byte[] toByteArray () {
+
+    return Arrays.copyOf(buffer, position);
+  }
+
+  /**
+   * Wraps the written content, without copying, as a buffer positioned for reading.
+   *
+   * @return a byte buffer view of the first {@link #size()} bytes
+   */
+  public ByteBuffer asByteBuffer () {
+
+    return ByteBuffer.wrap(buffer, 0, position);
+  }
+
+  /**
+   * Returns an output stream whose writes are appended as raw bytes, suitable for layering a compressing stream
+   * between {@link #beginBinary()} and {@link #endBinary(int)}.
+   *
+   * @return a stream appending to this writer
+   */
+  public OutputStream asOutputStream () {
+
+    return outputStream;
+  }
+
+  /**
+   * Writes a nil value.
+   */
+  public void packNil () {
+
+    ensureCapacity(1);
+    buffer[position++] = (byte)0xC0;
+  }
+
+  /**
+   * Writes a boolean value.
+   *
+   * @param value the value to write
+   */
+  public void packBoolean (boolean value) {
+
+    ensureCapacity(1);
+    buffer[position++] = value ? (byte)0xC3 : (byte)0xC2;
+  }
+
+  /**
+   * Writes an integer in the most compact encoding that can hold it.
+   *
+   * @param value the value to write
+   */
+  public void packLong (long value) {
+
+    if (value >= 0) {
+      if (value < 0x80) {
+        ensureCapacity(1);
+        buffer[position++] = (byte)value;
+      } else if (value < 0x100) {
+        ensureCapacity(2);
+        buffer[position++] = (byte)0xCC;
+        buffer[position++] = (byte)value;
+      } else if (value < 0x10000) {
+        ensureCapacity(3);
+        buffer[position++] = (byte)0xCD;
+        putShort((int)value);
+      } else if (value < 0x100000000L) {
+        ensureCapacity(5);
+        buffer[position++] = (byte)0xCE;
+        putInt((int)value);
+      } else {
+        ensureCapacity(9);
+        buffer[position++] = (byte)0xCF;
+        putLong(value);
+      }
+    } else if (value >= -32) {
+      ensureCapacity(1);
+      buffer[position++] = (byte)value;
+    } else if (value >= Byte.MIN_VALUE) {
+      ensureCapacity(2);
+      buffer[position++] = (byte)0xD0;
+      buffer[position++] = (byte)value;
+    } else if (value >= Short.MIN_VALUE) {
+      ensureCapacity(3);
+      buffer[position++] = (byte)0xD1;
+      putShort((int)value);
+    } else if (value >= Integer.MIN_VALUE) {
+      ensureCapacity(5);
+      buffer[position++] = (byte)0xD2;
+      putInt((int)value);
+    } else {
+      ensureCapacity(9);
+      buffer[position++] = (byte)0xD3;
+      putLong(value);
+    }
+  }
+
+  /**
+   * Writes a string as UTF-8, encoding directly from the characters without an intermediate byte array. Unpaired
+   * surrogates are written as {@code '?'}. A {@code null} value is written as nil.
+   *
+   * @param value the characters to write, or {@code null}
+   */
+  public void packString (CharSequence value) {
+
+    if (value == null) {
+      packNil();
+    } else {
+
+      int length = value.length();
+      int encodedLength = 0;
+
+      for (int index = 0; index < length; index++) {
+
+        char singleChar = value.charAt(index);
+
+        if (singleChar < 0x80) {
+          encodedLength++;
+        } else if (singleChar < 0x800) {
+          encodedLength += 2;
+        } else if (Character.isHighSurrogate(singleChar) && (index + 1 < length) && Character.isLowSurrogate(value.charAt(index + 1))) {
+          encodedLength += 4;
+          index++;
+        } else if (Character.isSurrogate(singleChar)) {
+          encodedLength++;
+        } else {
+          encodedLength += 3;
+        }
+      }
+
+      if (encodedLength < 32) {
+        ensureCapacity(1 + encodedLength);
+        buffer[position++] = (byte)(0xA0 | encodedLength);
+      } else if (encodedLength < 0x100) {
+        ensureCapacity(2 + encodedLength);
+        buffer[position++] = (byte)0xD9;
+        buffer[position++] = (byte)encodedLength;
+      } else if (encodedLength < 0x10000) {
+        ensureCapacity(3 + encodedLength);
+        buffer[position++] = (byte)0xDA;
+        putShort(encodedLength);
+      } else {
+        ensureCapacity(5 + encodedLength);
+        buffer[position++] = (byte)0xDB;
+        putInt(encodedLength);
+      }
+
+      for (int index = 0; index < length; index++) {
+
+        char singleChar = value.charAt(index);
+
+        if (singleChar < 0x80) {
+          buffer[position++] = (byte)singleChar;
+        } else if (singleChar < 0x800) {
+          buffer[position++] = (byte)(0xC0 | (singleChar >> 6));
+          buffer[position++] = (byte)(0x80 | (singleChar & 0x3F));
+        } else if (Character.isHighSurrogate(singleChar) && (index + 1 < length) && Character.isLowSurrogate(value.charAt(index + 1))) {
+
+          int codePoint = Character.toCodePoint(singleChar, value.charAt(++index));
+
+          buffer[position++] = (byte)(0xF0 | (codePoint >> 18));
+          buffer[position++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+          buffer[position++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+          buffer[position++] = (byte)(0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(singleChar)) {
+          buffer[position++] = (byte)'?';
+        } else {
+          buffer[position++] = (byte)(0xE0 | (singleChar >> 12));
+          buffer[position++] = (byte)(0x80 | ((singleChar >> 6) & 0x3F));
+          buffer[position++] = (byte)(0x80 | (singleChar & 0x3F));
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes an array header; the following {@code size} values form the array elements.
+   *
+   * @param size the number of elements
+   */
+  public void packArrayHeader (int size) {
+
+    if (size < 16) {
+      ensureCapacity(1);
+      buffer[position++] = (byte)(0x90 | size);
+    } else if (size < 0x10000) {
+      ensureCapacity(3);
+      buffer[position++] = (byte)0xDC;
+      putShort(size);
+    } else {
+      ensureCapacity(5);
+      buffer[position++] = (byte)0xDD;
+      putInt(size);
+    }
+  }
+
+  /**
+   * Writes a map header; the following {@code size} key/value pairs form the map entries.
+   *
+   * @param size the number of entries
+   */
+  public void packMapHeader (int size) {
+
+    if (size < 16) {
+      ensureCapacity(1);
+      buffer[position++] = (byte)(0x80 | size);
+    } else if (size < 0x10000) {
+      ensureCapacity(3);
+      buffer[position++] = (byte)0xDE;
+      putShort(size);
+    } else {
+      ensureCapacity(5);
+      buffer[position++] = (byte)0xDF;
+      putInt(size);
+    }
+  }
+
+  /**
+   * Starts a map whose entry count is not yet known by reserving a 16-bit map header, which
+   * {@link #endMap(int, int)} fills in once the entries have been written.
+   *
+   * @return the mark to pass to {@link #endMap(int, int)}
+   */
+  public int beginMap () {
+
+    int mark = position;
+
+    ensureCapacity(3);
+    buffer[position] = (byte)0xDE;
+    position += 3;
+
+    return mark;
+  }
+
+  /**
+   * Completes a map started with {@link #beginMap()}.
+   *
+   * @param mark the mark returned by {@link #beginMap()}
+   * @param size the number of entries written since the mark, at most 65535
+   */
+  public void endMap (int mark, int size) {
+
+    buffer[mark + 1] = (byte)(size >>> 8);
+    buffer[mark + 2] = (byte)size;
+  }
+
+  /**
+   * Writes a binary header; the following {@code size} raw bytes form the binary payload.
+   *
+   * @param size the payload length in bytes
+   */
+  public void packBinaryHeader (int size) {
+
+    if (size < 0x100) {
+      ensureCapacity(2);
+      buffer[position++] = (byte)0xC4;
+      buffer[position++] = (byte)size;
+    } else if (size < 0x10000) {
+      ensureCapacity(3);
+      buffer[position++] = (byte)0xC5;
+      putShort(size);
+    } else {
+      ensureCapacity(5);
+      buffer[position++] = (byte)0xC6;
+      putInt(size);
+    }
+  }
+
+  /**
+   * Starts a binary value whose length is not yet known by reserving a 32-bit binary header, which
+   * {@link #endBinary(int)} fills in once the payload has been written (typically through
+   * {@link #asOutputStream()}).
+   *
+   * @return the mark to pass to {@link #endBinary(int)}
+   */
+  public int beginBinary () {
+
+    int mark = position;
+
+    ensureCapacity(5);
+    buffer[position] = (byte)0xC6;
+    position += 5;
+
+    return mark;
+  }
+
+  /**
+   * Completes a binary value started with {@link #beginBinary()}.
+   *
+   * @param mark the mark returned by {@link #beginBinary()}
+   */
+  public void endBinary (int mark) {
+
+    int size = position - mark - 5;
+
+    buffer[mark + 1] = (byte)(size >>> 24);
+    buffer[mark + 2] = (byte)(size >>> 16);
+    buffer[mark + 3] = (byte)(size >>> 8);
+    buffer[mark + 4] = (byte)size;
+  }
+
+  /**
+   * Writes a Fluent Bit {@code EventTime} (extension type 0: seconds and nanoseconds as two big-endian 32-bit
+   * integers), which carries sub-second precision unlike a plain integer timestamp.
+   *
+   * @param millis the epoch milliseconds to encode
+   */
+  public void packEventTime (long millis) {
+
+    ensureCapacity(10);
+    buffer[position++] = (byte)0xD7;
+    buffer[position++] = 0;
+    putInt((int)Math.floorDiv(millis, 1000L));
+    putInt((int)(Math.floorMod(millis, 1000L) * 1000000L));
+  }
+
+  /**
+   * Appends raw bytes, which must themselves form valid MessagePack content or a binary payload.
+   *
+   * @param bytes  the source array
+   * @param offset the offset of the first byte to copy
+   * @param length the number of bytes to copy
+   */
+  public void write (byte[] bytes, int offset, int length) {
+
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+  /**
+   * Appends a big-endian 16-bit value.
+   *
+   * @param value the value to append
+   */
+  private void putShort (int value) {
+
+    buffer[position++] = (byte)(value >>> 8);
+    buffer[position++] = (byte)value;
+  }
+
+  /**
+   * Appends a big-endian 32-bit value.
+   *
+   * @param value the value to append
+   */
+  private void putInt (int value) {
+
+    buffer[position++] = (byte)(value >>> 24);
+    buffer[position++] = (byte)(value >>> 16);
+    buffer[position++] = (byte)(value >>> 8);
+    buffer[position++] = (byte)value;
+  }
+
+  /**
+   * Appends a big-endian 64-bit value.
+   *
+   * @param value the value to append
+   */
+  private void putLong (long value) {
+
+    putInt((int)(value >>> 32));
+    putInt((int)value);
+  }
+
+  /**
+   * Grows the backing array, at least doubling it, so that {@code additional} more bytes fit.
+   *
+   * @param additional the number of bytes about to be written
+   */
+  private void ensureCapacity (int additional) {
+
+    if (position + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + additional));
+    }
+  }
+
+  /**
+   * Output stream view appending raw bytes to the enclosing writer.
+   */
+  private class WriterOutputStream extends OutputStream {
+
+    /**
+     * Appends a single byte.
+     *
+     * @param singleByte the byte to append, in the low eight bits
+     */
+    @Override
+    public void write (int singleByte) {
+
+      ensureCapacity(1);
+      buffer[position++] = (byte)singleByte;
+    }
+
+    /**
+     * Appends a range of bytes.
+     *
+     * @param bytes  the source array
+     * @param offset the offset of the first byte to copy
+     * @param length the number of bytes to copy
+     */
+    @Override
+    public void write (byte[] bytes, int offset, int length) {
+
+      MessagePackWriter.this.write(bytes, offset, length);
+    }
+  }
+}
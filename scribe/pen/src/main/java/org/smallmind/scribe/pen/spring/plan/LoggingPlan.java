@@ -38,17 +38,24 @@ import org.smallmind.scribe.pen.AsynchronousAppender;
 import org.smallmind.scribe.pen.ClassNameTemplate;
 import org.smallmind.scribe.pen.DefaultTemplate;
 import org.smallmind.scribe.pen.Level;
+import org.smallmind.scribe.pen.OverflowPolicy;
+import org.smallmind.scribe.pen.RingBufferAppender;
+import org.smallmind.scribe.pen.WaitStrategy;
 import org.springframework.beans.factory.InitializingBean;
 
 /**
  * Abstract Spring {@link InitializingBean} base class for logging plans that wraps a concrete appender in an
- * {@link AsynchronousAppender}, registers a {@link DefaultTemplate} at the configured default level, and
- * optionally registers a {@link ClassNameTemplate} for each supplied {@link Log} entry.
+ * {@link AsynchronousAppender} (or, when configured, a {@link RingBufferAppender}), registers a
+ * {@link DefaultTemplate} at the configured default level, and optionally registers a {@link ClassNameTemplate}
+ * for each supplied {@link Log} entry.
  */
 public abstract class LoggingPlan implements InitializingBean {
 
   private Log[] logs;
   private Level defaultLogLevel = Level.INFO;
+  private WaitStrategy waitStrategy = WaitStrategy.PARK;
+  private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+  private boolean ringBuffer = false;
   private int logRecordBufferSize = 400;
   private int concurrencyLimit = 1;
 
@@ -95,6 +102,39 @@ public abstract class LoggingPlan implements InitializingBean {
     this.concurrencyLimit = concurrencyLimit;
   }
 
+  /**
+   * Sets whether the concrete appender is wrapped in a {@link RingBufferAppender} rather than an
+   * {@link AsynchronousAppender}; defaults to {@code false}. The ring holds {@link #setLogRecordBufferSize(int)}
+   * records (rounded up to a power of two) and is always drained by a single thread, so the concurrency limit
+   * does not apply.
+   *
+   * @param ringBuffer {@code true} to use the ring buffer engine
+   */
+  public void setRingBuffer (boolean ringBuffer) {
+
+    this.ringBuffer = ringBuffer;
+  }
+
+  /**
+   * Sets the {@link WaitStrategy} of the ring buffer engine; defaults to {@link WaitStrategy#PARK}.
+   *
+   * @param waitStrategy how the drain thread and blocked producers idle
+   */
+  public void setWaitStrategy (WaitStrategy waitStrategy) {
+
+    this.waitStrategy = waitStrategy;
+  }
+
+  /**
+   * Sets the {@link OverflowPolicy} of the ring buffer engine; defaults to {@link OverflowPolicy#BLOCK}.
+   *
+   * @param overflowPolicy what happens to records published while the ring is full
+   */
+  public void setOverflowPolicy (OverflowPolicy overflowPolicy) {
+
+    this.overflowPolicy = overflowPolicy;
+  }
+
   /**
    * Sets the array of {@link Log} entries whose class-name patterns and levels will each be registered as
    * a {@link ClassNameTemplate} during initialization; may be {@code null} if no per-logger overrides are needed.
@@ -108,7 +148,7 @@ public abstract class LoggingPlan implements InitializingBean {
 
   /**
    * Retrieves the concrete appender from {@link #getAppender()}, wraps it in an {@link AsynchronousAppender}
-   * with the configured buffer size and concurrency limit, registers a {@link DefaultTemplate} at the default
+   * with the configured buffer size and concurrency limit (or a {@link RingBufferAppender} when so configured), registers a {@link DefaultTemplate} at the default
    * log level, and for each {@link Log} entry registers a {@link ClassNameTemplate} at the entry's level and pattern.
    *
    * @throws IOException if the concrete appender cannot be created
@@ -120,7 +160,7 @@ public abstract class LoggingPlan implements InitializingBean {
 
     Appender asynchronousAppender;
 
-    asynchronousAppender = new AsynchronousAppender(getAppender(), logRecordBufferSize, concurrencyLimit);
+    asynchronousAppender = ringBuffer ? new RingBufferAppender(getAppender(), logRecordBufferSize, waitStrategy, overflowPolicy) : new AsynchronousAppender(getAppender(), logRecordBufferSize, concurrencyLimit);
 
     new DefaultTemplate(defaultLogLevel, true, asynchronousAppender).register();
 
@@ -32,6 +32,7 @@
  */
 package com.smallmind.scribetest;
 
+import org.smallmind.scribe.pen.CallerCapture;
 import org.smallmind.scribe.pen.DefaultLoggerContext;
 import org.smallmind.scribe.pen.LoggerContext;
 
@@ -53,4 +54,13 @@ public class ContextProbe {
 
     return loggerContext;
   }
+
+  public LoggerContext capture (CallerCapture callerCapture) {
+
+    DefaultLoggerContext loggerContext = new DefaultLoggerContext(callerCapture);
+
+    loggerContext.fillIn();
+
+    return loggerContext;
+  }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Exercises {@link BufferedFileAppender}'s batching, flush policy, per-batch rollover, and close behavior
+ * against a temp directory and a {@link RecordFixture}.
+ */
+@Test(groups = "unit")
+public class BufferedFileAppenderTest {
+
+  private static final String NEW_LINE = System.lineSeparator();
+
+  private Path directory;
+  private Path logPath;
+
+  @BeforeMethod
+  public void createDirectory ()
+    throws IOException {
+
+    directory = Files.createTempDirectory("scribe-bufferedfileappender-test");
+    logPath = directory.resolve("app.log");
+  }
+
+  @AfterMethod
+  public void removeDirectory ()
+    throws IOException {
+
+    if (directory != null) {
+      try (java.util.stream.Stream<Path> walk = Files.walk(directory)) {
+        walk.sorted(java.util.Comparator.reverseOrder()).forEach(path -> {
+          try {
+            Files.deleteIfExists(path);
+          } catch (IOException ioException) {
+            throw new RuntimeException(ioException);
+          }
+        });
+      }
+    }
+  }
+
+  private int archiveCount ()
+    throws IOException {
+
+    int count = 0;
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "app-*.log")) {
+      for (Path ignored : stream) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  public void testOutputIsHeldUntilCloseWithoutAThresholdBeingReached ()
+    throws IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy(0, 0, null));
+
+    appender.publish(new RecordFixture().setMessage("hello"));
+    Assert.assertEquals(Files.size(logPath), 0L);
+
+    appender.close();
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), "hello" + NEW_LINE);
+  }
+
+  public void testErrorLevelForcesImmediateWrite ()
+    throws IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy(0, 0, Level.ERROR));
+
+    appender.publish(new RecordFixture().setLevel(Level.INFO).setMessage("info"));
+    Assert.assertEquals(Files.size(logPath), 0L);
+
+    appender.publish(new RecordFixture().setLevel(Level.ERROR).setMessage("error"));
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), "info" + NEW_LINE + "error" + NEW_LINE);
+
+    appender.close();
+  }
+
+  public void testByteThresholdWritesBatch ()
+    throws IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy(10, 0, null));
+
+    appender.publish(new RecordFixture().setMessage("abc"));
+    Assert.assertEquals(Files.size(logPath), 0L);
+
+    appender.publish(new RecordFixture().setMessage("0123456789"));
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), "abc" + NEW_LINE + "0123456789" + NEW_LINE);
+
+    appender.close();
+  }
+
+  public void testTimeThresholdWritesIdleBatch ()
+    throws InterruptedException, IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy(0, 50, null));
+    long deadline = System.currentTimeMillis() + 5000;
+
+    appender.publish(new RecordFixture().setMessage("idle"));
+    while ((Files.size(logPath) == 0) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(10);
+    }
+
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), "idle" + NEW_LINE);
+    appender.close();
+  }
+
+  public void testSteadyTrickleDoesNotPostponeTimeThreshold ()
+    throws InterruptedException, IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy(0, 200, null));
+    long deadline = System.currentTimeMillis() + 5000;
+
+    appender.publish(new RecordFixture().setMessage("first"));
+    while ((Files.size(logPath) == 0) && (System.currentTimeMillis() < deadline)) {
+      appender.publish(new RecordFixture().setMessage("more"));
+      Thread.sleep(20);
+    }
+
+    Assert.assertTrue(Files.readString(logPath, StandardCharsets.UTF_8).startsWith("first" + NEW_LINE));
+    Assert.assertTrue(System.currentTimeMillis() < deadline, "a steady trickle of writes postponed the flush");
+    appender.close();
+  }
+
+  public void testRecordsLargerThanTheBufferAreWrittenWhole ()
+    throws IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy());
+    String large = "é".repeat(100000);
+
+    appender.publish(new RecordFixture().setMessage(large));
+    appender.close();
+
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), large + NEW_LINE);
+  }
+
+  public void testRolloverIsEvaluatedPerBatch ()
+    throws IOException, LoggerException {
+
+    Rollover rollover = new Rollover(new DateFormatTimestamp(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS")), new FileSizeRolloverRule(1, FileSizeQuantifier.BYTES));
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, rollover, new PatternFormatter("%m"), new FlushPolicy(0, 0, Level.INFO));
+
+    appender.publish(new RecordFixture().setLevel(Level.INFO).setMessage("first"));
+    appender.publish(new RecordFixture().setLevel(Level.INFO).setMessage("second"));
+    appender.close();
+
+    Assert.assertTrue(archiveCount() >= 1);
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), "second" + NEW_LINE);
+  }
+
+  public void testClosedAppenderDoesNotWrite ()
+    throws IOException, LoggerException {
+
+    BufferedFileAppender appender = new BufferedFileAppender(logPath, null, new PatternFormatter("%m"), new FlushPolicy());
+
+    appender.publish(new RecordFixture().setMessage("kept"));
+    appender.close();
+    appender.close();
+    // Post-close publish is routed to the error handler, leaving the file intact.
+    appender.publish(new RecordFixture().setMessage("ignored"));
+
+    Assert.assertEquals(Files.readString(logPath, StandardCharsets.UTF_8), "kept" + NEW_LINE);
+  }
+}
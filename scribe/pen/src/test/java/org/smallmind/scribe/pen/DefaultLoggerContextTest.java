@@ -32,6 +32,12 @@
  */
 package org.smallmind.scribe.pen;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.AtomicReference;
 import com.smallmind.scribetest.ContextProbe;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -67,4 +73,41 @@ public class DefaultLoggerContextTest {
 
     Assert.assertEquals(context.getClassName(), firstClassName);
   }
+
+  public void testDeferredCaptureResolvesLocationOnAnotherThread ()
+    throws InterruptedException {
+
+    LoggerContext context = new ContextProbe().capture(CallerCapture.DEFERRED);
+    AtomicReference<String> fileName = new AtomicReference<>();
+    Thread resolvingThread = new Thread(() -> fileName.set(context.getFileName()));
+
+    Assert.assertTrue(context.isFilled());
+    Assert.assertEquals(context.getClassName(), ContextProbe.class.getName());
+    Assert.assertEquals(context.getMethodName(), ContextProbe.CAPTURE_METHOD);
+
+    resolvingThread.start();
+    resolvingThread.join();
+
+    Assert.assertTrue(fileName.get().contains("ContextProbe"));
+    Assert.assertTrue(context.getLineNumber() > 0);
+  }
+
+  public void testDeferredCaptureSurvivesSerialization ()
+    throws IOException, ClassNotFoundException {
+
+    LoggerContext context = new ContextProbe().capture(CallerCapture.DEFERRED);
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+    LoggerContext copy;
+
+    try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteStream)) {
+      objectOutputStream.writeObject(context);
+    }
+    try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteStream.toByteArray()))) {
+      copy = (LoggerContext)objectInputStream.readObject();
+    }
+
+    Assert.assertTrue(copy.isFilled());
+    Assert.assertEquals(copy.getClassName(), ContextProbe.class.getName());
+    Assert.assertEquals(copy.getLineNumber(), context.getLineNumber());
+  }
 }
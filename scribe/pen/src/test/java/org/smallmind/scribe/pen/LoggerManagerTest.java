@@ -32,6 +32,11 @@
  */
 package org.smallmind.scribe.pen;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -108,4 +113,90 @@ public class LoggerManagerTest {
     LoggerManager.removeTemplate(template);
     Assert.assertNull(logger.getTemplate());
   }
+
+  public void testRemovingTemplateFallsBackToNextBestMatch ()
+    throws LoggerException {
+
+    DefaultTemplate fallback = new DefaultTemplate(Level.WARN, false);
+    ClassNameTemplate specific = new ClassNameTemplate(Level.DEBUG, false, "fallback.service.*");
+
+    fallback.register();
+    specific.register();
+
+    Logger logger = LoggerManager.getLogger("fallback.service.Widget");
+    Assert.assertSame(logger.getTemplate(), specific);
+
+    LoggerManager.removeTemplate(specific);
+    Assert.assertSame(logger.getTemplate(), fallback);
+    Assert.assertEquals(logger.getLevel(), Level.WARN);
+  }
+
+  public void testEqualPriorityKeepsEarlierRegisteredTemplate ()
+    throws LoggerException {
+
+    ClassNameTemplate earlier = new ClassNameTemplate(Level.ERROR, false, "tied.*");
+    ClassNameTemplate later = new ClassNameTemplate(Level.TRACE, false, "tied.*");
+
+    earlier.register();
+    later.register();
+
+    Assert.assertSame(LoggerManager.getLogger("tied.Widget").getTemplate(), earlier);
+  }
+
+  public void testDollarSeparatedNamesResolveThroughPrefix ()
+    throws LoggerException {
+
+    ClassNameTemplate template = new ClassNameTemplate(Level.ERROR, false, "outer.Enclosing.*");
+
+    template.register();
+
+    Assert.assertSame(LoggerManager.getLogger("outer.Enclosing$Nested").getTemplate(), template);
+    Assert.assertNull(LoggerManager.getLogger("outer.Other$Nested").getTemplate());
+  }
+
+  public void testTemplateChangeAfterRegistrationReachesLoggers ()
+    throws LoggerException {
+
+    ClassNameTemplate template = new ClassNameTemplate(Level.INFO, false, "changing.*");
+
+    template.register();
+
+    Logger logger = LoggerManager.getLogger("changing.Widget");
+    Assert.assertEquals(logger.getLevel(), Level.INFO);
+
+    template.setLevel(Level.ERROR);
+    Assert.assertEquals(logger.getLevel(), Level.ERROR);
+  }
+
+  public void testConcurrentGetLoggerReturnsSingleInstance ()
+    throws Exception {
+
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    Future<?>[] futures = new Future<?>[8];
+
+    new ClassNameTemplate(Level.DEBUG, false, "contended.*").register();
+
+    try {
+      for (int index = 0; index < futures.length; index++) {
+        futures[index] = executorService.submit(() -> {
+          startLatch.await();
+
+          return LoggerManager.getLogger("contended.Widget");
+        });
+      }
+
+      startLatch.countDown();
+
+      for (Future<?> future : futures) {
+
+        Logger logger = (Logger)future.get(5, TimeUnit.SECONDS);
+
+        Assert.assertSame(logger, futures[0].get());
+        Assert.assertEquals(logger.getLevel(), Level.DEBUG);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
 }
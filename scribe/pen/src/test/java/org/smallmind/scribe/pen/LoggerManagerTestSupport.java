@@ -34,13 +34,13 @@ package org.smallmind.scribe.pen;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Clears {@link LoggerManager}'s static registries between tests. The manager caches every logger and
- * template association in {@code private static final} maps with no public reset, so a test that
+ * template association in {@code private static} fields with no public reset, so a test that
  * registers a template or creates a named logger would otherwise leak that state into later tests.
- * This support resets the maps reflectively (leaving the logging-package-prefix queue intact).
+ * This support resets the maps and the template trie reflectively (leaving the logging-package-prefix
+ * queue intact).
  */
 public class LoggerManagerTestSupport {
 
@@ -50,7 +50,7 @@ public class LoggerManagerTestSupport {
     try {
       clearMapField("LOGGER_MAP");
       clearMapField("TEMPLATE_MAP");
-      clearSetField("TEMPLATE_SET");
+      resetTrieField("TEMPLATE_TRIE");
     } catch (ReflectiveOperationException reflectiveOperationException) {
       throw new RuntimeException(reflectiveOperationException);
     }
@@ -65,12 +65,12 @@ public class LoggerManagerTestSupport {
     ((Map<?, ?>)field.get(null)).clear();
   }
 
-  private static void clearSetField (String fieldName)
+  private static void resetTrieField (String fieldName)
     throws ReflectiveOperationException {
 
     Field field = LoggerManager.class.getDeclaredField(fieldName);
 
     field.setAccessible(true);
-    ((Set<?>)field.get(null)).clear();
+    field.set(null, new TemplateTrie());
   }
 }
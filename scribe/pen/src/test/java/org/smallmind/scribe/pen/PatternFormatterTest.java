@@ -32,6 +32,9 @@
  */
 package org.smallmind.scribe.pen;
 
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import com.sun.management.ThreadMXBean;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -120,4 +123,77 @@ public class PatternFormatterTest {
     Assert.assertTrue(formatted.contains("Exception in thread"));
     Assert.assertTrue(formatted.contains("TRAILER"));
   }
+
+  public void testAppendingFormatMatchesStringFormat () {
+
+    PatternFormatter formatter = new PatternFormatter("{<%.2n>} %+5l [%T] %-6t %m");
+    RecordFixture record = new RecordFixture().setLoggerName("com.example.app.Widget").setLevel(Level.INFO).setThreadName("main").setMillis(42L).setMessage("hello");
+    StringBuilder formatBuilder = new StringBuilder("prefix:");
+
+    formatter.format(record, formatBuilder);
+
+    Assert.assertEquals(formatBuilder.toString(), "prefix:" + formatter.format(record));
+    Assert.assertEquals(formatter.format(record), "<app.Widget> INFO  [main]     42 hello" + NEW_LINE);
+  }
+
+  public void testLineNumberPaddingAndTruncation () {
+
+    RecordFixture record = new RecordFixture().setLoggerContext(new LoggerContextFixture(true, "com.example.Widget", "run", "Widget.java", 42, false)).setMillis(123456L);
+
+    Assert.assertEquals(new PatternFormatter("%-4L|%+4L|%3t").format(record), "  42|42  |123" + NEW_LINE);
+  }
+
+  public void testPrecisionLongerThanLoggerNameKeepsWholeName () {
+
+    String formatted = new PatternFormatter("%.5n|%.1n").format(new RecordFixture().setLoggerName("example.Widget"));
+
+    Assert.assertEquals(formatted, "example.Widget|Widget" + NEW_LINE);
+  }
+
+  public void testReentrantFormattingKeepsTheOuterLine () {
+
+    PatternFormatter formatter = new PatternFormatter("%m %!-,!p");
+    Serializable reentrant = new Serializable() {
+
+      @Override
+      public String toString () {
+
+        // a parameter whose rendering itself formats a record on the same thread
+        return formatter.format(new RecordFixture().setMessage("inner")).trim();
+      }
+    };
+
+    String formatted = formatter.format(new RecordFixture().setMessage("outer").setParameters(new Parameter[] {new Parameter("nested", reentrant)}));
+
+    Assert.assertEquals(formatted, "outer nested=inner" + NEW_LINE);
+    Assert.assertEquals(formatter.format(new RecordFixture().setMessage("after")), "after " + NEW_LINE);
+  }
+
+  public void testSteadyStateFormattingDoesNotAllocate () {
+
+    // Allocation accounting is a HotSpot extension; without it there is nothing to measure.
+    if ((ManagementFactory.getThreadMXBean() instanceof ThreadMXBean allocationMXBean) && allocationMXBean.isThreadAllocatedMemorySupported()) {
+
+      PatternFormatter formatter = new PatternFormatter("%d %.2n %+5l [%T] (%L) - %m");
+      RecordFixture record = new RecordFixture().setLoggerName("com.example.app.Widget").setLevel(Level.INFO).setThreadName("main").setMillis(System.currentTimeMillis()).setMessage("steady state").setLoggerContext(new LoggerContextFixture(true, "com.example.app.Widget", "run", "Widget.java", 42, false));
+      StringBuilder formatBuilder = new StringBuilder(256);
+      long threadId = Thread.currentThread().threadId();
+      long allocatedBytes;
+
+      for (int count = 0; count < 20000; count++) {
+        formatBuilder.setLength(0);
+        formatter.format(record, formatBuilder);
+      }
+
+      allocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadId);
+      for (int count = 0; count < 20000; count++) {
+        formatBuilder.setLength(0);
+        formatter.format(record, formatBuilder);
+      }
+      allocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+      // A single allocation per record would cost at least 16 bytes a time, i.e. over 300KB in total.
+      Assert.assertTrue(allocatedBytes < 65536, "allocated " + allocatedBytes + " bytes");
+    }
+  }
 }
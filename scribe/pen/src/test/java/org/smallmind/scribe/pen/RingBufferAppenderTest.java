@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies the {@link RingBufferAppender} delivers every record published from concurrent producers, keeps
+ * publication order, applies its overflow policy when the ring is full, and rejects publishing after
+ * {@code close()}, while still delivering every record accepted before a concurrent {@code close()}.
+ */
+@Test(groups = "unit")
+public class RingBufferAppenderTest {
+
+  private void awaitSize (CapturingAppender appender, int expected)
+    throws InterruptedException {
+
+    long deadline = System.nanoTime() + (5_000L * 1_000_000L);
+
+    while (appender.size() < expected) {
+      if (System.nanoTime() > deadline) {
+        Assert.fail("timed out waiting for " + expected + " drained records, saw " + appender.size());
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  public void testCapacityIsRoundedToPowerOfTwo ()
+    throws InterruptedException, LoggerException {
+
+    RingBufferAppender ringBuffer = new RingBufferAppender(new CapturingAppender(), 100, WaitStrategy.PARK, OverflowPolicy.BLOCK);
+
+    Assert.assertEquals(ringBuffer.getCapacity(), 128);
+    ringBuffer.close();
+  }
+
+  public void testConcurrentProducersAllReachTheWrappedAppender ()
+    throws InterruptedException, LoggerException {
+
+    CapturingAppender delegate = new CapturingAppender();
+    RingBufferAppender ringBuffer = new RingBufferAppender(delegate, 64, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+    Thread[] producers = new Thread[4];
+
+    for (int index = 0; index < producers.length; index++) {
+      producers[index] = new Thread(() -> {
+        for (int count = 0; count < 1000; count++) {
+          ringBuffer.publish(new RecordFixture().setMessage("record-" + count));
+        }
+      });
+      producers[index].start();
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+
+    ringBuffer.close();
+
+    Assert.assertEquals(delegate.size(), 4000);
+    Assert.assertEquals(ringBuffer.getDroppedCount(), 0L);
+  }
+
+  public void testSingleProducerOrderIsPreserved ()
+    throws InterruptedException, LoggerException {
+
+    CapturingAppender delegate = new CapturingAppender();
+    RingBufferAppender ringBuffer = new RingBufferAppender(delegate, 16, WaitStrategy.PARK, OverflowPolicy.BLOCK);
+
+    for (int index = 0; index < 500; index++) {
+      ringBuffer.publish(new RecordFixture().setMessage("record-" + index));
+    }
+
+    awaitSize(delegate, 500);
+    ringBuffer.close();
+
+    for (int index = 0; index < 500; index++) {
+      Assert.assertEquals(delegate.getRecords().get(index).getMessage(), "record-" + index);
+    }
+  }
+
+  public void testDropBelowLevelDiscardsLessSevereOverflow ()
+    throws Exception {
+
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingAppender delegate = new BlockingAppender(entered, release);
+    RingBufferAppender ringBuffer = new RingBufferAppender(delegate, 2, WaitStrategy.PARK, OverflowPolicy.DROP_BELOW_LEVEL, Level.WARN, 1);
+
+    // The drain thread takes "first" and blocks inside handleOutput, still holding its slot.
+    ringBuffer.publish(new RecordFixture().setLevel(Level.INFO).setMessage("first"));
+    Assert.assertTrue(entered.await(5, TimeUnit.SECONDS), "drain thread never entered handleOutput");
+
+    // "second" takes the remaining slot, so "third" overflows and, being below WARN, is dropped.
+    ringBuffer.publish(new RecordFixture().setLevel(Level.INFO).setMessage("second"));
+    ringBuffer.publish(new RecordFixture().setLevel(Level.DEBUG).setMessage("third"));
+
+    Assert.assertEquals(ringBuffer.getDroppedCount(), 1L);
+
+    release.countDown();
+    ringBuffer.close();
+
+    Assert.assertEquals(delegate.getCount(), 2);
+  }
+
+  public void testPublishAfterCloseDoesNotReachDelegate ()
+    throws InterruptedException, LoggerException {
+
+    CapturingAppender delegate = new CapturingAppender();
+    RingBufferAppender ringBuffer = new RingBufferAppender(delegate);
+
+    ringBuffer.publish(new RecordFixture().setMessage("before"));
+    ringBuffer.close();
+
+    Assert.assertEquals(delegate.size(), 1);
+
+    ringBuffer.publish(new RecordFixture().setMessage("after-close"));
+    Thread.sleep(100);
+
+    Assert.assertEquals(delegate.size(), 1);
+  }
+
+  public void testRecordsAcceptedWhileClosingAreAllDelivered ()
+    throws InterruptedException, LoggerException {
+
+    for (int round = 0; round < 20; round++) {
+
+      CapturingAppender delegate = new CapturingAppender();
+      RingBufferAppender ringBuffer = new RingBufferAppender(delegate, 1024, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+      CountDownLatch startLatch = new CountDownLatch(1);
+      AtomicInteger attempts = new AtomicInteger();
+      AtomicInteger rejections = new AtomicInteger();
+      Thread[] producers = new Thread[4];
+
+      ringBuffer.setErrorHandler(new ErrorHandler() {
+
+        @Override
+        public void process (String loggerName, Throwable throwable, String errorMessage, Object... args) {
+
+        }
+
+        @Override
+        public void process (Record<?> record, Throwable throwable, String errorMessage, Object... args) {
+
+          rejections.incrementAndGet();
+        }
+      });
+
+      for (int index = 0; index < producers.length; index++) {
+        producers[index] = new Thread(() -> {
+          try {
+            startLatch.await();
+            for (int count = 0; count < 2000; count++) {
+              attempts.incrementAndGet();
+              ringBuffer.publish(new RecordFixture().setMessage("record-" + count));
+            }
+          } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+          }
+        });
+        producers[index].start();
+      }
+
+      startLatch.countDown();
+      Thread.sleep(round % 3);
+      ringBuffer.close();
+      for (Thread producer : producers) {
+        producer.join();
+      }
+
+      Assert.assertEquals(delegate.size(), attempts.get() - rejections.get(), "a record accepted before close() was lost");
+    }
+  }
+
+  /**
+   * A delegate that blocks inside {@link #handleOutput(Record)} until released, counting the records it
+   * receives, so the test can drive the ring to capacity deterministically.
+   */
+  private static class BlockingAppender extends AbstractAppender {
+
+    private final CountDownLatch entered;
+    private final CountDownLatch release;
+    private volatile int count;
+
+    private BlockingAppender (CountDownLatch entered, CountDownLatch release) {
+
+      this.entered = entered;
+      this.release = release;
+    }
+
+    private int getCount () {
+
+      return count;
+    }
+
+    @Override
+    public void handleOutput (Record<?> record)
+      throws InterruptedException {
+
+      entered.countDown();
+      release.await();
+      count++;
+    }
+  }
+}
@@ -33,6 +33,7 @@
 package org.smallmind.scribe.pen;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -54,4 +55,24 @@ public class TimestampTest {
 
     Assert.assertEquals(timestamp.getTimestamp(FIXED), "2026-06-11 09:30:15");
   }
+
+  public void testEpochMillisMatchesLocalDateTime () {
+
+    DateFormatTimestamp timestamp = new DateFormatTimestamp(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
+    long millis = FIXED.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    Assert.assertEquals(timestamp.getTimestamp(millis), "2026-06-11 09:30:15.000");
+    Assert.assertSame(timestamp.getTimestamp(millis), timestamp.getTimestamp(millis));
+    Assert.assertEquals(timestamp.getTimestamp(millis + 1), "2026-06-11 09:30:15.001");
+  }
+
+  public void testChangingFormatterInvalidatesCachedMillis () {
+
+    DateFormatTimestamp timestamp = new DateFormatTimestamp(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+    long millis = FIXED.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    Assert.assertEquals(timestamp.getTimestamp(millis), "2026-06-11");
+    timestamp.setDateTimeFormatter(DateTimeFormatter.ofPattern("HH:mm"));
+    Assert.assertEquals(timestamp.getTimestamp(millis), "09:30");
+  }
 }
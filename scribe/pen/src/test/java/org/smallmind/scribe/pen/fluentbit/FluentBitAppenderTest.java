@@ -33,6 +33,7 @@
 package org.smallmind.scribe.pen.fluentbit;
 
 import java.lang.reflect.Field;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.smallmind.scribe.pen.LoggerException;
 import org.smallmind.scribe.pen.RecordFixture;
@@ -130,4 +131,21 @@ public class FluentBitAppenderTest {
     appender.close();
     appender.close();
   }
+
+  public void testFullBufferDropsInsteadOfBlocking ()
+    throws Exception {
+
+    FluentBitAppender appender = new FluentBitAppender("test-fluentbit");
+    Field field = FluentBitAppender.class.getDeclaredField("recordQueue");
+
+    // Installing the buffer directly leaves no worker to drain it, standing in for a stalled Fluent Bit.
+    field.setAccessible(true);
+    field.set(appender, new ArrayBlockingQueue<>(1));
+
+    appender.handleOutput(new RecordFixture().setMessage("kept"));
+    appender.handleOutput(new RecordFixture().setMessage("dropped"));
+    appender.handleOutput(new RecordFixture().setMessage("dropped"));
+
+    Assert.assertEquals(appender.getDroppedCount(), 2L);
+  }
 }
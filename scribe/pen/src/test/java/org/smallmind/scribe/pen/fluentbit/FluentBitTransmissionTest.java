@@ -34,9 +34,12 @@ package org.smallmind.scribe.pen.fluentbit;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -53,9 +56,10 @@ import org.testng.annotations.Test;
 
 /**
  * Drives the {@code FluentBitWorker} send path end-to-end against a loopback {@link ServerSocket} that
- * stands in for a Fluent Bit TCP input. The worker only writes the MessagePack-encoded batch and never
- * reads a response, so a bare accepting socket is enough to exercise the real connect-and-transmit logic
- * without Docker — the same loopback strategy the syslog appender test uses for UDP.
+ * stands in for a Fluent Bit TCP input. Unless acknowledgements are required the worker only writes the
+ * MessagePack-encoded batch and never reads a response, so a bare accepting socket is enough to exercise the
+ * real connect-and-transmit logic without Docker — the same loopback strategy the syslog appender test uses
+ * for UDP. The ack tests answer each chunk id the way Fluent Bit's {@code forward} input does.
  */
 @Test(groups = "unit")
 public class FluentBitTransmissionTest {
@@ -192,6 +196,172 @@ public class FluentBitTransmissionTest {
     appender.close();
   }
 
+  public void testAcknowledgedChunkIsNotReported ()
+    throws Exception {
+
+    CountDownLatch acknowledged = new CountDownLatch(1);
+
+    Thread serverThread = new Thread(() -> {
+      try (Socket client = serverSocket.accept()) {
+
+        byte[] chunkId = readChunkId(client.getInputStream());
+        OutputStream outputStream = client.getOutputStream();
+
+        // {"ack": chunkId}
+        outputStream.write(new byte[] {(byte)0x81, (byte)0xA3, 'a', 'c', 'k', (byte)(0xA0 | chunkId.length)});
+        outputStream.write(chunkId);
+        outputStream.flush();
+        acknowledged.countDown();
+        // hold the connection open until the appender closes it
+        client.getInputStream().read();
+      } catch (IOException ioException) {
+        // teardown race; nothing to capture
+      }
+    });
+
+    serverThread.setDaemon(true);
+    serverThread.start();
+
+    CapturingErrorHandler errorHandler = new CapturingErrorHandler();
+    FluentBitAppender appender = new FluentBitAppender("ack-fluentbit", errorHandler);
+
+    appender.setHost("localhost");
+    appender.setPort(serverPort);
+    appender.setRequireAck(true);
+    appender.setTimeoutMilliseconds(2000);
+    appender.afterPropertiesSet();
+
+    appender.publish(new RecordFixture().setLevel(Level.INFO).setMessage("ack-marker").setMillis(System.currentTimeMillis()));
+
+    Assert.assertTrue(acknowledged.await(5, TimeUnit.SECONDS), "loopback server never saw a chunk id");
+    appender.close();
+    Assert.assertEquals(errorHandler.reported.getCount(), 1L, "acknowledged chunk was reported as lost");
+  }
+
+  public void testUnacknowledgedChunkIsReported ()
+    throws Exception {
+
+    // Captured so the accept loop cannot outlive this test and steal connections from the next one's socket.
+    ServerSocket listeningSocket = serverSocket;
+
+    Thread serverThread = new Thread(() -> {
+      try {
+        while (true) {
+
+          Socket client = listeningSocket.accept();
+
+          // swallow chunks without ever acknowledging them
+          Thread drainThread = new Thread(() -> {
+            try (client) {
+              while (client.getInputStream().read() >= 0) {
+              }
+            } catch (IOException ioException) {
+              // connection abandoned by the appender
+            }
+          });
+
+          drainThread.setDaemon(true);
+          drainThread.start();
+        }
+      } catch (IOException ioException) {
+        // server socket closed on teardown
+      }
+    });
+
+    serverThread.setDaemon(true);
+    serverThread.start();
+
+    CapturingErrorHandler errorHandler = new CapturingErrorHandler();
+    FluentBitAppender appender = new FluentBitAppender("noack-fluentbit", errorHandler);
+
+    appender.setHost("localhost");
+    appender.setPort(serverPort);
+    appender.setRequireAck(true);
+    appender.setRetryAttempts(2);
+    appender.setTimeoutMilliseconds(200);
+    appender.afterPropertiesSet();
+
+    appender.publish(new RecordFixture().setLevel(Level.INFO).setMessage("lost").setMillis(System.currentTimeMillis()));
+
+    Assert.assertTrue(errorHandler.reported.await(10, TimeUnit.SECONDS), "missing acknowledgement never reached the error handler");
+
+    appender.close();
+  }
+
+  public void testGzipChunkIsCompressedPackedForward ()
+    throws Exception {
+
+    CountDownLatch received = new CountDownLatch(1);
+    byte[][] frame = new byte[1][];
+
+    Thread serverThread = new Thread(() -> {
+      try (Socket client = serverSocket.accept()) {
+
+        InputStream inputStream = client.getInputStream();
+        byte[] buffer = new byte[8192];
+        int read = inputStream.read(buffer);
+
+        if (read > 0) {
+          frame[0] = Arrays.copyOf(buffer, read);
+          received.countDown();
+        }
+      } catch (IOException ioException) {
+        // teardown race; nothing to capture
+      }
+    });
+
+    serverThread.setDaemon(true);
+    serverThread.start();
+
+    FluentBitAppender appender = new FluentBitAppender("gzip");
+
+    appender.setHost("localhost");
+    appender.setPort(serverPort);
+    appender.setGzip(true);
+    appender.afterPropertiesSet();
+
+    appender.publish(new RecordFixture().setLevel(Level.INFO).setMessage("compressed-marker").setMillis(System.currentTimeMillis()));
+
+    Assert.assertTrue(received.await(5, TimeUnit.SECONDS), "loopback server received no chunk");
+    appender.close();
+
+    // [tag "gzip", bin32 <gzip stream>, {...}]
+    Assert.assertEquals(frame[0][0], (byte)0x93);
+    Assert.assertEquals(frame[0][6], (byte)0xC6);
+    Assert.assertEquals(frame[0][11], (byte)0x1F);
+    Assert.assertEquals(frame[0][12], (byte)0x8B);
+    Assert.assertTrue(new String(frame[0], StandardCharsets.ISO_8859_1).contains("compressed"));
+    Assert.assertFalse(new String(frame[0], StandardCharsets.ISO_8859_1).contains("compressed-marker"));
+  }
+
+  private byte[] readChunkId (InputStream inputStream)
+    throws IOException {
+
+    byte[] marker = new byte[] {(byte)0xA5, 'c', 'h', 'u', 'n', 'k'};
+    int matched = 0;
+    int singleByte;
+
+    while ((singleByte = inputStream.read()) >= 0) {
+      if ((byte)singleByte == marker[matched]) {
+        if (++matched == marker.length) {
+
+          byte[] chunkId = new byte[inputStream.read() & 0x1F];
+          int offset = 0;
+
+          while (offset < chunkId.length) {
+            offset += inputStream.read(chunkId, offset, chunkId.length - offset);
+          }
+
+          return chunkId;
+        }
+      } else {
+        matched = ((byte)singleByte == marker[0]) ? 1 : 0;
+      }
+    }
+
+    throw new IOException("No chunk id in stream");
+  }
+
   private static class CapturingErrorHandler implements ErrorHandler {
 
     private final CountDownLatch reported = new CountDownLatch(1);
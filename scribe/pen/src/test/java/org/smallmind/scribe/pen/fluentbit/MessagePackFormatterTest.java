@@ -32,7 +32,9 @@
  */
 package org.smallmind.scribe.pen.fluentbit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
 import org.smallmind.scribe.pen.Level;
 import org.smallmind.scribe.pen.LoggerContextFixture;
 import org.smallmind.scribe.pen.NullTimestamp;
@@ -180,4 +182,17 @@ public class MessagePackFormatterTest {
       return outerException;
     }
   }
+
+  public void testStreamedPackMatchesNodeFormat ()
+    throws Exception {
+
+    // THREAD and MILLISECONDS are left out because a decoded small long reads back as an int node.
+    MessagePackFormatter formatter = new MessagePackFormatter(new NullTimestamp(), new RecordElement[] {RecordElement.LEVEL, RecordElement.MESSAGE, RecordElement.LOGGER_NAME, RecordElement.LOGGER_CONTEXT, RecordElement.PARAMETERS, RecordElement.STACK_TRACE}, "\n");
+    RecordFixture record = new RecordFixture().setLevel(Level.ERROR).setMessage("packed").setLoggerName("com.example.Svc").setLoggerContext(new LoggerContextFixture(true, "com.example.Svc", "run", "Svc.java", 12, false)).setParameters(new Parameter[] {new Parameter("tenant", "acme")}).setThrown(new IllegalStateException("bad"));
+    MessagePackWriter writer = new MessagePackWriter();
+
+    formatter.pack(record, null, writer);
+
+    Assert.assertEquals(new ObjectMapper(new MessagePackFactory()).readTree(writer.toByteArray()), formatter.format(record));
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2007 through 2026 David Berkman
+ *
+ * This file is part of the SmallMind Code Project.
+ *
+ * The SmallMind Code Project is free software, you can redistribute
+ * it and/or modify it under either, at your discretion...
+ *
+ * 1) The terms of GNU Affero General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * ...or...
+ *
+ * 2) The terms of the Apache License, Version 2.0.
+ *
+ * The SmallMind Code Project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License or Apache License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * and the Apache License along with the SmallMind Code Project. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.apache.org/licenses/LICENSE-2.0>.
+ *
+ * Additional permission under the GNU Affero GPL version 3 section 7
+ * ------------------------------------------------------------------
+ * If you modify this Program, or any covered work, by linking or
+ * combining it with other code, such other code is not for that reason
+ * alone subject to any of the requirements of the GNU Affero GPL
+ * version 3.
+ */
+package org.smallmind.scribe.pen.fluentbit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Checks the {@link MessagePackWriter} encodings byte-for-byte against the MessagePack specification, including
+ * the boundaries where each value switches to a wider format and the UTF-8 encoding of supplementary and
+ * unpaired surrogate characters.
+ */
+@Test(groups = "unit")
+public class MessagePackWriterTest {
+
+  private byte[] bytes (int... values) {
+
+    byte[] bytes = new byte[values.length];
+
+    for (int index = 0; index < values.length; index++) {
+      bytes[index] = (byte)values[index];
+    }
+
+    return bytes;
+  }
+
+  public void testIntegerBoundaries () {
+
+    MessagePackWriter writer = new MessagePackWriter();
+
+    writer.packLong(127);
+    writer.packLong(128);
+    writer.packLong(65536);
+    writer.packLong(-32);
+    writer.packLong(-33);
+    writer.packLong(Long.MIN_VALUE);
+
+    Assert.assertEquals(writer.toByteArray(), bytes(0x7F, 0xCC, 0x80, 0xCE, 0x00, 0x01, 0x00, 0x00, 0xE0, 0xD0, 0xDF, 0xD3, 0x80, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00));
+  }
+
+  public void testStringsEncodeAsUtf8 () {
+
+    String text = "hé€😀";
+    MessagePackWriter writer = new MessagePackWriter();
+    byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+
+    writer.packString(text);
+
+    Assert.assertEquals(writer.size(), utf8.length + 1);
+    Assert.assertEquals(writer.getBuffer()[0], (byte)(0xA0 | utf8.length));
+    for (int index = 0; index < utf8.length; index++) {
+      Assert.assertEquals(writer.getBuffer()[index + 1], utf8[index]);
+    }
+  }
+
+  public void testUnpairedSurrogateBecomesQuestionMark () {
+
+    MessagePackWriter writer = new MessagePackWriter();
+
+    writer.packString("a\ud800b");
+
+    Assert.assertEquals(writer.toByteArray(), bytes(0xA3, 'a', '?', 'b'));
+  }
+
+  public void testLongStringUsesStr8AndGrowsBuffer () {
+
+    MessagePackWriter writer = new MessagePackWriter(16);
+
+    writer.packString("x".repeat(200));
+
+    Assert.assertEquals(writer.size(), 202);
+    Assert.assertEquals(writer.getBuffer()[0], (byte)0xD9);
+    Assert.assertEquals(writer.getBuffer()[1], (byte)200);
+  }
+
+  public void testDeferredMapAndBinaryHeaders ()
+    throws IOException {
+
+    MessagePackWriter writer = new MessagePackWriter();
+    int mapMark = writer.beginMap();
+    int binaryMark;
+
+    writer.packString("k");
+    writer.packNil();
+    writer.endMap(mapMark, 1);
+    binaryMark = writer.beginBinary();
+    writer.asOutputStream().write(7);
+    writer.endBinary(binaryMark);
+
+    Assert.assertEquals(writer.toByteArray(), bytes(0xDE, 0x00, 0x01, 0xA1, 'k', 0xC0, 0xC6, 0x00, 0x00, 0x00, 0x01, 0x07));
+  }
+
+  public void testEventTimeCarriesMilliseconds () {
+
+    MessagePackWriter writer = new MessagePackWriter();
+
+    writer.packEventTime(1500L);
+
+    Assert.assertEquals(writer.toByteArray(), bytes(0xD7, 0x00, 0x00, 0x00, 0x00, 0x01, 0x1D, 0xCD, 0x65, 0x00));
+  }
+
+  public void testRewindDiscardsPartialValue () {
+
+    MessagePackWriter writer = new MessagePackWriter();
+
+    writer.packBoolean(true);
+    writer.packArrayHeader(2);
+    writer.packString("partial");
+    writer.rewind(1);
+    writer.packBoolean(false);
+
+    Assert.assertEquals(writer.toByteArray(), bytes(0xC3, 0xC2));
+  }
+}